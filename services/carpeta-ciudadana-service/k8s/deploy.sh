@@ -23,6 +23,13 @@ kubectl apply -f k8s/configmap.yaml
 echo "🗂️  Applying Kubernetes secrets..."
 kubectl apply -f k8s/secret.yaml
 
+# Secreto de los cursores de paginación: se genera una vez y se conserva entre despliegues
+if ! kubectl get secret carpeta-ciudadana-cursor-secret -n carpeta-ciudadana >/dev/null 2>&1; then
+  echo "🔑 Creating pagination cursor secret..."
+  kubectl create secret generic carpeta-ciudadana-cursor-secret -n carpeta-ciudadana \
+    --from-literal=PAGINACION_CURSOR_SECRETO="$(openssl rand -base64 32)"
+fi
+
 echo "🚀 Building carpeta-ciudadana-service OS and DB..."
 kubectl apply -f k8s/infrastructure.yaml
 
@@ -1,5 +1,9 @@
 package co.edu.eafit.carpeta.ciudadana.config;
 
+import co.edu.eafit.carpeta.ciudadana.repository.schema.DocumentoTableSchema;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.EventoOutboxTableSchema;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.EventoProcesadoTableSchema;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.HistorialAccesoTableSchema;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -8,6 +12,7 @@ import software.amazon.awssdk.core.waiters.WaiterResponse;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -25,12 +30,27 @@ public class DynamoDbInitializer implements CommandLineRunner {
         List<String> tablas = Arrays.asList(
             "CarpetaCiudadano",
             "Documento", 
-            "HistorialAcceso"
+            "HistorialAcceso",
+            EventoOutboxTableSchema.TABLE_NAME,
+            EventoProcesadoTableSchema.TABLE_NAME
         );
 
         for (String tabla : tablas) {
             crearTablaSiNoExiste(tabla);
         }
+
+        // Tablas creadas antes de existir el índice
+        crearIndiceSiNoExiste("Documento", indiceFechaRecepcion(), atributo("fechaRecepcion"));
+        crearIndiceSiNoExiste("HistorialAcceso", indiceFechaAcceso(), atributo("fechaAcceso"));
+        crearIndiceSiNoExiste("HistorialAcceso", indiceDocumentoAcceso(),
+                atributo("documentoId"), atributo("fechaAcceso"));
+
+        // Los accesos archivados en MinIO se eliminan de la tabla por TTL
+        habilitarTtl("HistorialAcceso", "expiraEn");
+        // Los eventos ya publicados (o fallidos) se purgan del outbox tras la retención
+        habilitarTtl(EventoOutboxTableSchema.TABLE_NAME, "expiraEn");
+        // Las marcas de deduplicación expiran al terminar la ventana
+        habilitarTtl(EventoProcesadoTableSchema.TABLE_NAME, "expiraEn");
         
         log.info("Inicialización de tablas DynamoDB completada");
     }
@@ -97,7 +117,8 @@ public class DynamoDbInitializer implements CommandLineRunner {
                                 AttributeDefinition.builder()
                                         .attributeName("documentoId")
                                         .attributeType(ScalarAttributeType.S)
-                                        .build()
+                                        .build(),
+                                atributo("fechaRecepcion")
                         )
                         .keySchema(
                                 KeySchemaElement.builder()
@@ -109,6 +130,7 @@ public class DynamoDbInitializer implements CommandLineRunner {
                                         .keyType(KeyType.RANGE)
                                         .build()
                         )
+                        .globalSecondaryIndexes(indiceFechaRecepcion())
                         .billingMode(BillingMode.PAY_PER_REQUEST)
                         .build();
 
@@ -123,7 +145,9 @@ public class DynamoDbInitializer implements CommandLineRunner {
                                 AttributeDefinition.builder()
                                         .attributeName("accesoId")
                                         .attributeType(ScalarAttributeType.S)
-                                        .build()
+                                        .build(),
+                                atributo("documentoId"),
+                                atributo("fechaAcceso")
                         )
                         .keySchema(
                                 KeySchemaElement.builder()
@@ -135,6 +159,38 @@ public class DynamoDbInitializer implements CommandLineRunner {
                                         .keyType(KeyType.RANGE)
                                         .build()
                         )
+                        .globalSecondaryIndexes(indiceFechaAcceso(), indiceDocumentoAcceso())
+                        .billingMode(BillingMode.PAY_PER_REQUEST)
+                        .build();
+
+            case EventoOutboxTableSchema.TABLE_NAME:
+                return CreateTableRequest.builder()
+                        .tableName(nombreTabla)
+                        .attributeDefinitions(
+                                atributo("eventoId"),
+                                atributo("particionPendiente"),
+                                atributo("timestamp")
+                        )
+                        .keySchema(
+                                KeySchemaElement.builder()
+                                        .attributeName("eventoId")
+                                        .keyType(KeyType.HASH)
+                                        .build()
+                        )
+                        .globalSecondaryIndexes(indicePendientesOutbox())
+                        .billingMode(BillingMode.PAY_PER_REQUEST)
+                        .build();
+
+            case EventoProcesadoTableSchema.TABLE_NAME:
+                return CreateTableRequest.builder()
+                        .tableName(nombreTabla)
+                        .attributeDefinitions(atributo("clave"))
+                        .keySchema(
+                                KeySchemaElement.builder()
+                                        .attributeName("clave")
+                                        .keyType(KeyType.HASH)
+                                        .build()
+                        )
                         .billingMode(BillingMode.PAY_PER_REQUEST)
                         .build();
 
@@ -143,6 +199,109 @@ public class DynamoDbInitializer implements CommandLineRunner {
         }
     }
 
+    private AttributeDefinition atributo(String nombre) {
+        return AttributeDefinition.builder()
+                .attributeName(nombre)
+                .attributeType(ScalarAttributeType.S)
+                .build();
+    }
+
+    private GlobalSecondaryIndex indiceFechaRecepcion() {
+        return indiceGlobal(DocumentoTableSchema.INDICE_FECHA_RECEPCION, "carpetaId", "fechaRecepcion");
+    }
+
+    private GlobalSecondaryIndex indiceFechaAcceso() {
+        return indiceGlobal(HistorialAccesoTableSchema.INDICE_FECHA_ACCESO, "carpetaId", "fechaAcceso");
+    }
+
+    private GlobalSecondaryIndex indiceDocumentoAcceso() {
+        return indiceGlobal(HistorialAccesoTableSchema.INDICE_DOCUMENTO, "documentoId", "fechaAcceso");
+    }
+
+    private GlobalSecondaryIndex indicePendientesOutbox() {
+        return indiceGlobal(EventoOutboxTableSchema.INDICE_PENDIENTES, "particionPendiente", "timestamp");
+    }
+
+    private GlobalSecondaryIndex indiceGlobal(String nombre, String particion, String orden) {
+        return GlobalSecondaryIndex.builder()
+                .indexName(nombre)
+                .keySchema(
+                        KeySchemaElement.builder().attributeName(particion).keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName(orden).keyType(KeyType.RANGE).build())
+                .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                .build();
+    }
+
+    /**
+     * Añade el GSI a una tabla existente con UpdateTable. DynamoDB lo rellena en segundo plano;
+     * mientras tanto las consultas sobre el índice fallan o devuelven resultados incompletos.
+     */
+    private void crearIndiceSiNoExiste(String nombreTabla, GlobalSecondaryIndex indice,
+                                       AttributeDefinition... atributos) {
+        try {
+            TableDescription tabla = dynamoDbClient.describeTable(DescribeTableRequest.builder()
+                            .tableName(nombreTabla)
+                            .build())
+                    .table();
+
+            boolean existe = tabla.hasGlobalSecondaryIndexes() && tabla.globalSecondaryIndexes().stream()
+                    .anyMatch(gsi -> gsi.indexName().equals(indice.indexName()));
+            if (existe) {
+                return;
+            }
+
+            List<AttributeDefinition> definiciones = new ArrayList<>(tabla.attributeDefinitions());
+            for (AttributeDefinition atributo : atributos) {
+                if (definiciones.stream().noneMatch(d -> d.attributeName().equals(atributo.attributeName()))) {
+                    definiciones.add(atributo);
+                }
+            }
+
+            dynamoDbClient.updateTable(UpdateTableRequest.builder()
+                    .tableName(nombreTabla)
+                    .attributeDefinitions(definiciones)
+                    .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder()
+                            .create(CreateGlobalSecondaryIndexAction.builder()
+                                    .indexName(indice.indexName())
+                                    .keySchema(indice.keySchema())
+                                    .projection(indice.projection())
+                                    .build())
+                            .build())
+                    .build());
+            log.info("Índice {} creado en tabla {}", indice.indexName(), nombreTabla);
+
+        } catch (Exception e) {
+            log.error("Error creando índice {} en tabla {}: {}", indice.indexName(), nombreTabla, e.getMessage());
+        }
+    }
+
+    private void habilitarTtl(String nombreTabla, String atributo) {
+        try {
+            TimeToLiveStatus estado = dynamoDbClient.describeTimeToLive(DescribeTimeToLiveRequest.builder()
+                            .tableName(nombreTabla)
+                            .build())
+                    .timeToLiveDescription()
+                    .timeToLiveStatus();
+
+            if (estado == TimeToLiveStatus.ENABLED || estado == TimeToLiveStatus.ENABLING) {
+                log.info("TTL de tabla {} ya habilitado", nombreTabla);
+                return;
+            }
+
+            dynamoDbClient.updateTimeToLive(UpdateTimeToLiveRequest.builder()
+                    .tableName(nombreTabla)
+                    .timeToLiveSpecification(TimeToLiveSpecification.builder()
+                            .attributeName(atributo)
+                            .enabled(true)
+                            .build())
+                    .build());
+            log.info("TTL habilitado en tabla {} sobre el atributo {}", nombreTabla, atributo);
+
+        } catch (Exception e) {
+            log.error("Error habilitando TTL en tabla {}: {}", nombreTabla, e.getMessage());
+        }
+    }
+
     private void esperarTablaActiva(String nombreTabla) {
         try {
             WaiterResponse<DescribeTableResponse> waiterResponse = 
@@ -1,10 +1,16 @@
 package co.edu.eafit.carpeta.ciudadana.config;
 
+import co.edu.eafit.carpeta.ciudadana.event.formato.CborMessageConverter;
+import co.edu.eafit.carpeta.ciudadana.event.formato.ConvertidorPorContentType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
-import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -18,6 +24,38 @@ public class RabbitMQConfig {
   public static final String QUEUE_AUTENTICADO = "documento.autenticado.queue";
   public static final String ROUTING_KEY_AUTENTICADO = "documento.autenticado";
 
+  /** Hash consistente por carpetaId sobre las colas documento.autenticado.queue.shard.N. */
+  public static final String EXCHANGE_AUTENTICADO_SHARDS = "documento.autenticado.sharded";
+
+  public static final String HEADER_CARPETA = "carpetaId";
+
+  /** Carril masivo de documento.autenticado (importaciones), separado del interactivo. */
+  public static final String QUEUE_AUTENTICADO_MASIVO = "documento.autenticado.masivo.queue";
+
+  public static final String ROUTING_KEY_AUTENTICADO_MASIVO = "documento.autenticado.masivo";
+
+  /** Carril del evento (interactive | bulk); ver {@code Carril}. */
+  public static final String HEADER_CARRIL = "x-carril";
+
+  /**
+   * Instante de publicación en milisegundos epoch; el timestamp AMQP solo tiene resolución de
+   * segundos.
+   */
+  public static final String HEADER_PUBLICADO_MS = "x-publicado-ms";
+
+  public static final String SUFIJO_SHARD = ".shard.";
+
+  /** Sufijos de las colas de reintento diferido y de parking (ver ReintentadorMensajes). */
+  public static final String SUFIJO_REINTENTO = ".retry.";
+
+  public static final String SUFIJO_PARKING = ".parking";
+
+  /** Paquete de las clases de evento que se pueden instanciar desde el header __TypeId__. */
+  private static final String PAQUETE_EVENTOS = "co.edu.eafit.carpeta.ciudadana.event";
+
+  /** Fanout de invalidación de la caché local de carpetas; cada réplica tiene su propia cola. */
+  public static final String EXCHANGE_CACHE_CARPETA = "carpeta-ciudadana.cache.invalidacion";
+
   @Bean
   public Exchange documentoExchange() {
     return ExchangeBuilder.topicExchange(EXCHANGE_NAME).durable(true).build();
@@ -47,24 +85,218 @@ public class RabbitMQConfig {
         .build();
   }
 
+  /**
+   * documento.autenticado se reparte en N colas por hash consistente del header carpetaId
+   * (plugin rabbitmq_consistent_hash_exchange): los eventos de una carpeta caen siempre en la
+   * misma cola y cada cola tiene un único consumidor activo (single active consumer), así que se
+   * procesan en orden mientras el throughput escala con el número de shards. Cambiar el número de
+   * shards reasigna aproximadamente 1/N de las carpetas.
+   *
+   * <p>La cola documento.autenticado.queue ya no está enlazada al topic exchange: solo recibe lo
+   * que se publica directamente en ella y se sigue consumiendo para vaciarla.
+   */
+  @Bean
+  public Declarables shardsAutenticado(
+      Exchange documentoExchange, @Value("${rabbitmq.autenticado.shards:8}") int shards) {
+    CustomExchange exchangeShards =
+        new CustomExchange(
+            EXCHANGE_AUTENTICADO_SHARDS,
+            "x-consistent-hash",
+            true,
+            false,
+            Map.of("hash-header", HEADER_CARPETA));
+
+    List<Declarable> declarables = new ArrayList<>();
+    declarables.add(exchangeShards);
+    // Lo publicado en el topic exchange con documento.autenticado también se reparte
+    declarables.add(
+        BindingBuilder.bind(exchangeShards)
+            .to(documentoExchange)
+            .with(ROUTING_KEY_AUTENTICADO)
+            .noargs());
+    for (int shard = 0; shard < shards; shard++) {
+      Queue cola =
+          QueueBuilder.durable(colaShard(shard))
+              .withArgument("x-queue-type", "quorum")
+              .withArgument("x-quorum-initial-group-size", 3)
+              .singleActiveConsumer()
+              .build();
+      declarables.add(cola);
+      // En el exchange de hash consistente la routing key del binding es el peso del shard
+      declarables.add(BindingBuilder.bind(cola).to(exchangeShards).with("1").noargs());
+    }
+    return new Declarables(declarables);
+  }
+
+  public static String colaShard(int shard) {
+    return QUEUE_AUTENTICADO + SUFIJO_SHARD + shard;
+  }
+
+  /**
+   * Carril masivo: una sola cola, sin shards; los productores publican en ella directamente o en
+   * el topic exchange con documento.autenticado.masivo.
+   */
+  @Bean
+  public Queue documentoAutenticadoMasivoQueue() {
+    return QueueBuilder.durable(QUEUE_AUTENTICADO_MASIVO)
+        .withArgument("x-queue-type", "quorum")
+        .withArgument("x-quorum-initial-group-size", 3)
+        .build();
+  }
+
   @Bean
-  public Binding documentoAutenticadoBinding(
-      Queue documentoAutenticadoQueue, Exchange documentoExchange) {
-    return BindingBuilder.bind(documentoAutenticadoQueue)
+  public Binding documentoAutenticadoMasivoBinding(
+      Queue documentoAutenticadoMasivoQueue, Exchange documentoExchange) {
+    return BindingBuilder.bind(documentoAutenticadoMasivoQueue)
         .to(documentoExchange)
-        .with(ROUTING_KEY_AUTENTICADO)
+        .with(ROUTING_KEY_AUTENTICADO_MASIVO)
         .noargs();
   }
 
+  /**
+   * Reintentos diferidos de documento.autenticado, por carril: una cola de retraso por intento,
+   * sin consumidores, cuyos mensajes expiran (TTL por mensaje) y vuelven por dead-lettering al
+   * exchange de entrada del carril (el de shards, que los devuelve al shard de su carpeta, o la
+   * cola masiva); y una cola de parking para los mensajes que agotaron los intentos. El TTL va en
+   * cada mensaje y no en la cola para poder cambiar los retrasos sin redeclarar las colas.
+   */
+  @Bean
+  public Declarables reintentosAutenticado(
+      @Value("${rabbitmq.reintentos.retrasos-ms:5000,30000,120000}") List<Long> retrasosMs) {
+    List<Declarable> colas = new ArrayList<>();
+    for (String cola : List.of(QUEUE_AUTENTICADO, QUEUE_AUTENTICADO_MASIVO)) {
+      for (int intento = 1; intento <= retrasosMs.size(); intento++) {
+        colas.add(
+            QueueBuilder.durable(colaReintento(cola, intento))
+                .deadLetterExchange(exchangeReentrada(cola))
+                .deadLetterRoutingKey(cola)
+                .build());
+      }
+      colas.add(
+          QueueBuilder.durable(colaParking(cola))
+              .withArgument("x-queue-type", "quorum")
+              .withArgument("x-quorum-initial-group-size", 3)
+              .build());
+    }
+    return new Declarables(colas);
+  }
+
+  public static String colaReintento(String cola, int intento) {
+    return cola + SUFIJO_REINTENTO + intento;
+  }
+
+  public static String colaParking(String cola) {
+    return cola + SUFIJO_PARKING;
+  }
+
+  /**
+   * Exchange por el que vuelven a entrar a la cola los mensajes reintentados o reinyectados desde
+   * parking; "" es el exchange por defecto, que enruta por nombre de cola.
+   */
+  public static String exchangeReentrada(String cola) {
+    return QUEUE_AUTENTICADO.equals(cola) ? EXCHANGE_AUTENTICADO_SHARDS : "";
+  }
+
+  @Bean
+  public FanoutExchange carpetaCacheExchange() {
+    return ExchangeBuilder.fanoutExchange(EXCHANGE_CACHE_CARPETA).durable(true).build();
+  }
+
+  /** Cola anónima, exclusiva y auto-delete: vive lo que vive la réplica. */
+  @Bean
+  public Queue carpetaCacheInvalidacionQueue() {
+    return new AnonymousQueue();
+  }
+
+  @Bean
+  public Binding carpetaCacheInvalidacionBinding(
+      Queue carpetaCacheInvalidacionQueue, FanoutExchange carpetaCacheExchange) {
+    return BindingBuilder.bind(carpetaCacheInvalidacionQueue).to(carpetaCacheExchange);
+  }
+
+  /**
+   * Contenedor por lotes para documento.autenticado: entrega al listener hasta batchSize mensajes
+   * (o los que lleguen en receiveTimeout) y los confirma juntos. El prefetch debe ser al menos
+   * batchSize para que un consumidor pueda llenar el lote.
+   */
+  @Bean
+  public SimpleRabbitListenerContainerFactory autenticadoBatchContainerFactory(
+      ConnectionFactory connectionFactory,
+      ConvertidorPorContentType messageConverter,
+      @Value("${rabbitmq.autenticado.prefetch:250}") int prefetch,
+      @Value("${rabbitmq.autenticado.batch-size:100}") int batchSize,
+      @Value("${rabbitmq.autenticado.receive-timeout-ms:500}") long receiveTimeoutMs,
+      @Value("${rabbitmq.autenticado.concurrencia:2}") int concurrencia,
+      @Value("${rabbitmq.autenticado.concurrencia-maxima:4}") int concurrenciaMaxima) {
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    factory.setConnectionFactory(connectionFactory);
+    factory.setMessageConverter(messageConverter);
+    factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+    factory.setBatchListener(true);
+    factory.setConsumerBatchEnabled(true);
+    factory.setBatchSize(batchSize);
+    factory.setPrefetchCount(Math.max(prefetch, batchSize));
+    factory.setReceiveTimeout(receiveTimeoutMs);
+    factory.setConcurrentConsumers(concurrencia);
+    factory.setMaxConcurrentConsumers(Math.max(concurrencia, concurrenciaMaxima));
+    return factory;
+  }
+
+  /**
+   * Contenedor del carril masivo: concurrencia fija y lotes pequeños, para que una importación
+   * no ocupe los hilos ni el pool de DynamoDB que necesita el carril interactivo. Su backlog
+   * crece en la cola en lugar de en la latencia de los ciudadanos.
+   */
+  @Bean
+  public SimpleRabbitListenerContainerFactory autenticadoMasivoContainerFactory(
+      ConnectionFactory connectionFactory,
+      ConvertidorPorContentType messageConverter,
+      @Value("${rabbitmq.autenticado.masivo.prefetch:50}") int prefetch,
+      @Value("${rabbitmq.autenticado.masivo.batch-size:25}") int batchSize,
+      @Value("${rabbitmq.autenticado.receive-timeout-ms:500}") long receiveTimeoutMs,
+      @Value("${rabbitmq.autenticado.masivo.concurrencia:1}") int concurrencia) {
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    factory.setConnectionFactory(connectionFactory);
+    factory.setMessageConverter(messageConverter);
+    factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+    factory.setBatchListener(true);
+    factory.setConsumerBatchEnabled(true);
+    factory.setBatchSize(batchSize);
+    factory.setPrefetchCount(Math.max(prefetch, batchSize));
+    factory.setReceiveTimeout(receiveTimeoutMs);
+    factory.setConcurrentConsumers(concurrencia);
+    factory.setMaxConcurrentConsumers(concurrencia);
+    return factory;
+  }
+
+  /**
+   * Los consumidores leen JSON y CBOR según el content-type de cada mensaje. Los productores
+   * escriben JSON salvo los eventos cuyo destino tiene otro formato en rabbitmq.formato.*, que lo
+   * piden explícitamente. Las clases de evento son el esquema de ambos formatos.
+   */
   @Bean
-  public MessageConverter jsonMessageConverter() {
-    return new Jackson2JsonMessageConverter();
+  public ConvertidorPorContentType messageConverter() {
+    Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+    CborMessageConverter cbor = new CborMessageConverter(PAQUETE_EVENTOS);
+    return new ConvertidorPorContentType(
+        Map.of(
+            MessageProperties.CONTENT_TYPE_JSON, json,
+            CborMessageConverter.CONTENT_TYPE_CBOR, cbor),
+        json);
   }
 
+  /**
+   * Publica por una conexión separada de la de los consumidores (el broker puede bloquear una
+   * conexión por flow control sin afectar a la otra). Con mandatory, los mensajes sin ruta se
+   * devuelven y quedan en el CorrelationData del confirm.
+   */
   @Bean
-  public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+  public RabbitTemplate rabbitTemplate(
+      ConnectionFactory connectionFactory, ConvertidorPorContentType messageConverter) {
     RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-    rabbitTemplate.setMessageConverter(jsonMessageConverter());
+    rabbitTemplate.setMessageConverter(messageConverter);
+    rabbitTemplate.setUsePublisherConnection(true);
+    rabbitTemplate.setMandatory(true);
     return rabbitTemplate;
   }
 }
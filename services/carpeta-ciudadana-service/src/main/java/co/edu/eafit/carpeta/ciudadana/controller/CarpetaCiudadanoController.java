@@ -1,20 +1,29 @@
 package co.edu.eafit.carpeta.ciudadana.controller;
 
+import co.edu.eafit.carpeta.ciudadana.dto.request.BatchGetDocumentosRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.CrearCarpetaRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.SubirDocumentoConArchivoRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.ObtenerDocumentoRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.ObtenerDocumentosCarpetaRequest;
+import co.edu.eafit.carpeta.ciudadana.dto.request.CampoOrdenDocumento;
+import co.edu.eafit.carpeta.ciudadana.dto.request.DireccionOrden;
+import co.edu.eafit.carpeta.ciudadana.dto.request.ListarDocumentosRequest;
+import co.edu.eafit.carpeta.ciudadana.dto.request.ListarHistorialRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.BuscarCarpetaRequest;
+import co.edu.eafit.carpeta.ciudadana.dto.request.VistaDocumento;
 import co.edu.eafit.carpeta.ciudadana.dto.response.ApiResponse;
 import co.edu.eafit.carpeta.ciudadana.dto.response.CrearCarpetaResponse;
 import co.edu.eafit.carpeta.ciudadana.dto.response.DocumentoResponse;
 import co.edu.eafit.carpeta.ciudadana.dto.response.DocumentosPaginadosResponse;
 import co.edu.eafit.carpeta.ciudadana.dto.response.DocumentoUrlResponse;
+import co.edu.eafit.carpeta.ciudadana.dto.response.HistorialAccesoResponse;
+import co.edu.eafit.carpeta.ciudadana.dto.response.ListaDocumentosResponse;
 import co.edu.eafit.carpeta.ciudadana.dto.response.SubirDocumentoResponse;
 import co.edu.eafit.carpeta.ciudadana.dto.response.CarpetaResponse;
 import co.edu.eafit.carpeta.ciudadana.exception.ResourceNotFoundException;
 import co.edu.eafit.carpeta.ciudadana.service.CarpetaCiudadanoService;
 import co.edu.eafit.carpeta.ciudadana.util.ResponseUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -22,14 +31,21 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Slf4j
 @RestController
@@ -44,6 +60,7 @@ import java.util.List;
 public class CarpetaCiudadanoController {
 
     private final CarpetaCiudadanoService carpetaService;
+    private final ObjectMapper objectMapper;
 
     @Operation(
         summary = "Crear carpeta ciudadana",
@@ -437,7 +454,7 @@ public class CarpetaCiudadanoController {
                             "titulo": "Diploma Universitario",
                             "tipoDocumento": "DIPLOMA",
                             "contextoDocumento": "EDUCACION",
-                            "estadoDocumento": "PROCESADO",
+                            "estadoDocumento": "AUTENTICADO",
                             "fechaRecepcion": "2025-10-21T16:00:00",
                             "fechaUltimaModificacion": "2025-10-21T17:30:00",
                             "esDescargable": true,
@@ -474,15 +491,72 @@ public class CarpetaCiudadanoController {
                 .orElseThrow(() -> new ResourceNotFoundException("Documento", "documentoId", documentoId));
     }
 
+    @Operation(
+        summary = "Obtener varios documentos por ID",
+        description = "Obtiene los metadatos de hasta 100 documentos de la carpeta en una sola petición. " +
+                      "Los IDs que no existan en la carpeta se omiten de la respuesta.",
+        tags = {"Carpeta Ciudadana"}
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Documentos obtenidos exitosamente"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Lista de IDs vacía o con más de 100 elementos"
+        )
+    })
+    @PostMapping("/{carpetaId}/documentos:batchGet")
+    public ResponseEntity<ApiResponse<ListaDocumentosResponse>> obtenerDocumentosEnLote(
+            @Parameter(description = "ID de la carpeta", required = true)
+            @PathVariable String carpetaId,
+
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "IDs de los documentos a obtener",
+                required = true,
+                content = @Content(
+                    schema = @Schema(implementation = BatchGetDocumentosRequest.class),
+                    examples = @ExampleObject(
+                        name = "Obtener documentos",
+                        value = """
+                            {
+                              "documentoIds": [
+                                "660e8400-e29b-41d4-a716-446655440001",
+                                "770e8400-e29b-41d4-a716-446655440002"
+                              ]
+                            }
+                            """
+                    )
+                )
+            )
+            @Valid @RequestBody BatchGetDocumentosRequest request) {
+
+        log.info("Obteniendo {} documentos en lote de carpeta: {}", request.documentoIds().size(), carpetaId);
+
+        List<DocumentoResponse> documentos = ResponseUtil.toDocumentoResponseList(
+                carpetaService.obtenerDocumentos(carpetaId, request.documentoIds()));
+
+        ListaDocumentosResponse response = new ListaDocumentosResponse(
+                carpetaId, documentos, documentos.size(), "Documentos obtenidos exitosamente");
+
+        return ResponseUtil.ok(response, "Documentos obtenidos exitosamente");
+    }
+
     /**
      * 3. Ver mis documentos - Obtener documentos de una carpeta con paginación
      */
     @Operation(
         summary = "Obtener documentos de una carpeta con paginación cursor-based",
         description = "Lista documentos almacenados en la carpeta ciudadana con paginación cursor-based. " +
-                      "Retorna máximo 20 documentos por página. " +
-                      "Usa el campo 'nextCursor' de la respuesta para obtener la siguiente página. " +
-                      "El campo 'hasMore' indica si existen más páginas disponibles.",
+                      "Retorna pageSize documentos por página (20 por defecto, máximo 100), ordenados por " +
+                      "documentoId o por fecha de recepción, ascendente o descendente, con filtros opcionales " +
+                      "por tipo y estado. " +
+                      "Usa el campo 'nextCursor' de la respuesta para obtener la siguiente página; el cursor " +
+                      "está firmado y conserva el orden, los filtros y el tamaño de página de la primera consulta. " +
+                      "El campo 'hasMore' indica si existen más páginas disponibles. " +
+                      "Con vista=RESUMEN solo se leen y retornan los atributos necesarios para la lista " +
+                      "(sin hash, descripción ni fecha de modificación).",
         tags = {"Carpeta Ciudadana"}
     )
     @ApiResponses(value = {
@@ -505,7 +579,7 @@ public class CarpetaCiudadanoController {
                                 "titulo": "Diploma Universitario",
                                 "tipoDocumento": "DIPLOMA",
                                 "contextoDocumento": "EDUCACION",
-                                "estadoDocumento": "PROCESADO",
+                                "estadoDocumento": "AUTENTICADO",
                                 "fechaRecepcion": "2025-10-21T16:00:00",
                                 "fechaUltimaModificacion": "2025-10-21T17:30:00",
                                 "esDescargable": true,
@@ -518,7 +592,7 @@ public class CarpetaCiudadanoController {
                                 "titulo": "Cédula de Ciudadanía",
                                 "tipoDocumento": "CEDULA",
                                 "contextoDocumento": "REGISTRADURIA",
-                                "estadoDocumento": "PROCESADO",
+                                "estadoDocumento": "AUTENTICADO",
                                 "fechaRecepcion": "2025-10-20T10:00:00",
                                 "fechaUltimaModificacion": "2025-10-20T10:00:00",
                                 "esDescargable": true,
@@ -527,7 +601,7 @@ public class CarpetaCiudadanoController {
                                 "hashDocumento": "b4c3d2e1f0g9..."
                               }
                             ],
-                            "nextCursor": "NzcwZTg0MDAtZTI5Yi00MWQ0LWE3MTYtNDQ2NjU1NDQwMDAy",
+                            "nextCursor": "eyJjIjoiNTUwZTg0MDAiLCJrIjp7ImNhcnBldGFJZCI6IlM6NTUwZTg0MDAifSwibiI6MjB9.q3Jx0vB1f9a6mS2dY8kR1w",
                             "hasMore": true
                           },
                           "timestamp": "2025-10-21T18:00:00"
@@ -555,7 +629,7 @@ public class CarpetaCiudadanoController {
                                 "titulo": "Acta de Grado",
                                 "tipoDocumento": "ACTA_GRADO",
                                 "contextoDocumento": "EDUCACION",
-                                "estadoDocumento": "PROCESADO",
+                                "estadoDocumento": "AUTENTICADO",
                                 "fechaRecepcion": "2025-10-19T14:00:00",
                                 "fechaUltimaModificacion": "2025-10-19T14:00:00",
                                 "esDescargable": true,
@@ -598,7 +672,7 @@ public class CarpetaCiudadanoController {
         )
     })
     @GetMapping("/{carpetaId}/documentos")
-    public ResponseEntity<ApiResponse<DocumentosPaginadosResponse>> obtenerDocumentosCarpeta(
+    public ResponseEntity<ApiResponse<DocumentosPaginadosResponse<?>>> obtenerDocumentosCarpeta(
             @Parameter(
                 description = "ID de la carpeta de la cual se obtendrán los documentos",
                 required = true,
@@ -607,20 +681,241 @@ public class CarpetaCiudadanoController {
             @PathVariable String carpetaId,
 
             @Parameter(
-                description = "Cursor de paginación (Base64 encoded). Null o ausente para primera página",
+                description = "Cursor de paginación firmado (campo nextCursor de la página anterior). " +
+                              "Null o ausente para primera página",
+                required = false
+            )
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(
+                description = "Número de documentos por página (1-100, por defecto 20)",
+                required = false,
+                example = "50"
+            )
+            @RequestParam(required = false) Integer pageSize,
+
+            @Parameter(
+                description = "Vista de los documentos: COMPLETA (por defecto, todos los metadatos) o RESUMEN " +
+                        "(solo datos de lista). Con cursor se mantiene la vista de la primera página",
                 required = false,
-                example = "ZG9jLTAwMw=="
+                example = "RESUMEN"
             )
-            @RequestParam(required = false) String cursor) {
+            @RequestParam(required = false) VistaDocumento vista,
 
-        log.info("Obteniendo documentos de carpeta: {}, cursor: {}", carpetaId, cursor);
+            @Parameter(
+                description = "Campo de orden: DOCUMENTO_ID (por defecto) o FECHA_RECEPCION",
+                required = false,
+                example = "FECHA_RECEPCION"
+            )
+            @RequestParam(required = false) CampoOrdenDocumento ordenarPor,
 
-        DocumentosPaginadosResponse response = carpetaService.obtenerDocumentosPaginados(
-                carpetaId, cursor, null);
+            @Parameter(
+                description = "Dirección del orden: ASC (por defecto) o DESC",
+                required = false,
+                example = "DESC"
+            )
+            @RequestParam(required = false) DireccionOrden orden,
+
+            @Parameter(
+                description = "Filtra por tipo de documento",
+                required = false,
+                example = "DIPLOMA"
+            )
+            @RequestParam(required = false) String tipoDocumento,
+
+            @Parameter(
+                description = "Filtra por estado del documento",
+                required = false,
+                example = "AUTENTICADO"
+            )
+            @RequestParam(required = false) String estadoDocumento) {
+
+        log.info("Obteniendo documentos de carpeta: {}, cursor: {}, vista: {}", carpetaId, cursor, vista);
+
+        DocumentosPaginadosResponse<?> response = carpetaService.obtenerDocumentosPaginados(
+                new ListarDocumentosRequest(carpetaId, cursor, pageSize, vista, ordenarPor, orden,
+                        tipoDocumento, estadoDocumento));
 
         return ResponseUtil.ok(response, "Documentos obtenidos exitosamente");
     }
 
+    @Operation(
+        summary = "Obtener historial de accesos de la carpeta (paginado)",
+        description = "Lista los accesos recientes a la carpeta y sus documentos, del más reciente al más antiguo " +
+                      "(orden=ASC para invertirlo), con paginación cursor-based. " +
+                      "Filtros opcionales por documento, tipo de acceso y rango de fechas (inclusivo). " +
+                      "Los accesos archivados en almacenamiento frío se obtienen con /historial/exportar.",
+        tags = {"Carpeta Ciudadana"}
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Historial obtenido exitosamente",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = ApiResponse.class),
+                examples = @ExampleObject(
+                    name = "Página de historial",
+                    value = """
+                        {
+                          "success": true,
+                          "message": "Historial obtenido exitosamente",
+                          "data": {
+                            "items": [
+                              {
+                                "accesoId": "0b6f1f7e-6c2d-4a7b-9d1e-2f3a4b5c6d7e",
+                                "documentoId": "770e8400-e29b-41d4-a716-446655440002",
+                                "tipoAcceso": "VISUALIZACION",
+                                "usuarioAcceso": "1234567890",
+                                "fechaAcceso": "2025-10-21T18:00:00",
+                                "resultadoAcceso": "EXITOSO",
+                                "motivoAcceso": "Consulta de documento"
+                              }
+                            ],
+                            "nextCursor": "eyJjIjoiNTUwZTg0MDAiLCJuIjoyMH0.Vb2mR8p1k0dX4sQ7nT9wYg",
+                            "hasMore": true
+                          },
+                          "timestamp": "2025-10-21T18:00:00"
+                        }
+                        """
+                )
+            )
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Cursor inválido o parámetros fuera de rango"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "Carpeta no encontrada"
+        )
+    })
+    @GetMapping("/{carpetaId}/historial")
+    public ResponseEntity<ApiResponse<DocumentosPaginadosResponse<HistorialAccesoResponse>>> obtenerHistorial(
+            @Parameter(
+                description = "ID de la carpeta",
+                required = true,
+                example = "550e8400-e29b-41d4-a716-446655440000"
+            )
+            @PathVariable String carpetaId,
+
+            @Parameter(
+                description = "Cursor de paginación firmado (campo nextCursor de la página anterior). " +
+                              "Null o ausente para primera página",
+                required = false
+            )
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(
+                description = "Número de accesos por página (1-100, por defecto 20)",
+                required = false,
+                example = "50"
+            )
+            @RequestParam(required = false) Integer pageSize,
+
+            @Parameter(
+                description = "Dirección del orden por fecha: DESC (por defecto) o ASC",
+                required = false,
+                example = "ASC"
+            )
+            @RequestParam(required = false) DireccionOrden orden,
+
+            @Parameter(
+                description = "Filtra por documento",
+                required = false,
+                example = "770e8400-e29b-41d4-a716-446655440002"
+            )
+            @RequestParam(required = false) String documentoId,
+
+            @Parameter(
+                description = "Filtra por tipo de acceso",
+                required = false,
+                example = "VISUALIZACION"
+            )
+            @RequestParam(required = false) String tipoAcceso,
+
+            @Parameter(
+                description = "Fecha mínima del acceso (ISO-8601, inclusiva)",
+                required = false,
+                example = "2025-10-01T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+
+            @Parameter(
+                description = "Fecha máxima del acceso (ISO-8601, inclusiva)",
+                required = false,
+                example = "2025-10-31T23:59:59"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+
+        log.info("Obteniendo historial de carpeta: {}, cursor: {}", carpetaId, cursor);
+
+        DocumentosPaginadosResponse<HistorialAccesoResponse> response = carpetaService.obtenerHistorialPaginado(
+                new ListarHistorialRequest(carpetaId, cursor, pageSize, orden, documentoId, tipoAcceso,
+                        desde, hasta));
+
+        return ResponseUtil.ok(response, "Historial obtenido exitosamente");
+    }
+
+    @Operation(
+        summary = "Exportar historial de accesos (NDJSON)",
+        description = "Descarga el historial completo de la carpeta, incluido el archivado, como NDJSON " +
+                      "(un acceso JSON por línea). Los accesos se leen de DynamoDB y del archivo página a página " +
+                      "y se escriben según llegan, sin cargar el historial en memoria. " +
+                      "Admite los mismos filtros y orden que el listado paginado."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Historial en formato NDJSON",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "Carpeta no encontrada"
+        )
+    })
+    @GetMapping(value = "/{carpetaId}/historial/exportar", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarHistorial(
+            @Parameter(description = "ID de la carpeta", required = true)
+            @PathVariable String carpetaId,
+
+            @Parameter(description = "Dirección del orden por fecha: DESC (por defecto) o ASC")
+            @RequestParam(required = false) DireccionOrden orden,
+
+            @Parameter(description = "Filtra por documento")
+            @RequestParam(required = false) String documentoId,
+
+            @Parameter(description = "Filtra por tipo de acceso")
+            @RequestParam(required = false) String tipoAcceso,
+
+            @Parameter(description = "Fecha mínima del acceso (ISO-8601, inclusiva)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+
+            @Parameter(description = "Fecha máxima del acceso (ISO-8601, inclusiva)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+
+        // Se valida antes de devolver el cuerpo para que los errores lleguen con su código HTTP
+        Stream<HistorialAccesoResponse> accesos = carpetaService.exportarHistorial(
+                new ListarHistorialRequest(carpetaId, null, null, orden, documentoId, tipoAcceso, desde, hasta));
+
+        StreamingResponseBody cuerpo = salida -> {
+            try (accesos) {
+                Iterator<HistorialAccesoResponse> iterador = accesos.iterator();
+                while (iterador.hasNext()) {
+                    salida.write(objectMapper.writeValueAsBytes(iterador.next()));
+                    salida.write('\n');
+                }
+            }
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"historial-" + carpetaId + ".ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
+    }
+
     @Operation(
         summary = "Generar URL de descarga para documento",
         description = "Genera una URL temporal y segura (prefirmada) para descargar un documento específico. " +
@@ -761,19 +1056,21 @@ public class CarpetaCiudadanoController {
             )
         ),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
-            responseCode = "400",
-            description = "El documento no está en estado válido para iniciar autenticación",
+            responseCode = "409",
+            description = "El documento no está en estado TEMPORAL y no puede iniciar autenticación",
             content = @Content(
                 mediaType = "application/json",
                 examples = @ExampleObject(
-                    name = "Estado inválido",
+                    name = "Transición de estado inválida",
                     value = """
                         {
                             "success": false,
-                            "message": "El documento debe estar en estado TEMPORAL para iniciar autenticación. Estado actual: PROCESADO",
+                            "message": "El documento 660e8400-e29b-41d4-a716-446655440001 no puede pasar de estado AUTENTICADO a EN_AUTENTICACION",
                             "error": {
-                                "code": "INVALID_STATE",
-                                "message": "El documento debe estar en estado TEMPORAL para iniciar autenticación. Estado actual: PROCESADO"
+                                "code": "INVALID_STATE_TRANSITION",
+                                "message": "El documento 660e8400-e29b-41d4-a716-446655440001 no puede pasar de estado AUTENTICADO a EN_AUTENTICACION",
+                                "field": "estadoDocumento",
+                                "rejectedValue": "AUTENTICADO"
                             },
                             "timestamp": "2025-11-07T10:30:00"
                         }
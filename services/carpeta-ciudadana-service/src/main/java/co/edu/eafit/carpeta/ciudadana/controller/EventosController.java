@@ -0,0 +1,65 @@
+package co.edu.eafit.carpeta.ciudadana.controller;
+
+import co.edu.eafit.carpeta.ciudadana.config.RabbitMQConfig;
+import co.edu.eafit.carpeta.ciudadana.dto.response.ApiResponse;
+import co.edu.eafit.carpeta.ciudadana.dto.response.ReinyeccionResponse;
+import co.edu.eafit.carpeta.ciudadana.event.reintento.ReintentadorMensajes;
+import co.edu.eafit.carpeta.ciudadana.exception.InvalidRequestException;
+import co.edu.eafit.carpeta.ciudadana.util.ResponseUtil;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+@Slf4j
+@RestController
+@RequestMapping("/eventos")
+@RequiredArgsConstructor
+@Tag(
+    name = "Eventos",
+    description = "Operación de las colas de eventos: reinyección de mensajes aparcados tras agotar sus reintentos."
+)
+public class EventosController {
+
+    /**
+     * Colas con topología de reintentos (y por tanto con cola de parking)
+     */
+    private static final Set<String> COLAS_CON_PARKING = Set.of(
+            RabbitMQConfig.QUEUE_AUTENTICADO, RabbitMQConfig.QUEUE_AUTENTICADO_MASIVO);
+
+    private static final int MAXIMO_REINYECCION = 10_000;
+
+    private final ReintentadorMensajes reintentador;
+
+    @Operation(
+        summary = "Reinyectar mensajes aparcados",
+        description = "Mueve hasta 'maximo' mensajes de la cola de parking de la cola indicada de vuelta a la cola " +
+                      "de trabajo, con el contador de reintentos a cero. Cada mensaje sale de parking solo cuando " +
+                      "el broker confirma su publicación."
+    )
+    @PostMapping("/{cola}/parking/reinyectar")
+    public ResponseEntity<ApiResponse<ReinyeccionResponse>> reinyectar(
+            @Parameter(description = "Cola de trabajo, p. ej. documento.autenticado.queue", required = true)
+            @PathVariable String cola,
+
+            @Parameter(description = "Número máximo de mensajes a reinyectar (por defecto 100)")
+            @RequestParam(defaultValue = "100") int maximo) {
+
+        if (!COLAS_CON_PARKING.contains(cola)) {
+            throw new InvalidRequestException("cola", "La cola no tiene cola de parking: " + cola);
+        }
+        if (maximo < 1 || maximo > MAXIMO_REINYECCION) {
+            throw new InvalidRequestException("maximo", "Debe estar entre 1 y " + MAXIMO_REINYECCION);
+        }
+
+        log.info("Reinyectando hasta {} mensajes aparcados de {}", maximo, cola);
+        int reinyectados = reintentador.reinyectar(cola, maximo);
+        return ResponseUtil.ok(new ReinyeccionResponse(cola, reinyectados),
+                "Mensajes reinyectados exitosamente");
+    }
+}
@@ -0,0 +1,11 @@
+package co.edu.eafit.carpeta.ciudadana.dto.request;
+
+/**
+ * Resultado de autenticación de un documento recibido por evento
+ */
+public record ActualizarEstadoDocumentoRequest(
+    String carpetaId,
+    String documentoId,
+    String nuevoEstado,
+    String mensaje
+) {}
@@ -0,0 +1,13 @@
+package co.edu.eafit.carpeta.ciudadana.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchGetDocumentosRequest(
+    @NotEmpty(message = "Debe indicar al menos un documentoId")
+    @Size(max = 100, message = "No se pueden consultar más de 100 documentos por petición")
+    List<@NotBlank(message = "El documentoId no puede estar vacío") String> documentoIds
+) {}
@@ -0,0 +1,12 @@
+package co.edu.eafit.carpeta.ciudadana.dto.request;
+
+/**
+ * Campo por el que se ordena la lista de documentos de una carpeta
+ *
+ * - DOCUMENTO_ID: orden de la sort key de la tabla
+ * - FECHA_RECEPCION: orden por fecha de recepción, usando el GSI carpetaId-fechaRecepcion
+ */
+public enum CampoOrdenDocumento {
+    DOCUMENTO_ID,
+    FECHA_RECEPCION
+}
@@ -0,0 +1,6 @@
+package co.edu.eafit.carpeta.ciudadana.dto.request;
+
+public enum DireccionOrden {
+    ASC,
+    DESC
+}
@@ -0,0 +1,16 @@
+package co.edu.eafit.carpeta.ciudadana.dto.request;
+
+/**
+ * Parámetros del listado paginado de documentos. Los campos nulos toman el valor por defecto
+ * o, si hay cursor, el valor guardado en el cursor.
+ */
+public record ListarDocumentosRequest(
+    String carpetaId,
+    String cursor,
+    Integer pageSize,
+    VistaDocumento vista,
+    CampoOrdenDocumento ordenarPor,
+    DireccionOrden orden,
+    String tipoDocumento,
+    String estadoDocumento
+) {}
@@ -0,0 +1,18 @@
+package co.edu.eafit.carpeta.ciudadana.dto.request;
+
+import java.time.LocalDateTime;
+
+/**
+ * Parámetros del historial de accesos de una carpeta. Los filtros son opcionales; las fechas
+ * son inclusivas. Si hay cursor, los campos nulos toman el valor guardado en el cursor.
+ */
+public record ListarHistorialRequest(
+    String carpetaId,
+    String cursor,
+    Integer pageSize,
+    DireccionOrden orden,
+    String documentoId,
+    String tipoAcceso,
+    LocalDateTime desde,
+    LocalDateTime hasta
+) {}
@@ -0,0 +1,13 @@
+package co.edu.eafit.carpeta.ciudadana.dto.request;
+
+/**
+ * Vista solicitada al listar documentos de una carpeta
+ *
+ * - COMPLETA: todos los metadatos del documento (DocumentoResponse)
+ * - RESUMEN: solo los atributos necesarios para la lista (DocumentoResumenResponse),
+ *   leídos con ProjectionExpression para reducir el tamaño de la respuesta
+ */
+public enum VistaDocumento {
+    COMPLETA,
+    RESUMEN
+}
@@ -0,0 +1,19 @@
+package co.edu.eafit.carpeta.ciudadana.dto.response;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resumen de un documento para la vista de lista
+ * No incluye descripción, hash ni ubicación de almacenamiento
+ */
+public record DocumentoResumenResponse(
+    String documentoId,
+    String titulo,
+    String tipoDocumento,
+    String contextoDocumento,
+    String estadoDocumento,
+    LocalDateTime fechaRecepcion,
+    Boolean esDescargable,
+    String formatoArchivo,
+    Long tamanoBytes
+) {}
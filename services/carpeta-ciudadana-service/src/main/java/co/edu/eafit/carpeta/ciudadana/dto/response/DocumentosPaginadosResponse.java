@@ -9,13 +9,13 @@ import java.util.List;
  * Compatible con patrón "Load More" del frontend
  */
 @Schema(description = "Respuesta paginada de documentos con cursor para navegación")
-public record DocumentosPaginadosResponse(
+public record DocumentosPaginadosResponse<T>(
 
     @Schema(
-        description = "Lista de documentos en la página actual",
+        description = "Lista de documentos en la página actual (completos o resumidos según la vista)",
         example = "[...]"
     )
-    List<DocumentoResponse> items,
+    List<T> items,
 
     @Schema(
         description = "Cursor para obtener la siguiente página (null si no hay más páginas)",
@@ -34,15 +34,15 @@ public record DocumentosPaginadosResponse(
     /**
      * Constructor para última página (sin más documentos)
      */
-    public static DocumentosPaginadosResponse lastPage(List<DocumentoResponse> items) {
-        return new DocumentosPaginadosResponse(items, null, false);
+    public static <T> DocumentosPaginadosResponse<T> lastPage(List<T> items) {
+        return new DocumentosPaginadosResponse<>(items, null, false);
     }
 
     /**
      * Constructor para página intermedia (hay más documentos)
      */
-    public static DocumentosPaginadosResponse withMore(List<DocumentoResponse> items, String nextCursor) {
-        return new DocumentosPaginadosResponse(items, nextCursor, true);
+    public static <T> DocumentosPaginadosResponse<T> withMore(List<T> items, String nextCursor) {
+        return new DocumentosPaginadosResponse<>(items, nextCursor, true);
     }
 }
 
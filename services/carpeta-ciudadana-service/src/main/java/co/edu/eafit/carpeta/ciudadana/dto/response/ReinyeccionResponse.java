@@ -0,0 +1,6 @@
+package co.edu.eafit.carpeta.ciudadana.dto.response;
+
+public record ReinyeccionResponse(
+    String cola,
+    int reinyectados
+) {}
@@ -4,8 +4,6 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
 
 import java.time.LocalDateTime;
 
@@ -13,7 +11,6 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@DynamoDbBean
 public class CarpetaCiudadano {
 
     private String carpetaId;
@@ -29,9 +26,4 @@ public class CarpetaCiudadano {
 
     private LocalDateTime fechaCreacion;
     private LocalDateTime fechaUltimaModificacion;
-
-    @DynamoDbPartitionKey
-    public String getCarpetaId() {
-        return carpetaId;
-    }
 }
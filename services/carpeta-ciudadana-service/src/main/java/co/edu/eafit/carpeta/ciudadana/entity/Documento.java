@@ -4,17 +4,14 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@DynamoDbBean
 public class Documento {
 
     private String carpetaId;
@@ -36,13 +33,25 @@ public class Documento {
     private LocalDateTime fechaRecepcion;
     private LocalDateTime fechaUltimaModificacion;
 
-    @DynamoDbPartitionKey
-    public String getCarpetaId() {
-        return carpetaId;
-    }
-
-    @DynamoDbSortKey
-    public String getDocumentoId() {
-        return documentoId;
+    /**
+     * Estados del ciclo de autenticación del documento.
+     * Transiciones permitidas: TEMPORAL → EN_AUTENTICACION → AUTENTICADO | RECHAZADO
+     */
+    public enum EstadoDocumento {
+        TEMPORAL,
+        EN_AUTENTICACION,
+        AUTENTICADO,
+        RECHAZADO;
+
+        /**
+         * Estados desde los que se puede pasar a este estado
+         */
+        public Set<EstadoDocumento> estadosOrigen() {
+            return switch (this) {
+                case TEMPORAL -> Set.of();
+                case EN_AUTENTICACION -> Set.of(TEMPORAL);
+                case AUTENTICADO, RECHAZADO -> Set.of(EN_AUTENTICACION);
+            };
+        }
     }
 }
@@ -0,0 +1,41 @@
+package co.edu.eafit.carpeta.ciudadana.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento pendiente de publicar en RabbitMQ (patrón outbox, ADR-0003). Se escribe en la misma
+ * transacción que el cambio que lo origina y el relay lo publica después.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoOutbox {
+
+    private String eventoId;
+
+    private String tipoEvento;
+    private String estado; // PENDING, PUBLISHED, FAILED
+    private String payload; // Cuerpo del mensaje: texto si es JSON, Base64 en formatos binarios
+    private String contentType;
+    private String tipoPayload; // Clase del evento, para el header __TypeId__ de Jackson
+    private String routingKey;
+    private Integer intentosPublicacion;
+
+    private LocalDateTime timestamp;
+    private LocalDateTime timestampPublicacion;
+
+    private String particionPendiente; // PENDING#<bucket> mientras está pendiente (GSI disperso)
+    private Long expiraEn; // TTL (epoch en segundos), se asigna al publicarse o fallar
+
+    public enum EstadoEvento {
+        PENDING,
+        PUBLISHED,
+        FAILED
+    }
+}
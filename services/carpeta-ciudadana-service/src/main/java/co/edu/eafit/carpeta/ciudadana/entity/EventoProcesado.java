@@ -0,0 +1,23 @@
+package co.edu.eafit.carpeta.ciudadana.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marca de un evento ya procesado por un consumidor, para descartar redeliveries.
+ * Expira por TTL al terminar la ventana de deduplicación.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoProcesado {
+
+    private String clave; // <consumidor>#<eventoId>
+    private LocalDateTime fechaProcesado;
+    private Long expiraEn; // TTL (epoch en segundos)
+}
@@ -4,17 +4,23 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
 import java.time.LocalDateTime;
 
+/**
+ * Acceso a una carpeta o documento.
+ *
+ * A diferencia de la auditoría de registro (AuditoriaRegistro en ciudadano-registry-service), el
+ * historial no está encadenado con hashes ni tiene checkpoints Merkle. Las carpetas calientes
+ * escriben en varias particiones (shards) en paralelo y en lotes BatchWriteItem, que no admiten
+ * escrituras condicionales, así que no hay un orden por partición sobre el que encadenar sin
+ * serializar esas escrituras. El historial sirve de traza de consulta para el ciudadano; la
+ * evidencia inalterable de RNF-18 es la auditoría encadenada.
+ */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@DynamoDbBean
 public class HistorialAcceso {
 
     private String carpetaId;
@@ -28,14 +34,8 @@ public class HistorialAcceso {
     private String resultadoAcceso;
     private String motivoAcceso;
 
-    @DynamoDbPartitionKey
-    public String getCarpetaId() {
-        return carpetaId;
-    }
+    private Long expiraEn; // TTL (epoch en segundos), se asigna al archivar el registro en MinIO
 
-    @DynamoDbSortKey
-    public String getAccesoId() {
-        return accesoId;
-    }
+    private Integer shard; // Sufijo de la partición en carpetas con escrituras particionadas (null = partición base)
 }
 
@@ -0,0 +1,100 @@
+package co.edu.eafit.carpeta.ciudadana.event;
+
+import co.edu.eafit.carpeta.ciudadana.config.RabbitMQConfig;
+import co.edu.eafit.carpeta.ciudadana.event.formato.ConvertidorPorContentType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Avisos de invalidación de la caché de carpetas para el resto de réplicas.
+ *
+ * <p>El hilo de la petición solo encola el aviso, después de escribir en la tabla; un hilo propio
+ * lo publica con {@link PublicadorConfirmado}, así que ni el envío ni el confirm ni un broker
+ * bloqueado por flow control retrasan la respuesta. Con la cola llena el aviso se descarta: el
+ * TTL de la caché acota la inconsistencia, igual que si el aviso se pierde.
+ */
+@Slf4j
+@Component
+public class CarpetaCacheEventPublisher {
+
+  private final PublicadorConfirmado publicador;
+  private final ConvertidorPorContentType messageConverter;
+  private final ThreadPoolExecutor envios;
+  private final Counter descartados;
+
+  public CarpetaCacheEventPublisher(
+      PublicadorConfirmado publicador,
+      ConvertidorPorContentType messageConverter,
+      MeterRegistry meterRegistry,
+      @Value("${cache.carpeta.invalidacion.capacidad-cola:10000}") int capacidadCola) {
+    this.publicador = publicador;
+    this.messageConverter = messageConverter;
+    this.envios =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacidadCola),
+            tarea -> {
+              Thread hilo = new Thread(tarea, "invalidacion-cache-carpeta");
+              hilo.setDaemon(true);
+              return hilo;
+            });
+    this.descartados =
+        Counter.builder("carpeta.cache.invalidaciones.descartadas")
+            .description("Avisos de invalidación no publicados por cola llena o error")
+            .register(meterRegistry);
+  }
+
+  public void publicarInvalidacion(CarpetaInvalidadaEvent event) {
+    try {
+      envios.execute(() -> enviar(event));
+    } catch (RejectedExecutionException e) {
+      descartados.increment();
+      log.warn(
+          "Cola de invalidaciones de caché llena, se descarta el aviso para carpetas {}",
+          event.getCarpetaIds());
+    }
+  }
+
+  private void enviar(CarpetaInvalidadaEvent event) {
+    try {
+      Message mensaje = messageConverter.toMessage(event, new MessageProperties());
+      // Fanout: la routing key se ignora y cada réplica recibe una copia
+      publicador
+          .publicar(RabbitMQConfig.EXCHANGE_CACHE_CARPETA, "", mensaje)
+          .whenComplete(
+              (confirmado, error) -> {
+                if (error != null) {
+                  fallo(event, error);
+                }
+              });
+    } catch (RuntimeException e) {
+      fallo(event, e);
+    }
+  }
+
+  private void fallo(CarpetaInvalidadaEvent event, Throwable error) {
+    descartados.increment();
+    log.error(
+        "Error publicando invalidación de caché para carpetas {}: {}",
+        event.getCarpetaIds(),
+        error.getMessage());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    envios.shutdown();
+  }
+}
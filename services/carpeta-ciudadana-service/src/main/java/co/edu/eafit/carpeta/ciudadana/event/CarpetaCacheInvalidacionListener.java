@@ -0,0 +1,24 @@
+package co.edu.eafit.carpeta.ciudadana.event;
+
+import co.edu.eafit.carpeta.ciudadana.repository.cache.CarpetaCiudadanoCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CarpetaCacheInvalidacionListener {
+
+  private final CarpetaCiudadanoCache carpetaCache;
+
+  @RabbitListener(queues = "#{carpetaCacheInvalidacionQueue.name}")
+  public void consumirInvalidacion(CarpetaInvalidadaEvent event) {
+    log.debug(
+        "Invalidación de caché recibida: carpetas={}, origen={}",
+        event.getCarpetaIds(),
+        event.getNodoOrigen());
+    carpetaCache.aplicarInvalidacionRemota(event);
+  }
+}
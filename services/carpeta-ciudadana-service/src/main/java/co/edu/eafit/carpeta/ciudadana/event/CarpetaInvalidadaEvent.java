@@ -0,0 +1,19 @@
+package co.edu.eafit.carpeta.ciudadana.event;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Aviso a todas las réplicas de que deben descartar estas carpetas de su caché local. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarpetaInvalidadaEvent {
+  private List<String> carpetaIds;
+  private List<String> cedulas;
+  private String nodoOrigen;
+  private Long emitidoEnMillis;
+}
@@ -11,6 +11,9 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class DocumentoAutenticadoEvent {
+  /** ID estable del evento (también va como messageId); ausente en productores anteriores. */
+  private String eventoId;
+
   private String documentoId;
   private String carpetaId;
   private Integer statusCode;
@@ -1,9 +1,30 @@
 package co.edu.eafit.carpeta.ciudadana.event;
 
+import co.edu.eafit.carpeta.ciudadana.config.RabbitMQConfig;
+import co.edu.eafit.carpeta.ciudadana.dto.request.ActualizarEstadoDocumentoRequest;
+import co.edu.eafit.carpeta.ciudadana.event.carril.Carril;
+import co.edu.eafit.carpeta.ciudadana.event.dedupe.DeduplicadorEventos;
+import co.edu.eafit.carpeta.ciudadana.event.formato.ConvertidorPorContentType;
+import co.edu.eafit.carpeta.ciudadana.event.reintento.ReintentadorMensajes;
 import co.edu.eafit.carpeta.ciudadana.service.CarpetaCiudadanoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -11,37 +32,223 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class DocumentoEventConsumer {
 
+  private static final String CONSUMIDOR_AUTENTICADO = "documento-autenticado";
+
+  private static final ParameterizedTypeReference<DocumentoAutenticadoEvent> TIPO_AUTENTICADO =
+      new ParameterizedTypeReference<>() {};
+
   private final CarpetaCiudadanoService carpetaCiudadanoService;
+  private final DeduplicadorEventos deduplicador;
+  private final ReintentadorMensajes reintentador;
+  private final ConvertidorPorContentType messageConverter;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Vacía la cola documento.autenticado.queue, donde aún pueden publicar productores anteriores a
+   * los shards. Los shards se consumen con {@link
+   * co.edu.eafit.carpeta.ciudadana.event.shard.ConsumidoresShardAutenticado}.
+   */
+  @RabbitListener(
+      queues = RabbitMQConfig.QUEUE_AUTENTICADO,
+      containerFactory = "autenticadoBatchContainerFactory")
+  public void consumirColaAutenticado(List<Message> mensajes) {
+    consumirDocumentosAutenticados(mensajes);
+  }
+
+  /** Consume el carril masivo, con la capacidad acotada de su contenedor. */
+  @RabbitListener(
+      queues = RabbitMQConfig.QUEUE_AUTENTICADO_MASIVO,
+      containerFactory = "autenticadoMasivoContainerFactory")
+  public void consumirAutenticadosMasivos(List<Message> mensajes) {
+    procesar(Carril.MASIVO, mensajes);
+  }
+
+  /**
+   * Consume los resultados de autenticación por lotes (ver {@code
+   * RabbitMQConfig#autenticadoBatchContainerFactory}). Los eventos ya procesados (redeliveries) se
+   * descartan antes de tocar DynamoDB. Los mensajes que fallan no bloquean al consumidor: se
+   * reencolan en la cola de retraso de su siguiente intento o, si no se pueden leer o agotaron los
+   * intentos, en parking (ver {@link ReintentadorMensajes}). El lote se confirma (ack) cuando los
+   * estados y el historial quedaron escritos y los fallidos reencolados; si el reencolado falla la
+   * excepción se propaga y el contenedor rechaza el lote. Un reintento puede llegar detrás de
+   * eventos posteriores de su shard; ver {@link
+   * co.edu.eafit.carpeta.ciudadana.event.shard.ConsumidoresShardAutenticado} sobre por qué eso no
+   * altera el estado final.
+   */
+  public void consumirDocumentosAutenticados(List<Message> mensajes) {
+    procesar(Carril.INTERACTIVO, mensajes);
+  }
 
-  @RabbitListener(queues = "documento.autenticado.queue")
-  public void consumirDocumentoAutenticado(DocumentoAutenticadoEvent event) {
+  private void procesar(Carril carril, List<Message> mensajes) {
+    log.info(
+        "Recibido lote de {} eventos de documento autenticado (carril {})",
+        mensajes.size(),
+        carril.valor());
+
+    // Un mismo evento repetido dentro del lote cuenta una sola vez
+    Map<String, DocumentoAutenticadoEvent> porId = new LinkedHashMap<>();
+    Map<String, Message> mensajesPorId = new LinkedHashMap<>();
+    List<Message> invalidos = new ArrayList<>();
+    for (Message mensaje : mensajes) {
+      DocumentoAutenticadoEvent event = leer(mensaje);
+      if (event == null) {
+        invalidos.add(mensaje);
+        continue;
+      }
+      // Los reintentos vuelven por el exchange de shards, que reparte por este header
+      mensaje
+          .getMessageProperties()
+          .setHeader(RabbitMQConfig.HEADER_CARPETA, event.getCarpetaId());
+      String eventoId = eventoId(event);
+      porId.put(eventoId, event);
+      mensajesPorId.put(eventoId, mensaje);
+    }
+    if (!invalidos.isEmpty()) {
+      reintentador.aparcar(
+          carril.cola(),
+          invalidos,
+          new IllegalArgumentException("Evento de documento autenticado ilegible o incompleto"));
+    }
+    if (porId.isEmpty()) {
+      return;
+    }
+
+    List<Message> aReintentar = new ArrayList<>();
+    Exception causa = null;
     try {
-      log.info(
-          "Recibido evento de documento autenticado: documentoId={}, carpetaId={}, statusCode={}",
-          event.getDocumentoId(),
-          event.getCarpetaId(),
-          event.getStatusCode());
-
-      // Determinar estado basado en el código HTTP
-      String nuevoEstado = (event.getStatusCode() >= 200 && event.getStatusCode() < 300) 
-          ? "AUTENTICADO" 
-          : "RECHAZADO";
-
-      carpetaCiudadanoService.actualizarEstadoDocumento(
-          event.getCarpetaId(), event.getDocumentoId(), nuevoEstado, event.getMensaje());
-
-      log.info(
-          "Estado del documento actualizado exitosamente: documentoId={}, nuevoEstado={}, mensaje={}",
-          event.getDocumentoId(),
-          nuevoEstado,
-          event.getMensaje());
-
-    } catch (Exception e) {
-      log.error(
-          "Error procesando evento de documento autenticado: documentoId={}, error={}",
-          event.getDocumentoId(),
-          e.getMessage(),
-          e);
+      Set<String> procesados = deduplicador.procesados(CONSUMIDOR_AUTENTICADO, porId.keySet());
+      porId.keySet().removeAll(procesados);
+
+      Map<String, String> idPorDocumento = new LinkedHashMap<>();
+      List<ActualizarEstadoDocumentoRequest> solicitudes = new ArrayList<>(porId.size());
+      porId.forEach(
+          (eventoId, event) -> {
+            idPorDocumento.put(claveDocumento(event.getCarpetaId(), event.getDocumentoId()), eventoId);
+            solicitudes.add(
+                new ActualizarEstadoDocumentoRequest(
+                    event.getCarpetaId(),
+                    event.getDocumentoId(),
+                    // Determinar estado basado en el código HTTP
+                    (event.getStatusCode() >= 200 && event.getStatusCode() < 300)
+                        ? "AUTENTICADO"
+                        : "RECHAZADO",
+                    event.getMensaje()));
+          });
+
+      if (!solicitudes.isEmpty()) {
+        List<ActualizarEstadoDocumentoRequest> fallidas =
+            carpetaCiudadanoService.actualizarEstadosDocumentos(solicitudes);
+        for (ActualizarEstadoDocumentoRequest fallida : fallidas) {
+          String eventoId =
+              idPorDocumento.get(claveDocumento(fallida.carpetaId(), fallida.documentoId()));
+          porId.remove(eventoId);
+          aReintentar.add(mensajesPorId.get(eventoId));
+        }
+        if (!fallidas.isEmpty()) {
+          causa = new IllegalStateException("Error transitorio actualizando el estado del documento");
+        }
+        registrarProcesados(porId.keySet());
+      }
+    } catch (RuntimeException e) {
+      log.error("Error procesando lote de documento autenticado: {}", e.getMessage(), e);
+      aReintentar = porId.keySet().stream().map(mensajesPorId::get).toList();
+      causa = e;
     }
+
+    if (!aReintentar.isEmpty()) {
+      reintentador.reintentar(carril.cola(), aReintentar, causa);
+    }
+    // Los reintentados se miden cuando por fin se procesen
+    Set<Message> reintentados = Collections.newSetFromMap(new IdentityHashMap<>());
+    reintentados.addAll(aReintentar);
+    registrarLatencia(
+        carril,
+        mensajesPorId.values().stream().filter(mensaje -> !reintentados.contains(mensaje)).toList());
+  }
+
+  /**
+   * Latencia de extremo a extremo por carril: desde que el productor publicó el evento (header
+   * {@value RabbitMQConfig#HEADER_PUBLICADO_MS}, o el timestamp del mensaje si falta) hasta que el
+   * lote quedó procesado. Incluye el tiempo en cola (y en las colas de reintento), que es lo que
+   * crece cuando hay backlog; los mensajes sin ninguno de los dos (productores anteriores) no se
+   * miden.
+   */
+  private void registrarLatencia(Carril carril, List<Message> mensajes) {
+    Timer latencia =
+        Timer.builder("eventos.autenticado.latencia")
+            .description("Tiempo entre la publicación y el procesamiento del evento")
+            .tag("carril", carril.valor())
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    long ahora = System.currentTimeMillis();
+    for (Message mensaje : mensajes) {
+      Long publicado = publicadoMs(mensaje.getMessageProperties());
+      if (publicado != null) {
+        latencia.record(Math.max(0, ahora - publicado), TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private static Long publicadoMs(MessageProperties propiedades) {
+    Object header = propiedades.getHeader(RabbitMQConfig.HEADER_PUBLICADO_MS);
+    if (header instanceof Number numero) {
+      return numero.longValue();
+    }
+    if (header != null) {
+      try {
+        return Long.parseLong(header.toString());
+      } catch (NumberFormatException e) {
+        // Se mide con el timestamp
+      }
+    }
+    return propiedades.getTimestamp() != null ? propiedades.getTimestamp().getTime() : null;
+  }
+
+  private DocumentoAutenticadoEvent leer(Message mensaje) {
+    try {
+      DocumentoAutenticadoEvent event =
+          (DocumentoAutenticadoEvent) messageConverter.fromMessage(mensaje, TIPO_AUTENTICADO);
+      if (event.getCarpetaId() == null
+          || event.getDocumentoId() == null
+          || event.getStatusCode() == null) {
+        log.warn("Evento de documento autenticado incompleto: {}", event);
+        return null;
+      }
+      return event;
+    } catch (RuntimeException e) {
+      log.warn("Evento de documento autenticado ilegible: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private void registrarProcesados(Set<String> eventoIds) {
+    try {
+      deduplicador.registrar(CONSUMIDOR_AUTENTICADO, eventoIds);
+    } catch (RuntimeException e) {
+      // Sin la marca, una redelivery se vuelve a procesar; el proceso es idempotente
+      log.warn("No fue posible registrar {} eventos procesados: {}", eventoIds.size(), e.getMessage());
+    }
+  }
+
+  /**
+   * ID del evento; los productores anteriores no lo envían y se deriva del contenido, que es el
+   * mismo en cada redelivery.
+   */
+  private String eventoId(DocumentoAutenticadoEvent event) {
+    if (event.getEventoId() != null) {
+      return event.getEventoId();
+    }
+    String contenido =
+        String.join(
+            "|",
+            event.getCarpetaId(),
+            event.getDocumentoId(),
+            String.valueOf(event.getStatusCode()),
+            String.valueOf(event.getFechaAutenticacion()));
+    return UUID.nameUUIDFromBytes(contenido.getBytes(StandardCharsets.UTF_8)).toString();
+  }
+
+  private static String claveDocumento(String carpetaId, String documentoId) {
+    return carpetaId + "|" + documentoId;
   }
 }
@@ -1,32 +1,75 @@
 package co.edu.eafit.carpeta.ciudadana.event;
 
 import co.edu.eafit.carpeta.ciudadana.config.RabbitMQConfig;
-import lombok.RequiredArgsConstructor;
+import co.edu.eafit.carpeta.ciudadana.entity.EventoOutbox;
+import co.edu.eafit.carpeta.ciudadana.event.formato.ConvertidorPorContentType;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.EventoOutboxTableSchema;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Construye los eventos de documento para el outbox. No publica directamente: el evento se
+ * escribe en la misma transacción que el documento y {@link
+ * co.edu.eafit.carpeta.ciudadana.event.outbox.OutboxRelay} lo envía a RabbitMQ.
+ *
+ * <p>El formato de documento.subido se configura aparte (rabbitmq.formato.documento-subido) porque
+ * depende de sus consumidores; el resto de mensajes del servicio siguen en JSON.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class DocumentoEventPublisher {
 
-  private final RabbitTemplate rabbitTemplate;
+  private final ConvertidorPorContentType messageConverter;
+  private final String contentTypeSubido;
+  private final int buckets;
 
-  public void publicarDocumentoSubido(DocumentoSubidoEvent event) {
-    try {
-      log.info(
-          "Publicando evento de documento subido: documentoId={}, carpetaId={}",
-          event.getDocumentoId(),
-          event.getCarpetaId());
+  public DocumentoEventPublisher(
+      ConvertidorPorContentType messageConverter,
+      @Value("${rabbitmq.formato.documento-subido:json}") String formatoSubido,
+      @Value("${outbox.relay.buckets:4}") int buckets) {
+    this.messageConverter = messageConverter;
+    this.contentTypeSubido = ConvertidorPorContentType.contentTypeDe(formatoSubido);
+    this.buckets = buckets;
+  }
+
+  public EventoOutbox crearEventoDocumentoSubido(DocumentoSubidoEvent event) {
+    String eventoId = UUID.randomUUID().toString();
+    event.setEventoId(eventoId);
+
+    // Cuerpo, content-type y header __TypeId__ del converter del formato de este destino
+    Message mensaje =
+        messageConverter.toMessage(event, new MessageProperties(), contentTypeSubido);
+    String contentType = mensaje.getMessageProperties().getContentType();
 
-      rabbitTemplate.convertAndSend(
-          RabbitMQConfig.EXCHANGE_NAME, RabbitMQConfig.ROUTING_KEY, event);
+    log.debug(
+        "Evento de documento subido en outbox: eventoId={}, documentoId={}",
+        eventoId,
+        event.getDocumentoId());
 
-      log.info("Evento publicado exitosamente para documento: {}", event.getDocumentoId());
-    } catch (Exception e) {
-      log.error("Error publicando evento de documento subido: {}", e.getMessage(), e);
-      // No lanzamos la excepción para no afectar el flujo principal
-    }
+    return EventoOutbox.builder()
+        .eventoId(eventoId)
+        .tipoEvento(RabbitMQConfig.ROUTING_KEY)
+        .estado(EventoOutbox.EstadoEvento.PENDING.name())
+        .payload(
+            MessageProperties.CONTENT_TYPE_JSON.equals(contentType)
+                ? new String(mensaje.getBody(), StandardCharsets.UTF_8)
+                : Base64.getEncoder().encodeToString(mensaje.getBody()))
+        .contentType(contentType)
+        .tipoPayload(
+            mensaje.getMessageProperties().getHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME))
+        .routingKey(RabbitMQConfig.ROUTING_KEY)
+        .intentosPublicacion(0)
+        .timestamp(LocalDateTime.now())
+        .particionPendiente(
+            EventoOutboxTableSchema.PREFIJO_PENDIENTE + Math.floorMod(eventoId.hashCode(), buckets))
+        .build();
   }
 }
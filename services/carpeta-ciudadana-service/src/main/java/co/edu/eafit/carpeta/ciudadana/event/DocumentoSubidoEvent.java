@@ -11,6 +11,9 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class DocumentoSubidoEvent {
+  /** Igual al eventoId del outbox y al messageId del mensaje. */
+  private String eventoId;
+
   private String documentoId;
   private String carpetaId;
   private String propietarioCedula;
@@ -0,0 +1,33 @@
+package co.edu.eafit.carpeta.ciudadana.event.carril;
+
+import co.edu.eafit.carpeta.ciudadana.config.RabbitMQConfig;
+
+/**
+ * Carril de tráfico de los eventos de documento autenticado. Las solicitudes interactivas (un
+ * ciudadano esperando en pantalla) y las masivas (importaciones) van por colas distintas, así que
+ * un backlog masivo no retrasa a las interactivas; el carril masivo se consume con capacidad
+ * acotada (ver {@code RabbitMQConfig#autenticadoMasivoContainerFactory}).
+ */
+public enum Carril {
+  INTERACTIVO("interactive", RabbitMQConfig.QUEUE_AUTENTICADO),
+  MASIVO("bulk", RabbitMQConfig.QUEUE_AUTENTICADO_MASIVO);
+
+  /** Valor del header x-carril que envía el productor. */
+  private final String valor;
+
+  /** Cola base del carril, de la que cuelgan sus colas de reintento y de parking. */
+  private final String cola;
+
+  Carril(String valor, String cola) {
+    this.valor = valor;
+    this.cola = cola;
+  }
+
+  public String valor() {
+    return valor;
+  }
+
+  public String cola() {
+    return cola;
+  }
+}
@@ -0,0 +1,134 @@
+package co.edu.eafit.carpeta.ciudadana.event.dedupe;
+
+import co.edu.eafit.carpeta.ciudadana.entity.EventoProcesado;
+import co.edu.eafit.carpeta.ciudadana.repository.EventoProcesadoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deduplicación de eventos consumidos por ID de evento.
+ *
+ * <p>Delante de la tabla EventosProcesados hay una caché LRU local con los IDs que esta réplica
+ * ya procesó: una redelivery a la misma réplica se descarta sin ir a DynamoDB. Los IDs que no
+ * están en la caché se comprueban con un solo BatchGetItem por lote. Los eventos se registran
+ * después de procesarse, así que un fallo entre el proceso y el registro hace que el evento se
+ * procese otra vez (el proceso debe seguir siendo idempotente).
+ *
+ * <p>Métrica {@code eventos.dedupe} por consumidor y resultado: local, dynamodb (duplicados
+ * descartados) y nuevo.
+ */
+@Slf4j
+@Component
+public class DeduplicadorEventos {
+
+  private static final String SEPARADOR = "#";
+
+  private final EventoProcesadoRepository procesadoRepository;
+  private final MeterRegistry meterRegistry;
+  private final Cache<String, Boolean> procesadosLocales;
+  private final Duration ventana;
+  private final boolean habilitado;
+
+  public DeduplicadorEventos(
+      EventoProcesadoRepository procesadoRepository,
+      MeterRegistry meterRegistry,
+      @Value("${eventos.dedupe.habilitado:true}") boolean habilitado,
+      @Value("${eventos.dedupe.tamano-cache:100000}") long tamanoCache,
+      @Value("${eventos.dedupe.ventana-horas:168}") long ventanaHoras) {
+    this.procesadoRepository = procesadoRepository;
+    this.meterRegistry = meterRegistry;
+    this.habilitado = habilitado;
+    this.ventana = Duration.ofHours(ventanaHoras);
+    this.procesadosLocales =
+        Caffeine.newBuilder().maximumSize(tamanoCache).expireAfterWrite(ventana).build();
+  }
+
+  /**
+   * IDs de evento que el consumidor ya procesó.
+   */
+  public Set<String> procesados(String consumidor, Collection<String> eventoIds) {
+    if (!habilitado || eventoIds.isEmpty()) {
+      return Set.of();
+    }
+
+    Set<String> procesados = new HashSet<>();
+    Set<String> pendientes = new LinkedHashSet<>();
+    for (String eventoId : eventoIds) {
+      if (procesadosLocales.getIfPresent(clave(consumidor, eventoId)) != null) {
+        procesados.add(eventoId);
+      } else {
+        pendientes.add(eventoId);
+      }
+    }
+    contador(consumidor, "local").increment(procesados.size());
+
+    if (!pendientes.isEmpty()) {
+      Set<String> existentes =
+          procesadoRepository.findExistentes(
+              pendientes.stream().map(eventoId -> clave(consumidor, eventoId)).toList());
+      for (String eventoId : pendientes) {
+        String clave = clave(consumidor, eventoId);
+        if (existentes.contains(clave)) {
+          procesadosLocales.put(clave, Boolean.TRUE);
+          procesados.add(eventoId);
+        }
+      }
+      contador(consumidor, "dynamodb").increment(existentes.size());
+      contador(consumidor, "nuevo").increment(pendientes.size() - existentes.size());
+    }
+
+    if (!procesados.isEmpty()) {
+      log.info("Descartados {} eventos ya procesados por {}", procesados.size(), consumidor);
+    }
+    return procesados;
+  }
+
+  /**
+   * Registra los eventos como procesados. Llamar solo cuando su proceso terminó bien.
+   */
+  public void registrar(String consumidor, Collection<String> eventoIds) {
+    if (!habilitado || eventoIds.isEmpty()) {
+      return;
+    }
+    LocalDateTime ahora = LocalDateTime.now();
+    long expiraEn = Instant.now().plus(ventana).getEpochSecond();
+
+    List<EventoProcesado> eventos =
+        eventoIds.stream()
+            .map(
+                eventoId ->
+                    EventoProcesado.builder()
+                        .clave(clave(consumidor, eventoId))
+                        .fechaProcesado(ahora)
+                        .expiraEn(expiraEn)
+                        .build())
+            .toList();
+    procesadoRepository.saveAll(eventos);
+    eventos.forEach(evento -> procesadosLocales.put(evento.getClave(), Boolean.TRUE));
+  }
+
+  private Counter contador(String consumidor, String resultado) {
+    return Counter.builder("eventos.dedupe")
+        .description("Consultas de deduplicación de eventos por resultado")
+        .tag("consumidor", consumidor)
+        .tag("resultado", resultado)
+        .register(meterRegistry);
+  }
+
+  private static String clave(String consumidor, String eventoId) {
+    return consumidor + SEPARADOR + eventoId;
+  }
+}
@@ -0,0 +1,69 @@
+package co.edu.eafit.carpeta.ciudadana.event.formato;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractMessageConverter;
+import org.springframework.amqp.support.converter.DefaultJackson2JavaTypeMapper;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.lang.Nullable;
+
+/**
+ * Formato binario de los eventos: CBOR con el mismo mapeo Jackson que el JSON (mismas clases de
+ * evento, mismo header __TypeId__). Las fechas van como arrays numéricos en lugar de texto ISO.
+ */
+public class CborMessageConverter extends AbstractMessageConverter implements SmartMessageConverter {
+
+  public static final String CONTENT_TYPE_CBOR = "application/cbor";
+
+  private final ObjectMapper mapper;
+  private final DefaultJackson2JavaTypeMapper typeMapper;
+
+  public CborMessageConverter(String... paquetesConfiables) {
+    this.mapper =
+        CBORMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    this.typeMapper = new DefaultJackson2JavaTypeMapper();
+    this.typeMapper.setTrustedPackages(paquetesConfiables);
+  }
+
+  @Override
+  protected Message createMessage(Object objeto, MessageProperties propiedades) {
+    try {
+      byte[] cuerpo = mapper.writeValueAsBytes(objeto);
+      propiedades.setContentType(CONTENT_TYPE_CBOR);
+      propiedades.setContentLength(cuerpo.length);
+      typeMapper.fromJavaType(mapper.constructType(objeto.getClass()), propiedades);
+      return new Message(cuerpo, propiedades);
+    } catch (IOException e) {
+      throw new MessageConversionException("No fue posible serializar el evento a CBOR", e);
+    }
+  }
+
+  @Override
+  public Object fromMessage(Message mensaje) {
+    return fromMessage(mensaje, null);
+  }
+
+  @Override
+  public Object fromMessage(Message mensaje, @Nullable Object conversionHint) {
+    JavaType tipo =
+        conversionHint instanceof ParameterizedTypeReference<?> referencia
+            ? mapper.getTypeFactory().constructType(referencia.getType())
+            : typeMapper.toJavaType(mensaje.getMessageProperties());
+    try {
+      return mapper.readValue(mensaje.getBody(), tipo);
+    } catch (IOException e) {
+      throw new MessageConversionException("No fue posible leer el evento CBOR", e);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package co.edu.eafit.carpeta.ciudadana.event.formato;
+
+import java.util.Map;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+import org.springframework.lang.Nullable;
+
+/**
+ * Elige el converter por content-type. Al leer usa el content-type del mensaje, así que un
+ * consumidor acepta JSON y CBOR a la vez. Al escribir usa el converter por defecto (JSON), salvo
+ * que el productor pida el formato de su destino con {@link #toMessage(Object, MessageProperties,
+ * String)}: así la invalidación de caché y cualquier otro convertAndSend siguen en JSON aunque un
+ * evento concreto se publique en CBOR (rabbitmq.formato.*).
+ */
+public class ConvertidorPorContentType implements SmartMessageConverter {
+
+  private final Map<String, SmartMessageConverter> porContentType;
+  private final SmartMessageConverter porDefecto;
+
+  /**
+   * @param porContentType converters por content-type (sin parámetros como charset)
+   * @param porDefecto converter de los mensajes publicados sin formato explícito y de los
+   *     recibidos sin content-type conocido
+   */
+  public ConvertidorPorContentType(
+      Map<String, SmartMessageConverter> porContentType, SmartMessageConverter porDefecto) {
+    this.porContentType = Map.copyOf(porContentType);
+    this.porDefecto = porDefecto;
+  }
+
+  @Override
+  public Message toMessage(Object objeto, MessageProperties propiedades) {
+    return porDefecto.toMessage(objeto, propiedades);
+  }
+
+  /**
+   * Serializa en el formato elegido para un destino concreto.
+   *
+   * @throws IllegalArgumentException si no hay converter para el content-type
+   */
+  public Message toMessage(Object objeto, MessageProperties propiedades, String contentType) {
+    SmartMessageConverter converter = porContentType.get(contentType);
+    if (converter == null) {
+      throw new IllegalArgumentException("Formato de mensajes no soportado: " + contentType);
+    }
+    return converter.toMessage(objeto, propiedades);
+  }
+
+  /** Content-type de un formato de rabbitmq.formato.* (json o cbor). */
+  public static String contentTypeDe(String formato) {
+    return switch (formato) {
+      case "json" -> MessageProperties.CONTENT_TYPE_JSON;
+      case "cbor" -> CborMessageConverter.CONTENT_TYPE_CBOR;
+      default -> throw new IllegalArgumentException("Formato de mensajes no soportado: " + formato);
+    };
+  }
+
+  @Override
+  public Object fromMessage(Message mensaje) {
+    return fromMessage(mensaje, null);
+  }
+
+  @Override
+  public Object fromMessage(Message mensaje, @Nullable Object conversionHint) {
+    try {
+      return converter(mensaje.getMessageProperties().getContentType())
+          .fromMessage(mensaje, conversionHint);
+    } catch (MessageConversionException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw new MessageConversionException("No fue posible leer el mensaje", e);
+    }
+  }
+
+  private SmartMessageConverter converter(@Nullable String contentType) {
+    if (contentType == null) {
+      return porDefecto;
+    }
+    int parametros = contentType.indexOf(';');
+    String tipo = (parametros >= 0 ? contentType.substring(0, parametros) : contentType).trim();
+    return porContentType.getOrDefault(tipo, porDefecto);
+  }
+}
@@ -0,0 +1,227 @@
+package co.edu.eafit.carpeta.ciudadana.event.outbox;
+
+import co.edu.eafit.carpeta.ciudadana.config.RabbitMQConfig;
+import co.edu.eafit.carpeta.ciudadana.entity.EventoOutbox;
+import co.edu.eafit.carpeta.ciudadana.event.PublicadorConfirmado;
+import co.edu.eafit.carpeta.ciudadana.repository.EventoOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Relay del outbox: publica en RabbitMQ los eventos pendientes de DocumentoEventosOutbox.
+ *
+ * <p>Los eventos se reparten en buckets. En cada pasada el relay toma un lease por bucket (una
+ * sola réplica drena cada bucket, en orden de timestamp) y lee los pendientes en lotes. Todo el
+ * lote se publica sin esperar (confirms correlacionados, ver {@link PublicadorConfirmado}) y los
+ * eventos confirmados se marcan como publicados con un BatchWriteItem. A los que no se confirman
+ * se les suma un intento y el bucket se retoma en la siguiente pasada; tras maxIntentos el evento
+ * queda en FAILED. Los republicados pueden llegar fuera de orden.
+ *
+ * <p>Los pendientes salen de un GSI eventualmente consistente, así que un evento recién marcado
+ * puede reaparecer en la siguiente lectura del mismo bucket; el relay recuerda los eventoId
+ * publicados en la pasada y no los vuelve a enviar.
+ *
+ * <p>La entrega es al menos una vez: un fallo entre el confirm y la marca vuelve a publicar el
+ * lote. El messageId de cada mensaje es el eventoId para que los consumidores puedan deduplicar.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+  private final EventoOutboxRepository outboxRepository;
+  private final PublicadorConfirmado publicador;
+  private final ExecutorService executor;
+  private final String propietario;
+  private final Counter publicados;
+  private final Counter fallidos;
+  private final Timer tiempoLote;
+
+  @Value("${outbox.relay.habilitado:true}")
+  private boolean habilitado;
+
+  @Value("${outbox.relay.buckets:4}")
+  private int buckets;
+
+  @Value("${outbox.relay.lote:100}")
+  private int lote;
+
+  @Value("${outbox.relay.max-intentos:5}")
+  private int maxIntentos;
+
+  @Value("${outbox.relay.lease-ms:30000}")
+  private long leaseMs;
+
+  @Value("${outbox.relay.retencion-dias:7}")
+  private int retencionDias;
+
+  public OutboxRelay(
+      EventoOutboxRepository outboxRepository,
+      PublicadorConfirmado publicador,
+      MeterRegistry meterRegistry,
+      @Value("${outbox.relay.paralelismo:4}") int paralelismo) {
+    this.outboxRepository = outboxRepository;
+    this.publicador = publicador;
+    this.executor = Executors.newFixedThreadPool(paralelismo);
+    this.propietario = UUID.randomUUID().toString();
+    this.publicados =
+        Counter.builder("outbox.publicados")
+            .description("Eventos del outbox publicados y confirmados por RabbitMQ")
+            .register(meterRegistry);
+    this.fallidos =
+        Counter.builder("outbox.fallidos")
+            .description("Eventos del outbox marcados como FAILED tras agotar los intentos")
+            .register(meterRegistry);
+    this.tiempoLote =
+        Timer.builder("outbox.lote")
+            .description("Tiempo hasta resolver los confirms de un lote del outbox")
+            .register(meterRegistry);
+  }
+
+  @Scheduled(fixedDelayString = "${outbox.relay.intervalo-ms:1000}")
+  public void relay() {
+    if (!habilitado) {
+      return;
+    }
+    List<CompletableFuture<Void>> pasadas = new ArrayList<>(buckets);
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      int actual = bucket;
+      pasadas.add(CompletableFuture.runAsync(() -> drenarBucket(actual), executor));
+    }
+    CompletableFuture.allOf(pasadas.toArray(CompletableFuture[]::new)).join();
+  }
+
+  private void drenarBucket(int bucket) {
+    try {
+      if (!outboxRepository.adquirirLease(bucket, propietario, leaseMs)) {
+        return;
+      }
+    } catch (RuntimeException e) {
+      log.warn("No fue posible tomar el lease del bucket {} del outbox: {}", bucket, e.getMessage());
+      return;
+    }
+
+    long inicio = System.currentTimeMillis();
+    Set<String> publicadosEnPasada = new HashSet<>();
+    try {
+      List<EventoOutbox> leidos = outboxRepository.findPendientes(bucket, lote);
+      // Se suelta el bucket antes de que expire el lease para no competir con otra réplica
+      while (!leidos.isEmpty() && System.currentTimeMillis() - inicio < leaseMs / 2) {
+        List<EventoOutbox> pendientes =
+            leidos.stream().filter(e -> !publicadosEnPasada.contains(e.getEventoId())).toList();
+        // Solo eventos ya publicados: el índice aún no refleja la marca, se sigue en otra pasada
+        if (pendientes.isEmpty()
+            || !publicarLote(pendientes, publicadosEnPasada)
+            || leidos.size() < lote) {
+          break;
+        }
+        leidos = outboxRepository.findPendientes(bucket, lote);
+      }
+    } catch (RuntimeException e) {
+      log.error("Error drenando el bucket {} del outbox: {}", bucket, e.getMessage(), e);
+    } finally {
+      outboxRepository.liberarLease(bucket, propietario);
+    }
+  }
+
+  private boolean publicarLote(List<EventoOutbox> eventos, Set<String> publicadosEnPasada) {
+    Timer.Sample muestra = Timer.start();
+    List<CompletableFuture<Void>> confirmaciones = new ArrayList<>(eventos.size());
+    for (EventoOutbox evento : eventos) {
+      confirmaciones.add(
+          publicador.publicar(RabbitMQConfig.EXCHANGE_NAME, evento.getRoutingKey(), mensaje(evento)));
+    }
+
+    List<EventoOutbox> confirmados = new ArrayList<>(eventos.size());
+    List<EventoOutbox> sinConfirmar = new ArrayList<>();
+    for (int i = 0; i < eventos.size(); i++) {
+      try {
+        confirmaciones.get(i).join();
+        confirmados.add(eventos.get(i));
+      } catch (CompletionException e) {
+        log.warn(
+            "Evento {} del outbox sin confirmar: {}",
+            eventos.get(i).getEventoId(),
+            e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        sinConfirmar.add(eventos.get(i));
+      }
+    }
+    muestra.stop(tiempoLote);
+
+    if (!confirmados.isEmpty()) {
+      outboxRepository.marcarPublicados(confirmados, expiraEn());
+      confirmados.forEach(evento -> publicadosEnPasada.add(evento.getEventoId()));
+      publicados.increment(confirmados.size());
+      log.debug("Publicados {} eventos del outbox", confirmados.size());
+    }
+    if (!sinConfirmar.isEmpty()) {
+      List<EventoOutbox> agotados =
+          outboxRepository.registrarFallo(sinConfirmar, maxIntentos, expiraEn());
+      agotados.forEach(
+          evento -> log.error("Evento {} del outbox marcado como FAILED", evento.getEventoId()));
+      fallidos.increment(agotados.size());
+    }
+    return sinConfirmar.isEmpty();
+  }
+
+  private Message mensaje(EventoOutbox evento) {
+    // Eventos escritos antes de existir contentType: siempre JSON
+    String contentType =
+        evento.getContentType() != null
+            ? evento.getContentType()
+            : MessageProperties.CONTENT_TYPE_JSON;
+    boolean json = MessageProperties.CONTENT_TYPE_JSON.equals(contentType);
+
+    MessageProperties propiedades = new MessageProperties();
+    propiedades.setContentType(contentType);
+    if (json) {
+      propiedades.setContentEncoding(StandardCharsets.UTF_8.name());
+    }
+    propiedades.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+    propiedades.setMessageId(evento.getEventoId());
+    propiedades.setTimestamp(
+        Date.from(evento.getTimestamp().atZone(ZoneId.systemDefault()).toInstant()));
+    if (evento.getTipoPayload() != null) {
+      propiedades.setHeader(
+          AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, evento.getTipoPayload());
+    }
+    byte[] cuerpo =
+        json
+            ? evento.getPayload().getBytes(StandardCharsets.UTF_8)
+            : Base64.getDecoder().decode(evento.getPayload());
+    return new Message(cuerpo, propiedades);
+  }
+
+  private long expiraEn() {
+    return Instant.now().plus(Duration.ofDays(retencionDias)).getEpochSecond();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
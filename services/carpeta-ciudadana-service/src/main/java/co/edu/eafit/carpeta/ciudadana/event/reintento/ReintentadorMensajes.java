@@ -0,0 +1,208 @@
+package co.edu.eafit.carpeta.ciudadana.event.reintento;
+
+import co.edu.eafit.carpeta.ciudadana.config.RabbitMQConfig;
+import co.edu.eafit.carpeta.ciudadana.event.PublicadorConfirmado;
+import com.rabbitmq.client.GetResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reintentos diferidos sin bloquear al consumidor.
+ *
+ * <p>Un mensaje que falla se confirma (ack) en la cola de trabajo y se publica en la cola de
+ * retraso de su siguiente intento ({@code <cola>.retry.<n>}) con un TTL por mensaje. Al expirar,
+ * RabbitMQ lo devuelve a la cola de trabajo por dead-lettering (ver {@link
+ * RabbitMQConfig#reintentosAutenticado}). El número de intento viaja en el header {@value
+ * #HEADER_REINTENTOS}. Agotados los retrasos configurados, el mensaje va a la cola de parking
+ * ({@code <cola>.parking}), de donde solo sale al reinyectarlo con {@link #reinyectar}.
+ */
+@Slf4j
+@Component
+public class ReintentadorMensajes {
+
+  public static final String HEADER_REINTENTOS = "x-reintentos";
+  public static final String HEADER_ERROR = "x-ultimo-error";
+
+  private static final int LARGO_MAXIMO_ERROR = 500;
+
+  private final PublicadorConfirmado publicador;
+  private final RabbitTemplate rabbitTemplate;
+  private final MeterRegistry meterRegistry;
+  private final List<Long> retrasosMs;
+  private final int shards;
+  private final MessagePropertiesConverter propiedadesConverter =
+      new DefaultMessagePropertiesConverter();
+
+  public ReintentadorMensajes(
+      PublicadorConfirmado publicador,
+      RabbitTemplate rabbitTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${rabbitmq.reintentos.retrasos-ms:5000,30000,120000}") List<Long> retrasosMs,
+      @Value("${rabbitmq.autenticado.shards:8}") int shards) {
+    this.publicador = publicador;
+    this.rabbitTemplate = rabbitTemplate;
+    this.meterRegistry = meterRegistry;
+    this.retrasosMs = List.copyOf(retrasosMs);
+    this.shards = shards;
+  }
+
+  /**
+   * Publica cada mensaje en su siguiente cola de retraso, o en parking si agotó los intentos, y
+   * espera los confirms. Si alguno no se confirma lanza la excepción para que el contenedor
+   * rechace el lote y no se pierda ningún mensaje.
+   */
+  public void reintentar(String cola, List<Message> mensajes, Throwable causa) {
+    List<CompletableFuture<Void>> confirmaciones = new ArrayList<>(mensajes.size());
+    for (Message mensaje : mensajes) {
+      MessageProperties propiedades = mensaje.getMessageProperties();
+      int intento = reintentos(propiedades) + 1;
+      prepararReenvio(propiedades, causa);
+
+      if (intento > retrasosMs.size()) {
+        confirmaciones.add(aparcarUno(cola, mensaje));
+        continue;
+      }
+      propiedades.setHeader(HEADER_REINTENTOS, intento);
+      propiedades.setExpiration(String.valueOf(retrasosMs.get(intento - 1)));
+      log.warn(
+          "Mensaje {} de {} reintentará en {} ms (intento {})",
+          propiedades.getMessageId(),
+          cola,
+          retrasosMs.get(intento - 1),
+          intento);
+      meterRegistry.counter("mensajes.reintentados", "cola", cola).increment();
+      confirmaciones.add(
+          publicador.publicar("", RabbitMQConfig.colaReintento(cola, intento), mensaje));
+    }
+    esperar(confirmaciones);
+  }
+
+  /**
+   * Envía los mensajes directamente a parking (p. ej. mensajes que no se pueden deserializar).
+   */
+  public void aparcar(String cola, List<Message> mensajes, Throwable causa) {
+    List<CompletableFuture<Void>> confirmaciones = new ArrayList<>(mensajes.size());
+    for (Message mensaje : mensajes) {
+      prepararReenvio(mensaje.getMessageProperties(), causa);
+      confirmaciones.add(aparcarUno(cola, mensaje));
+    }
+    esperar(confirmaciones);
+  }
+
+  /**
+   * Devuelve hasta maximo mensajes de la cola de parking a la cola de trabajo (por su exchange de
+   * entrada, {@link RabbitMQConfig#exchangeReentrada}) con el contador de intentos a cero. Cada
+   * mensaje se confirma en parking solo después de que el broker confirme su publicación en la
+   * cola de trabajo.
+   *
+   * <p>Los mensajes aparcados sin header carpetaId (los ilegibles, que el consumidor no pudo
+   * leer) no tienen ruta en el exchange de hash consistente; van directamente a un shard por el
+   * exchange por defecto para no bloquear la reinyección de los demás.
+   *
+   * @return Número de mensajes reinyectados
+   */
+  public int reinyectar(String cola, int maximo) {
+    String parking = RabbitMQConfig.colaParking(cola);
+    Integer reinyectados =
+        rabbitTemplate.execute(
+            channel -> {
+              int total = 0;
+              while (total < maximo) {
+                GetResponse respuesta = channel.basicGet(parking, false);
+                if (respuesta == null) {
+                  break;
+                }
+                long deliveryTag = respuesta.getEnvelope().getDeliveryTag();
+                MessageProperties propiedades =
+                    propiedadesConverter.toMessageProperties(
+                        respuesta.getProps(),
+                        respuesta.getEnvelope(),
+                        StandardCharsets.UTF_8.name());
+                propiedades.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+                propiedades.getHeaders().remove(HEADER_REINTENTOS);
+
+                Message mensaje = new Message(respuesta.getBody(), propiedades);
+                String exchange = RabbitMQConfig.exchangeReentrada(cola);
+                String routingKey = cola;
+                if (RabbitMQConfig.EXCHANGE_AUTENTICADO_SHARDS.equals(exchange)
+                    && propiedades.getHeader(RabbitMQConfig.HEADER_CARPETA) == null) {
+                  exchange = "";
+                  routingKey = RabbitMQConfig.colaShard(shardSinCarpeta(mensaje));
+                }
+
+                try {
+                  publicador.publicar(exchange, routingKey, mensaje).join();
+                } catch (CompletionException e) {
+                  channel.basicNack(deliveryTag, false, true);
+                  log.error("Reinyección de {} detenida: {}", parking, e.getMessage());
+                  break;
+                }
+                channel.basicAck(deliveryTag, false);
+                total++;
+              }
+              return total;
+            });
+
+    int total = reinyectados != null ? reinyectados : 0;
+    meterRegistry.counter("mensajes.reinyectados", "cola", cola).increment(total);
+    log.info("Reinyectados {} mensajes de {} a {}", total, parking, cola);
+    return total;
+  }
+
+  /** Shard estable para un mensaje sin carpetaId: por messageId o, si falta, por el cuerpo. */
+  private int shardSinCarpeta(Message mensaje) {
+    String messageId = mensaje.getMessageProperties().getMessageId();
+    int hash = messageId != null ? messageId.hashCode() : Arrays.hashCode(mensaje.getBody());
+    return Math.floorMod(hash, shards);
+  }
+
+  private CompletableFuture<Void> aparcarUno(String cola, Message mensaje) {
+    log.error(
+        "Mensaje {} de {} enviado a parking: {}",
+        mensaje.getMessageProperties().getMessageId(),
+        cola,
+        (Object) mensaje.getMessageProperties().getHeader(HEADER_ERROR));
+    meterRegistry.counter("mensajes.aparcados", "cola", cola).increment();
+    return publicador.publicar("", RabbitMQConfig.colaParking(cola), mensaje);
+  }
+
+  private void prepararReenvio(MessageProperties propiedades, Throwable causa) {
+    // Los mensajes recibidos solo traen receivedDeliveryMode
+    propiedades.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+    propiedades.setExpiration(null);
+    if (causa != null) {
+      String error = String.valueOf(causa.getMessage());
+      propiedades.setHeader(
+          HEADER_ERROR,
+          error.length() > LARGO_MAXIMO_ERROR ? error.substring(0, LARGO_MAXIMO_ERROR) : error);
+    }
+  }
+
+  private static int reintentos(MessageProperties propiedades) {
+    Object valor = propiedades.getHeader(HEADER_REINTENTOS);
+    return valor instanceof Number numero ? numero.intValue() : 0;
+  }
+
+  private static void esperar(List<CompletableFuture<Void>> confirmaciones) {
+    try {
+      CompletableFuture.allOf(confirmaciones.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException e) {
+      throw new AmqpException("No fue posible reencolar los mensajes fallidos", e.getCause());
+    }
+  }
+}
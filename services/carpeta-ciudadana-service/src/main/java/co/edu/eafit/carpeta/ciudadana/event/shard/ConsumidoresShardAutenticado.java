@@ -0,0 +1,108 @@
+package co.edu.eafit.carpeta.ciudadana.event.shard;
+
+import co.edu.eafit.carpeta.ciudadana.config.RabbitMQConfig;
+import co.edu.eafit.carpeta.ciudadana.event.DocumentoEventConsumer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Un consumidor por shard de documento.autenticado en cada réplica.
+ *
+ * <p>Las colas de shard son single active consumer: todas las réplicas se suscriben a todos los
+ * shards y el broker entrega cada shard a un solo consumidor, el de mayor prioridad ({@code
+ * x-priority}). La prioridad de una réplica para un shard es un hash de (réplica, shard)
+ * (rendezvous hashing), así que los shards se reparten de forma aproximadamente uniforme entre
+ * las réplicas. Cuando entra una réplica el broker le pasa los shards en los que tiene la mayor
+ * prioridad, y cuando sale sus shards pasan a la siguiente; no hace falta coordinación entre
+ * réplicas. Requiere quorum queues con prioridades en single active consumer (RabbitMQ 3.13+);
+ * en versiones anteriores el shard queda en el primer consumidor suscrito.
+ *
+ * <p>El orden por shard solo vale para la primera entrega. Un evento que falla de forma
+ * transitoria no retiene el shard: pasa a la cola de retraso y vuelve por el exchange de shards
+ * detrás de eventos posteriores de la misma carpeta. No se retiene a propósito, para que un
+ * documento con errores no bloquee al resto de carpetas del shard. La corrección no depende de
+ * ese orden: las transiciones de estado son condicionales y sus estados finales (AUTENTICADO,
+ * RECHAZADO) solo se alcanzan desde EN_AUTENTICACION, así que un resultado reintentado que llega
+ * después de otro del mismo documento se descarta como transición inválida o ya aplicada.
+ */
+@Slf4j
+@Component
+public class ConsumidoresShardAutenticado implements SmartLifecycle {
+
+  private static final int PRIORIDAD_MAXIMA = 1_000_000;
+
+  private final SimpleRabbitListenerContainerFactory factory;
+  private final DocumentoEventConsumer consumidor;
+  private final int shards;
+  private final String replicaId;
+  private final List<SimpleMessageListenerContainer> contenedores = new ArrayList<>();
+  private volatile boolean activo;
+
+  public ConsumidoresShardAutenticado(
+      @Qualifier("autenticadoBatchContainerFactory") SimpleRabbitListenerContainerFactory factory,
+      DocumentoEventConsumer consumidor,
+      @Value("${rabbitmq.autenticado.shards:8}") int shards,
+      @Value("${HOSTNAME:}") String hostname) {
+    this.factory = factory;
+    this.consumidor = consumidor;
+    this.shards = shards;
+    this.replicaId = hostname.isBlank() ? UUID.randomUUID().toString() : hostname;
+  }
+
+  @Override
+  public synchronized void start() {
+    for (int shard = 0; shard < shards; shard++) {
+      String cola = RabbitMQConfig.colaShard(shard);
+      SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+      endpoint.setId("autenticado-" + cola);
+      endpoint.setQueueNames(cola);
+      endpoint.setMessageListener(
+          (BatchMessageListener) consumidor::consumirDocumentosAutenticados);
+
+      SimpleMessageListenerContainer contenedor = factory.createListenerContainer(endpoint);
+      // Un único consumidor por shard y réplica para conservar el orden de primera entrega
+      contenedor.setConcurrentConsumers(1);
+      contenedor.setMaxConcurrentConsumers(1);
+      contenedor.setConsumerArguments(Map.of("x-priority", prioridad(shard)));
+      contenedor.afterPropertiesSet();
+      contenedor.start();
+      contenedores.add(contenedor);
+    }
+    activo = true;
+    log.info(
+        "Réplica {} suscrita a {} shards de {}",
+        replicaId,
+        shards,
+        RabbitMQConfig.QUEUE_AUTENTICADO);
+  }
+
+  @Override
+  public synchronized void stop() {
+    contenedores.forEach(SimpleMessageListenerContainer::stop);
+    contenedores.forEach(SimpleMessageListenerContainer::destroy);
+    contenedores.clear();
+    activo = false;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return activo;
+  }
+
+  private int prioridad(int shard) {
+    UUID hash = UUID.nameUUIDFromBytes((replicaId + "#" + shard).getBytes(StandardCharsets.UTF_8));
+    return (int) Math.floorMod(hash.getLeastSignificantBits(), (long) PRIORIDAD_MAXIMA);
+  }
+}
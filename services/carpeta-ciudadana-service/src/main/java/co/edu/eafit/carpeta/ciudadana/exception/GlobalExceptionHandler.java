@@ -50,6 +50,24 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(error));
     }
 
+    @ExceptionHandler(TransicionEstadoInvalidaException.class)
+    public ResponseEntity<ApiResponse<Void>> handleTransicionEstadoInvalidaException(
+            TransicionEstadoInvalidaException ex, WebRequest request) {
+        
+        log.warn("Transición de estado inválida: {}", ex.getMessage());
+        
+        ApiResponse.ErrorDetails error = ApiResponse.ErrorDetails.builder()
+                .code("INVALID_STATE_TRANSITION")
+                .message(ex.getMessage())
+                .field("estadoDocumento")
+                .rejectedValue(ex.getEstadoActual())
+                .build();
+        
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(error));
+    }
+
     @ExceptionHandler(DocumentUploadException.class)
     public ResponseEntity<ApiResponse<Void>> handleDocumentUploadException(
             DocumentUploadException ex, WebRequest request) {
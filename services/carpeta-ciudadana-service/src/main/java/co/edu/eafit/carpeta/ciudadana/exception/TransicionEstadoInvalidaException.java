@@ -0,0 +1,28 @@
+package co.edu.eafit.carpeta.ciudadana.exception;
+
+public class TransicionEstadoInvalidaException extends RuntimeException {
+
+    private final String documentoId;
+    private final String estadoActual;
+    private final String estadoDestino;
+
+    public TransicionEstadoInvalidaException(String documentoId, String estadoActual, String estadoDestino) {
+        super(String.format("El documento %s no puede pasar de estado %s a %s",
+                documentoId, estadoActual, estadoDestino));
+        this.documentoId = documentoId;
+        this.estadoActual = estadoActual;
+        this.estadoDestino = estadoDestino;
+    }
+
+    public String getDocumentoId() {
+        return documentoId;
+    }
+
+    public String getEstadoActual() {
+        return estadoActual;
+    }
+
+    public String getEstadoDestino() {
+        return estadoDestino;
+    }
+}
@@ -2,19 +2,27 @@ package co.edu.eafit.carpeta.ciudadana.repository;
 
 import co.edu.eafit.carpeta.ciudadana.entity.CarpetaCiudadano;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CarpetaCiudadanoRepository {
 
     CarpetaCiudadano save(CarpetaCiudadano carpeta);
 
+    List<CarpetaCiudadano> saveAll(List<CarpetaCiudadano> carpetas);
+
     Optional<CarpetaCiudadano> findById(String carpetaId);
 
+    List<CarpetaCiudadano> findAllByIds(Collection<String> carpetaIds);
+
     Optional<CarpetaCiudadano> findByPropietarioCedula(String cedula);
 
     Optional<CarpetaCiudadano> findByEmailCarpeta(String emailCarpeta);
 
     void deleteById(String carpetaId);
 
+    void deleteAll(Collection<String> carpetaIds);
+
     boolean existsById(String carpetaId);
 }
@@ -1,27 +1,79 @@
 package co.edu.eafit.carpeta.ciudadana.repository;
 
 import co.edu.eafit.carpeta.ciudadana.entity.Documento;
+import co.edu.eafit.carpeta.ciudadana.entity.EventoOutbox;
+import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
+import co.edu.eafit.carpeta.ciudadana.repository.batch.CambioEstadoDocumento;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.ConsultaDocumentos;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.PaginaDocumentos;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface DocumentoRepository {
 
     Documento save(Documento documento);
 
+    /**
+     * Guarda varios documentos con BatchWriteItem (lotes de 25 en paralelo)
+     */
+    List<Documento> saveAll(List<Documento> documentos);
+
+    /**
+     * Confirma la subida de un documento en una sola transacción (TransactWriteItems):
+     * inserta el documento, suma tamanoBytes al espacioUtilizadoBytes de la carpeta
+     * (condicionado a que la carpeta exista), inserta el registro de historial y el evento en el
+     * outbox. Si alguna condición falla no se escribe nada.
+     *
+     * @throws co.edu.eafit.carpeta.ciudadana.exception.ResourceNotFoundException si la carpeta no existe
+     * @throws IllegalStateException si ya existe un documento con el mismo ID
+     * @throws software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException si la
+     *         transacción se canceló por otro motivo; en los tres casos no se escribió nada. Cualquier
+     *         otra excepción deja el resultado incierto.
+     */
+    Documento saveConSubida(Documento documento, HistorialAcceso acceso, long tamanoBytes, EventoOutbox evento);
+
     Optional<Documento> findById(String carpetaId, String documentoId);
 
+    /**
+     * Cambia el estado de un documento con un único UpdateItem. Solo escribe estadoDocumento
+     * y fechaUltimaModificacion, condicionado a que el estado actual sea un origen válido
+     * de nuevoEstado (ver {@link Documento.EstadoDocumento#estadosOrigen()}).
+     *
+     * @return Documento con todos sus atributos tras la actualización
+     * @throws co.edu.eafit.carpeta.ciudadana.exception.ResourceNotFoundException si el documento no existe
+     * @throws co.edu.eafit.carpeta.ciudadana.exception.TransicionEstadoInvalidaException si la transición no está permitida
+     */
+    Documento actualizarEstado(String carpetaId, String documentoId, Documento.EstadoDocumento nuevoEstado);
+
+    /**
+     * Aplica varios cambios de estado. DynamoDB no tiene UpdateItem por lotes y una transacción
+     * cancelaría todos los cambios por una sola transición inválida, así que cada cambio es un
+     * {@link #actualizarEstado} independiente y se ejecutan en paralelo.
+     *
+     * @return Cambios que no se aplicaron, con la excepción que habría lanzado actualizarEstado
+     */
+    Map<CambioEstadoDocumento, RuntimeException> actualizarEstados(Collection<CambioEstadoDocumento> cambios);
+
+    /**
+     * Obtiene varios documentos de una carpeta con BatchGetItem (lotes de 100 en paralelo).
+     * Los IDs inexistentes se omiten y el orden del resultado no está garantizado.
+     */
+    List<Documento> findAllByIds(String carpetaId, Collection<String> documentoIds);
+
     List<Documento> findByCarpetaId(String carpetaId);
 
     /**
-     * Obtiene documentos de una carpeta con paginación cursor-based
+     * Obtiene una página de documentos de una carpeta, sobre la tabla o sobre un GSI, con filtros
+     * opcionales y en orden ascendente o descendente. Los filtros se aplican en DynamoDB y la
+     * consulta sigue leyendo páginas hasta completar el tamaño pedido o agotar la carpeta.
      *
-     * @param carpetaId ID de la carpeta
-     * @param lastDocumentoId ID del último documento de la página anterior (exclusivo), null para primera página
-     * @param pageSize Número máximo de documentos a retornar
-     * @return Lista de documentos (máximo pageSize + 1 para detectar si hay más páginas)
+     * @param consulta Parámetros de la consulta, incluida la clave de inicio de la página anterior
+     * @return Documentos de la página y clave de inicio de la siguiente (null si no hay más)
      */
-    List<Documento> findByCarpetaIdPaginated(String carpetaId, String lastDocumentoId, int pageSize);
+    PaginaDocumentos findPagina(ConsultaDocumentos consulta);
 
     List<Documento> findByTipoDocumento(String carpetaId, String tipoDocumento);
 
@@ -33,6 +85,8 @@ public interface DocumentoRepository {
 
     void deleteById(String carpetaId, String documentoId);
 
+    void deleteAll(String carpetaId, Collection<String> documentoIds);
+
     boolean existsById(String carpetaId, String documentoId);
 
     long countByCarpetaId(String carpetaId);
@@ -0,0 +1,34 @@
+package co.edu.eafit.carpeta.ciudadana.repository;
+
+import co.edu.eafit.carpeta.ciudadana.entity.EventoOutbox;
+
+import java.util.List;
+
+public interface EventoOutboxRepository {
+
+    /**
+     * Eventos pendientes de un bucket, del más antiguo al más reciente.
+     */
+    List<EventoOutbox> findPendientes(int bucket, int limite);
+
+    /**
+     * Marca los eventos como publicados (en lote): salen del índice de pendientes y
+     * expiran por TTL tras el periodo de retención.
+     */
+    void marcarPublicados(List<EventoOutbox> eventos, long expiraEn);
+
+    /**
+     * Suma un intento fallido a cada evento; los que alcanzan maxIntentos pasan a FAILED
+     * y salen del índice de pendientes.
+     *
+     * @return Eventos marcados como FAILED
+     */
+    List<EventoOutbox> registrarFallo(List<EventoOutbox> eventos, int maxIntentos, long expiraEn);
+
+    /**
+     * Toma el bucket para esta réplica durante duracionMs si está libre, expirado o ya es suyo.
+     */
+    boolean adquirirLease(int bucket, String propietario, long duracionMs);
+
+    void liberarLease(int bucket, String propietario);
+}
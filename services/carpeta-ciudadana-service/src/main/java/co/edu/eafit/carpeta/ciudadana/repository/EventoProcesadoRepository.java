@@ -0,0 +1,18 @@
+package co.edu.eafit.carpeta.ciudadana.repository;
+
+import co.edu.eafit.carpeta.ciudadana.entity.EventoProcesado;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface EventoProcesadoRepository {
+
+    /**
+     * Claves de la colección que ya están registradas (BatchGetItem). Los items expirados que
+     * DynamoDB aún no ha borrado también cuentan como registrados.
+     */
+    Set<String> findExistentes(Collection<String> claves);
+
+    void saveAll(List<EventoProcesado> eventos);
+}
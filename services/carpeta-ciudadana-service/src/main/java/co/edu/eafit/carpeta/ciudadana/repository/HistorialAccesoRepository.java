@@ -1,13 +1,28 @@
 package co.edu.eafit.carpeta.ciudadana.repository;
 
 import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.ConsultaHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.FiltroHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.PaginaHistorial;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface HistorialAccesoRepository {
 
     HistorialAcceso save(HistorialAcceso historialAcceso);
 
+    List<HistorialAcceso> saveAll(List<HistorialAcceso> accesos);
+
+    List<HistorialAcceso> findAllByIds(String carpetaId, Collection<String> accesoIds);
+
+    void deleteAll(String carpetaId, Collection<String> accesoIds);
+
+    /**
+     * Historial completo de la carpeta: une la tabla (capa caliente) con los segmentos
+     * archivados en MinIO (capa fría), sin duplicar accesos que estén en ambas.
+     */
     List<HistorialAcceso> findByCarpetaId(String carpetaId);
 
     List<HistorialAcceso> findByDocumentoId(String carpetaId, String documentoId);
@@ -16,9 +31,44 @@ public interface HistorialAccesoRepository {
 
     List<HistorialAcceso> findByUsuarioAcceso(String carpetaId, String usuarioAcceso);
 
+    /**
+     * Accesos entre las dos fechas, ambas inclusivas.
+     */
     List<HistorialAcceso> findByRangoFechas(String carpetaId, LocalDateTime fechaInicio, LocalDateTime fechaFin);
 
+    /**
+     * Página del historial (capa caliente y fría), ordenada por fechaAcceso. Los accesos ya
+     * archivados se leen de MinIO aunque sigan en la tabla esperando al TTL.
+     */
+    PaginaHistorial findPagina(ConsultaHistorial consulta);
+
+    /**
+     * Historial completo (capa caliente y fría) que cumple el filtro, leído de forma perezosa:
+     * las páginas de DynamoDB y los segmentos de MinIO se piden según se consume el Stream.
+     */
+    Stream<HistorialAcceso> stream(FiltroHistorial filtro);
+
     long countByCarpetaId(String carpetaId);
 
+    /**
+     * Accesos de la tabla anteriores a la fecha y todavía no archivados (sin expiraEn).
+     * Se leen con scan perezoso; el Stream debe cerrarse.
+     */
+    Stream<HistorialAcceso> findArchivables(LocalDateTime antesDe);
+
+    /**
+     * Asigna expiraEn a accesos ya copiados a la capa fría para que el TTL de DynamoDB los elimine.
+     */
+    void marcarArchivados(List<HistorialAcceso> accesos, long expiraEn);
+
+    /**
+     * Toma o renueva el lease del archivador (una sola réplica archiva a la vez).
+     *
+     * @return false si otra réplica tiene el lease vigente
+     */
+    boolean adquirirLeaseArchivado(String propietario, long duracionMs);
+
+    void liberarLeaseArchivado(String propietario);
+
     long countByDocumentoId(String carpetaId, String documentoId);
 }
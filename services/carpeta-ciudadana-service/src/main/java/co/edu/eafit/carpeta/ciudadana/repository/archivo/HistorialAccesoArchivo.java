@@ -0,0 +1,401 @@
+package co.edu.eafit.carpeta.ciudadana.repository.archivo;
+
+import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
+import co.edu.eafit.carpeta.ciudadana.exception.StorageException;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.FiltroHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.particion.ConcatenacionPerezosa;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.GetObjectArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.Result;
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Capa fría del historial de accesos en MinIO.
+ *
+ * Cada segmento es un archivo NDJSON comprimido con gzip con los accesos de una carpeta en un mes:
+ * archivo/historial/{carpetaId}/{yyyy-MM}/{fechaMin}_{fechaMax}_{id}.ndjson.gz
+ * Junto a él se guarda su índice ({@link IndiceSegmento}) en {...}.idx.json. El rango de fechas
+ * va en el nombre del objeto, así que las consultas por fecha descartan segmentos solo listando.
+ */
+@Slf4j
+@Component
+public class HistorialAccesoArchivo {
+
+    static final String PREFIJO = "archivo/historial/";
+
+    private static final String EXTENSION_SEGMENTO = ".ndjson.gz";
+    private static final String EXTENSION_INDICE = ".idx.json";
+    private static final DateTimeFormatter FORMATO_NOMBRE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final MinioClient minioClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${minio.bucket-name}")
+    private String bucketName;
+
+    public HistorialAccesoArchivo(MinioClient minioClient, ObjectMapper objectMapper) {
+        this.minioClient = minioClient;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe un segmento con los accesos dados, todos de la misma carpeta.
+     * Primero se sube el segmento y después su índice.
+     */
+    public IndiceSegmento escribirSegmento(String carpetaId, List<HistorialAcceso> accesos) {
+        LocalDateTime fechaMin = accesos.stream()
+                .map(HistorialAcceso::getFechaAcceso)
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+        LocalDateTime fechaMax = accesos.stream()
+                .map(HistorialAcceso::getFechaAcceso)
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+
+        String base = String.format("%s%s/%s/%s_%s_%s",
+                PREFIJO,
+                carpetaId,
+                fechaMin.format(FORMATO_MES),
+                fechaMin.format(FORMATO_NOMBRE),
+                fechaMax.format(FORMATO_NOMBRE),
+                UUID.randomUUID().toString().substring(0, 8));
+
+        IndiceSegmento indice = new IndiceSegmento(
+                base + EXTENSION_SEGMENTO,
+                accesos.size(),
+                fechaMin,
+                fechaMax,
+                accesos.stream()
+                        .map(HistorialAcceso::getDocumentoId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()));
+
+        try {
+            subir(indice.segmento(), comprimir(accesos), "application/x-ndjson");
+            subir(base + EXTENSION_INDICE, objectMapper.writeValueAsBytes(indice), "application/json");
+        } catch (IOException e) {
+            throw new StorageException("Error serializando segmento de historial: " + e.getMessage(), e);
+        }
+
+        log.debug("Segmento de historial archivado: {} ({} registros)", indice.segmento(), accesos.size());
+        return indice;
+    }
+
+    /**
+     * Recorre los accesos archivados que cumplen el filtro, descargando los segmentos de uno en uno
+     * a medida que se consume el Stream. Los segmentos se visitan en el orden de fechas pedido y
+     * cada uno se ordena en memoria (un segmento cubre como máximo un mes de una carpeta). El
+     * índice de un segmento tampoco se lee hasta llegar a él.
+     *
+     * Un acceso archivado dos veces (el archivador se relanzó antes de marcar el lote, o dos
+     * réplicas archivaron a la vez) está en segmentos con rangos de fechas solapados, que salen
+     * seguidos: solo se deduplica contra los ids de los segmentos que se solapan con el actual.
+     */
+    public Stream<HistorialAcceso> stream(FiltroHistorial filtro) {
+        Deduplicador deduplicador = new Deduplicador();
+        List<Supplier<Stream<HistorialAcceso>>> segmentos = segmentos(filtro).stream()
+                .<Supplier<Stream<HistorialAcceso>>>map(segmento -> () ->
+                        deduplicador.filtrar(segmento, accesos(segmento, filtro)).stream())
+                .toList();
+        return ConcatenacionPerezosa.concatenar(segmentos);
+    }
+
+    /**
+     * Ids de los accesos del grupo actual de segmentos solapados en el tiempo; se vacía al llegar
+     * a un segmento que no se solapa con el grupo.
+     */
+    private static final class Deduplicador {
+
+        private final Set<String> ids = new HashSet<>();
+        private Rango grupo;
+
+        List<HistorialAcceso> filtrar(String segmento, List<HistorialAcceso> accesos) {
+            Rango rango = Rango.de(segmento);
+            if (grupo == null || !grupo.seSolapa(rango.min(), rango.max())) {
+                ids.clear();
+                grupo = rango;
+            } else {
+                grupo = grupo.union(rango);
+            }
+            return accesos.stream()
+                    .filter(acceso -> ids.add(acceso.getAccesoId()))
+                    .toList();
+        }
+    }
+
+    /**
+     * Rango de fechas del nombre de un segmento. El nombre trunca a segundos, así que la fecha
+     * máxima se amplía un segundo.
+     */
+    private record Rango(LocalDateTime min, LocalDateTime max) {
+
+        static Rango de(String segmento) {
+            String nombre = segmento.substring(segmento.lastIndexOf('/') + 1);
+            String[] partes = nombre.split("_");
+            return new Rango(
+                    LocalDateTime.parse(partes[0], FORMATO_NOMBRE),
+                    LocalDateTime.parse(partes[1], FORMATO_NOMBRE).plus(1, ChronoUnit.SECONDS));
+        }
+
+        /** Si se solapa con [desde, hasta]; un extremo null no acota. */
+        boolean seSolapa(LocalDateTime desde, LocalDateTime hasta) {
+            return (desde == null || !max.isBefore(desde))
+                    && (hasta == null || !min.isAfter(hasta));
+        }
+
+        Rango union(Rango otro) {
+            return new Rango(min.isBefore(otro.min) ? min : otro.min, max.isAfter(otro.max) ? max : otro.max);
+        }
+    }
+
+    /**
+     * Igual que {@link #stream}, pero como iterador que continúa desde una posición de una página
+     * anterior (null para empezar por el principio). Si el segmento de la posición ya no existe se
+     * sigue por el siguiente en el orden pedido.
+     */
+    public Cursor cursor(FiltroHistorial filtro, Posicion desde) {
+        List<String> segmentos = segmentos(filtro);
+        int primero = 0;
+        int saltar = 0;
+        if (desde != null) {
+            Comparator<String> orden = ordenSegmentos(filtro);
+            while (primero < segmentos.size() && orden.compare(segmentos.get(primero), desde.segmento()) < 0) {
+                primero++;
+            }
+            if (primero < segmentos.size() && segmentos.get(primero).equals(desde.segmento())) {
+                saltar = desde.leidos();
+            }
+        }
+        return new Cursor(filtro, segmentos.subList(primero, segmentos.size()).iterator(), saltar);
+    }
+
+    /**
+     * Segmentos de la carpeta que se solapan con el rango del filtro, en el orden de fechas pedido.
+     */
+    private List<String> segmentos(FiltroHistorial filtro) {
+        return listarSegmentos(filtro.carpetaId()).stream()
+                .filter(segmento -> Rango.de(segmento).seSolapa(filtro.desde(), filtro.hasta()))
+                .sorted(ordenSegmentos(filtro))
+                .toList();
+    }
+
+    private static Comparator<String> ordenSegmentos(FiltroHistorial filtro) {
+        return filtro.descendente() ? Comparator.<String>reverseOrder() : Comparator.<String>naturalOrder();
+    }
+
+    /**
+     * Accesos del segmento que cumplen el filtro, ordenados por fecha. Con filtro por documento se
+     * lee antes el índice y se omite el segmento si no lo contiene.
+     */
+    private List<HistorialAcceso> accesos(String segmento, FiltroHistorial filtro) {
+        if (filtro.documentoId() != null && !contieneDocumento(segmento, filtro.documentoId())) {
+            return List.of();
+        }
+        Comparator<HistorialAcceso> porFecha = Comparator.comparing(HistorialAcceso::getFechaAcceso);
+        return leerSegmento(segmento).stream()
+                .filter(acceso -> cumple(acceso, filtro))
+                .sorted(filtro.descendente() ? porFecha.reversed() : porFecha)
+                .toList();
+    }
+
+    private boolean contieneDocumento(String segmento, String documentoId) {
+        IndiceSegmento indice = leerIndice(segmento);
+        return indice.documentoIds() != null && indice.documentoIds().contains(documentoId);
+    }
+
+    private static boolean cumple(HistorialAcceso acceso, FiltroHistorial filtro) {
+        LocalDateTime fecha = acceso.getFechaAcceso();
+        return (filtro.documentoId() == null || filtro.documentoId().equals(acceso.getDocumentoId()))
+                && (filtro.tipoAcceso() == null || filtro.tipoAcceso().equals(acceso.getTipoAcceso()))
+                && (filtro.desde() == null || !fecha.isBefore(filtro.desde()))
+                && (filtro.hasta() == null || !fecha.isAfter(filtro.hasta()));
+    }
+
+    private List<String> listarSegmentos(String carpetaId) {
+        List<String> segmentos = new ArrayList<>();
+        try {
+            Iterable<Result<Item>> objetos = minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(bucketName)
+                    .prefix(PREFIJO + carpetaId + "/")
+                    .recursive(true)
+                    .build());
+            for (Result<Item> objeto : objetos) {
+                String nombre = objeto.get().objectName();
+                if (nombre.endsWith(EXTENSION_SEGMENTO)) {
+                    segmentos.add(nombre);
+                }
+            }
+        } catch (Exception e) {
+            throw new StorageException("Error listando historial archivado: " + e.getMessage(), e);
+        }
+        return segmentos;
+    }
+
+    /**
+     * Posición en la capa fría para la paginación: segmento y número de sus accesos (ya filtrados
+     * y ordenados) devueltos hasta ese punto.
+     */
+    public record Posicion(String segmento, int leidos) {
+    }
+
+    /**
+     * Accesos archivados que cumplen un filtro, descargando cada segmento al llegar a él. Conoce la
+     * posición tras cada uno de los dos últimos accesos devueltos: la mezcla ordenada de
+     * {@code findPagina} lee uno por adelantado de cada fuente.
+     */
+    public final class Cursor implements Iterator<HistorialAcceso> {
+
+        private final FiltroHistorial filtro;
+        private final Iterator<String> pendientes;
+        private int saltar;
+        private String segmento;
+        private Iterator<HistorialAcceso> accesos = Collections.emptyIterator();
+        private int leidos;
+        private HistorialAcceso ultimo;
+        private Posicion posicionUltimo;
+        private HistorialAcceso penultimo;
+        private Posicion posicionPenultimo;
+
+        private Cursor(FiltroHistorial filtro, Iterator<String> pendientes, int saltar) {
+            this.filtro = filtro;
+            this.pendientes = pendientes;
+            this.saltar = saltar;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!accesos.hasNext()) {
+                if (!pendientes.hasNext()) {
+                    return false;
+                }
+                segmento = pendientes.next();
+                List<HistorialAcceso> delSegmento = accesos(segmento, filtro);
+                leidos = Math.min(saltar, delSegmento.size());
+                accesos = delSegmento.subList(leidos, delSegmento.size()).iterator();
+                saltar = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public HistorialAcceso next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            HistorialAcceso acceso = accesos.next();
+            penultimo = ultimo;
+            posicionPenultimo = posicionUltimo;
+            ultimo = acceso;
+            posicionUltimo = new Posicion(segmento, ++leidos);
+            return acceso;
+        }
+
+        /**
+         * Posición justo después del acceso, que debe ser uno de los dos últimos devueltos.
+         */
+        public Posicion posicionTras(HistorialAcceso acceso) {
+            if (acceso == ultimo) {
+                return posicionUltimo;
+            }
+            if (acceso == penultimo) {
+                return posicionPenultimo;
+            }
+            throw new IllegalArgumentException("El acceso no es de los últimos devueltos por el cursor");
+        }
+    }
+
+    private List<HistorialAcceso> leerSegmento(String segmento) {
+        List<HistorialAcceso> accesos = new ArrayList<>();
+        try (InputStream objeto = descargar(segmento);
+             BufferedReader lector = new BufferedReader(new InputStreamReader(
+                     new GZIPInputStream(objeto), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (!linea.isBlank()) {
+                    accesos.add(objectMapper.readValue(linea, HistorialAcceso.class));
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageException("Error leyendo segmento " + segmento + ": " + e.getMessage(), e);
+        }
+        return accesos;
+    }
+
+    private IndiceSegmento leerIndice(String segmento) {
+        String indice = segmento.substring(0, segmento.length() - EXTENSION_SEGMENTO.length()) + EXTENSION_INDICE;
+        try (InputStream objeto = descargar(indice)) {
+            return objectMapper.readValue(objeto, IndiceSegmento.class);
+        } catch (IOException e) {
+            throw new StorageException("Error leyendo índice " + indice + ": " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] comprimir(List<HistorialAcceso> accesos) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(buffer)) {
+            for (HistorialAcceso acceso : accesos) {
+                gzip.write(objectMapper.writeValueAsBytes(acceso));
+                gzip.write('\n');
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    private void subir(String objeto, byte[] contenido, String contentType) {
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objeto)
+                    .stream(new ByteArrayInputStream(contenido), contenido.length, -1)
+                    .contentType(contentType)
+                    .build());
+        } catch (Exception e) {
+            throw new StorageException("Error subiendo " + objeto + " a MinIO: " + e.getMessage(), e);
+        }
+    }
+
+    private InputStream descargar(String objeto) {
+        try {
+            return minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objeto)
+                    .build());
+        } catch (Exception e) {
+            throw new StorageException("Error descargando " + objeto + " de MinIO: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package co.edu.eafit.carpeta.ciudadana.repository.archivo;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Índice de un segmento archivado, guardado junto al segmento como JSON.
+ * Permite descartar segmentos por fecha o por documento sin descargarlos.
+ */
+public record IndiceSegmento(
+        String segmento,
+        int registros,
+        LocalDateTime fechaMin,
+        LocalDateTime fechaMax,
+        Set<String> documentoIds
+) {
+}
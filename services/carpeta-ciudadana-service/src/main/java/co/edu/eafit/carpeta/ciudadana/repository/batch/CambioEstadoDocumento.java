@@ -0,0 +1,12 @@
+package co.edu.eafit.carpeta.ciudadana.repository.batch;
+
+import co.edu.eafit.carpeta.ciudadana.entity.Documento;
+
+/**
+ * Cambio de estado de un documento dentro de un lote
+ */
+public record CambioEstadoDocumento(
+        String carpetaId,
+        String documentoId,
+        Documento.EstadoDocumento nuevoEstado
+) {}
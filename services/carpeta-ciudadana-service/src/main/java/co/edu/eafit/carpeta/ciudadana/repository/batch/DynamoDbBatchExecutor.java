@@ -0,0 +1,243 @@
+package co.edu.eafit.carpeta.ciudadana.repository.batch;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Ejecuta operaciones BatchGetItem / BatchWriteItem sobre cualquier tabla del servicio
+ *
+ * - Divide las peticiones en lotes según los límites de DynamoDB (100 lecturas, 25 escrituras)
+ * - Ejecuta los lotes en paralelo sobre un pool acotado
+ * - Reintenta las claves/items no procesados con backoff exponencial con jitter
+ */
+@Slf4j
+@Component
+public class DynamoDbBatchExecutor {
+
+    static final int MAX_BATCH_GET = 100;
+    static final int MAX_BATCH_WRITE = 25;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ExecutorService executor;
+    private final int maxReintentos;
+    private final long backoffBaseMs;
+
+    public DynamoDbBatchExecutor(
+            DynamoDbClient dynamoDbClient,
+            @Value("${dynamodb.batch.paralelismo:4}") int paralelismo,
+            @Value("${dynamodb.batch.max-reintentos:5}") int maxReintentos,
+            @Value("${dynamodb.batch.backoff-base-ms:50}") long backoffBaseMs) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.executor = Executors.newFixedThreadPool(paralelismo);
+        this.maxReintentos = maxReintentos;
+        this.backoffBaseMs = backoffBaseMs;
+    }
+
+    /**
+     * Lee todos los items de las claves dadas. Las claves inexistentes se omiten
+     * y el orden del resultado no está garantizado.
+     */
+    public <T> List<T> getAll(DynamoDbTable<T> table, Collection<Key> keys) {
+        List<Map<String, AttributeValue>> keyMaps = deduplicar(keys.stream()
+                .map(key -> toKeyMap(table, key))
+                .toList(), Function.identity());
+
+        return ejecutarEnLotes(keyMaps, MAX_BATCH_GET, lote -> getLote(table, lote)).stream()
+                .map(item -> table.tableSchema().mapToItem(item))
+                .toList();
+    }
+
+    public <T> void putAll(DynamoDbTable<T> table, Collection<T> items) {
+        List<WriteRequest> requests = items.stream()
+                .map(item -> WriteRequest.builder()
+                        .putRequest(PutRequest.builder()
+                                .item(table.tableSchema().itemToMap(item, true))
+                                .build())
+                        .build())
+                .toList();
+
+        escribir(table, requests);
+    }
+
+    /**
+     * Ejecuta una operación individual (p. ej. un UpdateItem condicionado, que no tiene versión
+     * por lotes) por cada elemento, en paralelo sobre el mismo pool. Un fallo no detiene al resto.
+     *
+     * @return Elementos cuya operación falló, con su excepción; vacío si todas terminaron bien
+     */
+    public <E> Map<E, RuntimeException> ejecutarIndividuales(Collection<E> elementos, Consumer<E> operacion) {
+        Map<E, CompletableFuture<Void>> futuros = new LinkedHashMap<>();
+        elementos.forEach(elemento ->
+                futuros.put(elemento, CompletableFuture.runAsync(() -> operacion.accept(elemento), executor)));
+
+        Map<E, RuntimeException> fallos = new LinkedHashMap<>();
+        futuros.forEach((elemento, futuro) -> {
+            try {
+                futuro.join();
+            } catch (CompletionException e) {
+                fallos.put(elemento, e.getCause() instanceof RuntimeException runtimeException
+                        ? runtimeException
+                        : e);
+            }
+        });
+        return fallos;
+    }
+
+    public <T> void deleteAll(DynamoDbTable<T> table, Collection<Key> keys) {
+        List<WriteRequest> requests = keys.stream()
+                .map(key -> WriteRequest.builder()
+                        .deleteRequest(DeleteRequest.builder()
+                                .key(toKeyMap(table, key))
+                                .build())
+                        .build())
+                .toList();
+
+        escribir(table, requests);
+    }
+
+    private <T> void escribir(DynamoDbTable<T> table, List<WriteRequest> requests) {
+        // DynamoDB rechaza un lote con dos operaciones sobre la misma clave: gana la última
+        List<WriteRequest> unicos = deduplicar(requests, request -> claveDe(table, request));
+
+        ejecutarEnLotes(unicos, MAX_BATCH_WRITE, lote -> {
+            writeLote(table.tableName(), lote);
+            return List.<Void>of();
+        });
+    }
+
+    private <T> List<Map<String, AttributeValue>> getLote(
+            DynamoDbTable<T> table, List<Map<String, AttributeValue>> keys) {
+
+        String tableName = table.tableName();
+        List<Map<String, AttributeValue>> encontrados = new ArrayList<>();
+        Map<String, KeysAndAttributes> pendientes =
+                Map.of(tableName, KeysAndAttributes.builder().keys(keys).build());
+
+        int intento = 0;
+        while (!pendientes.isEmpty()) {
+            Map<String, KeysAndAttributes> peticion = pendientes;
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(r -> r.requestItems(peticion));
+            encontrados.addAll(response.responses().getOrDefault(tableName, List.of()));
+
+            pendientes = response.hasUnprocessedKeys() ? response.unprocessedKeys() : Map.of();
+            if (!pendientes.isEmpty()) {
+                esperarReintento(tableName, ++intento, pendientes.get(tableName).keys().size());
+            }
+        }
+        return encontrados;
+    }
+
+    private void writeLote(String tableName, List<WriteRequest> requests) {
+        Map<String, List<WriteRequest>> pendientes = Map.of(tableName, requests);
+
+        int intento = 0;
+        while (!pendientes.isEmpty()) {
+            Map<String, List<WriteRequest>> peticion = pendientes;
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(r -> r.requestItems(peticion));
+
+            pendientes = response.hasUnprocessedItems() ? response.unprocessedItems() : Map.of();
+            if (!pendientes.isEmpty()) {
+                esperarReintento(tableName, ++intento, pendientes.get(tableName).size());
+            }
+        }
+    }
+
+    private void esperarReintento(String tableName, int intento, int pendientes) {
+        if (intento > maxReintentos) {
+            throw new IllegalStateException(String.format(
+                    "No fue posible procesar %d items en %s tras %d reintentos",
+                    pendientes, tableName, maxReintentos));
+        }
+
+        long techo = backoffBaseMs * (1L << Math.min(intento, 10));
+        long espera = ThreadLocalRandom.current().nextLong(techo / 2, techo + 1);
+        log.debug("Reintentando {} items no procesados en {} (intento {}, espera {} ms)",
+                pendientes, tableName, intento, espera);
+
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento de lote interrumpido", e);
+        }
+    }
+
+    private <E, R> List<R> ejecutarEnLotes(List<E> elementos, int tamanoLote, Function<List<E>, List<R>> operacion) {
+        if (elementos.isEmpty()) {
+            return List.of();
+        }
+        if (elementos.size() <= tamanoLote) {
+            return operacion.apply(elementos);
+        }
+
+        List<CompletableFuture<List<R>>> futuros = new ArrayList<>();
+        for (int inicio = 0; inicio < elementos.size(); inicio += tamanoLote) {
+            List<E> lote = elementos.subList(inicio, Math.min(inicio + tamanoLote, elementos.size()));
+            futuros.add(CompletableFuture.supplyAsync(() -> operacion.apply(lote), executor));
+        }
+
+        try {
+            return futuros.stream()
+                    .map(CompletableFuture::join)
+                    .flatMap(List::stream)
+                    .toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private <T> Map<String, AttributeValue> toKeyMap(DynamoDbTable<T> table, Key key) {
+        return key.keyMap(table.tableSchema(), TableMetadata.primaryIndexName());
+    }
+
+    private <T> Map<String, AttributeValue> claveDe(DynamoDbTable<T> table, WriteRequest request) {
+        if (request.putRequest() != null) {
+            Map<String, AttributeValue> item = request.putRequest().item();
+            Map<String, AttributeValue> clave = new LinkedHashMap<>();
+            table.tableSchema().tableMetadata().primaryKeys()
+                    .forEach(nombre -> clave.put(nombre, item.get(nombre)));
+            return clave;
+        }
+        return request.deleteRequest().key();
+    }
+
+    private static <E, K> List<E> deduplicar(List<E> elementos, Function<E, K> clave) {
+        Map<K, E> unicos = new LinkedHashMap<>();
+        elementos.forEach(elemento -> unicos.put(clave.apply(elemento), elemento));
+        return new ArrayList<>(unicos.values());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,174 @@
+package co.edu.eafit.carpeta.ciudadana.repository.cache;
+
+import co.edu.eafit.carpeta.ciudadana.entity.CarpetaCiudadano;
+import co.edu.eafit.carpeta.ciudadana.event.CarpetaCacheEventPublisher;
+import co.edu.eafit.carpeta.ciudadana.event.CarpetaInvalidadaEvent;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.CarpetaCiudadanoTableSchema;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché local (near-cache) de CarpetaCiudadano por ID y por cédula.
+ *
+ * <p>Caffeine con desalojo W-TinyLFU, tamaño acotado y TTL. Las escrituras invalidan la entrada
+ * local y publican un aviso en un exchange fanout para que el resto de réplicas la descarten; el
+ * TTL acota la inconsistencia si el aviso se pierde. Las carpetas se devuelven como copias para
+ * que quien las modifique no altere la entrada cacheada.
+ */
+@Slf4j
+@Component
+public class CarpetaCiudadanoCache {
+
+    private final Cache<String, CarpetaCiudadano> porId;
+    private final Cache<String, String> idPorCedula;
+    private final CarpetaCacheEventPublisher publisher;
+    private final String nodoId = UUID.randomUUID().toString();
+    /** Se incrementa en cada invalidación; permite descartar cargas que se solaparon con una. */
+    private final AtomicLong generacion = new AtomicLong();
+    private final boolean habilitada;
+    private final Timer lagInvalidacion;
+    private final Counter invalidacionesRemotas;
+
+    public CarpetaCiudadanoCache(
+            CarpetaCacheEventPublisher publisher,
+            MeterRegistry meterRegistry,
+            @Value("${cache.carpeta.habilitada:true}") boolean habilitada,
+            @Value("${cache.carpeta.tamano-maximo:10000}") long tamanoMaximo,
+            @Value("${cache.carpeta.ttl-segundos:300}") long ttlSegundos) {
+        this.publisher = publisher;
+        this.habilitada = habilitada;
+
+        this.porId = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+        this.idPorCedula = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+
+        // Aciertos, fallos, desalojos y tamaño de cada caché
+        CaffeineCacheMetrics.monitor(meterRegistry, porId, "carpetas.porId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idPorCedula, "carpetas.porCedula");
+
+        this.lagInvalidacion = Timer.builder("carpeta.cache.invalidacion.lag")
+                .description("Tiempo entre la escritura en una réplica y la invalidación en otra")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.invalidacionesRemotas = Counter.builder("carpeta.cache.invalidaciones.remotas")
+                .description("Avisos de invalidación recibidos de otras réplicas")
+                .register(meterRegistry);
+    }
+
+    /** Devuelve la carpeta cacheada o la carga; las carpetas inexistentes no se cachean. */
+    public Optional<CarpetaCiudadano> obtenerPorId(
+            String carpetaId, Function<String, Optional<CarpetaCiudadano>> cargar) {
+        if (!habilitada) {
+            return cargar.apply(carpetaId);
+        }
+        CarpetaCiudadano carpeta = porId.get(carpetaId, id -> cargar.apply(id).orElse(null));
+        return Optional.ofNullable(carpeta).map(this::copia);
+    }
+
+    public Optional<CarpetaCiudadano> obtenerPorCedula(
+            String cedula, Function<String, Optional<CarpetaCiudadano>> cargar) {
+        if (!habilitada) {
+            return cargar.apply(cedula);
+        }
+        String carpetaId = idPorCedula.getIfPresent(cedula);
+        CarpetaCiudadano cacheada = carpetaId != null ? porId.getIfPresent(carpetaId) : null;
+        if (cacheada != null) {
+            return Optional.of(copia(cacheada));
+        }
+
+        // La carga no puede ir dentro de porId.get: la clave (carpetaId) no se conoce hasta cargar
+        long generacionLeida = generacion.get();
+        Optional<CarpetaCiudadano> carpeta = cargar.apply(cedula);
+        carpeta.ifPresent(c -> {
+            idPorCedula.put(cedula, c.getCarpetaId());
+            porId.put(c.getCarpetaId(), copia(c));
+            // Una invalidación durante la carga pudo llegar antes de estos put: se deshacen para no
+            // dejar en caché una carpeta anterior a la escritura. Si llega después, ya los borra
+            if (generacion.get() != generacionLeida) {
+                idPorCedula.invalidate(cedula);
+                porId.invalidate(c.getCarpetaId());
+            }
+        });
+        return carpeta;
+    }
+
+    /**
+     * Invalida localmente y avisa al resto de réplicas. Se llama después de escribir en la tabla;
+     * el aviso solo se encola y se publica fuera del hilo de la petición.
+     */
+    public void invalidar(Collection<String> carpetaIds, Collection<String> cedulas) {
+        if (!habilitada) {
+            return;
+        }
+        List<String> ids = sinNulos(carpetaIds);
+        List<String> cedulasValidas = sinNulos(cedulas);
+        invalidarLocal(ids, cedulasValidas);
+
+        publisher.publicarInvalidacion(CarpetaInvalidadaEvent.builder()
+                .carpetaIds(ids)
+                .cedulas(cedulasValidas)
+                .nodoOrigen(nodoId)
+                .emitidoEnMillis(System.currentTimeMillis())
+                .build());
+    }
+
+    public void invalidar(String carpetaId, String cedula) {
+        invalidar(carpetaId != null ? List.of(carpetaId) : List.of(),
+                cedula != null ? List.of(cedula) : List.of());
+    }
+
+    public void aplicarInvalidacionRemota(CarpetaInvalidadaEvent event) {
+        if (!habilitada || nodoId.equals(event.getNodoOrigen())) {
+            // La réplica que escribió ya invalidó su copia
+            return;
+        }
+        invalidarLocal(sinNulos(event.getCarpetaIds()), sinNulos(event.getCedulas()));
+        invalidacionesRemotas.increment();
+        if (event.getEmitidoEnMillis() != null) {
+            long lag = Math.max(0, System.currentTimeMillis() - event.getEmitidoEnMillis());
+            lagInvalidacion.record(lag, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void invalidarLocal(List<String> carpetaIds, List<String> cedulas) {
+        generacion.incrementAndGet();
+        porId.invalidateAll(carpetaIds);
+        idPorCedula.invalidateAll(cedulas);
+    }
+
+    private CarpetaCiudadano copia(CarpetaCiudadano carpeta) {
+        return CarpetaCiudadanoTableSchema.SCHEMA.mapToItem(
+                CarpetaCiudadanoTableSchema.SCHEMA.itemToMap(carpeta, true));
+    }
+
+    private static List<String> sinNulos(Collection<String> valores) {
+        if (valores == null) {
+            return List.of();
+        }
+        return valores.stream().filter(Objects::nonNull).toList();
+    }
+}
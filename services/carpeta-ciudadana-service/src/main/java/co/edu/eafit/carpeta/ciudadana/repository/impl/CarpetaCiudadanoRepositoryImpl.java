@@ -2,15 +2,18 @@ package co.edu.eafit.carpeta.ciudadana.repository.impl;
 
 import co.edu.eafit.carpeta.ciudadana.entity.CarpetaCiudadano;
 import co.edu.eafit.carpeta.ciudadana.repository.CarpetaCiudadanoRepository;
+import co.edu.eafit.carpeta.ciudadana.repository.batch.DynamoDbBatchExecutor;
+import co.edu.eafit.carpeta.ciudadana.repository.cache.CarpetaCiudadanoCache;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.CarpetaCiudadanoTableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -19,31 +22,77 @@ import java.util.stream.Collectors;
 public class CarpetaCiudadanoRepositoryImpl implements CarpetaCiudadanoRepository {
 
     private final DynamoDbTable<CarpetaCiudadano> carpetaTable;
+    private final DynamoDbBatchExecutor batchExecutor;
+    private final CarpetaCiudadanoCache carpetaCache;
 
-    public CarpetaCiudadanoRepositoryImpl(DynamoDbClient dynamoDbClient) {
+    public CarpetaCiudadanoRepositoryImpl(DynamoDbClient dynamoDbClient, DynamoDbBatchExecutor batchExecutor,
+                                          CarpetaCiudadanoCache carpetaCache) {
         DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
                 .dynamoDbClient(dynamoDbClient)
                 .build();
         
-        this.carpetaTable = enhancedClient.table("CarpetaCiudadano", 
-                TableSchema.fromBean(CarpetaCiudadano.class));
+        this.carpetaTable = enhancedClient.table(CarpetaCiudadanoTableSchema.TABLE_NAME,
+                CarpetaCiudadanoTableSchema.SCHEMA);
+        this.batchExecutor = batchExecutor;
+        this.carpetaCache = carpetaCache;
     }
 
     public CarpetaCiudadano save(CarpetaCiudadano carpeta) {
         carpetaTable.putItem(carpeta);
+        carpetaCache.invalidar(carpeta.getCarpetaId(), carpeta.getPropietarioCedula());
         return carpeta;
     }
 
+    @Override
+    public List<CarpetaCiudadano> saveAll(List<CarpetaCiudadano> carpetas) {
+        batchExecutor.putAll(carpetaTable, carpetas);
+        carpetaCache.invalidar(
+                carpetas.stream().map(CarpetaCiudadano::getCarpetaId).toList(),
+                carpetas.stream().map(CarpetaCiudadano::getPropietarioCedula).toList());
+        return carpetas;
+    }
+
+    @Override
+    public List<CarpetaCiudadano> findAllByIds(Collection<String> carpetaIds) {
+        return batchExecutor.getAll(carpetaTable, claves(carpetaIds));
+    }
+
+    @Override
+    public void deleteAll(Collection<String> carpetaIds) {
+        batchExecutor.deleteAll(carpetaTable, claves(carpetaIds));
+        carpetaCache.invalidar(carpetaIds, List.of());
+    }
+
+    private List<Key> claves(Collection<String> carpetaIds) {
+        return carpetaIds.stream()
+                .map(carpetaId -> Key.builder()
+                        .partitionValue(carpetaId)
+                        .build())
+                .toList();
+    }
+
     public Optional<CarpetaCiudadano> findById(String carpetaId) {
+        return carpetaCache.obtenerPorId(carpetaId, this::leerPorId);
+    }
+
+    /**
+     * Lectura consistente: un fallo de caché justo después de una escritura no debe volver a
+     * cachear la versión anterior durante todo el TTL.
+     */
+    private Optional<CarpetaCiudadano> leerPorId(String carpetaId) {
         Key key = Key.builder()
                 .partitionValue(carpetaId)
                 .build();
-        
-        CarpetaCiudadano carpeta = carpetaTable.getItem(key);
+
+        CarpetaCiudadano carpeta = carpetaTable.getItem(r -> r.key(key).consistentRead(true));
         return Optional.ofNullable(carpeta);
     }
 
     public Optional<CarpetaCiudadano> findByPropietarioCedula(String cedula) {
+        return carpetaCache.obtenerPorCedula(cedula, this::leerPorCedula);
+    }
+
+    private Optional<CarpetaCiudadano> leerPorCedula(String cedula) {
         QueryEnhancedRequest queryRequest = QueryEnhancedRequest.builder()
                 .queryConditional(QueryConditional.keyEqualTo(Key.builder()
                         .partitionValue(cedula)
@@ -79,6 +128,7 @@ public class CarpetaCiudadanoRepositoryImpl implements CarpetaCiudadanoRepositor
                 .build();
         
         carpetaTable.deleteItem(key);
+        carpetaCache.invalidar(carpetaId, null);
     }
 
     public boolean existsById(String carpetaId) {
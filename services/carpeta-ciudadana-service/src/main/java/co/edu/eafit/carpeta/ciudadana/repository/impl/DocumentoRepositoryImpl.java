@@ -1,32 +1,99 @@
 package co.edu.eafit.carpeta.ciudadana.repository.impl;
 
+import co.edu.eafit.carpeta.ciudadana.entity.CarpetaCiudadano;
 import co.edu.eafit.carpeta.ciudadana.entity.Documento;
+import co.edu.eafit.carpeta.ciudadana.entity.EventoOutbox;
+import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
+import co.edu.eafit.carpeta.ciudadana.exception.ResourceNotFoundException;
+import co.edu.eafit.carpeta.ciudadana.exception.TransicionEstadoInvalidaException;
 import co.edu.eafit.carpeta.ciudadana.repository.DocumentoRepository;
+import co.edu.eafit.carpeta.ciudadana.repository.batch.CambioEstadoDocumento;
+import co.edu.eafit.carpeta.ciudadana.repository.batch.DynamoDbBatchExecutor;
+import co.edu.eafit.carpeta.ciudadana.repository.cache.CarpetaCiudadanoCache;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.ConsultaDocumentos;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.PaginaDocumentos;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.CarpetaCiudadanoTableSchema;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.DocumentoTableSchema;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.EventoOutboxTableSchema;
+import co.edu.eafit.carpeta.ciudadana.repository.particion.ParticionadorHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.HistorialAccesoTableSchema;
+import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Repository
 public class DocumentoRepositoryImpl implements DocumentoRepository {
 
+    /**
+     * Atributos leídos para la vista resumida de la lista de documentos
+     */
+    private static final List<String> ATRIBUTOS_RESUMEN = List.of(
+            "documentoId",
+            "titulo",
+            "tipoDocumento",
+            "contextoDocumento",
+            "estadoDocumento",
+            "fechaRecepcion",
+            "esDescargable",
+            "formatoArchivo",
+            "tamanoBytes");
+
+    private static final String CONDICION_CHECK_FALLIDA = "ConditionalCheckFailed";
+
+    private static final long ESPERA_REINTENTO_INCIERTO_MS = 500;
+
+    private final DynamoDbClient dynamoDbClient;
     private final DynamoDbTable<Documento> documentoTable;
+    private final DynamoDbBatchExecutor batchExecutor;
+    private final CarpetaCiudadanoCache carpetaCache;
+    private final ParticionadorHistorial particionadorHistorial;
 
-    public DocumentoRepositoryImpl(DynamoDbClient dynamoDbClient) {
+    public DocumentoRepositoryImpl(DynamoDbClient dynamoDbClient, DynamoDbBatchExecutor batchExecutor,
+                                   CarpetaCiudadanoCache carpetaCache,
+                                   ParticionadorHistorial particionadorHistorial) {
+        this.dynamoDbClient = dynamoDbClient;
         DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
                 .dynamoDbClient(dynamoDbClient)
                 .build();
         
-        this.documentoTable = enhancedClient.table("Documento", 
-                TableSchema.fromBean(Documento.class));
+        this.documentoTable = enhancedClient.table(DocumentoTableSchema.TABLE_NAME,
+                DocumentoTableSchema.SCHEMA);
+        this.batchExecutor = batchExecutor;
+        this.carpetaCache = carpetaCache;
+        this.particionadorHistorial = particionadorHistorial;
     }
 
     public Documento save(Documento documento) {
@@ -34,6 +101,190 @@ public class DocumentoRepositoryImpl implements DocumentoRepository {
         return documento;
     }
 
+    @Override
+    public List<Documento> saveAll(List<Documento> documentos) {
+        batchExecutor.putAll(documentoTable, documentos);
+        return documentos;
+    }
+
+    @Override
+    public Documento saveConSubida(Documento documento, HistorialAcceso acceso, long tamanoBytes,
+                                   EventoOutbox evento) {
+        Put putDocumento = Put.builder()
+                .tableName(DocumentoTableSchema.TABLE_NAME)
+                .item(DocumentoTableSchema.SCHEMA.itemToMap(documento, true))
+                .conditionExpression("attribute_not_exists(documentoId)")
+                .build();
+
+        // ADD trata el atributo inexistente como 0, así que no hace falta leer la carpeta antes
+        Update sumarEspacio = Update.builder()
+                .tableName(CarpetaCiudadanoTableSchema.TABLE_NAME)
+                .key(Map.of("carpetaId", AttributeValue.fromS(documento.getCarpetaId())))
+                .updateExpression("ADD espacioUtilizadoBytes :bytes SET fechaUltimaModificacion = :fecha")
+                .conditionExpression("attribute_exists(carpetaId)")
+                .expressionAttributeValues(Map.of(
+                        ":bytes", AttributeValue.fromN(Long.toString(tamanoBytes)),
+                        ":fecha", fechaModificacion(LocalDateTime.now())))
+                .build();
+
+        particionadorHistorial.asignar(acceso);
+        Put putAcceso = Put.builder()
+                .tableName(HistorialAccesoTableSchema.TABLE_NAME)
+                .item(HistorialAccesoTableSchema.SCHEMA.itemToMap(acceso, true))
+                .build();
+
+        // El evento se confirma junto con el documento; el relay del outbox lo publica después
+        Put putEvento = Put.builder()
+                .tableName(EventoOutboxTableSchema.TABLE_NAME)
+                .item(EventoOutboxTableSchema.SCHEMA.itemToMap(evento, true))
+                .conditionExpression("attribute_not_exists(eventoId)")
+                .build();
+
+        // Token explícito para poder repetir la misma transacción si su resultado es incierto
+        TransactWriteItemsRequest request = TransactWriteItemsRequest.builder()
+                .clientRequestToken(UUID.randomUUID().toString())
+                .transactItems(
+                        TransactWriteItem.builder().put(putDocumento).build(),
+                        TransactWriteItem.builder().update(sumarEspacio).build(),
+                        TransactWriteItem.builder().put(putAcceso).build(),
+                        TransactWriteItem.builder().put(putEvento).build())
+                .build();
+
+        try {
+            confirmarTransaccion(request, documento.getDocumentoId());
+            // La transacción cambió espacioUtilizadoBytes de la carpeta
+            carpetaCache.invalidar(documento.getCarpetaId(), null);
+            return documento;
+        } catch (TransactionCanceledException e) {
+            List<CancellationReason> razones = e.cancellationReasons();
+            log.warn("Transacción de subida cancelada para documento {}: {}",
+                    documento.getDocumentoId(), razones);
+
+            if (condicionFallida(razones, 1)) {
+                throw new ResourceNotFoundException("Carpeta", "carpetaId", documento.getCarpetaId());
+            }
+            if (condicionFallida(razones, 0)) {
+                throw new IllegalStateException("Ya existe un documento con ID " + documento.getDocumentoId());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Documento actualizarEstado(String carpetaId, String documentoId, Documento.EstadoDocumento nuevoEstado) {
+        Map<String, AttributeValue> valores = new HashMap<>();
+        valores.put(":nuevoEstado", AttributeValue.fromS(nuevoEstado.name()));
+        valores.put(":fecha", DocumentoTableSchema.SCHEMA
+                .itemToMap(Documento.builder().fechaUltimaModificacion(LocalDateTime.now()).build(),
+                        List.of("fechaUltimaModificacion"))
+                .get("fechaUltimaModificacion"));
+
+        List<String> origenes = nuevoEstado.estadosOrigen().stream()
+                .map(Documento.EstadoDocumento::name)
+                .sorted()
+                .toList();
+        if (origenes.isEmpty()) {
+            // Ningún estado puede transicionar al estado inicial
+            throw new TransicionEstadoInvalidaException(documentoId, null, nuevoEstado.name());
+        }
+
+        StringBuilder condicion = new StringBuilder("attribute_exists(documentoId) AND estadoDocumento IN (");
+        for (int i = 0; i < origenes.size(); i++) {
+            condicion.append(i > 0 ? ", " : "").append(":origen").append(i);
+            valores.put(":origen" + i, AttributeValue.fromS(origenes.get(i)));
+        }
+        condicion.append(")");
+
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(DocumentoTableSchema.TABLE_NAME)
+                .key(Map.of(
+                        "carpetaId", AttributeValue.fromS(carpetaId),
+                        "documentoId", AttributeValue.fromS(documentoId)))
+                .updateExpression("SET estadoDocumento = :nuevoEstado, fechaUltimaModificacion = :fecha")
+                .conditionExpression(condicion.toString())
+                .expressionAttributeValues(valores)
+                .returnValues(ReturnValue.ALL_NEW)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(request);
+            return DocumentoTableSchema.SCHEMA.mapToItem(response.attributes());
+        } catch (ConditionalCheckFailedException e) {
+            if (!e.hasItem() || e.item().isEmpty()) {
+                throw new ResourceNotFoundException("Documento", "documentoId", documentoId);
+            }
+            AttributeValue estadoActual = e.item().get("estadoDocumento");
+            throw new TransicionEstadoInvalidaException(
+                    documentoId, estadoActual != null ? estadoActual.s() : null, nuevoEstado.name());
+        }
+    }
+
+    @Override
+    public Map<CambioEstadoDocumento, RuntimeException> actualizarEstados(Collection<CambioEstadoDocumento> cambios) {
+        return batchExecutor.ejecutarIndividuales(cambios, cambio ->
+                actualizarEstado(cambio.carpetaId(), cambio.documentoId(), cambio.nuevoEstado()));
+    }
+
+    /**
+     * Convierte la fecha con el mismo converter que usa el esquema de CarpetaCiudadano
+     */
+    private AttributeValue fechaModificacion(LocalDateTime fecha) {
+        CarpetaCiudadano parcial = new CarpetaCiudadano();
+        parcial.setFechaUltimaModificacion(fecha);
+        return CarpetaCiudadanoTableSchema.SCHEMA
+                .itemToMap(parcial, List.of("fechaUltimaModificacion"))
+                .get("fechaUltimaModificacion");
+    }
+
+    /**
+     * Ejecuta la transacción y resuelve los resultados inciertos (timeout, TransactionInProgress,
+     * errores 5xx), en los que la escritura pudo confirmarse. Repetirla con el mismo
+     * ClientRequestToken es idempotente durante 10 minutos: si ya se confirmó, DynamoDB responde
+     * éxito sin volver a escribir; si no, se ejecuta ahora o se cancela con
+     * TransactionCanceledException. Si el reintento tampoco es concluyente se propaga el error.
+     */
+    private void confirmarTransaccion(TransactWriteItemsRequest request, String documentoId) {
+        try {
+            dynamoDbClient.transactWriteItems(request);
+        } catch (TransactionCanceledException e) {
+            throw e;
+        } catch (SdkException e) {
+            log.warn("Resultado incierto de la transacción del documento {} ({}), reintentando con el mismo token",
+                    documentoId, e.getMessage());
+            try {
+                Thread.sleep(ESPERA_REINTENTO_INCIERTO_MS);
+            } catch (InterruptedException interrumpido) {
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+            dynamoDbClient.transactWriteItems(request);
+        }
+    }
+
+    private boolean condicionFallida(List<CancellationReason> razones, int indice) {
+        return razones.size() > indice && CONDICION_CHECK_FALLIDA.equals(razones.get(indice).code());
+    }
+
+    @Override
+    public List<Documento> findAllByIds(String carpetaId, Collection<String> documentoIds) {
+        return batchExecutor.getAll(documentoTable, claves(carpetaId, documentoIds));
+    }
+
+    @Override
+    public void deleteAll(String carpetaId, Collection<String> documentoIds) {
+        batchExecutor.deleteAll(documentoTable, claves(carpetaId, documentoIds));
+    }
+
+    private List<Key> claves(String carpetaId, Collection<String> documentoIds) {
+        return documentoIds.stream()
+                .map(documentoId -> Key.builder()
+                        .partitionValue(carpetaId)
+                        .sortValue(documentoId)
+                        .build())
+                .toList();
+    }
+
     public Optional<Documento> findById(String carpetaId, String documentoId) {
         Key key = Key.builder()
                 .partitionValue(carpetaId)
@@ -58,43 +309,70 @@ public class DocumentoRepositoryImpl implements DocumentoRepository {
     }
 
     @Override
-    public List<Documento> findByCarpetaIdPaginated(String carpetaId, String lastDocumentoId, int pageSize) {
+    public PaginaDocumentos findPagina(ConsultaDocumentos consulta) {
+        int tamano = consulta.tamanoPagina();
         QueryEnhancedRequest.Builder queryBuilder = QueryEnhancedRequest.builder()
                 .queryConditional(QueryConditional.keyEqualTo(Key.builder()
-                        .partitionValue(carpetaId)
+                        .partitionValue(consulta.carpetaId())
                         .build()))
-                .limit(pageSize + 1); // Fetch pageSize + 1 to detect if there are more pages
+                .scanIndexForward(!consulta.descendente())
+                .limit(tamano + 1) // Fetch pageSize + 1 to detect if there are more pages
+                .exclusiveStartKey(consulta.inicio());
 
-        // Apply exclusive start key if provided (continuation cursor)
-        QueryEnhancedRequest queryRequest = applyExclusiveStartKey(queryBuilder, carpetaId, lastDocumentoId)
-                .build();
+        if (consulta.resumen()) {
+            queryBuilder.attributesToProject(ATRIBUTOS_RESUMEN);
+        }
+        filtro(consulta).ifPresent(queryBuilder::filterExpression);
 
-        return documentoTable.query(queryRequest)
-                .items()
-                .stream()
+        QueryEnhancedRequest queryRequest = queryBuilder.build();
+        SdkIterable<Page<Documento>> paginas = consulta.indice() == null
+                ? documentoTable.query(queryRequest)
+                : documentoTable.index(consulta.indice()).query(queryRequest);
+
+        // Con filtros una página de DynamoDB puede traer menos items: se sigue leyendo hasta completar
+        List<Documento> documentos = paginas.stream()
+                .flatMap(pagina -> pagina.items().stream())
+                .limit(tamano + 1)
                 .collect(Collectors.toList());
+
+        if (documentos.size() <= tamano) {
+            return new PaginaDocumentos(documentos, null);
+        }
+        List<Documento> pagina = new ArrayList<>(documentos.subList(0, tamano));
+        return new PaginaDocumentos(pagina, claveDeInicio(pagina.get(tamano - 1), consulta));
+    }
+
+    private Optional<Expression> filtro(ConsultaDocumentos consulta) {
+        List<String> condiciones = new ArrayList<>();
+        Expression.Builder filtro = Expression.builder();
+
+        if (consulta.tipoDocumento() != null) {
+            condiciones.add("tipoDocumento = :tipoDocumento");
+            filtro.putExpressionValue(":tipoDocumento", AttributeValue.fromS(consulta.tipoDocumento()));
+        }
+        if (consulta.estadoDocumento() != null) {
+            condiciones.add("estadoDocumento = :estadoDocumento");
+            filtro.putExpressionValue(":estadoDocumento", AttributeValue.fromS(consulta.estadoDocumento()));
+        }
+        return condiciones.isEmpty()
+                ? Optional.empty()
+                : Optional.of(filtro.expression(String.join(" AND ", condiciones)).build());
     }
 
     /**
-     * Aplica el exclusiveStartKey al query builder si lastDocumentoId está presente
-     * Esto permite continuar la paginación desde donde quedó la página anterior
+     * Clave de inicio exclusiva a partir del último documento de la página: las claves de la tabla
+     * más, si se consultó un GSI, las claves del índice.
      */
-    private QueryEnhancedRequest.Builder applyExclusiveStartKey(
-            QueryEnhancedRequest.Builder queryBuilder,
-            String carpetaId,
-            String lastDocumentoId) {
-
-        if (lastDocumentoId != null && !lastDocumentoId.trim().isEmpty()) {
-            Documento lastDocument = new Documento();
-            lastDocument.setCarpetaId(carpetaId);
-            lastDocument.setDocumentoId(lastDocumentoId);
-
-            return queryBuilder.exclusiveStartKey(
-                documentoTable.tableSchema().itemToMap(lastDocument, true)
-            );
+    private Map<String, AttributeValue> claveDeInicio(Documento ultimo, ConsultaDocumentos consulta) {
+        TableMetadata metadata = documentoTable.tableSchema().tableMetadata();
+        List<String> atributos = new ArrayList<>(metadata.primaryKeys());
+        if (consulta.indice() != null) {
+            atributos.add(metadata.indexPartitionKey(consulta.indice()));
+            metadata.indexSortKey(consulta.indice()).ifPresent(atributos::add);
         }
-
-        return queryBuilder;
+        // La proyección del resumen no incluye la partition key
+        ultimo.setCarpetaId(consulta.carpetaId());
+        return documentoTable.tableSchema().itemToMap(ultimo, atributos.stream().distinct().toList());
     }
 
     public List<Documento> findByTipoDocumento(String carpetaId, String tipoDocumento) {
@@ -111,12 +389,15 @@ public class DocumentoRepositoryImpl implements DocumentoRepository {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Documentos que terminaron la autenticación con éxito (el estado PROCESADO ya no existe)
+     */
     public List<Documento> findDocumentosProcesados(String carpetaId) {
-        return findByEstadoDocumento(carpetaId, "PROCESADO");
+        return findByEstadoDocumento(carpetaId, Documento.EstadoDocumento.AUTENTICADO.name());
     }
 
     public List<Documento> findDocumentosTemporales(String carpetaId) {
-        return findByEstadoDocumento(carpetaId, "TEMPORAL");
+        return findByEstadoDocumento(carpetaId, Documento.EstadoDocumento.TEMPORAL.name());
     }
 
     public void deleteById(String carpetaId, String documentoId) {
@@ -0,0 +1,123 @@
+package co.edu.eafit.carpeta.ciudadana.repository.impl;
+
+import co.edu.eafit.carpeta.ciudadana.entity.EventoOutbox;
+import co.edu.eafit.carpeta.ciudadana.repository.EventoOutboxRepository;
+import co.edu.eafit.carpeta.ciudadana.repository.batch.DynamoDbBatchExecutor;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.EventoOutboxTableSchema;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class EventoOutboxRepositoryImpl implements EventoOutboxRepository {
+
+    private static final String PREFIJO_LEASE = "RELAY#LEASE#";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbTable<EventoOutbox> outboxTable;
+    private final DynamoDbBatchExecutor batchExecutor;
+
+    public EventoOutboxRepositoryImpl(DynamoDbClient dynamoDbClient, DynamoDbBatchExecutor batchExecutor) {
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+
+        this.dynamoDbClient = dynamoDbClient;
+        this.outboxTable = enhancedClient.table(EventoOutboxTableSchema.TABLE_NAME,
+                EventoOutboxTableSchema.SCHEMA);
+        this.batchExecutor = batchExecutor;
+    }
+
+    @Override
+    public List<EventoOutbox> findPendientes(int bucket, int limite) {
+        QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder()
+                        .partitionValue(EventoOutboxTableSchema.PREFIJO_PENDIENTE + bucket)
+                        .build()))
+                .scanIndexForward(true)
+                .limit(limite)
+                .build();
+
+        // El GSI es eventualmente consistente: un evento recién publicado puede reaparecer; el
+        // relay descarta los que ya publicó en la pasada
+        return outboxTable.index(EventoOutboxTableSchema.INDICE_PENDIENTES).query(request).stream()
+                .limit(1)
+                .flatMap(page -> page.items().stream())
+                .limit(limite)
+                .toList();
+    }
+
+    @Override
+    public void marcarPublicados(List<EventoOutbox> eventos, long expiraEn) {
+        LocalDateTime ahora = LocalDateTime.now();
+        for (EventoOutbox evento : eventos) {
+            evento.setEstado(EventoOutbox.EstadoEvento.PUBLISHED.name());
+            evento.setTimestampPublicacion(ahora);
+            evento.setParticionPendiente(null);
+            evento.setExpiraEn(expiraEn);
+        }
+        batchExecutor.putAll(outboxTable, eventos);
+    }
+
+    @Override
+    public List<EventoOutbox> registrarFallo(List<EventoOutbox> eventos, int maxIntentos, long expiraEn) {
+        List<EventoOutbox> fallidos = new ArrayList<>();
+        for (EventoOutbox evento : eventos) {
+            int intentos = (evento.getIntentosPublicacion() == null ? 0 : evento.getIntentosPublicacion()) + 1;
+            evento.setIntentosPublicacion(intentos);
+            if (intentos >= maxIntentos) {
+                evento.setEstado(EventoOutbox.EstadoEvento.FAILED.name());
+                evento.setParticionPendiente(null);
+                evento.setExpiraEn(expiraEn);
+                fallidos.add(evento);
+            }
+        }
+        batchExecutor.putAll(outboxTable, eventos);
+        return fallidos;
+    }
+
+    @Override
+    public boolean adquirirLease(int bucket, String propietario, long duracionMs) {
+        long ahora = System.currentTimeMillis();
+        try {
+            dynamoDbClient.putItem(r -> r
+                    .tableName(EventoOutboxTableSchema.TABLE_NAME)
+                    .item(Map.of(
+                            "eventoId", AttributeValue.fromS(PREFIJO_LEASE + bucket),
+                            "propietario", AttributeValue.fromS(propietario),
+                            "leaseHasta", AttributeValue.fromN(String.valueOf(ahora + duracionMs))))
+                    .conditionExpression("attribute_not_exists(eventoId) OR leaseHasta < :ahora "
+                            + "OR propietario = :propietario")
+                    .expressionAttributeValues(Map.of(
+                            ":ahora", AttributeValue.fromN(String.valueOf(ahora)),
+                            ":propietario", AttributeValue.fromS(propietario))));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void liberarLease(int bucket, String propietario) {
+        try {
+            dynamoDbClient.deleteItem(r -> r
+                    .tableName(EventoOutboxTableSchema.TABLE_NAME)
+                    .key(Map.of("eventoId", AttributeValue.fromS(PREFIJO_LEASE + bucket)))
+                    .conditionExpression("propietario = :propietario")
+                    .expressionAttributeValues(Map.of(":propietario", AttributeValue.fromS(propietario))));
+        } catch (ConditionalCheckFailedException e) {
+            // El lease expiró y lo tomó otra réplica
+        }
+    }
+}
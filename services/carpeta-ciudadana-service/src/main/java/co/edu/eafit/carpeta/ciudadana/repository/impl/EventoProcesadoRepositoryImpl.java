@@ -0,0 +1,49 @@
+package co.edu.eafit.carpeta.ciudadana.repository.impl;
+
+import co.edu.eafit.carpeta.ciudadana.entity.EventoProcesado;
+import co.edu.eafit.carpeta.ciudadana.repository.EventoProcesadoRepository;
+import co.edu.eafit.carpeta.ciudadana.repository.batch.DynamoDbBatchExecutor;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.EventoProcesadoTableSchema;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Repository
+public class EventoProcesadoRepositoryImpl implements EventoProcesadoRepository {
+
+    private final DynamoDbTable<EventoProcesado> procesadosTable;
+    private final DynamoDbBatchExecutor batchExecutor;
+
+    public EventoProcesadoRepositoryImpl(DynamoDbClient dynamoDbClient, DynamoDbBatchExecutor batchExecutor) {
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+
+        this.procesadosTable = enhancedClient.table(EventoProcesadoTableSchema.TABLE_NAME,
+                EventoProcesadoTableSchema.SCHEMA);
+        this.batchExecutor = batchExecutor;
+    }
+
+    @Override
+    public Set<String> findExistentes(Collection<String> claves) {
+        List<Key> keys = claves.stream()
+                .map(clave -> Key.builder().partitionValue(clave).build())
+                .toList();
+
+        return batchExecutor.getAll(procesadosTable, keys).stream()
+                .map(EventoProcesado::getClave)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public void saveAll(List<EventoProcesado> eventos) {
+        batchExecutor.putAll(procesadosTable, eventos);
+    }
+}
@@ -2,78 +2,373 @@ package co.edu.eafit.carpeta.ciudadana.repository.impl;
 
 import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
 import co.edu.eafit.carpeta.ciudadana.repository.HistorialAccesoRepository;
+import co.edu.eafit.carpeta.ciudadana.repository.archivo.HistorialAccesoArchivo;
+import co.edu.eafit.carpeta.ciudadana.repository.batch.DynamoDbBatchExecutor;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.ConsultaHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.FiltroHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.PaginaHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.particion.ConcatenacionPerezosa;
+import co.edu.eafit.carpeta.ciudadana.repository.particion.MezclaOrdenada;
+import co.edu.eafit.carpeta.ciudadana.repository.particion.ParticionadorHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.HistorialAccesoTableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public class HistorialAccesoRepositoryImpl implements HistorialAccesoRepository {
 
+    /** Clave del lease del archivador; no tiene fechaAcceso, así que no entra en los índices. */
+    private static final Map<String, AttributeValue> CLAVE_LEASE_ARCHIVADOR = Map.of(
+            "carpetaId", AttributeValue.fromS("ARCHIVADOR#LEASE"),
+            "accesoId", AttributeValue.fromS("#"));
+
+    /** Entrada de la clave de inicio con la posición en la capa fría (las de los shards van por número). */
+    private static final String INICIO_ARCHIVO = "archivo";
+
+    private final DynamoDbClient dynamoDbClient;
     private final DynamoDbTable<HistorialAcceso> historialTable;
+    private final DynamoDbBatchExecutor batchExecutor;
+    private final HistorialAccesoArchivo archivo;
+    private final ParticionadorHistorial particionador;
 
-    public HistorialAccesoRepositoryImpl(DynamoDbClient dynamoDbClient) {
+    public HistorialAccesoRepositoryImpl(
+            DynamoDbClient dynamoDbClient,
+            DynamoDbBatchExecutor batchExecutor,
+            HistorialAccesoArchivo archivo,
+            ParticionadorHistorial particionador) {
         DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
                 .dynamoDbClient(dynamoDbClient)
                 .build();
-        
-        this.historialTable = enhancedClient.table("HistorialAcceso", 
-                TableSchema.fromBean(HistorialAcceso.class));
+
+        this.dynamoDbClient = dynamoDbClient;
+        this.historialTable = enhancedClient.table(HistorialAccesoTableSchema.TABLE_NAME,
+                HistorialAccesoTableSchema.SCHEMA);
+        this.batchExecutor = batchExecutor;
+        this.archivo = archivo;
+        this.particionador = particionador;
     }
 
     public HistorialAcceso save(HistorialAcceso historialAcceso) {
+        particionador.asignar(historialAcceso);
         historialTable.putItem(historialAcceso);
         return historialAcceso;
     }
 
+    @Override
+    public List<HistorialAcceso> saveAll(List<HistorialAcceso> accesos) {
+        accesos.forEach(particionador::asignar);
+        batchExecutor.putAll(historialTable, accesos);
+        return accesos;
+    }
+
+    @Override
+    public List<HistorialAcceso> findAllByIds(String carpetaId, Collection<String> accesoIds) {
+        return batchExecutor.getAll(historialTable, claves(carpetaId, accesoIds));
+    }
+
+    @Override
+    public void deleteAll(String carpetaId, Collection<String> accesoIds) {
+        batchExecutor.deleteAll(historialTable, claves(carpetaId, accesoIds));
+    }
+
+    /**
+     * Claves de los accesos en todas las particiones de la carpeta: el shard de cada acceso no
+     * se conoce de antemano.
+     */
+    private List<Key> claves(String carpetaId, Collection<String> accesoIds) {
+        List<String> particiones = particionador.particiones(carpetaId, particionador.shards(carpetaId));
+        return particiones.stream()
+                .flatMap(particion -> accesoIds.stream()
+                        .map(accesoId -> Key.builder()
+                                .partitionValue(particion)
+                                .sortValue(accesoId)
+                                .build()))
+                .toList();
+    }
+
     public List<HistorialAcceso> findByCarpetaId(String carpetaId) {
-        QueryEnhancedRequest queryRequest = QueryEnhancedRequest.builder()
-                .queryConditional(QueryConditional.keyEqualTo(Key.builder()
-                        .partitionValue(carpetaId)
-                        .build()))
-                .build();
-        
-        return historialTable.query(queryRequest)
-                .items()
-                .stream()
-                .collect(Collectors.toList());
+        return listar(FiltroHistorial.deCarpeta(carpetaId));
     }
 
     public List<HistorialAcceso> findByDocumentoId(String carpetaId, String documentoId) {
-        List<HistorialAcceso> historial = findByCarpetaId(carpetaId);
-        return historial.stream()
-                .filter(acceso -> documentoId.equals(acceso.getDocumentoId()))
-                .collect(Collectors.toList());
+        return listar(new FiltroHistorial(carpetaId, documentoId, null, null, null, false));
     }
 
     public List<HistorialAcceso> findByTipoAcceso(String carpetaId, String tipoAcceso) {
-        List<HistorialAcceso> historial = findByCarpetaId(carpetaId);
-        return historial.stream()
-                .filter(acceso -> tipoAcceso.equals(acceso.getTipoAcceso()))
-                .collect(Collectors.toList());
+        return listar(new FiltroHistorial(carpetaId, null, tipoAcceso, null, null, false));
     }
 
     public List<HistorialAcceso> findByUsuarioAcceso(String carpetaId, String usuarioAcceso) {
-        List<HistorialAcceso> historial = findByCarpetaId(carpetaId);
-        return historial.stream()
+        return stream(FiltroHistorial.deCarpeta(carpetaId))
                 .filter(acceso -> usuarioAcceso.equals(acceso.getUsuarioAcceso()))
                 .collect(Collectors.toList());
     }
 
     public List<HistorialAcceso> findByRangoFechas(String carpetaId, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        List<HistorialAcceso> historial = findByCarpetaId(carpetaId);
-        return historial.stream()
-                .filter(acceso -> acceso.getFechaAcceso().isAfter(fechaInicio) && 
-                                acceso.getFechaAcceso().isBefore(fechaFin))
-                .collect(Collectors.toList());
+        return listar(new FiltroHistorial(carpetaId, null, null, fechaInicio, fechaFin, false));
+    }
+
+    private List<HistorialAcceso> listar(FiltroHistorial filtro) {
+        return stream(filtro).collect(Collectors.toList());
+    }
+
+    /**
+     * Scatter-gather: consulta cada partición de la carpeta (una sola si no está particionada o
+     * si se filtra por documento) y la capa fría, y mezcla los resultados por fechaAcceso. Como en
+     * {@link #stream}, los accesos de la tabla con expiraEn se leen solo de MinIO. La clave de
+     * inicio de la página siguiente guarda la posición de cada partición y la del archivo por
+     * separado.
+     */
+    @Override
+    public PaginaHistorial findPagina(ConsultaHistorial consulta) {
+        FiltroHistorial filtro = consulta.filtro();
+        int tamano = consulta.tamanoPagina();
+        int shards = consulta.shards() != null ? consulta.shards() : particionador.shards(filtro.carpetaId());
+        String indice = indicePara(filtro);
+        List<String> particiones = particionesDe(filtro, shards);
+
+        Map<String, Map<String, AttributeValue>> siguiente = new LinkedHashMap<>();
+        List<Iterator<HistorialAcceso>> fuentes = new ArrayList<>();
+        for (int i = 0; i < particiones.size(); i++) {
+            Map<String, AttributeValue> inicio = consulta.inicio() == null
+                    ? null
+                    : consulta.inicio().get(String.valueOf(i));
+            if (inicio != null && inicio.isEmpty()) {
+                fuentes.add(Collections.emptyIterator()); // Agotada en una página anterior
+                continue;
+            }
+            if (inicio != null) {
+                siguiente.put(String.valueOf(i), inicio);
+            }
+            // Un acceso de más para saber si hay otra página
+            fuentes.add(consultar(filtro, particiones.get(i), inicio, tamano + 1, true).iterator());
+        }
+
+        // La capa fría es la última fuente
+        int fuenteArchivo = particiones.size();
+        Map<String, AttributeValue> inicioArchivo = consulta.inicio() == null
+                ? null
+                : consulta.inicio().get(INICIO_ARCHIVO);
+        HistorialAccesoArchivo.Cursor archivados = null;
+        if (inicioArchivo != null && inicioArchivo.isEmpty()) {
+            fuentes.add(Collections.emptyIterator());
+        } else {
+            if (inicioArchivo != null) {
+                siguiente.put(INICIO_ARCHIVO, inicioArchivo);
+            }
+            archivados = archivo.cursor(filtro, posicion(inicioArchivo));
+            fuentes.add(archivados);
+        }
+
+        MezclaOrdenada<HistorialAcceso> mezcla = new MezclaOrdenada<>(fuentes, orden(filtro));
+        List<HistorialAcceso> accesos = new ArrayList<>();
+        Set<String> enPagina = new HashSet<>();
+        while (accesos.size() < tamano && mezcla.hasNext()) {
+            HistorialAcceso acceso = mezcla.next();
+            if (mezcla.fuenteDelUltimo() == fuenteArchivo) {
+                siguiente.put(INICIO_ARCHIVO, claveArchivo(archivados.posicionTras(acceso)));
+            } else {
+                siguiente.put(String.valueOf(mezcla.fuenteDelUltimo()), claveDeInicio(acceso, indice));
+            }
+            // Un acceso cuyo marcado falló está en la tabla sin expiraEn y también en MinIO
+            if (enPagina.add(acceso.getAccesoId())) {
+                accesos.add(acceso);
+            }
+        }
+
+        if (!mezcla.hasNext()) {
+            return new PaginaHistorial(accesos, shards, null);
+        }
+        for (int i = 0; i < particiones.size(); i++) {
+            if (mezcla.agotada(i)) {
+                siguiente.put(String.valueOf(i), Map.of());
+            }
+        }
+        if (mezcla.agotada(fuenteArchivo)) {
+            siguiente.put(INICIO_ARCHIVO, Map.of());
+        }
+        return new PaginaHistorial(accesos, shards, siguiente);
+    }
+
+    private static HistorialAccesoArchivo.Posicion posicion(Map<String, AttributeValue> inicio) {
+        if (inicio == null) {
+            return null;
+        }
+        AttributeValue segmento = inicio.get("segmento");
+        AttributeValue leidos = inicio.get("leidos");
+        if (segmento == null || segmento.s() == null || leidos == null || leidos.n() == null) {
+            return null;
+        }
+        return new HistorialAccesoArchivo.Posicion(segmento.s(), Integer.parseInt(leidos.n()));
+    }
+
+    private static Map<String, AttributeValue> claveArchivo(HistorialAccesoArchivo.Posicion posicion) {
+        return Map.of(
+                "segmento", AttributeValue.fromS(posicion.segmento()),
+                "leidos", AttributeValue.fromN(Integer.toString(posicion.leidos())));
+    }
+
+    /**
+     * Capa caliente y después la fría (o al revés en orden ascendente). Los accesos de la tabla
+     * que ya tienen expiraEn están también en MinIO, así que se leen solo de allí. Cada capa se
+     * abre cuando la anterior se agota y las páginas de DynamoDB se piden según se consumen; las
+     * particiones de una carpeta caliente se mezclan por fecha.
+     *
+     * No se guardan los ids emitidos, así que la memoria no crece con el historial: la tabla solo
+     * aporta accesos sin expiraEn y la capa fría descarta los archivados dos veces (ver
+     * {@link HistorialAccesoArchivo#stream}). Si falló el marcado de un lote, sus accesos salen
+     * dos veces hasta que el archivador los vuelve a archivar y los marca.
+     */
+    @Override
+    public Stream<HistorialAcceso> stream(FiltroHistorial filtro) {
+        Supplier<Stream<HistorialAcceso>> calientes = () -> MezclaOrdenada.stream(
+                particionesDe(filtro, particionador.shards(filtro.carpetaId())).stream()
+                        .map(particion -> consultar(filtro, particion, null, null, true))
+                        .toList(),
+                orden(filtro));
+        Supplier<Stream<HistorialAcceso>> archivados = () -> archivo.stream(filtro);
+
+        return ConcatenacionPerezosa.concatenar(filtro.descendente()
+                ? List.of(calientes, archivados)
+                : List.of(archivados, calientes));
+    }
+
+    /**
+     * Accesos de una partición del GSI, leídos página a página según se consumen.
+     *
+     * @param soloNoArchivados Excluye los accesos que ya están en la capa fría
+     */
+    private Stream<HistorialAcceso> consultar(FiltroHistorial filtro, String particion,
+                                              Map<String, AttributeValue> inicio, Integer limite,
+                                              boolean soloNoArchivados) {
+        QueryEnhancedRequest.Builder queryBuilder = QueryEnhancedRequest.builder()
+                .queryConditional(condicionDeClave(filtro, particion))
+                .scanIndexForward(!filtro.descendente())
+                .exclusiveStartKey(inicio)
+                .limit(limite);
+        expresionDeFiltro(filtro, soloNoArchivados).ifPresent(queryBuilder::filterExpression);
+
+        // items() pide la siguiente página al agotar la anterior, sin flatMap
+        return historialTable.index(indicePara(filtro))
+                .query(queryBuilder.build())
+                .items()
+                .stream();
+    }
+
+    /**
+     * Particiones a consultar: el documento (su GSI no está particionado) o las de la carpeta.
+     */
+    private List<String> particionesDe(FiltroHistorial filtro, int shards) {
+        return filtro.documentoId() != null
+                ? List.of(filtro.documentoId())
+                : particionador.particiones(filtro.carpetaId(), shards);
+    }
+
+    private static Comparator<HistorialAcceso> orden(FiltroHistorial filtro) {
+        Comparator<HistorialAcceso> porFecha = Comparator.comparing(HistorialAcceso::getFechaAcceso);
+        return filtro.descendente() ? porFecha.reversed() : porFecha;
+    }
+
+    private static String indicePara(FiltroHistorial filtro) {
+        return filtro.documentoId() != null
+                ? HistorialAccesoTableSchema.INDICE_DOCUMENTO
+                : HistorialAccesoTableSchema.INDICE_FECHA_ACCESO;
+    }
+
+    /**
+     * Condición sobre el GSI: partición (documento, carpeta o shard de carpeta) y rango de fechas
+     * inclusivo sobre la sort key fechaAcceso.
+     */
+    private QueryConditional condicionDeClave(FiltroHistorial filtro, String particion) {
+        if (filtro.desde() != null && filtro.hasta() != null) {
+            return QueryConditional.sortBetween(clave(particion, filtro.desde()), clave(particion, filtro.hasta()));
+        }
+        if (filtro.desde() != null) {
+            return QueryConditional.sortGreaterThanOrEqualTo(clave(particion, filtro.desde()));
+        }
+        if (filtro.hasta() != null) {
+            return QueryConditional.sortLessThanOrEqualTo(clave(particion, filtro.hasta()));
+        }
+        return QueryConditional.keyEqualTo(Key.builder()
+                .partitionValue(particion)
+                .build());
+    }
+
+    private Key clave(String particion, LocalDateTime fecha) {
+        return Key.builder()
+                .partitionValue(particion)
+                .sortValue(valorFecha(fecha))
+                .build();
+    }
+
+    private Optional<Expression> expresionDeFiltro(FiltroHistorial filtro, boolean soloNoArchivados) {
+        List<String> condiciones = new ArrayList<>();
+        Expression.Builder expresion = Expression.builder();
+
+        // El índice por documento no está acotado a la carpeta (ni a sus shards)
+        if (filtro.documentoId() != null) {
+            condiciones.add("(carpetaId = :carpetaId OR begins_with(carpetaId, :prefijoShard))");
+            expresion.putExpressionValue(":carpetaId", AttributeValue.fromS(filtro.carpetaId()));
+            expresion.putExpressionValue(":prefijoShard",
+                    AttributeValue.fromS(filtro.carpetaId() + HistorialAccesoTableSchema.SEPARADOR_SHARD));
+        }
+        if (filtro.tipoAcceso() != null) {
+            condiciones.add("tipoAcceso = :tipoAcceso");
+            expresion.putExpressionValue(":tipoAcceso", AttributeValue.fromS(filtro.tipoAcceso()));
+        }
+        if (soloNoArchivados) {
+            condiciones.add("attribute_not_exists(expiraEn)");
+        }
+        return condiciones.isEmpty()
+                ? Optional.empty()
+                : Optional.of(expresion.expression(String.join(" AND ", condiciones)).build());
+    }
+
+    /**
+     * Clave de inicio exclusiva a partir del último acceso de la página: claves de la tabla
+     * más las del índice consultado.
+     */
+    private Map<String, AttributeValue> claveDeInicio(HistorialAcceso ultimo, String indice) {
+        TableMetadata metadata = historialTable.tableSchema().tableMetadata();
+        List<String> atributos = new ArrayList<>(metadata.primaryKeys());
+        atributos.add(metadata.indexPartitionKey(indice));
+        metadata.indexSortKey(indice).ifPresent(atributos::add);
+        return historialTable.tableSchema().itemToMap(ultimo, atributos.stream().distinct().toList());
+    }
+
+    private AttributeValue valorFecha(LocalDateTime fecha) {
+        HistorialAcceso muestra = new HistorialAcceso();
+        muestra.setFechaAcceso(fecha);
+        return historialTable.tableSchema()
+                .itemToMap(muestra, List.of("fechaAcceso"))
+                .get("fechaAcceso");
     }
 
     public long countByCarpetaId(String carpetaId) {
@@ -83,4 +378,58 @@ public class HistorialAccesoRepositoryImpl implements HistorialAccesoRepository
     public long countByDocumentoId(String carpetaId, String documentoId) {
         return findByDocumentoId(carpetaId, documentoId).size();
     }
+
+    @Override
+    public Stream<HistorialAcceso> findArchivables(LocalDateTime antesDe) {
+        Expression filtro = Expression.builder()
+                .expression("fechaAcceso < :limite AND attribute_not_exists(expiraEn)")
+                .putExpressionValue(":limite", valorFecha(antesDe))
+                .build();
+
+        return historialTable.scan(ScanEnhancedRequest.builder()
+                        .filterExpression(filtro)
+                        .build())
+                .items()
+                .stream();
+    }
+
+    @Override
+    public void marcarArchivados(List<HistorialAcceso> accesos, long expiraEn) {
+        accesos.forEach(acceso -> acceso.setExpiraEn(expiraEn));
+        batchExecutor.putAll(historialTable, accesos);
+    }
+
+    @Override
+    public boolean adquirirLeaseArchivado(String propietario, long duracionMs) {
+        long ahora = System.currentTimeMillis();
+        Map<String, AttributeValue> lease = new HashMap<>(CLAVE_LEASE_ARCHIVADOR);
+        lease.put("propietario", AttributeValue.fromS(propietario));
+        lease.put("leaseHasta", AttributeValue.fromN(String.valueOf(ahora + duracionMs)));
+        try {
+            dynamoDbClient.putItem(r -> r
+                    .tableName(HistorialAccesoTableSchema.TABLE_NAME)
+                    .item(lease)
+                    .conditionExpression("attribute_not_exists(carpetaId) OR leaseHasta < :ahora "
+                            + "OR propietario = :propietario")
+                    .expressionAttributeValues(Map.of(
+                            ":ahora", AttributeValue.fromN(String.valueOf(ahora)),
+                            ":propietario", AttributeValue.fromS(propietario))));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void liberarLeaseArchivado(String propietario) {
+        try {
+            dynamoDbClient.deleteItem(r -> r
+                    .tableName(HistorialAccesoTableSchema.TABLE_NAME)
+                    .key(CLAVE_LEASE_ARCHIVADOR)
+                    .conditionExpression("propietario = :propietario")
+                    .expressionAttributeValues(Map.of(":propietario", AttributeValue.fromS(propietario))));
+        } catch (ConditionalCheckFailedException e) {
+            // El lease expiró y lo tomó otra réplica
+        }
+    }
 }
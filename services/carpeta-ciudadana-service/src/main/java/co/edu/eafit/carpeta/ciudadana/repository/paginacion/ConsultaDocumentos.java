@@ -0,0 +1,25 @@
+package co.edu.eafit.carpeta.ciudadana.repository.paginacion;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Consulta paginada de los documentos de una carpeta
+ *
+ * @param indice GSI a consultar, o null para la tabla
+ * @param tipoDocumento Filtro opcional por tipo
+ * @param estadoDocumento Filtro opcional por estado
+ * @param inicio Clave de inicio exclusiva (de la página anterior), o null para la primera página
+ * @param resumen Si es true solo se leen los atributos de la vista resumida
+ */
+public record ConsultaDocumentos(
+        String carpetaId,
+        String indice,
+        boolean descendente,
+        String tipoDocumento,
+        String estadoDocumento,
+        Map<String, AttributeValue> inicio,
+        int tamanoPagina,
+        boolean resumen) {
+}
@@ -0,0 +1,20 @@
+package co.edu.eafit.carpeta.ciudadana.repository.paginacion;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Consulta paginada del historial de accesos
+ *
+ * @param shards Shards de la carpeta fijados en la primera página, o null para leerlos
+ * @param inicio Clave de inicio exclusiva de cada partición consultada (por posición en la lista
+ *               de particiones; vacía si la partición ya se agotó, ausente si aún no se leyó)
+ *               y posición en la capa fría bajo "archivo", o null para la primera página
+ */
+public record ConsultaHistorial(
+        FiltroHistorial filtro,
+        Integer shards,
+        Map<String, Map<String, AttributeValue>> inicio,
+        int tamanoPagina) {
+}
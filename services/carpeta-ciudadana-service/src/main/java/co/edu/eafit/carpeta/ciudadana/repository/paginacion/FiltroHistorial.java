@@ -0,0 +1,23 @@
+package co.edu.eafit.carpeta.ciudadana.repository.paginacion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtros del historial de accesos de una carpeta. documentoId y el rango de fechas se resuelven
+ * con condiciones de clave sobre los GSI; tipoAcceso con una expresión de filtro.
+ *
+ * @param desde Fecha mínima inclusiva, o null
+ * @param hasta Fecha máxima inclusiva, o null
+ */
+public record FiltroHistorial(
+        String carpetaId,
+        String documentoId,
+        String tipoAcceso,
+        LocalDateTime desde,
+        LocalDateTime hasta,
+        boolean descendente) {
+
+    public static FiltroHistorial deCarpeta(String carpetaId) {
+        return new FiltroHistorial(carpetaId, null, null, null, null, false);
+    }
+}
@@ -0,0 +1,20 @@
+package co.edu.eafit.carpeta.ciudadana.repository.paginacion;
+
+import co.edu.eafit.carpeta.ciudadana.entity.Documento;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Página de documentos
+ *
+ * @param siguienteInicio Clave de inicio exclusiva de la siguiente página (tabla e índice), o null
+ *                        si no hay más documentos
+ */
+public record PaginaDocumentos(List<Documento> documentos, Map<String, AttributeValue> siguienteInicio) {
+
+    public boolean hayMas() {
+        return siguienteInicio != null;
+    }
+}
@@ -0,0 +1,25 @@
+package co.edu.eafit.carpeta.ciudadana.repository.paginacion;
+
+import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Página del historial de accesos
+ *
+ * @param shards Shards de la carpeta con los que se leyó la página; las páginas siguientes deben
+ *               usar los mismos
+ * @param siguienteInicio Clave de inicio de cada partición para la siguiente página (ver
+ *                        {@link ConsultaHistorial#inicio()}), o null si no hay más accesos
+ */
+public record PaginaHistorial(
+        List<HistorialAcceso> accesos,
+        int shards,
+        Map<String, Map<String, AttributeValue>> siguienteInicio) {
+
+    public boolean hayMas() {
+        return siguienteInicio != null;
+    }
+}
@@ -0,0 +1,72 @@
+package co.edu.eafit.carpeta.ciudadana.repository.particion;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Concatena Streams abriendo cada uno solo cuando el anterior se agotó.
+ *
+ * <p>No usa {@code flatMap}: al recorrer un Stream con {@code iterator()} (como hace la exportación
+ * NDJSON), flatMap vuelca el Stream interno completo en un buffer antes de devolver su primer
+ * elemento, así que una capa del historial o un segmento archivado se cargaría entero en memoria.
+ * Aquí cada parte avanza elemento a elemento y se cierra al agotarse; cerrar el Stream resultante
+ * cierra la parte abierta.
+ */
+public final class ConcatenacionPerezosa {
+
+    private ConcatenacionPerezosa() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static <T> Stream<T> concatenar(List<Supplier<Stream<T>>> partes) {
+        Partes<T> iterador = new Partes<>(partes.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterador, Spliterator.ORDERED), false)
+                .onClose(iterador::cerrar);
+    }
+
+    private static final class Partes<T> implements Iterator<T> {
+
+        private final Iterator<Supplier<Stream<T>>> pendientes;
+        private Stream<T> actual;
+        private Iterator<T> elementos;
+
+        Partes(Iterator<Supplier<Stream<T>>> pendientes) {
+            this.pendientes = pendientes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (elementos == null || !elementos.hasNext()) {
+                cerrar();
+                if (!pendientes.hasNext()) {
+                    return false;
+                }
+                actual = pendientes.next().get();
+                elementos = actual.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return elementos.next();
+        }
+
+        void cerrar() {
+            if (actual != null) {
+                actual.close();
+                actual = null;
+                elementos = null;
+            }
+        }
+    }
+}
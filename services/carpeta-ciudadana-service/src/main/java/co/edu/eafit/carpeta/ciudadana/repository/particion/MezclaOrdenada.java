@@ -0,0 +1,89 @@
+package co.edu.eafit.carpeta.ciudadana.repository.particion;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Mezcla k-way de fuentes ya ordenadas (scatter-gather sobre los shards de una carpeta).
+ *
+ * <p>Solo se adelanta la fuente de la que sale cada elemento, así que las páginas de DynamoDB se
+ * siguen pidiendo de forma perezosa. Informa de qué fuente salió el último elemento y qué fuentes
+ * se agotaron, para construir la clave de inicio de cada shard en la paginación.
+ */
+public final class MezclaOrdenada<T> implements Iterator<T> {
+
+    private record Cabeza<T>(int fuente, T elemento) {
+    }
+
+    private final List<Iterator<T>> fuentes;
+    private final PriorityQueue<Cabeza<T>> cola;
+    private final boolean[] agotadas;
+    private int fuenteDelUltimo = -1;
+
+    public MezclaOrdenada(List<Iterator<T>> fuentes, Comparator<? super T> orden) {
+        this.fuentes = fuentes;
+        this.cola = new PriorityQueue<>(Math.max(1, fuentes.size()),
+                (a, b) -> orden.compare(a.elemento(), b.elemento()));
+        this.agotadas = new boolean[fuentes.size()];
+        for (int fuente = 0; fuente < fuentes.size(); fuente++) {
+            avanzar(fuente);
+        }
+    }
+
+    /**
+     * Stream perezoso con la mezcla; las fuentes no se consultan hasta consumir el Stream.
+     */
+    public static <T> Stream<T> stream(List<Stream<T>> fuentes, Comparator<? super T> orden) {
+        if (fuentes.size() == 1) {
+            return fuentes.get(0);
+        }
+        return StreamSupport.stream(
+                () -> Spliterators.spliteratorUnknownSize(
+                        new MezclaOrdenada<>(fuentes.stream().map(Stream::iterator).toList(), orden),
+                        Spliterator.ORDERED | Spliterator.NONNULL),
+                Spliterator.ORDERED | Spliterator.NONNULL,
+                false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !cola.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        Cabeza<T> cabeza = cola.poll();
+        if (cabeza == null) {
+            throw new NoSuchElementException();
+        }
+        fuenteDelUltimo = cabeza.fuente();
+        avanzar(cabeza.fuente());
+        return cabeza.elemento();
+    }
+
+    /** Índice de la fuente del último elemento devuelto por {@link #next()}. */
+    public int fuenteDelUltimo() {
+        return fuenteDelUltimo;
+    }
+
+    /** Si ya se devolvieron todos los elementos de la fuente. */
+    public boolean agotada(int fuente) {
+        return agotadas[fuente];
+    }
+
+    private void avanzar(int fuente) {
+        Iterator<T> iterador = fuentes.get(fuente);
+        if (iterador.hasNext()) {
+            cola.add(new Cabeza<>(fuente, iterador.next()));
+        } else {
+            agotadas[fuente] = true;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package co.edu.eafit.carpeta.ciudadana.repository.particion;
+
+import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.HistorialAccesoTableSchema;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Particionado de escrituras (write sharding) del historial de accesos de carpetas calientes.
+ *
+ * <p>Cada réplica mide la tasa de escrituras por carpeta con una ventana deslizante aproximada.
+ * Cuando una carpeta supera el umbral se marca como particionada en un item de control de la
+ * propia tabla (carpetaId, {@value #SK_CONTROL}) y desde entonces sus accesos se reparten al azar
+ * entre la partición base y carpetaId#1..#N, también en el GSI por fecha. Una carpeta no deja de
+ * estar particionada, así que las lecturas consultan siempre todas sus particiones. El item de
+ * control no tiene fechaAcceso: no aparece en los GSI ni lo recoge el archivado.
+ *
+ * <p>Mientras la tasa local no supera el umbral los accesos van a la partición base, que siempre
+ * se lee, así que la escritura no consulta el item de control. El número de shards se cachea por
+ * carpeta: sin expiración si está particionada (no cambia) y con cache-ttl-segundos si no lo
+ * está. La propia réplica lo actualiza al particionar; otra réplica puede tardar ese TTL en leer
+ * los accesos escritos en los shards de una carpeta recién particionada.
+ */
+@Slf4j
+@Component
+public class ParticionadorHistorial {
+
+    static final String SK_CONTROL = "#PARTICIONES";
+    private static final String ATRIBUTO_SHARDS = "shards";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final boolean habilitado;
+    private final double umbralEscriturasPorSegundo;
+    private final long ventanaMs;
+    private final int shardsPorCarpeta;
+    private final Cache<String, Integer> shardsConocidos;
+    private final Cache<String, ContadorEscrituras> contadores;
+    private final Counter carpetasParticionadas;
+
+    public ParticionadorHistorial(
+            DynamoDbClient dynamoDbClient,
+            MeterRegistry meterRegistry,
+            @Value("${historial.particionado.habilitado:true}") boolean habilitado,
+            @Value("${historial.particionado.umbral-escrituras-por-segundo:200}") double umbralEscriturasPorSegundo,
+            @Value("${historial.particionado.ventana-segundos:10}") long ventanaSegundos,
+            @Value("${historial.particionado.shards:8}") int shardsPorCarpeta,
+            @Value("${historial.particionado.cache-ttl-segundos:300}") long cacheTtlSegundos) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.habilitado = habilitado;
+        this.umbralEscriturasPorSegundo = umbralEscriturasPorSegundo;
+        this.ventanaMs = Duration.ofSeconds(ventanaSegundos).toMillis();
+        this.shardsPorCarpeta = shardsPorCarpeta;
+
+        this.shardsConocidos = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfter(new ExpiracionShards(Duration.ofSeconds(cacheTtlSegundos).toNanos()))
+                .build();
+        this.contadores = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMillis(ventanaMs * 2))
+                .build();
+        this.carpetasParticionadas = Counter.builder("historial.particionado.carpetas")
+                .description("Carpetas marcadas como calientes por esta réplica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Asigna el shard de un acceso nuevo y registra la escritura para la detección de carpetas
+     * calientes. No debe llamarse al reescribir un acceso existente: lo movería de partición.
+     */
+    public void asignar(HistorialAcceso acceso) {
+        if (!habilitado) {
+            return;
+        }
+        String carpetaId = acceso.getCarpetaId();
+        Integer conocidos = shardsConocidos.getIfPresent(carpetaId);
+        int shards = conocidos != null ? conocidos : 0;
+        if (shards == 0) {
+            double tasa = contadores.get(carpetaId, id -> new ContadorEscrituras())
+                    .registrar(System.currentTimeMillis(), ventanaMs);
+            // Solo una carpeta caliente necesita saber si otra réplica ya la particionó
+            if (tasa > umbralEscriturasPorSegundo) {
+                shards = conocidos != null ? 0 : shards(carpetaId);
+                if (shards == 0) {
+                    shards = particionar(carpetaId, tasa);
+                }
+            }
+        }
+        if (shards > 0) {
+            int shard = ThreadLocalRandom.current().nextInt(shards + 1);
+            acceso.setShard(shard == 0 ? null : shard);
+        }
+    }
+
+    /**
+     * Número de shards de la carpeta, 0 si no está particionada.
+     */
+    public int shards(String carpetaId) {
+        return shardsConocidos.get(carpetaId, this::leerShards);
+    }
+
+    /**
+     * Valores de partition key de la carpeta: la partición base y, si está particionada,
+     * carpetaId#1 ... carpetaId#shards.
+     */
+    public List<String> particiones(String carpetaId, int shards) {
+        List<String> particiones = new ArrayList<>(shards + 1);
+        for (int shard = 0; shard <= shards; shard++) {
+            particiones.add(HistorialAccesoTableSchema.particion(carpetaId, shard));
+        }
+        return particiones;
+    }
+
+    private int leerShards(String carpetaId) {
+        GetItemResponse response = dynamoDbClient.getItem(r -> r
+                .tableName(HistorialAccesoTableSchema.TABLE_NAME)
+                .key(claveControl(carpetaId))
+                .projectionExpression(ATRIBUTO_SHARDS));
+
+        AttributeValue shards = response.hasItem() ? response.item().get(ATRIBUTO_SHARDS) : null;
+        return shards == null ? 0 : Integer.parseInt(shards.n());
+    }
+
+    private int particionar(String carpetaId, double tasa) {
+        try {
+            dynamoDbClient.updateItem(r -> r
+                    .tableName(HistorialAccesoTableSchema.TABLE_NAME)
+                    .key(claveControl(carpetaId))
+                    .updateExpression("SET #shards = :shards")
+                    .conditionExpression("attribute_not_exists(#shards)")
+                    .expressionAttributeNames(Map.of("#shards", ATRIBUTO_SHARDS))
+                    .expressionAttributeValues(Map.of(
+                            ":shards", AttributeValue.fromN(String.valueOf(shardsPorCarpeta)))));
+
+            shardsConocidos.put(carpetaId, shardsPorCarpeta);
+            carpetasParticionadas.increment();
+            log.info("Carpeta {} particionada en {} shards ({} escrituras/s)",
+                    carpetaId, shardsPorCarpeta, Math.round(tasa));
+            return shardsPorCarpeta;
+
+        } catch (ConditionalCheckFailedException e) {
+            // Otra réplica la particionó primero
+            shardsConocidos.invalidate(carpetaId);
+            return shards(carpetaId);
+        } catch (DynamoDbException e) {
+            log.warn("No fue posible particionar la carpeta {}: {}", carpetaId, e.getMessage());
+            return 0;
+        }
+    }
+
+    private static Map<String, AttributeValue> claveControl(String carpetaId) {
+        return Map.of(
+                "carpetaId", AttributeValue.fromS(carpetaId),
+                "accesoId", AttributeValue.fromS(SK_CONTROL));
+    }
+
+    /**
+     * Una carpeta particionada no deja de estarlo ni cambia de shards: solo expira el "no
+     * particionada".
+     */
+    private record ExpiracionShards(long ttlNoParticionadaNanos) implements Expiry<String, Integer> {
+
+        @Override
+        public long expireAfterCreate(String carpetaId, Integer shards, long ahora) {
+            return shards > 0 ? Long.MAX_VALUE : ttlNoParticionadaNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String carpetaId, Integer shards, long ahora, long restante) {
+            return expireAfterCreate(carpetaId, shards, ahora);
+        }
+
+        @Override
+        public long expireAfterRead(String carpetaId, Integer shards, long ahora, long restante) {
+            return restante;
+        }
+    }
+
+    /**
+     * Ventana deslizante aproximada: el conteo de la ventana anterior se pondera por la fracción
+     * que aún se solapa con la ventana deslizante.
+     */
+    private static final class ContadorEscrituras {
+
+        private long ventana;
+        private long actual;
+        private long anterior;
+
+        synchronized double registrar(long ahoraMs, long ventanaMs) {
+            long ventanaAhora = ahoraMs / ventanaMs;
+            if (ventanaAhora != ventana) {
+                anterior = ventanaAhora == ventana + 1 ? actual : 0;
+                actual = 0;
+                ventana = ventanaAhora;
+            }
+            actual++;
+
+            double transcurrido = (double) (ahoraMs % ventanaMs) / ventanaMs;
+            double escrituras = anterior * (1 - transcurrido) + actual;
+            return escrituras * 1000 / ventanaMs;
+        }
+    }
+}
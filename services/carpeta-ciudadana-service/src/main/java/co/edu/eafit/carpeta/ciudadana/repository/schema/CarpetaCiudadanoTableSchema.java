@@ -0,0 +1,55 @@
+package co.edu.eafit.carpeta.ciudadana.repository.schema;
+
+import co.edu.eafit.carpeta.ciudadana.entity.CarpetaCiudadano;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import java.time.LocalDateTime;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+
+/**
+ * Esquema estático de la tabla CarpetaCiudadano.
+ */
+public final class CarpetaCiudadanoTableSchema {
+
+    public static final String TABLE_NAME = "CarpetaCiudadano";
+
+    public static final TableSchema<CarpetaCiudadano> SCHEMA = TableSchemaVerifier.verificar(
+            StaticTableSchema.builder(CarpetaCiudadano.class)
+                    .newItemSupplier(CarpetaCiudadano::new)
+                    .addAttribute(String.class, a -> a.name("carpetaId")
+                            .getter(CarpetaCiudadano::getCarpetaId)
+                            .setter(CarpetaCiudadano::setCarpetaId)
+                            .tags(primaryPartitionKey()))
+                    .addAttribute(String.class, a -> a.name("propietarioCedula")
+                            .getter(CarpetaCiudadano::getPropietarioCedula)
+                            .setter(CarpetaCiudadano::setPropietarioCedula))
+                    .addAttribute(String.class, a -> a.name("propietarioNombre")
+                            .getter(CarpetaCiudadano::getPropietarioNombre)
+                            .setter(CarpetaCiudadano::setPropietarioNombre))
+                    .addAttribute(String.class, a -> a.name("emailCarpeta")
+                            .getter(CarpetaCiudadano::getEmailCarpeta)
+                            .setter(CarpetaCiudadano::setEmailCarpeta))
+                    .addAttribute(String.class, a -> a.name("estadoCarpeta")
+                            .getter(CarpetaCiudadano::getEstadoCarpeta)
+                            .setter(CarpetaCiudadano::setEstadoCarpeta))
+                    .addAttribute(String.class, a -> a.name("operadorActual")
+                            .getter(CarpetaCiudadano::getOperadorActual)
+                            .setter(CarpetaCiudadano::setOperadorActual))
+                    .addAttribute(Long.class, a -> a.name("espacioUtilizadoBytes")
+                            .getter(CarpetaCiudadano::getEspacioUtilizadoBytes)
+                            .setter(CarpetaCiudadano::setEspacioUtilizadoBytes))
+                    .addAttribute(LocalDateTime.class, a -> a.name("fechaCreacion")
+                            .getter(CarpetaCiudadano::getFechaCreacion)
+                            .setter(CarpetaCiudadano::setFechaCreacion))
+                    .addAttribute(LocalDateTime.class, a -> a.name("fechaUltimaModificacion")
+                            .getter(CarpetaCiudadano::getFechaUltimaModificacion)
+                            .setter(CarpetaCiudadano::setFechaUltimaModificacion))
+                    .build(),
+            CarpetaCiudadano.class);
+
+    private CarpetaCiudadanoTableSchema() {
+        throw new IllegalStateException("Utility class");
+    }
+}
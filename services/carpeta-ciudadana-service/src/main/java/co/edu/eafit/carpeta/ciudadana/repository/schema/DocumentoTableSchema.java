@@ -0,0 +1,80 @@
+package co.edu.eafit.carpeta.ciudadana.repository.schema;
+
+import co.edu.eafit.carpeta.ciudadana.entity.Documento;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import java.time.LocalDateTime;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
+
+/**
+ * Esquema estático de la tabla Documento.
+ */
+public final class DocumentoTableSchema {
+
+    public static final String TABLE_NAME = "Documento";
+
+    /**
+     * GSI para listar los documentos de una carpeta ordenados por fecha de recepción.
+     */
+    public static final String INDICE_FECHA_RECEPCION = "carpetaId-fechaRecepcion-index";
+
+    public static final TableSchema<Documento> SCHEMA = TableSchemaVerifier.verificar(
+            StaticTableSchema.builder(Documento.class)
+                    .newItemSupplier(Documento::new)
+                    .addAttribute(String.class, a -> a.name("carpetaId")
+                            .getter(Documento::getCarpetaId)
+                            .setter(Documento::setCarpetaId)
+                            .tags(primaryPartitionKey(), secondaryPartitionKey(INDICE_FECHA_RECEPCION)))
+                    .addAttribute(String.class, a -> a.name("documentoId")
+                            .getter(Documento::getDocumentoId)
+                            .setter(Documento::setDocumentoId)
+                            .tags(primarySortKey()))
+                    .addAttribute(String.class, a -> a.name("titulo")
+                            .getter(Documento::getTitulo)
+                            .setter(Documento::setTitulo))
+                    .addAttribute(String.class, a -> a.name("tipoDocumento")
+                            .getter(Documento::getTipoDocumento)
+                            .setter(Documento::setTipoDocumento))
+                    .addAttribute(String.class, a -> a.name("contextoDocumento")
+                            .getter(Documento::getContextoDocumento)
+                            .setter(Documento::setContextoDocumento))
+                    .addAttribute(String.class, a -> a.name("descripcion")
+                            .getter(Documento::getDescripcion)
+                            .setter(Documento::setDescripcion))
+                    .addAttribute(String.class, a -> a.name("formatoArchivo")
+                            .getter(Documento::getFormatoArchivo)
+                            .setter(Documento::setFormatoArchivo))
+                    .addAttribute(Long.class, a -> a.name("tamanoBytes")
+                            .getter(Documento::getTamanoBytes)
+                            .setter(Documento::setTamanoBytes))
+                    .addAttribute(String.class, a -> a.name("hashDocumento")
+                            .getter(Documento::getHashDocumento)
+                            .setter(Documento::setHashDocumento))
+                    .addAttribute(String.class, a -> a.name("urlAlmacenamiento")
+                            .getter(Documento::getUrlAlmacenamiento)
+                            .setter(Documento::setUrlAlmacenamiento))
+                    .addAttribute(String.class, a -> a.name("estadoDocumento")
+                            .getter(Documento::getEstadoDocumento)
+                            .setter(Documento::setEstadoDocumento))
+                    .addAttribute(Boolean.class, a -> a.name("esDescargable")
+                            .getter(Documento::getEsDescargable)
+                            .setter(Documento::setEsDescargable))
+                    .addAttribute(LocalDateTime.class, a -> a.name("fechaRecepcion")
+                            .getter(Documento::getFechaRecepcion)
+                            .setter(Documento::setFechaRecepcion)
+                            .tags(secondarySortKey(INDICE_FECHA_RECEPCION)))
+                    .addAttribute(LocalDateTime.class, a -> a.name("fechaUltimaModificacion")
+                            .getter(Documento::getFechaUltimaModificacion)
+                            .setter(Documento::setFechaUltimaModificacion))
+                    .build(),
+            Documento.class);
+
+    private DocumentoTableSchema() {
+        throw new IllegalStateException("Utility class");
+    }
+}
@@ -0,0 +1,76 @@
+package co.edu.eafit.carpeta.ciudadana.repository.schema;
+
+import co.edu.eafit.carpeta.ciudadana.entity.EventoOutbox;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import java.time.LocalDateTime;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
+
+/**
+ * Esquema estático de la tabla DocumentoEventosOutbox.
+ */
+public final class EventoOutboxTableSchema {
+
+    public static final String TABLE_NAME = "DocumentoEventosOutbox";
+
+    /**
+     * GSI disperso con los eventos pendientes: particionPendiente + timestamp. Al publicar un
+     * evento se elimina particionPendiente y el evento sale del índice.
+     */
+    public static final String INDICE_PENDIENTES = "pendientes-index";
+
+    public static final String PREFIJO_PENDIENTE = "PENDING#";
+
+    public static final TableSchema<EventoOutbox> SCHEMA = TableSchemaVerifier.verificar(
+            StaticTableSchema.builder(EventoOutbox.class)
+                    .newItemSupplier(EventoOutbox::new)
+                    .addAttribute(String.class, a -> a.name("eventoId")
+                            .getter(EventoOutbox::getEventoId)
+                            .setter(EventoOutbox::setEventoId)
+                            .tags(primaryPartitionKey()))
+                    .addAttribute(String.class, a -> a.name("tipoEvento")
+                            .getter(EventoOutbox::getTipoEvento)
+                            .setter(EventoOutbox::setTipoEvento))
+                    .addAttribute(String.class, a -> a.name("estado")
+                            .getter(EventoOutbox::getEstado)
+                            .setter(EventoOutbox::setEstado))
+                    .addAttribute(String.class, a -> a.name("payload")
+                            .getter(EventoOutbox::getPayload)
+                            .setter(EventoOutbox::setPayload))
+                    .addAttribute(String.class, a -> a.name("contentType")
+                            .getter(EventoOutbox::getContentType)
+                            .setter(EventoOutbox::setContentType))
+                    .addAttribute(String.class, a -> a.name("tipoPayload")
+                            .getter(EventoOutbox::getTipoPayload)
+                            .setter(EventoOutbox::setTipoPayload))
+                    .addAttribute(String.class, a -> a.name("routingKey")
+                            .getter(EventoOutbox::getRoutingKey)
+                            .setter(EventoOutbox::setRoutingKey))
+                    .addAttribute(Integer.class, a -> a.name("intentosPublicacion")
+                            .getter(EventoOutbox::getIntentosPublicacion)
+                            .setter(EventoOutbox::setIntentosPublicacion))
+                    .addAttribute(LocalDateTime.class, a -> a.name("timestamp")
+                            .getter(EventoOutbox::getTimestamp)
+                            .setter(EventoOutbox::setTimestamp)
+                            .tags(secondarySortKey(INDICE_PENDIENTES)))
+                    .addAttribute(LocalDateTime.class, a -> a.name("timestampPublicacion")
+                            .getter(EventoOutbox::getTimestampPublicacion)
+                            .setter(EventoOutbox::setTimestampPublicacion))
+                    .addAttribute(String.class, a -> a.name("particionPendiente")
+                            .getter(EventoOutbox::getParticionPendiente)
+                            .setter(EventoOutbox::setParticionPendiente)
+                            .tags(secondaryPartitionKey(INDICE_PENDIENTES)))
+                    .addAttribute(Long.class, a -> a.name("expiraEn")
+                            .getter(EventoOutbox::getExpiraEn)
+                            .setter(EventoOutbox::setExpiraEn))
+                    .build(),
+            EventoOutbox.class);
+
+    private EventoOutboxTableSchema() {
+        throw new IllegalStateException("Utility class");
+    }
+}
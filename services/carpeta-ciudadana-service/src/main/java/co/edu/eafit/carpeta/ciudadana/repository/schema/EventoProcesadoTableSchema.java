@@ -0,0 +1,37 @@
+package co.edu.eafit.carpeta.ciudadana.repository.schema;
+
+import co.edu.eafit.carpeta.ciudadana.entity.EventoProcesado;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import java.time.LocalDateTime;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+
+/**
+ * Esquema estático de la tabla EventosProcesados (deduplicación de consumidores).
+ */
+public final class EventoProcesadoTableSchema {
+
+    public static final String TABLE_NAME = "EventosProcesados";
+
+    public static final TableSchema<EventoProcesado> SCHEMA = TableSchemaVerifier.verificar(
+            StaticTableSchema.builder(EventoProcesado.class)
+                    .newItemSupplier(EventoProcesado::new)
+                    .addAttribute(String.class, a -> a.name("clave")
+                            .getter(EventoProcesado::getClave)
+                            .setter(EventoProcesado::setClave)
+                            .tags(primaryPartitionKey()))
+                    .addAttribute(LocalDateTime.class, a -> a.name("fechaProcesado")
+                            .getter(EventoProcesado::getFechaProcesado)
+                            .setter(EventoProcesado::setFechaProcesado))
+                    .addAttribute(Long.class, a -> a.name("expiraEn")
+                            .getter(EventoProcesado::getExpiraEn)
+                            .setter(EventoProcesado::setExpiraEn))
+                    .build(),
+            EventoProcesado.class);
+
+    private EventoProcesadoTableSchema() {
+        throw new IllegalStateException("Utility class");
+    }
+}
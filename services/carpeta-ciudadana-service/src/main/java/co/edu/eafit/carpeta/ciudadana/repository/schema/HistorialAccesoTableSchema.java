@@ -0,0 +1,96 @@
+package co.edu.eafit.carpeta.ciudadana.repository.schema;
+
+import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
+
+/**
+ * Esquema estático de la tabla HistorialAcceso.
+ */
+public final class HistorialAccesoTableSchema {
+
+    public static final String TABLE_NAME = "HistorialAcceso";
+
+    /** GSI carpetaId + fechaAcceso: historial de la carpeta por rango de fechas. */
+    public static final String INDICE_FECHA_ACCESO = "carpetaId-fechaAcceso-index";
+
+    /** GSI documentoId + fechaAcceso: historial de un documento (índice disperso). */
+    public static final String INDICE_DOCUMENTO = "documentoId-fechaAcceso-index";
+
+    /**
+     * Separador del sufijo de shard en la partition key: las carpetas calientes escriben en
+     * carpetaId, carpetaId#1 ... carpetaId#N. La entidad siempre ve el carpetaId sin sufijo.
+     */
+    public static final String SEPARADOR_SHARD = "#";
+
+    public static final TableSchema<HistorialAcceso> SCHEMA = TableSchemaVerifier.verificar(
+            StaticTableSchema.builder(HistorialAcceso.class)
+                    .newItemSupplier(HistorialAcceso::new)
+                    .addAttribute(String.class, a -> a.name("carpetaId")
+                            .getter(HistorialAccesoTableSchema::particion)
+                            .setter((acceso, valor) -> acceso.setCarpetaId(carpetaIdDe(valor)))
+                            .tags(primaryPartitionKey(), secondaryPartitionKey(INDICE_FECHA_ACCESO)))
+                    .addAttribute(String.class, a -> a.name("accesoId")
+                            .getter(HistorialAcceso::getAccesoId)
+                            .setter(HistorialAcceso::setAccesoId)
+                            .tags(primarySortKey()))
+                    .addAttribute(String.class, a -> a.name("documentoId")
+                            .getter(HistorialAcceso::getDocumentoId)
+                            .setter(HistorialAcceso::setDocumentoId)
+                            .tags(secondaryPartitionKey(INDICE_DOCUMENTO)))
+                    .addAttribute(String.class, a -> a.name("tipoAcceso")
+                            .getter(HistorialAcceso::getTipoAcceso)
+                            .setter(HistorialAcceso::setTipoAcceso))
+                    .addAttribute(String.class, a -> a.name("usuarioAcceso")
+                            .getter(HistorialAcceso::getUsuarioAcceso)
+                            .setter(HistorialAcceso::setUsuarioAcceso))
+                    .addAttribute(LocalDateTime.class, a -> a.name("fechaAcceso")
+                            .getter(HistorialAcceso::getFechaAcceso)
+                            .setter(HistorialAcceso::setFechaAcceso)
+                            .tags(secondarySortKey(List.of(INDICE_FECHA_ACCESO, INDICE_DOCUMENTO))))
+                    .addAttribute(String.class, a -> a.name("resultadoAcceso")
+                            .getter(HistorialAcceso::getResultadoAcceso)
+                            .setter(HistorialAcceso::setResultadoAcceso))
+                    .addAttribute(String.class, a -> a.name("motivoAcceso")
+                            .getter(HistorialAcceso::getMotivoAcceso)
+                            .setter(HistorialAcceso::setMotivoAcceso))
+                    .addAttribute(Long.class, a -> a.name("expiraEn")
+                            .getter(HistorialAcceso::getExpiraEn)
+                            .setter(HistorialAcceso::setExpiraEn))
+                    .addAttribute(Integer.class, a -> a.name("shard")
+                            .getter(HistorialAcceso::getShard)
+                            .setter(HistorialAcceso::setShard))
+                    .build(),
+            HistorialAcceso.class);
+
+    /**
+     * Valor de la partition key de un acceso: carpetaId o carpetaId#shard.
+     */
+    public static String particion(HistorialAcceso acceso) {
+        return particion(acceso.getCarpetaId(), acceso.getShard());
+    }
+
+    public static String particion(String carpetaId, Integer shard) {
+        if (carpetaId == null || shard == null || shard == 0) {
+            return carpetaId;
+        }
+        return carpetaId + SEPARADOR_SHARD + shard;
+    }
+
+    private static String carpetaIdDe(String particion) {
+        int separador = particion == null ? -1 : particion.indexOf(SEPARADOR_SHARD);
+        return separador < 0 ? particion : particion.substring(0, separador);
+    }
+
+    private HistorialAccesoTableSchema() {
+        throw new IllegalStateException("Utility class");
+    }
+}
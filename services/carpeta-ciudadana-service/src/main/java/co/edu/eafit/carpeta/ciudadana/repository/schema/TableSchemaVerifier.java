@@ -0,0 +1,45 @@
+package co.edu.eafit.carpeta.ciudadana.repository.schema;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Verifica que un esquema estático cubra todos los campos de su entidad Lombok.
+ *
+ * Los esquemas se construyen a mano para evitar la introspección de beans en cada
+ * lectura/escritura, por lo que un campo nuevo en la entidad que no se agregue al
+ * esquema se perdería silenciosamente. La verificación corre una sola vez al cargar
+ * la clase del esquema y hace fallar el arranque si hay diferencias.
+ */
+public final class TableSchemaVerifier {
+
+    private TableSchemaVerifier() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static <T> TableSchema<T> verificar(TableSchema<T> schema, Class<T> entidad) {
+        Set<String> atributos = schema.attributeNames().stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+
+        List<String> faltantes = Arrays.stream(entidad.getDeclaredFields())
+                .filter(campo -> !Modifier.isStatic(campo.getModifiers()))
+                .filter(campo -> !campo.isSynthetic())
+                .map(Field::getName)
+                .filter(nombre -> !atributos.contains(nombre.toLowerCase()))
+                .toList();
+
+        if (!faltantes.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "El esquema de %s no mapea los campos: %s",
+                    entidad.getSimpleName(), faltantes));
+        }
+        return schema;
+    }
+}
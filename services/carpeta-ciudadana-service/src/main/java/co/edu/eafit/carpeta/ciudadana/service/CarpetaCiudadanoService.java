@@ -1,17 +1,22 @@
 package co.edu.eafit.carpeta.ciudadana.service;
 
+import co.edu.eafit.carpeta.ciudadana.dto.request.ActualizarEstadoDocumentoRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.CrearCarpetaRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.SubirDocumentoConArchivoRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.ObtenerDocumentoRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.ObtenerDocumentosCarpetaRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.BuscarCarpetaRequest;
+import co.edu.eafit.carpeta.ciudadana.dto.request.ListarDocumentosRequest;
+import co.edu.eafit.carpeta.ciudadana.dto.request.ListarHistorialRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.response.DocumentosPaginadosResponse;
+import co.edu.eafit.carpeta.ciudadana.dto.response.HistorialAccesoResponse;
 import co.edu.eafit.carpeta.ciudadana.entity.CarpetaCiudadano;
 import co.edu.eafit.carpeta.ciudadana.entity.Documento;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CarpetaCiudadanoService {
 
@@ -28,20 +33,63 @@ public interface CarpetaCiudadanoService {
     List<Documento> obtenerDocumentosCarpeta(ObtenerDocumentosCarpetaRequest request);
 
     /**
-     * Obtiene documentos de una carpeta con paginación cursor-based
+     * Obtiene varios documentos de una carpeta en una sola operación (BatchGetItem)
      *
      * @param carpetaId ID de la carpeta
-     * @param cursor Cursor de paginación (Base64 encoded), null para primera página
-     * @param pageSize Número de documentos por página (default: 20)
+     * @param documentoIds IDs de los documentos a obtener
+     * @return Documentos encontrados, en el orden de documentoIds; los IDs inexistentes se omiten
+     */
+    List<Documento> obtenerDocumentos(String carpetaId, List<String> documentoIds);
+
+    /**
+     * Obtiene documentos de una carpeta con paginación cursor-based
+     *
+     * @param request Carpeta, cursor firmado (null para la primera página), tamaño de página,
+     *                vista (COMPLETA o RESUMEN), campo y dirección de orden, y filtros por tipo y estado
      * @return Respuesta paginada con items, nextCursor y hasMore
+     * @throws co.edu.eafit.carpeta.ciudadana.exception.InvalidRequestException si el cursor es
+     *         inválido o no corresponde a la consulta, o si pageSize está fuera de rango
+     */
+    DocumentosPaginadosResponse<?> obtenerDocumentosPaginados(ListarDocumentosRequest request);
+
+    /**
+     * Obtiene el historial de accesos de una carpeta con paginación cursor-based, ordenado por fecha
+     *
+     * @param request Carpeta, cursor firmado (null para la primera página), tamaño de página,
+     *                dirección de orden y filtros por documento, tipo de acceso y rango de fechas
+     * @return Página del historial reciente (tabla); el historial archivado se obtiene con
+     *         {@link #exportarHistorial(ListarHistorialRequest)}
+     * @throws co.edu.eafit.carpeta.ciudadana.exception.ResourceNotFoundException si la carpeta no existe
+     * @throws co.edu.eafit.carpeta.ciudadana.exception.InvalidRequestException si el cursor es
+     *         inválido o no corresponde a la consulta, o si los parámetros están fuera de rango
+     */
+    DocumentosPaginadosResponse<HistorialAccesoResponse> obtenerHistorialPaginado(ListarHistorialRequest request);
+
+    /**
+     * Historial completo de la carpeta (reciente y archivado) que cumple los filtros del request.
+     * La carpeta y los filtros se validan al llamar; los accesos se leen según se consume el Stream,
+     * así que el historial nunca se carga entero en memoria. El cursor y pageSize se ignoran.
+     *
+     * @throws co.edu.eafit.carpeta.ciudadana.exception.ResourceNotFoundException si la carpeta no existe
      */
-    DocumentosPaginadosResponse obtenerDocumentosPaginados(String carpetaId, String cursor, Integer pageSize);
+    Stream<HistorialAccesoResponse> exportarHistorial(ListarHistorialRequest request);
 
     String generarUrlDescarga(String carpetaId, String documentoId);
 
     void actualizarEstadoDocumento(
             String carpetaId, String documentoId, String nuevoEstado, String mensaje);
 
+    /**
+     * Versión por lotes de {@link #actualizarEstadoDocumento}: aplica los cambios de estado en
+     * paralelo y escribe el historial de todos con un solo BatchWriteItem. Los documentos
+     * inexistentes y las transiciones inválidas se registran y se descartan; si un documento ya
+     * está en el estado destino (redelivery) solo se registra el historial.
+     *
+     * @return Solicitudes que fallaron por un error transitorio y deben reintentarse; el historial
+     *         de los cambios aplicados ya quedó escrito
+     */
+    List<ActualizarEstadoDocumentoRequest> actualizarEstadosDocumentos(List<ActualizarEstadoDocumentoRequest> solicitudes);
+
     /**
      * Inicia el proceso de autenticación de un documento
      *
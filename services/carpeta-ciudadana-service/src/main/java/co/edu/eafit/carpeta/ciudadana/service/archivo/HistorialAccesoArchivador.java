@@ -0,0 +1,126 @@
+package co.edu.eafit.carpeta.ciudadana.service.archivo;
+
+import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
+import co.edu.eafit.carpeta.ciudadana.repository.HistorialAccesoRepository;
+import co.edu.eafit.carpeta.ciudadana.repository.archivo.HistorialAccesoArchivo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Job que mueve el historial de accesos antiguo de DynamoDB (capa caliente) a MinIO (capa fría).
+ *
+ * Agrupa los accesos por carpeta y mes, escribe un segmento por grupo y después marca los
+ * accesos con expiraEn para que el TTL de DynamoDB los elimine. Si el job falla entre ambos pasos
+ * los accesos se vuelven a archivar en la siguiente ejecución; las consultas descartan los duplicados.
+ *
+ * Solo una réplica archiva a la vez: la ejecución toma un lease en DynamoDB, lo renueva tras cada
+ * lote y se detiene si lo pierde.
+ */
+@Slf4j
+@Component
+public class HistorialAccesoArchivador {
+
+    private final HistorialAccesoRepository historialRepository;
+    private final HistorialAccesoArchivo archivo;
+    private final String propietario = UUID.randomUUID().toString();
+
+    @Value("${archivo.historial.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${archivo.historial.edad-dias:90}")
+    private int edadDias;
+
+    @Value("${archivo.historial.gracia-ttl-horas:24}")
+    private int graciaTtlHoras;
+
+    @Value("${archivo.historial.lote-maximo:10000}")
+    private int loteMaximo;
+
+    @Value("${archivo.historial.lease-ms:600000}")
+    private long leaseMs;
+
+    public HistorialAccesoArchivador(HistorialAccesoRepository historialRepository, HistorialAccesoArchivo archivo) {
+        this.historialRepository = historialRepository;
+        this.archivo = archivo;
+    }
+
+    @Scheduled(cron = "${archivo.historial.cron:0 30 2 * * *}")
+    public void archivar() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            if (!historialRepository.adquirirLeaseArchivado(propietario, leaseMs)) {
+                log.info("Otra réplica tiene el lease del archivador de historial");
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.warn("No fue posible tomar el lease del archivador de historial: {}", e.getMessage());
+            return;
+        }
+        try {
+            moverCapaFria();
+        } catch (RuntimeException e) {
+            log.error("Error archivando historial de accesos: {}", e.getMessage(), e);
+        } finally {
+            historialRepository.liberarLeaseArchivado(propietario);
+        }
+    }
+
+    private void moverCapaFria() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(edadDias);
+        log.info("Archivando historial de accesos anterior a {}", limite);
+
+        int archivados = 0;
+        try (Stream<HistorialAcceso> candidatos = historialRepository.findArchivables(limite)) {
+            Map<String, List<HistorialAcceso>> grupos = new HashMap<>();
+            int pendientes = 0;
+
+            Iterator<HistorialAcceso> iterator = candidatos.iterator();
+            while (iterator.hasNext()) {
+                HistorialAcceso acceso = iterator.next();
+                String clave = acceso.getCarpetaId() + "|" + YearMonth.from(acceso.getFechaAcceso());
+                grupos.computeIfAbsent(clave, k -> new ArrayList<>()).add(acceso);
+
+                // Se vacía por lotes para no acumular todo el scan en memoria
+                if (++pendientes >= loteMaximo) {
+                    archivados += vaciar(grupos);
+                    pendientes = 0;
+                }
+            }
+            archivados += vaciar(grupos);
+        }
+
+        log.info("Archivado de historial completado: {} accesos movidos a MinIO", archivados);
+    }
+
+    private int vaciar(Map<String, List<HistorialAcceso>> grupos) {
+        long expiraEn = Instant.now().plus(Duration.ofHours(graciaTtlHoras)).getEpochSecond();
+        int total = 0;
+
+        for (List<HistorialAcceso> accesos : grupos.values()) {
+            archivo.escribirSegmento(accesos.get(0).getCarpetaId(), accesos);
+            historialRepository.marcarArchivados(accesos, expiraEn);
+            total += accesos.size();
+        }
+        grupos.clear();
+        if (!historialRepository.adquirirLeaseArchivado(propietario, leaseMs)) {
+            throw new IllegalStateException("Lease del archivador de historial perdido");
+        }
+        return total;
+    }
+}
@@ -1,39 +1,66 @@
 package co.edu.eafit.carpeta.ciudadana.service.impl;
 
+import co.edu.eafit.carpeta.ciudadana.dto.request.ActualizarEstadoDocumentoRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.CrearCarpetaRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.SubirDocumentoConArchivoRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.ObtenerDocumentoRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.ObtenerDocumentosCarpetaRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.request.BuscarCarpetaRequest;
-import co.edu.eafit.carpeta.ciudadana.dto.response.DocumentoResponse;
+import co.edu.eafit.carpeta.ciudadana.dto.request.VistaDocumento;
+import co.edu.eafit.carpeta.ciudadana.dto.request.CampoOrdenDocumento;
+import co.edu.eafit.carpeta.ciudadana.dto.request.DireccionOrden;
+import co.edu.eafit.carpeta.ciudadana.dto.request.ListarDocumentosRequest;
+import co.edu.eafit.carpeta.ciudadana.dto.request.ListarHistorialRequest;
 import co.edu.eafit.carpeta.ciudadana.dto.response.DocumentosPaginadosResponse;
+import co.edu.eafit.carpeta.ciudadana.dto.response.HistorialAccesoResponse;
 import co.edu.eafit.carpeta.ciudadana.entity.CarpetaCiudadano;
 import co.edu.eafit.carpeta.ciudadana.event.DocumentoEventPublisher;
 import co.edu.eafit.carpeta.ciudadana.event.DocumentoSubidoEvent;
-import co.edu.eafit.carpeta.ciudadana.util.CursorUtil;
+import co.edu.eafit.carpeta.ciudadana.util.CursorCodec;
+import co.edu.eafit.carpeta.ciudadana.util.CursorHistorial;
+import co.edu.eafit.carpeta.ciudadana.util.CursorPaginacion;
 import co.edu.eafit.carpeta.ciudadana.util.ResponseUtil;
 import co.edu.eafit.carpeta.ciudadana.entity.Documento;
 import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
 import co.edu.eafit.carpeta.ciudadana.exception.CarpetaAlreadyExistsException;
 import co.edu.eafit.carpeta.ciudadana.exception.DocumentUploadException;
+import co.edu.eafit.carpeta.ciudadana.exception.InvalidRequestException;
 import co.edu.eafit.carpeta.ciudadana.exception.ResourceNotFoundException;
 import co.edu.eafit.carpeta.ciudadana.exception.StorageException;
+import co.edu.eafit.carpeta.ciudadana.exception.TransicionEstadoInvalidaException;
 import co.edu.eafit.carpeta.ciudadana.repository.CarpetaCiudadanoRepository;
 import co.edu.eafit.carpeta.ciudadana.repository.DocumentoRepository;
 import co.edu.eafit.carpeta.ciudadana.repository.HistorialAccesoRepository;
+import co.edu.eafit.carpeta.ciudadana.repository.batch.CambioEstadoDocumento;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.ConsultaDocumentos;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.ConsultaHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.FiltroHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.PaginaDocumentos;
+import co.edu.eafit.carpeta.ciudadana.repository.paginacion.PaginaHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.DocumentoTableSchema;
 import co.edu.eafit.carpeta.ciudadana.mapper.carpeta.CarpetaMapper;
 import co.edu.eafit.carpeta.ciudadana.mapper.document.CrearDocumentoMapper;
 import co.edu.eafit.carpeta.ciudadana.service.CarpetaCiudadanoService;
 import co.edu.eafit.carpeta.ciudadana.service.MinioStorageService;
 import co.edu.eafit.carpeta.ciudadana.mapper.historial.HistorialAccesoMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
 import java.security.MessageDigest;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -47,6 +74,13 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
     private final HistorialAccesoMapper historialAccesoMapper;
     private final MinioStorageService minioStorageService;
     private final DocumentoEventPublisher eventoPublisher;
+    private final CursorCodec cursorCodec;
+
+    @Value("${paginacion.tamano-pagina.defecto:20}")
+    private int tamanoPaginaPorDefecto;
+
+    @Value("${paginacion.tamano-pagina.maximo:100}")
+    private int tamanoPaginaMaximo;
 
     public CarpetaCiudadanoServiceImpl(
             CarpetaCiudadanoRepository carpetaRepository,
@@ -56,7 +90,8 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
             CrearDocumentoMapper crearDocumentoMapper,
             HistorialAccesoMapper historialAccesoMapper,
             MinioStorageService minioStorageService,
-            DocumentoEventPublisher eventoPublisher) {
+            DocumentoEventPublisher eventoPublisher,
+            CursorCodec cursorCodec) {
         this.carpetaRepository = carpetaRepository;
         this.documentoRepository = documentoRepository;
         this.historialRepository = historialRepository;
@@ -65,6 +100,7 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
         this.historialAccesoMapper = historialAccesoMapper;
         this.minioStorageService = minioStorageService;
         this.eventoPublisher = eventoPublisher;
+        this.cursorCodec = cursorCodec;
     }
 
     @Override
@@ -95,7 +131,7 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
     public Documento subirDocumento(SubirDocumentoConArchivoRequest request, MultipartFile archivo) {
         log.info("Subiendo documento a carpeta: {}", request.carpetaId());
 
-        carpetaRepository.findById(request.carpetaId())
+        CarpetaCiudadano carpeta = carpetaRepository.findById(request.carpetaId())
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Carpeta", "carpetaId", request.carpetaId()));
 
@@ -105,27 +141,22 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
             String hashDocumento = calcularHash(archivo.getBytes());
             documento.setHashDocumento(hashDocumento);
 
-            CarpetaCiudadano carpeta = carpetaRepository.findById(request.carpetaId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Carpeta", "carpetaId", request.carpetaId()));
-            
             String userId = carpeta.getPropietarioCedula();
             String fileName = archivo.getOriginalFilename();
+            // Objeto propio de este documento (userId/documentoId/fileName): subir otra vez el mismo
+            // nombre de archivo no sobrescribe el de otro documento, y limpiar un huérfano solo
+            // puede borrar lo que subió esta petición
+            String objeto = String.format("%s/%s", documento.getDocumentoId(), fileName);
 
-            minioStorageService.uploadFileForUser(userId, fileName, archivo, archivo.getContentType());
+            minioStorageService.uploadFileForUser(userId, objeto, archivo, archivo.getContentType());
 
-            String urlAlmacenamiento = String.format("%s/%s", userId, fileName);
+            String urlAlmacenamiento = String.format("%s/%s", userId, objeto);
             documento.setUrlAlmacenamiento(urlAlmacenamiento);
 
-            documento = documentoRepository.save(documento);
-
-            actualizarEspacioUtilizado(request.carpetaId(), archivo.getSize());
-
             HistorialAcceso acceso = historialAccesoMapper.crearAcceso(
                     request.carpetaId(), documento.getDocumentoId(), "SUBIDA", "SISTEMA",
                     "Documento subido exitosamente");
-            historialRepository.save(acceso);
 
-            // Publicar evento de documento subido
             DocumentoSubidoEvent evento =
                     DocumentoSubidoEvent.builder()
                             .documentoId(documento.getDocumentoId())
@@ -138,12 +169,25 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
                             .fechaSubida(documento.getFechaRecepcion())
                             .build();
 
-            eventoPublisher.publicarDocumentoSubido(evento);
+            // Documento + espacio utilizado + historial + evento (outbox) en un solo TransactWriteItems
+            try {
+                documento = documentoRepository.saveConSubida(documento, acceso, archivo.getSize(),
+                        eventoPublisher.crearEventoDocumentoSubido(evento));
+            } catch (ResourceNotFoundException | IllegalStateException | TransactionCanceledException e) {
+                // La transacción se canceló sin escribir nada: el archivo quedó huérfano
+                eliminarArchivoHuerfano(userId, objeto);
+                throw e;
+            } catch (RuntimeException e) {
+                // Resultado incierto: los metadatos pueden apuntar al archivo, así que se conserva
+                log.warn("Se conserva el archivo {} del documento {}: resultado de la transacción incierto",
+                        urlAlmacenamiento, documento.getDocumentoId());
+                throw e;
+            }
 
             log.info("Documento subido exitosamente: {}", documento.getDocumentoId());
             return documento;
 
-        } catch (StorageException e) {
+        } catch (StorageException | ResourceNotFoundException e) {
             throw e;
         } catch (Exception e) {
             log.error("Error subiendo documento a carpeta {}: {}", request.carpetaId(), e.getMessage(), e);
@@ -161,50 +205,202 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
         return documentoRepository.findByCarpetaId(request.carpetaId());
     }
 
+    @Override
+    public List<Documento> obtenerDocumentos(String carpetaId, List<String> documentoIds) {
+        log.info("Obteniendo {} documentos en lote de carpeta: {}", documentoIds.size(), carpetaId);
+
+        Map<String, Documento> porId = documentoRepository.findAllByIds(carpetaId, documentoIds).stream()
+                .collect(Collectors.toMap(Documento::getDocumentoId, Function.identity()));
+
+        return documentoIds.stream()
+                .distinct()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     /**
      * Obtiene documentos de una carpeta con paginación cursor-based
      *
-     * @param carpetaId ID de la carpeta
-     * @param cursor Cursor de paginación (Base64 encoded), null para primera página
-     * @param pageSize Número de documentos por página (default: 20)
+     * Sin cursor se usan los parámetros recibidos (o sus valores por defecto). Con cursor se
+     * reanuda la consulta con los parámetros firmados en él; si el cliente envía además un
+     * parámetro distinto al del cursor, la petición se rechaza.
+     *
+     * @param request Carpeta, cursor, tamaño de página, vista, orden y filtros
      * @return Respuesta paginada con items, nextCursor y hasMore
      */
     @Override
-    public DocumentosPaginadosResponse obtenerDocumentosPaginados(String carpetaId, String cursor, Integer pageSize) {
-        log.info("Obteniendo documentos paginados para carpeta: {}, cursor: {}, pageSize: {}",
-                 carpetaId, cursor, pageSize);
+    public DocumentosPaginadosResponse<?> obtenerDocumentosPaginados(ListarDocumentosRequest request) {
+        log.info("Obteniendo documentos paginados: {}", request);
 
-        int efectivePageSize = Optional.ofNullable(pageSize)
-                .filter(size -> size > 0)
-                .orElse(20);
+        ConsultaDocumentos consulta = request.cursor() == null || request.cursor().isBlank()
+                ? nuevaConsulta(request)
+                : consultaDesdeCursor(request, cursorCodec.decodificar(request.cursor(), CursorPaginacion.class));
 
-        String lastDocumentoId = Optional.ofNullable(cursor)
-                .map(CursorUtil::decodeCursor)
-                .orElse(null);
+        PaginaDocumentos pagina = documentoRepository.findPagina(consulta);
 
-        List<Documento> documentos = documentoRepository.findByCarpetaIdPaginated(
-                carpetaId, lastDocumentoId, efectivePageSize);
+        Function<Documento, ?> mapper = consulta.resumen()
+                ? ResponseUtil::toDocumentoResumenResponse
+                : ResponseUtil::toDocumentoResponse;
+        List<?> items = pagina.documentos().stream()
+                .map(mapper)
+                .toList();
 
-        boolean hasMore = documentos.size() > efectivePageSize;
+        String nextCursor = pagina.hayMas()
+                ? cursorCodec.codificar(new CursorPaginacion(
+                        consulta.carpetaId(),
+                        consulta.indice(),
+                        CursorCodec.claveATexto(pagina.siguienteInicio()),
+                        consulta.descendente() ? DireccionOrden.DESC : DireccionOrden.ASC,
+                        consulta.tipoDocumento(),
+                        consulta.estadoDocumento(),
+                        consulta.tamanoPagina(),
+                        consulta.resumen() ? VistaDocumento.RESUMEN : VistaDocumento.COMPLETA))
+                : null;
+
+        log.info("Documentos paginados obtenidos: {} items, hasMore: {}", items.size(), pagina.hayMas());
+
+        return pagina.hayMas()
+                ? DocumentosPaginadosResponse.withMore(items, nextCursor)
+                : DocumentosPaginadosResponse.lastPage(items);
+    }
 
-        List<DocumentoResponse> items = documentos.stream()
-                .limit(efectivePageSize)
-                .map(ResponseUtil::toDocumentoResponse)
-                .toList();
+    private ConsultaDocumentos nuevaConsulta(ListarDocumentosRequest request) {
+        return new ConsultaDocumentos(
+                request.carpetaId(),
+                indicePara(request.ordenarPor()),
+                request.orden() == DireccionOrden.DESC,
+                request.tipoDocumento(),
+                request.estadoDocumento(),
+                null,
+                tamanoPagina(request.pageSize()),
+                request.vista() == VistaDocumento.RESUMEN);
+    }
 
-        String nextCursor = Optional.of(documentos)
-                .filter(docs -> hasMore)
-                .map(docs -> docs.get(efectivePageSize - 1))
-                .map(Documento::getDocumentoId)
-                .map(CursorUtil::encodeCursor)
-                .orElse(null);
+    private ConsultaDocumentos consultaDesdeCursor(ListarDocumentosRequest request, CursorPaginacion cursor) {
+        VistaDocumento vista = cursor.vista() != null ? cursor.vista() : VistaDocumento.COMPLETA;
+        boolean coincide = Objects.equals(cursor.carpetaId(), request.carpetaId())
+                && (request.ordenarPor() == null || Objects.equals(indicePara(request.ordenarPor()), cursor.indice()))
+                && (request.orden() == null || request.orden() == cursor.orden())
+                && (request.tipoDocumento() == null || request.tipoDocumento().equals(cursor.tipoDocumento()))
+                && (request.estadoDocumento() == null || request.estadoDocumento().equals(cursor.estadoDocumento()))
+                && (request.pageSize() == null || request.pageSize() == cursor.tamanoPagina())
+                && (request.vista() == null || request.vista() == vista);
+        if (!coincide) {
+            throw new InvalidRequestException("cursor", "no corresponde a la carpeta o a los parámetros de la consulta");
+        }
 
-        log.info("Documentos paginados obtenidos: {} items, hasMore: {}, nextCursor present: {}",
-                 items.size(), hasMore, nextCursor != null);
+        return new ConsultaDocumentos(
+                cursor.carpetaId(),
+                cursor.indice(),
+                cursor.orden() == DireccionOrden.DESC,
+                cursor.tipoDocumento(),
+                cursor.estadoDocumento(),
+                CursorCodec.textoAClave(cursor.clave()),
+                cursor.tamanoPagina(),
+                vista == VistaDocumento.RESUMEN);
+    }
 
-        return hasMore
-                ? DocumentosPaginadosResponse.withMore(items, nextCursor)
-                : DocumentosPaginadosResponse.lastPage(items);
+    private static String indicePara(CampoOrdenDocumento ordenarPor) {
+        return ordenarPor == CampoOrdenDocumento.FECHA_RECEPCION
+                ? DocumentoTableSchema.INDICE_FECHA_RECEPCION
+                : null;
+    }
+
+    @Override
+    public DocumentosPaginadosResponse<HistorialAccesoResponse> obtenerHistorialPaginado(ListarHistorialRequest request) {
+        log.info("Obteniendo historial paginado: {}", request);
+
+        ConsultaHistorial consulta = request.cursor() == null || request.cursor().isBlank()
+                ? nuevaConsultaHistorial(request)
+                : consultaHistorialDesdeCursor(request,
+                        cursorCodec.decodificar(request.cursor(), CursorHistorial.class));
+        validarCarpetaExiste(consulta.filtro().carpetaId());
+
+        PaginaHistorial pagina = historialRepository.findPagina(consulta);
+        List<HistorialAccesoResponse> items = historialAccesoMapper.toResponseList(pagina.accesos());
+
+        if (!pagina.hayMas()) {
+            return DocumentosPaginadosResponse.lastPage(items);
+        }
+        FiltroHistorial filtro = consulta.filtro();
+        String nextCursor = cursorCodec.codificar(new CursorHistorial(
+                filtro.carpetaId(),
+                pagina.shards(),
+                CursorCodec.clavesATexto(pagina.siguienteInicio()),
+                filtro.descendente() ? DireccionOrden.DESC : DireccionOrden.ASC,
+                filtro.documentoId(),
+                filtro.tipoAcceso(),
+                filtro.desde(),
+                filtro.hasta(),
+                consulta.tamanoPagina()));
+        return DocumentosPaginadosResponse.withMore(items, nextCursor);
+    }
+
+    @Override
+    public Stream<HistorialAccesoResponse> exportarHistorial(ListarHistorialRequest request) {
+        FiltroHistorial filtro = filtroHistorial(request);
+        validarCarpetaExiste(filtro.carpetaId());
+
+        log.info("Exportando historial de carpeta: {}", filtro);
+        return historialRepository.stream(filtro).map(historialAccesoMapper::toResponse);
+    }
+
+    private ConsultaHistorial nuevaConsultaHistorial(ListarHistorialRequest request) {
+        return new ConsultaHistorial(filtroHistorial(request), null, null, tamanoPagina(request.pageSize()));
+    }
+
+    private ConsultaHistorial consultaHistorialDesdeCursor(ListarHistorialRequest request, CursorHistorial cursor) {
+        boolean coincide = Objects.equals(cursor.carpetaId(), request.carpetaId())
+                && (request.orden() == null || request.orden() == cursor.orden())
+                && (request.documentoId() == null || request.documentoId().equals(cursor.documentoId()))
+                && (request.tipoAcceso() == null || request.tipoAcceso().equals(cursor.tipoAcceso()))
+                && (request.desde() == null || request.desde().equals(cursor.desde()))
+                && (request.hasta() == null || request.hasta().equals(cursor.hasta()))
+                && (request.pageSize() == null || request.pageSize() == cursor.tamanoPagina());
+        if (!coincide) {
+            throw new InvalidRequestException("cursor", "no corresponde a la carpeta o a los parámetros de la consulta");
+        }
+
+        FiltroHistorial filtro = new FiltroHistorial(
+                cursor.carpetaId(),
+                cursor.documentoId(),
+                cursor.tipoAcceso(),
+                cursor.desde(),
+                cursor.hasta(),
+                cursor.orden() == DireccionOrden.DESC);
+        return new ConsultaHistorial(
+                filtro, cursor.shards(), CursorCodec.textoAClaves(cursor.claves()), cursor.tamanoPagina());
+    }
+
+    /**
+     * Por defecto el historial se devuelve del acceso más reciente al más antiguo.
+     */
+    private static FiltroHistorial filtroHistorial(ListarHistorialRequest request) {
+        if (request.desde() != null && request.hasta() != null && request.desde().isAfter(request.hasta())) {
+            throw new InvalidRequestException("desde", "no puede ser posterior a hasta");
+        }
+        return new FiltroHistorial(
+                request.carpetaId(),
+                request.documentoId(),
+                request.tipoAcceso(),
+                request.desde(),
+                request.hasta(),
+                request.orden() != DireccionOrden.ASC);
+    }
+
+    private int tamanoPagina(Integer pageSize) {
+        int tamanoPagina = Optional.ofNullable(pageSize).orElse(tamanoPaginaPorDefecto);
+        if (tamanoPagina < 1 || tamanoPagina > tamanoPaginaMaximo) {
+            throw new InvalidRequestException("pageSize", "debe estar entre 1 y " + tamanoPaginaMaximo);
+        }
+        return tamanoPagina;
+    }
+
+    private void validarCarpetaExiste(String carpetaId) {
+        if (carpetaRepository.findById(carpetaId).isEmpty()) {
+            throw new ResourceNotFoundException("Carpeta", "carpetaId", carpetaId);
+        }
     }
 
     @Override
@@ -219,6 +415,7 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
             throw new IllegalStateException("El documento no está disponible para descarga");
         }
         
+        // userId/documentoId/fileName, o userId/fileName en los documentos anteriores
         String[] urlParts = documento.getUrlAlmacenamiento().split("/", 2);
         String userId = urlParts[0];
         String fileName = urlParts[1];
@@ -263,15 +460,9 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
                 nuevoEstado,
                 mensaje);
 
-        Documento documento =
-                documentoRepository
-                        .findById(carpetaId, documentoId)
-                        .orElseThrow(
-                                () -> new ResourceNotFoundException("Documento", "documentoId", documentoId));
-
-        documento.setEstadoDocumento(nuevoEstado);
-
-        documentoRepository.save(documento);
+        // UpdateItem condicionado: valida la transición y no pisa cambios concurrentes
+        documentoRepository.actualizarEstado(
+                carpetaId, documentoId, parsearEstado(nuevoEstado));
 
         String descripcionHistorial = mensaje != null 
                 ? String.format("Estado actualizado a: %s - %s", nuevoEstado, mensaje)
@@ -290,24 +481,85 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
     }
 
     @Override
-    public co.edu.eafit.carpeta.ciudadana.dto.response.DocumentoConUrlResponse iniciarAutenticacionDocumento(String carpetaId, String documentoId) {
-        log.info("Iniciando autenticación de documento: {} en carpeta: {}", documentoId, carpetaId);
+    public List<ActualizarEstadoDocumentoRequest> actualizarEstadosDocumentos(
+            List<ActualizarEstadoDocumentoRequest> solicitudes) {
+        // Si el lote trae varios resultados del mismo documento se aplica el último
+        Map<CambioEstadoDocumento, ActualizarEstadoDocumentoRequest> cambios = new LinkedHashMap<>();
+        Map<String, CambioEstadoDocumento> porDocumento = new HashMap<>();
+        for (ActualizarEstadoDocumentoRequest solicitud : solicitudes) {
+            Documento.EstadoDocumento nuevoEstado;
+            try {
+                nuevoEstado = parsearEstado(solicitud.nuevoEstado());
+            } catch (InvalidRequestException e) {
+                // Reintentarlo no lo arreglaría: se descarta como una transición inválida
+                log.warn("Cambio de estado descartado: documentoId={}, error={}",
+                        solicitud.documentoId(), e.getMessage());
+                continue;
+            }
+            CambioEstadoDocumento cambio = new CambioEstadoDocumento(solicitud.carpetaId(),
+                    solicitud.documentoId(), nuevoEstado);
+            CambioEstadoDocumento anterior = porDocumento.put(
+                    solicitud.carpetaId() + "|" + solicitud.documentoId(), cambio);
+            if (anterior != null) {
+                cambios.remove(anterior);
+            }
+            cambios.put(cambio, solicitud);
+        }
 
-        Documento documento = documentoRepository.findById(carpetaId, documentoId)
-                .orElseThrow(() -> new ResourceNotFoundException("Documento", "documentoId", documentoId));
+        Map<CambioEstadoDocumento, RuntimeException> fallos = documentoRepository.actualizarEstados(cambios.keySet());
+
+        List<HistorialAcceso> accesos = new ArrayList<>(cambios.size());
+        List<ActualizarEstadoDocumentoRequest> fallidas = new ArrayList<>();
+        int yaAplicados = 0;
+        for (Map.Entry<CambioEstadoDocumento, ActualizarEstadoDocumentoRequest> entrada : cambios.entrySet()) {
+            CambioEstadoDocumento cambio = entrada.getKey();
+            RuntimeException fallo = fallos.get(cambio);
+
+            if (fallo instanceof TransicionEstadoInvalidaException transicion
+                    && cambio.nuevoEstado().name().equals(transicion.getEstadoActual())) {
+                // Entrega repetida de un resultado ya aplicado: su historial ya se escribió
+                log.debug("Cambio de estado ya aplicado: documentoId={}, estado={}",
+                        cambio.documentoId(), cambio.nuevoEstado());
+                yaAplicados++;
+                continue;
+            }
+            if (fallo instanceof ResourceNotFoundException || fallo instanceof TransicionEstadoInvalidaException) {
+                log.warn("Cambio de estado descartado: documentoId={}, error={}",
+                        cambio.documentoId(), fallo.getMessage());
+                continue;
+            }
+            if (fallo != null) {
+                log.error("Error actualizando estado de documento {}: {}", cambio.documentoId(), fallo.getMessage());
+                fallidas.add(entrada.getValue());
+                continue;
+            }
 
-        // Validar que el documento esté en estado TEMPORAL
-        if (!"TEMPORAL".equals(documento.getEstadoDocumento())) {
-            throw new IllegalStateException(
-                    String.format("El documento debe estar en estado TEMPORAL para iniciar autenticación. Estado actual: %s", 
-                    documento.getEstadoDocumento()));
+            String mensaje = entrada.getValue().mensaje();
+            accesos.add(historialAccesoMapper.crearAcceso(
+                    cambio.carpetaId(),
+                    cambio.documentoId(),
+                    "ACTUALIZACION_ESTADO",
+                    "SISTEMA",
+                    mensaje != null
+                            ? String.format("Estado actualizado a: %s - %s", cambio.nuevoEstado(), mensaje)
+                            : String.format("Estado actualizado a: %s", cambio.nuevoEstado())));
         }
 
-        // Actualizar estado a EN_AUTENTICACION
-        documento.setEstadoDocumento("EN_AUTENTICACION");
-        documento.setFechaUltimaModificacion(LocalDateTime.now());
-        
-        Documento documentoActualizado = documentoRepository.save(documento);
+        if (!accesos.isEmpty()) {
+            historialRepository.saveAll(accesos);
+        }
+        log.info("Lote de estados procesado: {} solicitudes, {} actualizados, {} ya aplicados, {} por reintentar",
+                solicitudes.size(), accesos.size(), yaAplicados, fallidas.size());
+        return fallidas;
+    }
+
+    @Override
+    public co.edu.eafit.carpeta.ciudadana.dto.response.DocumentoConUrlResponse iniciarAutenticacionDocumento(String carpetaId, String documentoId) {
+        log.info("Iniciando autenticación de documento: {} en carpeta: {}", documentoId, carpetaId);
+
+        // Actualizar estado a EN_AUTENTICACION (solo si el documento está en TEMPORAL)
+        Documento documentoActualizado = documentoRepository.actualizarEstado(
+                carpetaId, documentoId, Documento.EstadoDocumento.EN_AUTENTICACION);
 
         // Generar URL de descarga
         String urlDescarga = generarUrlDescarga(carpetaId, documentoId);
@@ -325,12 +577,25 @@ public class CarpetaCiudadanoServiceImpl implements CarpetaCiudadanoService {
         return new co.edu.eafit.carpeta.ciudadana.dto.response.DocumentoConUrlResponse(documentoActualizado, urlDescarga);
     }
 
-    private void actualizarEspacioUtilizado(String carpetaId, long cambioBytes) {
-        CarpetaCiudadano carpeta = carpetaRepository.findById(carpetaId)
-                .orElseThrow(() -> new ResourceNotFoundException("Carpeta", "carpetaId", carpetaId));
+    private Documento.EstadoDocumento parsearEstado(String estado) {
+        try {
+            return Documento.EstadoDocumento.valueOf(estado);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new InvalidRequestException("nuevoEstado", String.format(
+                    "'%s' no es un estado válido; valores permitidos: %s",
+                    estado, Arrays.toString(Documento.EstadoDocumento.values())));
+        }
+    }
 
-        carpeta.setEspacioUtilizadoBytes(carpeta.getEspacioUtilizadoBytes() + cambioBytes);
-        carpeta.setFechaUltimaModificacion(LocalDateTime.now());
-        carpetaRepository.save(carpeta);
+    /**
+     * Elimina de MinIO el archivo de una subida cuya transacción de metadatos falló. El objeto
+     * lleva el documentoId de la subida, así que ningún otro documento apunta a él.
+     */
+    private void eliminarArchivoHuerfano(String userId, String fileName) {
+        try {
+            minioStorageService.deleteFileForUser(userId, fileName);
+        } catch (StorageException e) {
+            log.warn("No se pudo eliminar el archivo huérfano {}/{}: {}", userId, fileName, e.getMessage());
+        }
     }
 }
\ No newline at end of file
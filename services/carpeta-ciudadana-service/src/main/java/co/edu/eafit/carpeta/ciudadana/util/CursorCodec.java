@@ -0,0 +1,150 @@
+package co.edu.eafit.carpeta.ciudadana.util;
+
+import co.edu.eafit.carpeta.ciudadana.exception.InvalidRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Codifica y verifica cursores de paginación firmados
+ *
+ * Formato: base64url(JSON del cursor) + "." + base64url(HMAC-SHA256 truncado a 16 bytes).
+ * La firma impide que el cliente altere la clave de inicio, el índice o los filtros; el contenido
+ * no es secreto. El tipo del cursor entra en la firma, así que un cursor del listado de documentos
+ * no sirve para el historial y viceversa.
+ */
+@Slf4j
+@Component
+public class CursorCodec {
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final int BYTES_FIRMA = 16;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    /** Longitud mínima del secreto: la de la salida de HMAC-SHA256. */
+    private static final int BYTES_MINIMOS_SECRETO = 32;
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec clave;
+
+    public CursorCodec(ObjectMapper objectMapper,
+                       @Value("${paginacion.cursor.secreto}") String secreto) {
+        // Sin valor por defecto: un secreto conocido permitiría fabricar cursores válidos
+        byte[] bytesSecreto = secreto.getBytes(StandardCharsets.UTF_8);
+        if (bytesSecreto.length < BYTES_MINIMOS_SECRETO) {
+            throw new IllegalStateException("paginacion.cursor.secreto (PAGINACION_CURSOR_SECRETO) debe tener al menos "
+                    + BYTES_MINIMOS_SECRETO + " bytes");
+        }
+        this.objectMapper = objectMapper;
+        this.clave = new SecretKeySpec(bytesSecreto, ALGORITMO);
+    }
+
+    /**
+     * @param cursor Record serializable con Jackson ({@link CursorPaginacion}, {@link CursorHistorial})
+     */
+    public String codificar(Object cursor) {
+        try {
+            byte[] contenido = objectMapper.writeValueAsBytes(cursor);
+            byte[] firma = firmar(cursor.getClass(), contenido);
+            return ENCODER.encodeToString(contenido) + "." + ENCODER.encodeToString(firma);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error codificando el cursor de paginación", e);
+        }
+    }
+
+    /**
+     * @throws InvalidRequestException si el cursor está mal formado o la firma no coincide
+     */
+    public <T> T decodificar(String cursor, Class<T> tipo) {
+        int separador = cursor.indexOf('.');
+        if (separador <= 0) {
+            throw cursorInvalido();
+        }
+        try {
+            byte[] contenido = DECODER.decode(cursor.substring(0, separador));
+            byte[] firma = DECODER.decode(cursor.substring(separador + 1));
+
+            // Comparación en tiempo constante
+            if (!MessageDigest.isEqual(firmar(tipo, contenido), firma)) {
+                log.warn("Cursor de paginación con firma inválida");
+                throw cursorInvalido();
+            }
+            return objectMapper.readValue(contenido, tipo);
+        } catch (IllegalArgumentException | IOException e) {
+            throw cursorInvalido();
+        }
+    }
+
+    /**
+     * Convierte una clave de DynamoDB al formato del cursor. Las claves solo pueden ser S o N.
+     */
+    public static Map<String, String> claveATexto(Map<String, AttributeValue> clave) {
+        Map<String, String> texto = new LinkedHashMap<>();
+        clave.forEach((atributo, valor) ->
+                texto.put(atributo, valor.n() != null ? "N:" + valor.n() : "S:" + valor.s()));
+        return texto;
+    }
+
+    public static Map<String, AttributeValue> textoAClave(Map<String, String> texto) {
+        Map<String, AttributeValue> clave = new LinkedHashMap<>();
+        texto.forEach((atributo, valor) -> {
+            if (valor.length() < 2 || valor.charAt(1) != ':') {
+                throw cursorInvalido();
+            }
+            String contenido = valor.substring(2);
+            switch (valor.charAt(0)) {
+                case 'S' -> clave.put(atributo, AttributeValue.fromS(contenido));
+                case 'N' -> clave.put(atributo, AttributeValue.fromN(contenido));
+                default -> throw cursorInvalido();
+            }
+        });
+        return clave;
+    }
+
+    /**
+     * Claves de varias particiones (por nombre de partición) al formato del cursor.
+     */
+    public static Map<String, Map<String, String>> clavesATexto(Map<String, Map<String, AttributeValue>> claves) {
+        Map<String, Map<String, String>> texto = new LinkedHashMap<>();
+        claves.forEach((particion, clave) -> texto.put(particion, claveATexto(clave)));
+        return texto;
+    }
+
+    public static Map<String, Map<String, AttributeValue>> textoAClaves(Map<String, Map<String, String>> texto) {
+        if (texto == null) {
+            throw cursorInvalido();
+        }
+        Map<String, Map<String, AttributeValue>> claves = new LinkedHashMap<>();
+        texto.forEach((particion, clave) -> claves.put(particion, textoAClave(clave)));
+        return claves;
+    }
+
+    private byte[] firmar(Class<?> tipo, byte[] contenido) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(clave);
+            mac.update(tipo.getSimpleName().getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Arrays.copyOf(mac.doFinal(contenido), BYTES_FIRMA);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error firmando el cursor de paginación", e);
+        }
+    }
+
+    private static InvalidRequestException cursorInvalido() {
+        return new InvalidRequestException("cursor", "cursor de paginación inválido o alterado");
+    }
+}
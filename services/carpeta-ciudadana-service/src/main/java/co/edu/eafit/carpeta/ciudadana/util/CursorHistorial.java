@@ -0,0 +1,31 @@
+package co.edu.eafit.carpeta.ciudadana.util;
+
+import co.edu.eafit.carpeta.ciudadana.dto.request.DireccionOrden;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Contenido de un cursor del historial de accesos: la clave de inicio exclusiva (tabla e índice)
+ * de cada partición consultada y los filtros de la primera consulta. El índice no se guarda
+ * porque se deduce de los filtros.
+ *
+ * @param shards Shards de la carpeta en la primera página; la paginación no cambia de particiones
+ *               aunque la carpeta se particione mientras tanto
+ * @param claves Clave de cada partición por posición; valores con prefijo de tipo ("S:valor" o
+ *               "N:valor") y mapa vacío para las particiones agotadas
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CursorHistorial(
+    @JsonProperty("c") String carpetaId,
+    @JsonProperty("p") int shards,
+    @JsonProperty("k") Map<String, Map<String, String>> claves,
+    @JsonProperty("o") DireccionOrden orden,
+    @JsonProperty("d") String documentoId,
+    @JsonProperty("t") String tipoAcceso,
+    @JsonProperty("a") LocalDateTime desde,
+    @JsonProperty("h") LocalDateTime hasta,
+    @JsonProperty("n") int tamanoPagina
+) {}
@@ -0,0 +1,29 @@
+package co.edu.eafit.carpeta.ciudadana.util;
+
+import co.edu.eafit.carpeta.ciudadana.dto.request.DireccionOrden;
+import co.edu.eafit.carpeta.ciudadana.dto.request.VistaDocumento;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * Contenido de un cursor de paginación: la clave de inicio exclusiva completa (incluidas las
+ * claves del índice), el índice consultado y los parámetros de la consulta, incluida la vista,
+ * para que la siguiente página se pida exactamente igual. Los nombres JSON son de una letra para
+ * que el cursor sea corto.
+ *
+ * @param clave Valores de la clave con prefijo de tipo: "S:valor" o "N:valor"
+ * @param vista Vista de la primera página; null en cursores emitidos antes de guardarla (COMPLETA)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CursorPaginacion(
+    @JsonProperty("c") String carpetaId,
+    @JsonProperty("i") String indice,
+    @JsonProperty("k") Map<String, String> clave,
+    @JsonProperty("o") DireccionOrden orden,
+    @JsonProperty("t") String tipoDocumento,
+    @JsonProperty("e") String estadoDocumento,
+    @JsonProperty("n") int tamanoPagina,
+    @JsonProperty("v") VistaDocumento vista
+) {}
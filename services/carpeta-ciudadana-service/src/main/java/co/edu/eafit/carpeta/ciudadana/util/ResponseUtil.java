@@ -4,6 +4,7 @@ import co.edu.eafit.carpeta.ciudadana.dto.response.ApiResponse;
 import co.edu.eafit.carpeta.ciudadana.dto.response.CarpetaResponse;
 import co.edu.eafit.carpeta.ciudadana.dto.response.CrearCarpetaResponse;
 import co.edu.eafit.carpeta.ciudadana.dto.response.DocumentoResponse;
+import co.edu.eafit.carpeta.ciudadana.dto.response.DocumentoResumenResponse;
 import co.edu.eafit.carpeta.ciudadana.dto.response.SubirDocumentoResponse;
 import co.edu.eafit.carpeta.ciudadana.entity.CarpetaCiudadano;
 import co.edu.eafit.carpeta.ciudadana.entity.Documento;
@@ -106,6 +107,19 @@ public class ResponseUtil {
                 documento.getHashDocumento());
     }
 
+    public static DocumentoResumenResponse toDocumentoResumenResponse(Documento documento) {
+        return new DocumentoResumenResponse(
+                documento.getDocumentoId(),
+                documento.getTitulo(),
+                documento.getTipoDocumento(),
+                documento.getContextoDocumento(),
+                documento.getEstadoDocumento(),
+                documento.getFechaRecepcion(),
+                documento.getEsDescargable(),
+                documento.getFormatoArchivo(),
+                documento.getTamanoBytes());
+    }
+
     public static List<DocumentoResponse> toDocumentoResponseList(List<Documento> documentos) {
         return documentos.stream()
                 .map(ResponseUtil::toDocumentoResponse)
@@ -0,0 +1,191 @@
+package co.edu.eafit.carpeta.ciudadana.benchmark;
+
+import co.edu.eafit.carpeta.ciudadana.config.DynamoDbInitializer;
+import co.edu.eafit.carpeta.ciudadana.entity.CarpetaCiudadano;
+import co.edu.eafit.carpeta.ciudadana.entity.Documento;
+import co.edu.eafit.carpeta.ciudadana.entity.EventoOutbox;
+import co.edu.eafit.carpeta.ciudadana.entity.HistorialAcceso;
+import co.edu.eafit.carpeta.ciudadana.repository.batch.DynamoDbBatchExecutor;
+import co.edu.eafit.carpeta.ciudadana.repository.cache.CarpetaCiudadanoCache;
+import co.edu.eafit.carpeta.ciudadana.repository.impl.DocumentoRepositoryImpl;
+import co.edu.eafit.carpeta.ciudadana.repository.particion.ParticionadorHistorial;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.CarpetaCiudadanoTableSchema;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.DocumentoTableSchema;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.HistorialAccesoTableSchema;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Latencia de confirmación de los metadatos de una subida: las cuatro llamadas secuenciales de
+ * antes (put del documento, lectura y put de la carpeta, put del historial) frente al
+ * TransactWriteItems de {@link DocumentoRepositoryImpl#saveConSubida}. Imprime p50/p95/p99.
+ *
+ * <p>Usa DynamoDB Local en un contenedor, o el endpoint de {@code -Ddynamodb.endpoint} (por
+ * ejemplo el de docker-compose o uno real, donde los viajes de red pesan más). Ejecutar con:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=co.edu.eafit.carpeta.ciudadana.benchmark.CommitSubidaBenchmark}
+ */
+public class CommitSubidaBenchmark {
+
+    private static final int CALENTAMIENTO = 200;
+    private static final int MEDICIONES = Integer.getInteger("benchmark.mediciones", 2000);
+
+    public static void main(String[] args) throws Exception {
+        String endpoint = System.getProperty("dynamodb.endpoint");
+        GenericContainer<?> contenedor = null;
+        if (endpoint == null) {
+            contenedor = new GenericContainer<>(DockerImageName.parse("amazon/dynamodb-local:latest"))
+                    .withExposedPorts(8000);
+            contenedor.start();
+            endpoint = "http://" + contenedor.getHost() + ":" + contenedor.getMappedPort(8000);
+        }
+
+        try (DynamoDbClient client = DynamoDbClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create("dummy", "dummy")))
+                .build()) {
+            new CommitSubidaBenchmark(client).ejecutar();
+        } finally {
+            if (contenedor != null) {
+                contenedor.stop();
+            }
+        }
+    }
+
+    private final DynamoDbTable<Documento> documentos;
+    private final DynamoDbTable<CarpetaCiudadano> carpetas;
+    private final DynamoDbTable<HistorialAcceso> historial;
+    private final DocumentoRepositoryImpl repository;
+    private final String carpetaId = UUID.randomUUID().toString();
+
+    CommitSubidaBenchmark(DynamoDbClient client) throws Exception {
+        DynamoDbInitializer initializer = new DynamoDbInitializer();
+        ReflectionTestUtils.setField(initializer, "dynamoDbClient", client);
+        initializer.run();
+
+        DynamoDbEnhancedClient enhanced = DynamoDbEnhancedClient.builder().dynamoDbClient(client).build();
+        documentos = enhanced.table(DocumentoTableSchema.TABLE_NAME, DocumentoTableSchema.SCHEMA);
+        carpetas = enhanced.table(CarpetaCiudadanoTableSchema.TABLE_NAME, CarpetaCiudadanoTableSchema.SCHEMA);
+        historial = enhanced.table(HistorialAccesoTableSchema.TABLE_NAME, HistorialAccesoTableSchema.SCHEMA);
+
+        // Sin caché ni particionado: solo se mide la escritura
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        repository = new DocumentoRepositoryImpl(
+                client,
+                new DynamoDbBatchExecutor(client, 1, 5, 50),
+                new CarpetaCiudadanoCache(null, registry, false, 1, 1),
+                new ParticionadorHistorial(client, registry, false, 200, 10, 8, 30));
+
+        carpetas.putItem(CarpetaCiudadano.builder()
+                .carpetaId(carpetaId)
+                .propietarioCedula("1000000000")
+                .espacioUtilizadoBytes(0L)
+                .fechaCreacion(LocalDateTime.now())
+                .build());
+    }
+
+    void ejecutar() {
+        medir("secuencial (4 llamadas)", this::subidaSecuencial);
+        medir("TransactWriteItems", this::subidaTransaccional);
+    }
+
+    /** Flujo anterior de subirDocumento. */
+    private Runnable subidaSecuencial() {
+        Documento documento = documento();
+        HistorialAcceso acceso = acceso(documento);
+        return () -> {
+            documentos.putItem(documento);
+            CarpetaCiudadano carpeta = carpetas.getItem(Key.builder().partitionValue(carpetaId).build());
+            carpeta.setEspacioUtilizadoBytes(carpeta.getEspacioUtilizadoBytes() + documento.getTamanoBytes());
+            carpeta.setFechaUltimaModificacion(LocalDateTime.now());
+            carpetas.putItem(carpeta);
+            historial.putItem(acceso);
+        };
+    }
+
+    private Runnable subidaTransaccional() {
+        Documento documento = documento();
+        HistorialAcceso acceso = acceso(documento);
+        EventoOutbox evento = EventoOutbox.builder()
+                .eventoId(UUID.randomUUID().toString())
+                .tipoEvento("documento.subido")
+                .estado(EventoOutbox.EstadoEvento.PENDING.name())
+                .payload("{\"documentoId\":\"" + documento.getDocumentoId() + "\"}")
+                .contentType("application/json")
+                .routingKey("documento.subido")
+                .intentosPublicacion(0)
+                .timestamp(LocalDateTime.now())
+                .particionPendiente("PENDING#0")
+                .build();
+        return () -> repository.saveConSubida(documento, acceso, documento.getTamanoBytes(), evento);
+    }
+
+    private void medir(String nombre, Supplier<Runnable> subidas) {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            subidas.get().run();
+        }
+        long[] latencias = new long[MEDICIONES];
+        for (int i = 0; i < MEDICIONES; i++) {
+            Runnable subida = subidas.get();
+            long inicio = System.nanoTime();
+            subida.run();
+            latencias[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(latencias);
+        System.out.printf("%-26s n=%d  p50=%.2f ms  p95=%.2f ms  p99=%.2f ms%n", nombre, MEDICIONES,
+                percentil(latencias, 0.50), percentil(latencias, 0.95), percentil(latencias, 0.99));
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1_000_000.0;
+    }
+
+    private Documento documento() {
+        LocalDateTime ahora = LocalDateTime.now();
+        return Documento.builder()
+                .carpetaId(carpetaId)
+                .documentoId(UUID.randomUUID().toString())
+                .titulo("Certificado")
+                .tipoDocumento("CERTIFICADO")
+                .formatoArchivo("PDF")
+                .tamanoBytes(250_000L)
+                .hashDocumento("3f786850e387550fdab836ed7e6dc881de23001b")
+                .urlAlmacenamiento("1000000000/certificado.pdf")
+                .estadoDocumento(Documento.EstadoDocumento.TEMPORAL.name())
+                .esDescargable(true)
+                .fechaRecepcion(ahora)
+                .fechaUltimaModificacion(ahora)
+                .build();
+    }
+
+    private HistorialAcceso acceso(Documento documento) {
+        return HistorialAcceso.builder()
+                .carpetaId(carpetaId)
+                .accesoId(UUID.randomUUID().toString())
+                .documentoId(documento.getDocumentoId())
+                .tipoAcceso("SUBIDA")
+                .usuarioAcceso("SISTEMA")
+                .fechaAcceso(LocalDateTime.now())
+                .resultadoAcceso("EXITOSO")
+                .motivoAcceso("Documento subido exitosamente")
+                .build();
+    }
+}
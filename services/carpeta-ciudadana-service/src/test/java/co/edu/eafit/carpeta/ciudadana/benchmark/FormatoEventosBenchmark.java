@@ -0,0 +1,119 @@
+package co.edu.eafit.carpeta.ciudadana.benchmark;
+
+import co.edu.eafit.carpeta.ciudadana.event.DocumentoAutenticadoEvent;
+import co.edu.eafit.carpeta.ciudadana.event.DocumentoSubidoEvent;
+import co.edu.eafit.carpeta.ciudadana.event.formato.CborMessageConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatos de los eventos de RabbitMQ: JSON (Jackson2JsonMessageConverter) frente a CBOR
+ * ({@link CborMessageConverter}), con los converters que usa el servicio, así que cada operación
+ * incluye el header __TypeId__ y las propiedades del mensaje.
+ *
+ * <p>{@code main} imprime primero el tamaño del cuerpo de cada evento en ambos formatos y después
+ * ejecuta JMH (codificar y decodificar). Ejecutar con:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=co.edu.eafit.carpeta.ciudadana.benchmark.FormatoEventosBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatoEventosBenchmark {
+
+    private static final String PAQUETE_EVENTOS = "co.edu.eafit.carpeta.ciudadana.event";
+
+    @Param({"json", "cbor"})
+    public String formato;
+
+    @Param({"subido", "autenticado"})
+    public String evento;
+
+    private SmartMessageConverter converter;
+    private Object objeto;
+    private Message mensaje;
+
+    @Setup
+    public void setup() {
+        converter = converter(formato);
+        objeto = evento(evento);
+        mensaje = converter.toMessage(objeto, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message codificar() {
+        return converter.toMessage(objeto, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object decodificar() {
+        return converter.fromMessage(mensaje);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        System.out.printf("%-12s %8s %8s%n", "evento", "json", "cbor");
+        for (String evento : new String[] {"subido", "autenticado"}) {
+            Object objeto = evento(evento);
+            System.out.printf("%-12s %7dB %7dB%n", evento,
+                    converter("json").toMessage(objeto, new MessageProperties()).getBody().length,
+                    converter("cbor").toMessage(objeto, new MessageProperties()).getBody().length);
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(FormatoEventosBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static SmartMessageConverter converter(String formato) {
+        return "cbor".equals(formato)
+                ? new CborMessageConverter(PAQUETE_EVENTOS)
+                : new Jackson2JsonMessageConverter();
+    }
+
+    private static Object evento(String evento) {
+        LocalDateTime ahora = LocalDateTime.now();
+        if ("autenticado".equals(evento)) {
+            return DocumentoAutenticadoEvent.builder()
+                    .eventoId("0d6c1f0e-7a3b-4c55-9e0f-2b7d8a1c3e4f")
+                    .documentoId("9a8b7c6d-5e4f-4a3b-8c2d-1e0f9a8b7c6d")
+                    .carpetaId("6f1d2c3b-0a9e-4b8f-8c7d-1e2f3a4b5c6d")
+                    .statusCode(200)
+                    .mensaje("Documento autenticado correctamente")
+                    .fechaAutenticacion(ahora)
+                    .build();
+        }
+        return DocumentoSubidoEvent.builder()
+                .eventoId("0d6c1f0e-7a3b-4c55-9e0f-2b7d8a1c3e4f")
+                .documentoId("9a8b7c6d-5e4f-4a3b-8c2d-1e0f9a8b7c6d")
+                .carpetaId("6f1d2c3b-0a9e-4b8f-8c7d-1e2f3a4b5c6d")
+                .propietarioCedula("1000000000")
+                .tipoDocumento("DIPLOMA")
+                .nombreArchivo("diploma-bachiller.pdf")
+                .tamanioBytes(482_133L)
+                .hashDocumento("3f786850e387550fdab836ed7e6dc881de23001b")
+                .fechaSubida(ahora)
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package co.edu.eafit.carpeta.ciudadana.benchmark;
+
+import co.edu.eafit.carpeta.ciudadana.entity.Documento;
+import co.edu.eafit.carpeta.ciudadana.repository.schema.DocumentoTableSchema;
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo de items de Documento con el esquema estático frente al esquema por introspección de beans
+ * ({@code TableSchema.fromBean}) que se usaba antes.
+ *
+ * <p>El bean anotado solo existe aquí como línea base. Ejecutar con:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=co.edu.eafit.carpeta.ciudadana.benchmark.TableSchemaBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableSchemaBenchmark {
+
+    private final TableSchema<DocumentoBean> esquemaBean = TableSchema.fromBean(DocumentoBean.class);
+
+    private Documento documento;
+    private DocumentoBean documentoBean;
+    private Map<String, AttributeValue> item;
+
+    @Setup
+    public void setup() {
+        LocalDateTime ahora = LocalDateTime.now();
+        documento = Documento.builder()
+                .carpetaId("6f1d2c3b-0a9e-4b8f-8c7d-1e2f3a4b5c6d")
+                .documentoId("9a8b7c6d-5e4f-4a3b-8c2d-1e0f9a8b7c6d")
+                .titulo("Diploma de bachiller")
+                .tipoDocumento("DIPLOMA")
+                .contextoDocumento("EDUCACION")
+                .descripcion("Diploma expedido por el colegio")
+                .formatoArchivo("PDF")
+                .tamanoBytes(482_133L)
+                .hashDocumento("3f786850e387550fdab836ed7e6dc881de23001b")
+                .urlAlmacenamiento("carpetas/6f1d2c3b/documentos/9a8b7c6d.pdf")
+                .estadoDocumento("TEMPORAL")
+                .esDescargable(true)
+                .fechaRecepcion(ahora)
+                .fechaUltimaModificacion(ahora)
+                .build();
+        item = DocumentoTableSchema.SCHEMA.itemToMap(documento, true);
+        documentoBean = esquemaBean.mapToItem(item);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> itemToMapEstatico() {
+        return DocumentoTableSchema.SCHEMA.itemToMap(documento, true);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> itemToMapBean() {
+        return esquemaBean.itemToMap(documentoBean, true);
+    }
+
+    @Benchmark
+    public Documento mapToItemEstatico() {
+        return DocumentoTableSchema.SCHEMA.mapToItem(item);
+    }
+
+    @Benchmark
+    public DocumentoBean mapToItemBean() {
+        return esquemaBean.mapToItem(item);
+    }
+
+    /** Costo de arranque que el esquema estático elimina: construir el esquema por reflexión. */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Measurement(iterations = 20)
+    @Fork(5)
+    public TableSchema<DocumentoBean> construirEsquemaBean() {
+        return TableSchema.fromBean(DocumentoBean.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TableSchemaBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /** Documento tal como se mapeaba antes de los esquemas estáticos. */
+    @Data
+    @DynamoDbBean
+    public static class DocumentoBean {
+
+        private String carpetaId;
+        private String documentoId;
+        private String titulo;
+        private String tipoDocumento;
+        private String contextoDocumento;
+        private String descripcion;
+        private String formatoArchivo;
+        private Long tamanoBytes;
+        private String hashDocumento;
+        private String urlAlmacenamiento;
+        private String estadoDocumento;
+        private Boolean esDescargable;
+        private LocalDateTime fechaRecepcion;
+        private LocalDateTime fechaUltimaModificacion;
+
+        @DynamoDbPartitionKey
+        public String getCarpetaId() {
+            return carpetaId;
+        }
+
+        @DynamoDbSortKey
+        public String getDocumentoId() {
+            return documentoId;
+        }
+    }
+}
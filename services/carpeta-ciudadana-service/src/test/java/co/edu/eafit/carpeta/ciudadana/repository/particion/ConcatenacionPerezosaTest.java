@@ -0,0 +1,68 @@
+package co.edu.eafit.carpeta.ciudadana.repository.particion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcatenacionPerezosaTest {
+
+    private final List<String> eventos = new ArrayList<>();
+
+    @Test
+    void concatenaEnOrdenSaltandoPartesVacias() {
+        Stream<Integer> resultado = ConcatenacionPerezosa.concatenar(List.of(
+                parte("a", 1, 2), parte("b"), parte("c", 3)));
+
+        assertThat(resultado.toList()).containsExactly(1, 2, 3);
+        assertThat(eventos).containsExactly(
+                "abre a", "cierra a", "abre b", "cierra b", "abre c", "cierra c");
+    }
+
+    @Test
+    void abreCadaParteCuandoLaAnteriorSeAgota() {
+        Iterator<Integer> resultado = ConcatenacionPerezosa.concatenar(List.of(
+                parte("a", 1, 2), parte("b", 3))).iterator();
+
+        assertThat(eventos).isEmpty();
+        assertThat(resultado.next()).isEqualTo(1);
+        assertThat(resultado.next()).isEqualTo(2);
+        assertThat(eventos).containsExactly("abre a");
+
+        assertThat(resultado.next()).isEqualTo(3);
+        assertThat(eventos).containsExactly("abre a", "cierra a", "abre b");
+    }
+
+    @Test
+    void noCargaEnteraLaParteAlRecorrerConIterator() {
+        // Con flatMap, iterator() volcaría la parte infinita en un buffer y no terminaría
+        Iterator<Integer> resultado = ConcatenacionPerezosa.concatenar(
+                List.<Supplier<Stream<Integer>>>of(() -> Stream.iterate(0, x -> x + 1))).iterator();
+
+        assertThat(resultado.next()).isZero();
+        assertThat(resultado.next()).isEqualTo(1);
+    }
+
+    @Test
+    void cerrarElResultadoCierraLaParteAbiertaYNoAbreLasSiguientes() {
+        Stream<Integer> resultado = ConcatenacionPerezosa.concatenar(List.of(
+                parte("a", 1, 2), parte("b", 3)));
+
+        assertThat(resultado.iterator().next()).isEqualTo(1);
+        resultado.close();
+
+        assertThat(eventos).containsExactly("abre a", "cierra a");
+    }
+
+    private Supplier<Stream<Integer>> parte(String nombre, Integer... elementos) {
+        return () -> {
+            eventos.add("abre " + nombre);
+            return Stream.of(elementos).onClose(() -> eventos.add("cierra " + nombre));
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package co.edu.eafit.carpeta.ciudadana.repository.particion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MezclaOrdenadaTest {
+
+    @Test
+    void mezclaEnOrdenFuentesDeDistintoTamano() {
+        MezclaOrdenada<Integer> mezcla = new MezclaOrdenada<>(List.of(
+                List.of(1, 4, 7, 10).iterator(),
+                List.<Integer>of().iterator(),
+                List.of(2, 2, 3).iterator(),
+                List.of(5).iterator()), Comparator.naturalOrder());
+
+        assertThat(todos(mezcla)).containsExactly(1, 2, 2, 3, 4, 5, 7, 10);
+        assertThatThrownBy(mezcla::next).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void respetaElOrdenDescendente() {
+        MezclaOrdenada<Integer> mezcla = new MezclaOrdenada<>(List.of(
+                List.of(9, 3).iterator(),
+                List.of(8, 6, 1).iterator()), Comparator.<Integer>reverseOrder());
+
+        assertThat(todos(mezcla)).containsExactly(9, 8, 6, 3, 1);
+    }
+
+    @Test
+    void informaLaFuenteDelUltimoYLasAgotadas() {
+        MezclaOrdenada<Integer> mezcla = new MezclaOrdenada<>(List.of(
+                List.of(1, 3).iterator(),
+                List.of(2).iterator(),
+                List.<Integer>of().iterator()), Comparator.naturalOrder());
+
+        assertThat(mezcla.fuenteDelUltimo()).isEqualTo(-1);
+        assertThat(mezcla.agotada(2)).isTrue();
+
+        assertThat(mezcla.next()).isEqualTo(1);
+        assertThat(mezcla.fuenteDelUltimo()).isZero();
+        assertThat(mezcla.agotada(0)).isFalse();
+
+        assertThat(mezcla.next()).isEqualTo(2);
+        assertThat(mezcla.fuenteDelUltimo()).isEqualTo(1);
+        assertThat(mezcla.agotada(1)).isTrue();
+
+        assertThat(mezcla.next()).isEqualTo(3);
+        assertThat(mezcla.agotada(0)).isTrue();
+        assertThat(mezcla.hasNext()).isFalse();
+    }
+
+    @Test
+    void soloAdelantaLaFuenteDeCadaElemento() {
+        AtomicInteger leidosA = new AtomicInteger();
+        AtomicInteger leidosB = new AtomicInteger();
+        MezclaOrdenada<Integer> mezcla = new MezclaOrdenada<>(List.of(
+                contando(List.of(1, 2, 3, 4), leidosA),
+                contando(List.of(10, 20), leidosB)), Comparator.naturalOrder());
+
+        // Una cabeza por fuente al construir
+        assertThat(leidosA).hasValue(1);
+        assertThat(leidosB).hasValue(1);
+
+        mezcla.next();
+        mezcla.next();
+        assertThat(leidosA).hasValue(3);
+        assertThat(leidosB).hasValue(1);
+    }
+
+    @Test
+    void elStreamNoConsultaLasFuentesHastaConsumirse() {
+        AtomicInteger leidos = new AtomicInteger();
+        Stream<Integer> mezcla = MezclaOrdenada.stream(List.of(
+                Stream.of(1, 3).peek(x -> leidos.incrementAndGet()),
+                Stream.of(2).peek(x -> leidos.incrementAndGet())), Comparator.naturalOrder());
+
+        assertThat(leidos).hasValue(0);
+        assertThat(mezcla.toList()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void elStreamDeUnaSolaFuenteEsLaFuente() {
+        Stream<Integer> fuente = Stream.of(3, 1, 2);
+
+        Stream<Integer> resultado = MezclaOrdenada.stream(List.of(fuente), Comparator.naturalOrder());
+
+        assertThat((Object) resultado).isSameAs(fuente);
+    }
+
+    private static <T> List<T> todos(Iterator<T> iterador) {
+        List<T> elementos = new ArrayList<>();
+        iterador.forEachRemaining(elementos::add);
+        return elementos;
+    }
+
+    private static <T> Iterator<T> contando(List<T> elementos, AtomicInteger leidos) {
+        Iterator<T> iterador = elementos.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterador.hasNext();
+            }
+
+            @Override
+            public T next() {
+                leidos.incrementAndGet();
+                return iterador.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package co.edu.eafit.carpeta.ciudadana.util;
+
+import co.edu.eafit.carpeta.ciudadana.dto.request.DireccionOrden;
+import co.edu.eafit.carpeta.ciudadana.dto.request.VistaDocumento;
+import co.edu.eafit.carpeta.ciudadana.exception.InvalidRequestException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTest {
+
+    private static final String SECRETO = "secreto-de-pruebas-de-al-menos-32-bytes";
+
+    // Como el ObjectMapper de Spring Boot: ignora propiedades desconocidas, así que solo la firma
+    // impide leer un cursor como si fuera de otro tipo
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final CursorCodec codec = new CursorCodec(objectMapper, SECRETO);
+
+    @Test
+    void decodificaLoQueCodifica() {
+        CursorPaginacion cursor = paginacion(VistaDocumento.RESUMEN);
+        CursorHistorial historial = new CursorHistorial("carpeta-1", 4,
+                Map.of("0", Map.of("sk", "S:ACCESO#2024")), DireccionOrden.ASC, null, "LECTURA",
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 2, 1, 0, 0), 50);
+
+        assertThat(codec.decodificar(codec.codificar(cursor), CursorPaginacion.class)).isEqualTo(cursor);
+        assertThat(codec.decodificar(codec.codificar(historial), CursorHistorial.class)).isEqualTo(historial);
+    }
+
+    @Test
+    void cursorSinVistaSeLeeConVistaNula() {
+        String cursor = codec.codificar(paginacion(null));
+
+        assertThat(contenido(cursor)).doesNotContain("\"v\"");
+        assertThat(codec.decodificar(cursor, CursorPaginacion.class).vista()).isNull();
+    }
+
+    @Test
+    void laVistaEstaFirmada() {
+        String cursor = codec.codificar(paginacion(VistaDocumento.RESUMEN));
+        String alterado = conContenido(cursor, contenido(cursor).replace("RESUMEN", "COMPLETA"));
+
+        assertThatThrownBy(() -> codec.decodificar(alterado, CursorPaginacion.class))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void unCursorNoSirveParaOtroTipo() throws Exception {
+        // Sin clave, el JSON de este cursor también es un CursorHistorial válido
+        CursorPaginacion paginacion = new CursorPaginacion("carpeta-1", null, null,
+                DireccionOrden.ASC, "LECTURA", null, 20, VistaDocumento.COMPLETA);
+        String cursor = codec.codificar(paginacion);
+        assertThat(objectMapper.readValue(contenido(cursor), CursorHistorial.class).carpetaId())
+                .isEqualTo("carpeta-1");
+
+        assertThatThrownBy(() -> codec.decodificar(cursor, CursorHistorial.class))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void rechazaFirmaDeOtroSecretoYCursoresMalFormados() {
+        CursorCodec otro = new CursorCodec(objectMapper, SECRETO + "-otro");
+        String cursor = otro.codificar(paginacion(VistaDocumento.COMPLETA));
+
+        assertThatThrownBy(() -> codec.decodificar(cursor, CursorPaginacion.class))
+                .isInstanceOf(InvalidRequestException.class);
+        for (String malFormado : new String[] {"", "sinseparador", ".firma", "@@@.@@@", cursor + "x"}) {
+            assertThatThrownBy(() -> codec.decodificar(malFormado, CursorPaginacion.class))
+                    .isInstanceOf(InvalidRequestException.class);
+        }
+    }
+
+    @Test
+    void exigeUnSecretoDeAlMenos32Bytes() {
+        assertThatThrownBy(() -> new CursorCodec(objectMapper, "corto"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void convierteClavesConPrefijoDeTipo() {
+        Map<String, AttributeValue> clave = Map.of(
+                "carpetaId", AttributeValue.fromS("c-1"),
+                "orden", AttributeValue.fromN("42"));
+
+        Map<String, String> texto = CursorCodec.claveATexto(clave);
+
+        assertThat(texto).containsEntry("carpetaId", "S:c-1").containsEntry("orden", "N:42");
+        assertThat(CursorCodec.textoAClave(texto)).isEqualTo(clave);
+        assertThatThrownBy(() -> CursorCodec.textoAClave(Map.of("x", "B:abc")))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> CursorCodec.textoAClave(Map.of("x", "S")))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> CursorCodec.textoAClaves(null))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    private static CursorPaginacion paginacion(VistaDocumento vista) {
+        return new CursorPaginacion("carpeta-1", "fecha-index",
+                Map.of("carpetaId", "S:carpeta-1", "documentoId", "S:doc-9"),
+                DireccionOrden.DESC, "CEDULA", null, 20, vista);
+    }
+
+    private static String contenido(String cursor) {
+        byte[] json = Base64.getUrlDecoder().decode(cursor.substring(0, cursor.indexOf('.')));
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    private static String conContenido(String cursor, String contenido) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(contenido.getBytes(StandardCharsets.UTF_8))
+                + cursor.substring(cursor.indexOf('.'));
+    }
+}
@@ -3,9 +3,11 @@ package co.edu.eafit.carpeta.ciudadana.registry;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients
+@EnableScheduling
 public class CiudadanoRegistryServiceApplication {
 
   public static void main(String[] args) {
@@ -1,5 +1,6 @@
 package co.edu.eafit.carpeta.ciudadana.registry.client;
 
+import feign.FeignException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.extern.slf4j.Slf4j;
@@ -60,6 +61,10 @@ public class CarpetaCiudadanaService {
     }
   }
 
+  /**
+   * Busca la carpeta del ciudadano. Responde 404 (no exitoso) si no tiene carpeta, para distinguir
+   * ese caso de un error del servicio.
+   */
   @CircuitBreaker(name = "carpeta-ciudadana-api", fallbackMethod = "buscarCarpetaPorCedulaFallback")
   @Retry(name = "carpeta-ciudadana-api")
   public CarpetaCiudadanaResponse buscarCarpetaPorCedula(String cedula) {
@@ -72,10 +77,20 @@ public class CarpetaCiudadanaService {
 
       CarpetaCiudadanaApiResponse apiResponse = response.getBody();
       if (apiResponse != null && apiResponse.getSuccess()) {
+        CrearCarpetaResponse carpetaData = apiResponse.getData();
         return CarpetaCiudadanaResponse.builder()
             .codigoRespuesta(response.getStatusCode().value())
             .exitoso(true)
             .mensaje(apiResponse.getMessage())
+            .data(
+                carpetaData != null
+                    ? CarpetaCiudadanaResponse.CarpetaData.builder()
+                        .carpetaId(carpetaData.getCarpetaId())
+                        .emailCarpeta(carpetaData.getEmailCarpeta())
+                        .estadoCarpeta(carpetaData.getEstadoCarpeta())
+                        .fechaCreacion(carpetaData.getFechaCreacion())
+                        .build()
+                    : null)
             .build();
       }
       return CarpetaCiudadanaResponse.builder()
@@ -83,6 +98,13 @@ public class CarpetaCiudadanaService {
           .exitoso(false)
           .mensaje(apiResponse != null ? apiResponse.getMessage() : "Error desconocido")
           .build();
+    } catch (FeignException.NotFound e) {
+      log.info("Ciudadano {} sin carpeta", cedula);
+      return CarpetaCiudadanaResponse.builder()
+          .codigoRespuesta(404)
+          .exitoso(false)
+          .mensaje("Carpeta no encontrada")
+          .build();
     } catch (Exception e) {
       log.error("Error buscando carpeta por cédula {}: {}", cedula, e.getMessage());
       return CarpetaCiudadanaResponse.builder()
@@ -2,6 +2,8 @@ package co.edu.eafit.carpeta.ciudadana.registry.client;
 
 import co.edu.eafit.carpeta.ciudadana.registry.dto.request.DesregistrarCiudadanoRequest;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.request.RegistrarCiudadanoRequest;
+import co.edu.eafit.carpeta.ciudadana.registry.util.EmailCarpetaUtil;
+import feign.FeignException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.extern.slf4j.Slf4j;
@@ -50,7 +52,8 @@ public class GovCarpetaService {
     log.info("Registrando ciudadano con cédula: {}", request.getCedula());
 
     String emailGenerado =
-        generarEmailCarpeta(request.getNombreCompleto(), request.getCedula().toString());
+        EmailCarpetaUtil.generarEmailCarpeta(
+            request.getNombreCompleto(), request.getCedula().toString());
 
     GovCarpetaRegisterRequest govRequest =
         GovCarpetaRegisterRequest.builder()
@@ -72,6 +75,14 @@ public class GovCarpetaService {
           .exitoso(response.getStatusCode().is2xxSuccessful())
           .mensaje(response.getBody())
           .build();
+    } catch (FeignException e) {
+      // Feign lanza excepción en las respuestas no 2xx; se conserva el código (501 = ya registrado)
+      log.error("Error registrando ciudadano {}: {}", request.getCedula(), e.getMessage());
+      return GovCarpetaResponse.builder()
+          .codigoRespuesta(e.status() >= 400 ? e.status() : 500)
+          .exitoso(false)
+          .mensaje(e.status() >= 400 ? e.contentUTF8() : "Error interno del sistema")
+          .build();
     } catch (Exception e) {
       log.error("Error registrando ciudadano {}: {}", request.getCedula(), e.getMessage());
       return GovCarpetaResponse.builder()
@@ -152,11 +163,4 @@ public class GovCarpetaService {
         .mensaje("Servicio GovCarpeta temporalmente no disponible")
         .build();
   }
-
-  private String generarEmailCarpeta(String nombreCompleto, String cedula) {
-    String nombreNormalizado =
-        nombreCompleto.toLowerCase().replaceAll("\\s+", ".").replaceAll("[^a-z0-9.]", "");
-
-    return String.format("%s.%s@carpetacolombia.co", nombreNormalizado, cedula);
-  }
 }
@@ -0,0 +1,267 @@
+package co.edu.eafit.carpeta.ciudadana.registry.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caché local de las validaciones de ciudadanos contra GovCarpeta (RNF-28: 95% de las consultas
+ * resueltas localmente).
+ *
+ * <p>Solo se cachean las respuestas definitivas: 200 (ya registrado, TTL positivo) y 204 (no
+ * registrado, TTL negativo, más corto porque otro operador puede registrarlo). Pasado el TTL la
+ * entrada sigue sirviéndose durante la ventana de obsolescencia mientras se refresca en segundo
+ * plano; si el refresco falla se conserva la entrada anterior. Los errores nunca se cachean.
+ *
+ * <p>Las consultas concurrentes de una cédula que no está en la caché comparten una sola llamada a
+ * GovCarpeta. Nuestros propios registros y desregistros invalidan la entrada de la cédula, y
+ * también la carga en curso: su respuesta se devuelve pero no se cachea, porque pudo leerse antes
+ * del cambio. La invalidación es local a la réplica; en las demás la entrada caduca por TTL, y las
+ * consultas de ciudadanos registrados en este sistema se resuelven antes contra la tabla local.
+ */
+@Slf4j
+@Component
+public class GovCarpetaValidacionCache {
+
+  private static final int REGISTRADO = 200;
+  private static final int NO_REGISTRADO = 204;
+
+  private final GovCarpetaService govCarpetaService;
+  private final boolean habilitada;
+  private final Duration ttlPositivo;
+  private final Duration ttlNegativo;
+  private final Cache<Long, Entrada> cache;
+  private final Set<Long> refrescando = ConcurrentHashMap.newKeySet();
+  private final ConcurrentHashMap<Long, Carga> cargando = new ConcurrentHashMap<>();
+  private final ExecutorService refrescos;
+
+  private final Counter aciertosFrescos;
+  private final Counter aciertosObsoletos;
+  private final Counter fallos;
+  private final Counter llamadasCarga;
+  private final Counter llamadasRefresco;
+
+  public GovCarpetaValidacionCache(
+      GovCarpetaService govCarpetaService,
+      MeterRegistry meterRegistry,
+      @Value("${govcarpeta.cache.habilitada:true}") boolean habilitada,
+      @Value("${govcarpeta.cache.tamano-maximo:100000}") long tamanoMaximo,
+      @Value("${govcarpeta.cache.ttl-positivo-minutos:360}") long ttlPositivoMinutos,
+      @Value("${govcarpeta.cache.ttl-negativo-minutos:10}") long ttlNegativoMinutos,
+      @Value("${govcarpeta.cache.ventana-obsoleta-minutos:1440}") long ventanaObsoletaMinutos,
+      @Value("${govcarpeta.cache.hilos-refresco:2}") int hilosRefresco) {
+    this.govCarpetaService = govCarpetaService;
+    this.habilitada = habilitada;
+    this.ttlPositivo = Duration.ofMinutes(ttlPositivoMinutos);
+    this.ttlNegativo = Duration.ofMinutes(ttlNegativoMinutos);
+    this.refrescos = Executors.newFixedThreadPool(hilosRefresco);
+
+    Duration ventanaObsoleta = Duration.ofMinutes(ventanaObsoletaMinutos);
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(tamanoMaximo)
+            .expireAfter(
+                Expiry.writing(
+                    (Long cedula, Entrada entrada) ->
+                        ttlDe(entrada.respuesta()).plus(ventanaObsoleta)))
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "govcarpeta.validacion");
+
+    this.aciertosFrescos = consulta(meterRegistry, "fresco");
+    this.aciertosObsoletos = consulta(meterRegistry, "obsoleto");
+    this.fallos = consulta(meterRegistry, "fallo");
+    this.llamadasCarga = llamadaExterna(meterRegistry, "carga");
+    this.llamadasRefresco = llamadaExterna(meterRegistry, "refresco");
+
+    Gauge.builder("govcarpeta.validacion.aciertos.ratio", this, c -> c.ratio(c.aciertos()))
+        .description("Fracción de validaciones resueltas desde la caché (objetivo >= 0.95)")
+        .register(meterRegistry);
+    Gauge.builder(
+            "govcarpeta.validacion.llamadas.ratio",
+            this,
+            c -> c.ratio(c.llamadasCarga.count() + c.llamadasRefresco.count()))
+        .description("Llamadas a GovCarpeta por validación atendida (objetivo <= 0.05)")
+        .register(meterRegistry);
+  }
+
+  /** Valida la cédula contra GovCarpeta, sirviendo desde la caché cuando es posible. */
+  public GovCarpetaResponse validarCiudadano(Long cedula) {
+    if (!habilitada) {
+      return govCarpetaService.validarCiudadano(cedula);
+    }
+
+    Entrada entrada = cache.getIfPresent(cedula);
+    if (entrada == null) {
+      fallos.increment();
+      return cargar(cedula);
+    }
+
+    if (System.nanoTime() - entrada.cargadaNanos() < ttlDe(entrada.respuesta()).toNanos()) {
+      aciertosFrescos.increment();
+    } else {
+      aciertosObsoletos.increment();
+      refrescarEnSegundoPlano(cedula, entrada);
+    }
+    return entrada.respuesta();
+  }
+
+  /** Descarta la validación cacheada tras registrar o desregistrar la cédula en GovCarpeta. */
+  public void invalidar(Long cedula) {
+    // Bajo el lock de la clave en cargando, igual que la escritura de la carga (ver cargar)
+    cargando.computeIfPresent(
+        cedula,
+        (clave, carga) -> {
+          carga.invalidada = true;
+          return carga;
+        });
+    cache.invalidate(cedula);
+  }
+
+  /**
+   * Carga la validación de una cédula ausente de la caché. Solo la primera consulta llama a
+   * GovCarpeta; las concurrentes esperan su respuesta. La entrada se escribe con putIfAbsent y
+   * solo si nadie invalidó la cédula durante la llamada.
+   */
+  private GovCarpetaResponse cargar(Long cedula) {
+    Carga carga = new Carga();
+    Carga enCurso = cargando.putIfAbsent(cedula, carga);
+    if (enCurso != null) {
+      return esperar(enCurso);
+    }
+
+    try {
+      // Otra carga pudo terminar entre la consulta a la caché y el registro de esta
+      Entrada entrada = cache.getIfPresent(cedula);
+      if (entrada != null) {
+        carga.respuesta.complete(entrada.respuesta());
+        return entrada.respuesta();
+      }
+
+      llamadasCarga.increment();
+      GovCarpetaResponse respuesta = govCarpetaService.validarCiudadano(cedula);
+      if (esCacheable(respuesta)) {
+        Entrada nueva = new Entrada(respuesta, System.nanoTime());
+        cargando.computeIfPresent(
+            cedula,
+            (clave, actual) -> {
+              if (actual == carga && !carga.invalidada) {
+                cache.asMap().putIfAbsent(cedula, nueva);
+              }
+              return actual;
+            });
+      }
+      carga.respuesta.complete(respuesta);
+      return respuesta;
+    } catch (RuntimeException e) {
+      carga.respuesta.completeExceptionally(e);
+      throw e;
+    } finally {
+      cargando.remove(cedula, carga);
+    }
+  }
+
+  private static GovCarpetaResponse esperar(Carga carga) {
+    try {
+      return carga.respuesta.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException causa) {
+        throw causa;
+      }
+      throw e;
+    }
+  }
+
+  private void refrescarEnSegundoPlano(Long cedula, Entrada anterior) {
+    if (!refrescando.add(cedula)) {
+      return;
+    }
+    try {
+      refrescos.execute(() -> refrescar(cedula, anterior));
+    } catch (RejectedExecutionException e) {
+      refrescando.remove(cedula);
+    }
+  }
+
+  private void refrescar(Long cedula, Entrada anterior) {
+    try {
+      llamadasRefresco.increment();
+      GovCarpetaResponse respuesta = govCarpetaService.validarCiudadano(cedula);
+      if (!esCacheable(respuesta)) {
+        log.warn(
+            "Refresco de validación de {} fallido ({}), se conserva la respuesta anterior",
+            cedula,
+            respuesta.getCodigoRespuesta());
+        return;
+      }
+      // Solo reemplaza si nadie invalidó la entrada mientras se consultaba GovCarpeta
+      cache.asMap().replace(cedula, anterior, new Entrada(respuesta, System.nanoTime()));
+    } catch (Exception e) {
+      log.warn("Error refrescando validación de {}: {}", cedula, e.getMessage());
+    } finally {
+      refrescando.remove(cedula);
+    }
+  }
+
+  private Duration ttlDe(GovCarpetaResponse respuesta) {
+    return respuesta.getCodigoRespuesta() == REGISTRADO ? ttlPositivo : ttlNegativo;
+  }
+
+  private static boolean esCacheable(GovCarpetaResponse respuesta) {
+    Integer codigo = respuesta.getCodigoRespuesta();
+    return codigo != null && (codigo == REGISTRADO || codigo == NO_REGISTRADO);
+  }
+
+  private double aciertos() {
+    return aciertosFrescos.count() + aciertosObsoletos.count();
+  }
+
+  private double ratio(double valor) {
+    double total = aciertos() + fallos.count();
+    return total == 0 ? 0 : valor / total;
+  }
+
+  private static Counter consulta(MeterRegistry meterRegistry, String resultado) {
+    return Counter.builder("govcarpeta.validacion.consultas")
+        .description("Validaciones atendidas por resultado en la caché")
+        .tag("resultado", resultado)
+        .register(meterRegistry);
+  }
+
+  private static Counter llamadaExterna(MeterRegistry meterRegistry, String tipo) {
+    return Counter.builder("govcarpeta.validacion.llamadas")
+        .description("Llamadas a la API de GovCarpeta originadas por la caché de validación")
+        .tag("tipo", tipo)
+        .register(meterRegistry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    refrescos.shutdown();
+  }
+
+  private record Entrada(GovCarpetaResponse respuesta, long cargadaNanos) {}
+
+  /** Llamada a GovCarpeta en curso para una cédula ausente de la caché. */
+  private static final class Carga {
+
+    private final CompletableFuture<GovCarpetaResponse> respuesta = new CompletableFuture<>();
+    private boolean invalidada; // solo se lee y escribe bajo el lock de la clave en cargando
+  }
+}
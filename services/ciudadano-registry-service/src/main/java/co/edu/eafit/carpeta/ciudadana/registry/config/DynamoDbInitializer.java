@@ -1,5 +1,11 @@
 package co.edu.eafit.carpeta.ciudadana.registry.config;
 
+import co.edu.eafit.carpeta.ciudadana.registry.repository.schema.AuditoriaRegistroTableSchema;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.schema.RegistroCiudadanoTableSchema;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.schema.TrabajoRegistroTableSchema;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -19,6 +25,12 @@ public class DynamoDbInitializer implements CommandLineRunner {
 
     createRegistroCiudadanoTable();
     createAuditoriaRegistroTable();
+    createTrabajoRegistroTable();
+
+    // La auditoría archivada en MinIO se elimina de la tabla por TTL
+    habilitarTtl(AuditoriaRegistroTableSchema.TABLE_NAME, "expiraEn");
+    // Los trabajos de registro terminados expiran por TTL
+    habilitarTtl(TrabajoRegistroTableSchema.TABLE_NAME, "expiraEn");
 
     log.info("Inicialización de DynamoDB completada");
   }
@@ -30,9 +42,12 @@ public class DynamoDbInitializer implements CommandLineRunner {
       DescribeTableRequest describeRequest =
           DescribeTableRequest.builder().tableName(tableName).build();
 
-      dynamoDbClient.describeTable(describeRequest);
+      DescribeTableResponse response = dynamoDbClient.describeTable(describeRequest);
       log.info("Tabla {} ya existe", tableName);
 
+      crearIndicesFaltantes(
+          response.table(), registroCiudadanoIndices(), registroCiudadanoAtributos());
+
     } catch (ResourceNotFoundException e) {
       // La tabla no existe, crearla
       log.info("Creando tabla {}...", tableName);
@@ -41,18 +56,11 @@ public class DynamoDbInitializer implements CommandLineRunner {
           CreateTableRequest.builder()
               .tableName(tableName)
               .billingMode(BillingMode.PAY_PER_REQUEST)
-              .attributeDefinitions(
-                  AttributeDefinition.builder()
-                      .attributeName("cedula")
-                      .attributeType(ScalarAttributeType.N)
-                      .build(),
-                  AttributeDefinition.builder()
-                      .attributeName("SK")
-                      .attributeType(ScalarAttributeType.S)
-                      .build())
+              .attributeDefinitions(registroCiudadanoAtributos())
               .keySchema(
                   KeySchemaElement.builder().attributeName("cedula").keyType(KeyType.HASH).build(),
                   KeySchemaElement.builder().attributeName("SK").keyType(KeyType.RANGE).build())
+              .globalSecondaryIndexes(registroCiudadanoIndices())
               .build();
 
       try {
@@ -71,6 +79,128 @@ public class DynamoDbInitializer implements CommandLineRunner {
     }
   }
 
+  private List<AttributeDefinition> registroCiudadanoAtributos() {
+    return List.of(
+        atributo("cedula", ScalarAttributeType.N),
+        atributo("SK", ScalarAttributeType.S),
+        atributo("estado", ScalarAttributeType.S),
+        atributo("fechaActualizacion", ScalarAttributeType.S),
+        atributo("activoIndice", ScalarAttributeType.S));
+  }
+
+  /**
+   * GSIs dispersos de RegistroCiudadano: solo contienen los items que tienen el atributo de la
+   * clave de partición del índice.
+   */
+  private List<GlobalSecondaryIndex> registroCiudadanoIndices() {
+    return List.of(
+        indice(RegistroCiudadanoTableSchema.INDICE_ESTADO, "estado", "fechaActualizacion"),
+        indice(RegistroCiudadanoTableSchema.INDICE_ACTIVOS, "activoIndice", "cedula"));
+  }
+
+  private List<AttributeDefinition> auditoriaRegistroAtributos() {
+    return List.of(
+        atributo("PK", ScalarAttributeType.S),
+        atributo("SK", ScalarAttributeType.S),
+        atributo("operadorId", ScalarAttributeType.S),
+        atributo("accion", ScalarAttributeType.S),
+        atributo("diaAccion", ScalarAttributeType.S),
+        atributo("fechaAccion", ScalarAttributeType.S));
+  }
+
+  /**
+   * GSIs de AuditoriaRegistro para consultas de cumplimiento. El índice temporal se particiona
+   * por día para que los rangos de fechas no concentren la carga en una sola partición.
+   */
+  private List<GlobalSecondaryIndex> auditoriaRegistroIndices() {
+    return List.of(
+        indice(AuditoriaRegistroTableSchema.INDICE_OPERADOR, "operadorId", "fechaAccion"),
+        indice(AuditoriaRegistroTableSchema.INDICE_ACCION, "accion", "fechaAccion"),
+        indice(AuditoriaRegistroTableSchema.INDICE_DIA, "diaAccion", "fechaAccion"));
+  }
+
+  private AttributeDefinition atributo(String nombre, ScalarAttributeType tipo) {
+    return AttributeDefinition.builder().attributeName(nombre).attributeType(tipo).build();
+  }
+
+  private GlobalSecondaryIndex indice(String nombre, String partitionKey, String sortKey) {
+    return GlobalSecondaryIndex.builder()
+        .indexName(nombre)
+        .keySchema(
+            KeySchemaElement.builder().attributeName(partitionKey).keyType(KeyType.HASH).build(),
+            KeySchemaElement.builder().attributeName(sortKey).keyType(KeyType.RANGE).build())
+        .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+        .build();
+  }
+
+  /**
+   * Agrega a una tabla existente los GSIs que todavía no tiene. DynamoDB solo permite crear un
+   * índice por UpdateTable, así que se espera a que cada uno quede activo antes del siguiente.
+   */
+  private void crearIndicesFaltantes(
+      TableDescription tabla,
+      List<GlobalSecondaryIndex> indices,
+      List<AttributeDefinition> atributos) {
+    Set<String> existentes =
+        tabla.hasGlobalSecondaryIndexes()
+            ? tabla.globalSecondaryIndexes().stream()
+                .map(GlobalSecondaryIndexDescription::indexName)
+                .collect(Collectors.toSet())
+            : Set.of();
+
+    for (GlobalSecondaryIndex indice : indices) {
+      if (existentes.contains(indice.indexName())) {
+        continue;
+      }
+      log.info("Creando índice {} en tabla {}...", indice.indexName(), tabla.tableName());
+
+      dynamoDbClient.updateTable(
+          UpdateTableRequest.builder()
+              .tableName(tabla.tableName())
+              .attributeDefinitions(atributos)
+              .globalSecondaryIndexUpdates(
+                  GlobalSecondaryIndexUpdate.builder()
+                      .create(
+                          CreateGlobalSecondaryIndexAction.builder()
+                              .indexName(indice.indexName())
+                              .keySchema(indice.keySchema())
+                              .projection(indice.projection())
+                              .build())
+                      .build())
+              .build());
+
+      waitForIndexToBeActive(tabla.tableName(), indice.indexName());
+    }
+  }
+
+  private void waitForIndexToBeActive(String tableName, String indexName) {
+    try {
+      DescribeTableRequest describeRequest =
+          DescribeTableRequest.builder().tableName(tableName).build();
+
+      for (int attempts = 0; attempts < 60; attempts++) {
+        boolean isActive =
+            dynamoDbClient.describeTable(describeRequest).table().globalSecondaryIndexes().stream()
+                .anyMatch(
+                    gsi ->
+                        gsi.indexName().equals(indexName)
+                            && gsi.indexStatus() == IndexStatus.ACTIVE);
+        if (isActive) {
+          log.info("Índice {} de tabla {} está activo", indexName, tableName);
+          return;
+        }
+        Thread.sleep(1000);
+      }
+      log.warn("El índice {} de tabla {} no se activó en el tiempo esperado", indexName, tableName);
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      log.error(
+          "Error esperando el índice {} de tabla {}: {}", indexName, tableName, e.getMessage());
+    }
+  }
+
   private void createAuditoriaRegistroTable() {
     String tableName = "AuditoriaRegistro";
     try {
@@ -78,9 +208,12 @@ public class DynamoDbInitializer implements CommandLineRunner {
       DescribeTableRequest describeRequest =
           DescribeTableRequest.builder().tableName(tableName).build();
 
-      dynamoDbClient.describeTable(describeRequest);
+      DescribeTableResponse response = dynamoDbClient.describeTable(describeRequest);
       log.info("Tabla {} ya existe", tableName);
 
+      crearIndicesFaltantes(
+          response.table(), auditoriaRegistroIndices(), auditoriaRegistroAtributos());
+
     } catch (ResourceNotFoundException e) {
       // La tabla no existe, crearla
       log.info("Creando tabla {}...", tableName);
@@ -89,18 +222,11 @@ public class DynamoDbInitializer implements CommandLineRunner {
           CreateTableRequest.builder()
               .tableName(tableName)
               .billingMode(BillingMode.PAY_PER_REQUEST)
-              .attributeDefinitions(
-                  AttributeDefinition.builder()
-                      .attributeName("PK")
-                      .attributeType(ScalarAttributeType.S)
-                      .build(),
-                  AttributeDefinition.builder()
-                      .attributeName("SK")
-                      .attributeType(ScalarAttributeType.S)
-                      .build())
+              .attributeDefinitions(auditoriaRegistroAtributos())
               .keySchema(
                   KeySchemaElement.builder().attributeName("PK").keyType(KeyType.HASH).build(),
                   KeySchemaElement.builder().attributeName("SK").keyType(KeyType.RANGE).build())
+              .globalSecondaryIndexes(auditoriaRegistroIndices())
               .build();
 
       try {
@@ -119,6 +245,68 @@ public class DynamoDbInitializer implements CommandLineRunner {
     }
   }
 
+  private void createTrabajoRegistroTable() {
+    String tableName = TrabajoRegistroTableSchema.TABLE_NAME;
+    try {
+      dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(tableName).build());
+      log.info("Tabla {} ya existe", tableName);
+
+    } catch (ResourceNotFoundException e) {
+      log.info("Creando tabla {}...", tableName);
+
+      CreateTableRequest createRequest =
+          CreateTableRequest.builder()
+              .tableName(tableName)
+              .billingMode(BillingMode.PAY_PER_REQUEST)
+              .attributeDefinitions(atributo("trabajoId", ScalarAttributeType.S))
+              .keySchema(
+                  KeySchemaElement.builder()
+                      .attributeName("trabajoId")
+                      .keyType(KeyType.HASH)
+                      .build())
+              .build();
+
+      try {
+        dynamoDbClient.createTable(createRequest);
+        log.info("Tabla {} creada exitosamente", tableName);
+
+        waitForTableToBeActive(tableName);
+
+      } catch (ResourceInUseException ex) {
+        log.info("Tabla {} ya existe (creada por otro proceso)", tableName);
+      }
+    } catch (Exception e) {
+      log.error("Error creando tabla {}: {}", tableName, e.getMessage());
+      throw new RuntimeException("Error inicializando DynamoDB", e);
+    }
+  }
+
+  private void habilitarTtl(String tableName, String atributo) {
+    try {
+      TimeToLiveStatus estado =
+          dynamoDbClient
+              .describeTimeToLive(DescribeTimeToLiveRequest.builder().tableName(tableName).build())
+              .timeToLiveDescription()
+              .timeToLiveStatus();
+
+      if (estado == TimeToLiveStatus.ENABLED || estado == TimeToLiveStatus.ENABLING) {
+        log.info("TTL de tabla {} ya habilitado", tableName);
+        return;
+      }
+
+      dynamoDbClient.updateTimeToLive(
+          UpdateTimeToLiveRequest.builder()
+              .tableName(tableName)
+              .timeToLiveSpecification(
+                  TimeToLiveSpecification.builder().attributeName(atributo).enabled(true).build())
+              .build());
+      log.info("TTL habilitado en tabla {} sobre el atributo {}", tableName, atributo);
+
+    } catch (Exception e) {
+      log.error("Error habilitando TTL en tabla {}: {}", tableName, e.getMessage());
+    }
+  }
+
   private void waitForTableToBeActive(String tableName) {
     try {
       DescribeTableRequest describeRequest =
@@ -0,0 +1,24 @@
+package co.edu.eafit.carpeta.ciudadana.registry.config;
+
+import io.minio.MinioClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MinioConfig {
+
+  @Value("${minio.endpoint}")
+  private String endpoint;
+
+  @Value("${minio.access-key}")
+  private String accessKey;
+
+  @Value("${minio.secret-key}")
+  private String secretKey;
+
+  @Bean
+  public MinioClient minioClient() {
+    return MinioClient.builder().endpoint(endpoint).credentials(accessKey, secretKey).build();
+  }
+}
@@ -0,0 +1,120 @@
+package co.edu.eafit.carpeta.ciudadana.registry.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.ExchangeBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Topología de la saga de registro asíncrono: cada paso pendiente de un trabajo es un mensaje en
+ * registro.saga.pasos.queue. Un paso que falla se reintenta por las colas de retraso
+ * registro.saga.pasos.queue.retry.N (ver {@code PublicadorPasosSaga#reintentar}); los que agotan
+ * los reintentos van a la cola de mensajes muertos. El trabajo queda EN_CURSO o COMPENSANDO y
+ * {@code ReanudadorTrabajosRegistro} vuelve a publicar su paso unas pocas veces antes de dejarlo
+ * para revisión manual.
+ *
+ * <p>registro.auditoria.pendientes.queue guarda la auditoría que el escritor de la cadena no pudo
+ * escribir en DynamoDB hasta que la reinyecta.
+ */
+@Configuration
+public class RabbitMQConfig {
+
+  public static final String EXCHANGE_SAGA = "registro.saga.exchange";
+  public static final String QUEUE_PASOS = "registro.saga.pasos.queue";
+  public static final String QUEUE_PASOS_DLQ = "registro.saga.pasos.dlq";
+  public static final String ROUTING_KEY_PASO = "registro.saga.paso";
+  public static final String SUFIJO_REINTENTO = ".retry.";
+
+  /** Número de reintento de un paso (1..N). */
+  public static final String HEADER_REINTENTOS = "x-reintentos";
+
+  public static final String QUEUE_AUDITORIA_PENDIENTE = "registro.auditoria.pendientes.queue";
+
+  @Bean
+  public DirectExchange sagaRegistroExchange() {
+    return ExchangeBuilder.directExchange(EXCHANGE_SAGA).durable(true).build();
+  }
+
+  @Bean
+  public Queue pasosSagaQueue() {
+    return QueueBuilder.durable(QUEUE_PASOS)
+        .withArgument("x-queue-type", "quorum")
+        .deadLetterExchange("")
+        .deadLetterRoutingKey(QUEUE_PASOS_DLQ)
+        .build();
+  }
+
+  @Bean
+  public Queue pasosSagaDlq() {
+    return QueueBuilder.durable(QUEUE_PASOS_DLQ).withArgument("x-queue-type", "quorum").build();
+  }
+
+  /**
+   * Una cola de retraso por intento, sin consumidores: sus mensajes expiran (TTL por mensaje, para
+   * poder cambiar los retrasos sin redeclarar las colas) y vuelven a registro.saga.pasos.queue por
+   * dead-lettering. El hilo del listener queda libre mientras tanto.
+   */
+  @Bean
+  public Declarables reintentosPasosSaga(
+      @Value("${registro.saga.reintentos.retrasos-ms:2000,4000,8000,16000}")
+          List<Long> retrasosMs) {
+    List<Declarable> colas = new ArrayList<>();
+    for (int intento = 1; intento <= retrasosMs.size(); intento++) {
+      colas.add(
+          QueueBuilder.durable(colaReintento(intento))
+              .deadLetterExchange("")
+              .deadLetterRoutingKey(QUEUE_PASOS)
+              .build());
+    }
+    return new Declarables(colas);
+  }
+
+  public static String colaReintento(int intento) {
+    return QUEUE_PASOS + SUFIJO_REINTENTO + intento;
+  }
+
+  @Bean
+  public Queue auditoriaPendienteQueue() {
+    return QueueBuilder.durable(QUEUE_AUDITORIA_PENDIENTE)
+        .withArgument("x-queue-type", "quorum")
+        .build();
+  }
+
+  @Bean
+  public Binding pasosSagaBinding(Queue pasosSagaQueue, DirectExchange sagaRegistroExchange) {
+    return BindingBuilder.bind(pasosSagaQueue).to(sagaRegistroExchange).with(ROUTING_KEY_PASO);
+  }
+
+  @Bean
+  public MessageConverter jsonMessageConverter() {
+    return new Jackson2JsonMessageConverter();
+  }
+
+  /**
+   * Publica por una conexión separada de la de los consumidores. Con mandatory, los mensajes sin
+   * ruta se devuelven y quedan en el CorrelationData del confirm (ver {@code
+   * PublicadorConfirmado}).
+   */
+  @Bean
+  public RabbitTemplate rabbitTemplate(
+      ConnectionFactory connectionFactory, MessageConverter jsonMessageConverter) {
+    RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
+    rabbitTemplate.setMessageConverter(jsonMessageConverter);
+    rabbitTemplate.setUsePublisherConnection(true);
+    rabbitTemplate.setMandatory(true);
+    return rabbitTemplate;
+  }
+}
@@ -5,10 +5,14 @@ import co.edu.eafit.carpeta.ciudadana.registry.dto.request.RegistrarCiudadanoReq
 import co.edu.eafit.carpeta.ciudadana.registry.dto.response.ApiResponse;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.response.AuditoriaRegistroResponse;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.response.RegistroCiudadanoResponse;
+import co.edu.eafit.carpeta.ciudadana.registry.dto.response.TrabajoRegistroResponse;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.response.ValidacionCiudadanoResponse;
+import co.edu.eafit.carpeta.ciudadana.registry.dto.response.VerificacionIntegridadResponse;
 import co.edu.eafit.carpeta.ciudadana.registry.exception.ResourceNotFoundException;
 import co.edu.eafit.carpeta.ciudadana.registry.service.CiudadanoRegistryService;
 import co.edu.eafit.carpeta.ciudadana.registry.util.ResponseUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -17,11 +21,16 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -29,10 +38,17 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "Ciudadano Registry", description = "API para gestión de registro de ciudadanos")
 public class CiudadanoRegistryController {
 
+  /** Formato de {@link ApiResponse#getTimestamp()}. */
+  private static final DateTimeFormatter FORMATO_TIMESTAMP =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
   private final CiudadanoRegistryService ciudadanoRegistryService;
+  private final ObjectMapper objectMapper;
 
-  public CiudadanoRegistryController(CiudadanoRegistryService ciudadanoRegistryService) {
+  public CiudadanoRegistryController(
+      CiudadanoRegistryService ciudadanoRegistryService, ObjectMapper objectMapper) {
     this.ciudadanoRegistryService = ciudadanoRegistryService;
+    this.objectMapper = objectMapper;
   }
 
   @GetMapping("/validar/{cedula}")
@@ -272,6 +288,83 @@ public class CiudadanoRegistryController {
     return ResponseUtil.created(response, "Ciudadano registrado exitosamente");
   }
 
+  @PostMapping("/registrar/async")
+  @Operation(
+      summary = "Registrar ciudadano (asíncrono)",
+      description =
+          "Acepta el registro y responde 202 con un trabajo de registro, sin esperar a GovCarpeta "
+              + "ni al servicio de carpetas. El registro en GovCarpeta, el registro local y la "
+              + "creación de la carpeta se ejecutan en segundo plano, con compensaciones si un "
+              + "paso falla. El avance se consulta en /registro/trabajos/{trabajoId}.",
+      tags = {"Ciudadano Registry"})
+  @ApiResponses(
+      value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "202",
+            description = "Registro aceptado",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = ApiResponse.class),
+                    examples =
+                        @ExampleObject(
+                            name = "Registro aceptado",
+                            value =
+                                """
+                        {
+                          "success": true,
+                          "message": "Registro aceptado",
+                          "data": {
+                            "trabajoId": "7f1c2d9e-5b7a-4c1e-9a43-0d2f8e6b1a55",
+                            "cedula": 1234567890,
+                            "estado": "EN_CURSO",
+                            "paso": "REGISTRAR_GOVCARPETA",
+                            "fechaCreacion": "2025-10-21T10:30:00",
+                            "fechaActualizacion": "2025-10-21T10:30:00"
+                          },
+                          "timestamp": "2025-10-21T10:30:00"
+                        }
+                        """))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409",
+            description = "Ciudadano ya registrado"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "503",
+            description = "No se pudo encolar el registro")
+      })
+  public ResponseEntity<ApiResponse<TrabajoRegistroResponse>> registrarCiudadanoAsync(
+      @Valid @RequestBody RegistrarCiudadanoRequest request) {
+
+    log.info("Aceptando registro asíncrono de ciudadano con cédula: {}", request.getCedula());
+
+    TrabajoRegistroResponse response = ciudadanoRegistryService.iniciarRegistroCiudadano(request);
+    return ResponseUtil.accepted(response, "Registro aceptado");
+  }
+
+  @GetMapping("/registro/trabajos/{trabajoId}")
+  @Operation(
+      summary = "Consultar trabajo de registro",
+      description =
+          "Devuelve el estado de un registro asíncrono: EN_CURSO, COMPENSANDO, COMPLETADO, "
+              + "FALLIDO o COMPENSACION_FALLIDA, y el paso pendiente. Los trabajos terminados se "
+              + "conservan unos días.",
+      tags = {"Ciudadano Registry"})
+  @ApiResponses(
+      value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Estado del trabajo"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "Trabajo no encontrado o expirado")
+      })
+  public ResponseEntity<ApiResponse<TrabajoRegistroResponse>> obtenerTrabajoRegistro(
+      @Parameter(description = "ID del trabajo de registro", required = true) @PathVariable
+          String trabajoId) {
+
+    return ResponseUtil.ok(ciudadanoRegistryService.obtenerTrabajoRegistro(trabajoId));
+  }
+
   @DeleteMapping("/desregistrar")
   @Operation(
       summary = "Desregistrar ciudadano",
@@ -449,13 +542,34 @@ public class CiudadanoRegistryController {
             responseCode = "200",
             description = "Lista de ciudadanos obtenida exitosamente")
       })
-  public ResponseEntity<ApiResponse<List<RegistroCiudadanoResponse>>> obtenerTodosCiudadanos() {
+  public ResponseEntity<StreamingResponseBody> obtenerTodosCiudadanos() {
 
     log.info("Obteniendo todos los ciudadanos activos");
 
-    List<RegistroCiudadanoResponse> response = ciudadanoRegistryService.obtenerTodosCiudadanos();
+    Stream<RegistroCiudadanoResponse> ciudadanos =
+        ciudadanoRegistryService.obtenerTodosCiudadanos();
 
-    return ResponseUtil.ok(response, "Ciudadanos obtenidos exitosamente");
+    // Mismo sobre que ResponseUtil.ok, pero data se escribe elemento a elemento según llega del
+    // índice, sin cargar la lista completa en memoria
+    StreamingResponseBody cuerpo =
+        salida -> {
+          try (ciudadanos;
+              JsonGenerator json = objectMapper.createGenerator(salida)) {
+            json.writeStartObject();
+            json.writeBooleanField("success", true);
+            json.writeStringField("message", "Ciudadanos obtenidos exitosamente");
+            json.writeArrayFieldStart("data");
+            Iterator<RegistroCiudadanoResponse> iterador = ciudadanos.iterator();
+            while (iterador.hasNext()) {
+              json.writeObject(iterador.next());
+            }
+            json.writeEndArray();
+            json.writeStringField("timestamp", LocalDateTime.now().format(FORMATO_TIMESTAMP));
+            json.writeEndObject();
+          }
+        };
+
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cuerpo);
   }
 
   @GetMapping("/{cedula}/auditoria")
@@ -483,4 +597,35 @@ public class CiudadanoRegistryController {
 
     return ResponseUtil.ok(response, "Historial de auditoría obtenido exitosamente");
   }
+
+  @GetMapping("/{cedula}/auditoria/verificacion")
+  @Operation(
+      summary = "Verificar integridad de una entrada de auditoría",
+      description =
+          "Recalcula el hash de la entrada y valida su prueba Merkle contra el checkpoint que la "
+              + "cubre, sin recorrer toda la cadena de auditoría del ciudadano.",
+      tags = {"Ciudadano Registry"})
+  @ApiResponses(
+      value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Verificación realizada (ver campo valida)"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "Entrada de auditoría no encontrada")
+      })
+  public ResponseEntity<ApiResponse<VerificacionIntegridadResponse>> verificarIntegridadAuditoria(
+      @Parameter(description = "Cédula del ciudadano", required = true, example = "1234567890")
+          @PathVariable
+          Long cedula,
+      @Parameter(description = "ID de la entrada de auditoría", required = true) @RequestParam
+          String id) {
+
+    log.info("Verificando integridad de la auditoría {} del ciudadano {}", id, cedula);
+
+    VerificacionIntegridadResponse response =
+        ciudadanoRegistryService.verificarIntegridadAuditoria(cedula, id);
+
+    return ResponseUtil.ok(response, "Verificación de integridad realizada");
+  }
 }
@@ -0,0 +1,21 @@
+package co.edu.eafit.carpeta.ciudadana.registry.dto.response;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro;
+import java.time.LocalDateTime;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TrabajoRegistroResponse {
+
+  private String trabajoId;
+  private Long cedula;
+  private TrabajoRegistro.EstadoTrabajo estado;
+  private TrabajoRegistro.PasoRegistro paso;
+  private String carpetaId;
+  private Integer codigoRespuesta;
+  private String mensaje;
+  private LocalDateTime fechaCreacion;
+  private LocalDateTime fechaActualizacion;
+}
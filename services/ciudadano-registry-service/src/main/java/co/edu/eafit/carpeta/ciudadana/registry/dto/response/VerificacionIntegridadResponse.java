@@ -0,0 +1,21 @@
+package co.edu.eafit.carpeta.ciudadana.registry.dto.response;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class VerificacionIntegridadResponse {
+
+  private String id;
+  private Long cedulaCiudadano;
+  private Long secuencia;
+  private String hash;
+  private boolean valida;
+  private String mensaje;
+  private Long secuenciaInicioCheckpoint;
+  private Long secuenciaFinCheckpoint;
+  private String raizCheckpoint;
+  private List<String> pruebaMerkle;
+}
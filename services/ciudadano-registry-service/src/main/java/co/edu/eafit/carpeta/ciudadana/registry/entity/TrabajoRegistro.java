@@ -0,0 +1,60 @@
+package co.edu.eafit.carpeta.ciudadana.registry.entity;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Trabajo de registro asíncrono de un ciudadano: estado de la saga que registra en GovCarpeta,
+ * guarda el registro local y crea la carpeta (ver {@code SagaRegistroCiudadano}). Expira por TTL
+ * unos días después de terminar.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrabajoRegistro {
+
+  private String trabajoId; // PK
+  private Long cedula;
+  private String nombreCompleto;
+  private String direccion;
+  private EstadoTrabajo estado;
+  private PasoRegistro paso; // paso pendiente (o el último ejecutado, si el trabajo terminó)
+  private Boolean registroGovCarpetaIntentado; // se guarda antes de llamar a GovCarpeta
+  private Integer reanudaciones; // veces que el barrido de trabajos atascados republicó el paso
+  private String carpetaId;
+  private Integer codigoRespuesta;
+  private String mensaje;
+  private LocalDateTime fechaCreacion;
+  private LocalDateTime fechaActualizacion;
+  private Long expiraEn; // TTL (epoch en segundos), se asigna al terminar
+
+  public enum EstadoTrabajo {
+    EN_CURSO,
+    COMPENSANDO,
+    COMPLETADO,
+    FALLIDO,
+    COMPENSACION_FALLIDA;
+
+    private static final Set<EstadoTrabajo> TERMINALES =
+        EnumSet.of(COMPLETADO, FALLIDO, COMPENSACION_FALLIDA);
+
+    public boolean esTerminal() {
+      return TERMINALES.contains(this);
+    }
+  }
+
+  /** Pasos de la saga; los dos últimos son las compensaciones. */
+  public enum PasoRegistro {
+    REGISTRAR_GOVCARPETA,
+    GUARDAR_REGISTRO,
+    CREAR_CARPETA,
+    DESHACER_REGISTRO,
+    DESREGISTRAR_GOVCARPETA
+  }
+}
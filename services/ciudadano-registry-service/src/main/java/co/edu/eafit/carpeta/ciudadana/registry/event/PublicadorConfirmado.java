@@ -0,0 +1,195 @@
+package co.edu.eafit.carpeta.ciudadana.registry.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publicación con publisher confirms correlacionados.
+ *
+ * <p>Cada mensaje se envía con un {@link CorrelationData} y el llamador recibe un {@link
+ * CompletableFuture} que se completa cuando el broker confirma (ack). El envío no espera el
+ * confirm, así que puede haber hasta maxEnVuelo mensajes sin confirmar a la vez; por encima de ese
+ * límite {@link #publicar} bloquea al llamador. Un nack, un timeout o un error de envío vuelven a
+ * publicar el mensaje con backoff hasta maxReintentos; un mensaje devuelto por no tener ruta
+ * (mandatory) falla sin reintentar. Un reintento por timeout puede duplicar el mensaje: los pasos
+ * de la saga son idempotentes.
+ *
+ * <p>El RabbitTemplate publica por una conexión propia ({@code usePublisherConnection}) para que
+ * el tráfico de los consumidores no bloquee las publicaciones.
+ */
+@Slf4j
+@Component
+public class PublicadorConfirmado {
+
+  private final RabbitTemplate rabbitTemplate;
+  private final ScheduledExecutorService reintentos;
+  private final Semaphore enVuelo;
+  private final Counter confirmados;
+  private final Counter republicados;
+  private final Counter fallidos;
+
+  @Value("${rabbitmq.publicador.timeout-confirmacion-ms:5000}")
+  private long timeoutConfirmacionMs;
+
+  @Value("${rabbitmq.publicador.max-reintentos:3}")
+  private int maxReintentos;
+
+  @Value("${rabbitmq.publicador.backoff-base-ms:200}")
+  private long backoffBaseMs;
+
+  public PublicadorConfirmado(
+      RabbitTemplate rabbitTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${rabbitmq.publicador.max-en-vuelo:1000}") int maxEnVuelo) {
+    this.rabbitTemplate = rabbitTemplate;
+    this.reintentos = Executors.newSingleThreadScheduledExecutor();
+    this.enVuelo = new Semaphore(maxEnVuelo);
+    this.confirmados =
+        Counter.builder("rabbitmq.publicador.confirmados")
+            .description("Mensajes confirmados (ack) por el broker")
+            .register(meterRegistry);
+    this.republicados =
+        Counter.builder("rabbitmq.publicador.republicados")
+            .description("Mensajes republicados tras nack, timeout o error de envío")
+            .register(meterRegistry);
+    this.fallidos =
+        Counter.builder("rabbitmq.publicador.fallidos")
+            .description("Mensajes sin confirmar tras agotar los reintentos o devueltos sin ruta")
+            .register(meterRegistry);
+    meterRegistry.gauge(
+        "rabbitmq.publicador.en-vuelo",
+        enVuelo,
+        semaforo -> maxEnVuelo - semaforo.availablePermits());
+  }
+
+  /**
+   * Publica el mensaje sin esperar el confirm.
+   *
+   * @return Futuro que se completa con el ack del broker, o excepcionalmente si el mensaje no
+   *     pudo confirmarse
+   */
+  public CompletableFuture<Void> publicar(String exchange, String routingKey, Message mensaje) {
+    CompletableFuture<Void> resultado = new CompletableFuture<>();
+    try {
+      enVuelo.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      resultado.completeExceptionally(e);
+      return resultado;
+    }
+    enviar(exchange, routingKey, mensaje, 1, resultado);
+    return resultado;
+  }
+
+  /** Se llama con un permiso de enVuelo tomado; lo libera al resolverse el intento. */
+  private void enviar(
+      String exchange,
+      String routingKey,
+      Message mensaje,
+      int intento,
+      CompletableFuture<Void> resultado) {
+    CorrelationData correlacion = new CorrelationData(idCorrelacion(mensaje, intento));
+    try {
+      rabbitTemplate.send(exchange, routingKey, mensaje, correlacion);
+    } catch (AmqpException e) {
+      reintentar(exchange, routingKey, mensaje, intento, resultado, e.getMessage());
+      return;
+    }
+
+    // El confirm llega en el hilo de la conexión: aquí no se publica, solo se agenda
+    correlacion
+        .getFuture()
+        .orTimeout(timeoutConfirmacionMs, TimeUnit.MILLISECONDS)
+        .whenComplete(
+            (confirm, error) -> {
+              if (error != null) {
+                reintentar(exchange, routingKey, mensaje, intento, resultado, "timeout de confirm");
+              } else if (!confirm.isAck()) {
+                reintentar(
+                    exchange,
+                    routingKey,
+                    mensaje,
+                    intento,
+                    resultado,
+                    "nack: " + confirm.getReason());
+              } else if (correlacion.getReturned() != null) {
+                ReturnedMessage devuelto = correlacion.getReturned();
+                fallar(
+                    resultado,
+                    String.format(
+                        "Mensaje sin ruta en %s/%s: %s",
+                        devuelto.getExchange(), devuelto.getRoutingKey(), devuelto.getReplyText()));
+              } else {
+                enVuelo.release();
+                confirmados.increment();
+                resultado.complete(null);
+              }
+            });
+  }
+
+  private void reintentar(
+      String exchange,
+      String routingKey,
+      Message mensaje,
+      int intento,
+      CompletableFuture<Void> resultado,
+      String motivo) {
+    if (intento > maxReintentos) {
+      fallar(
+          resultado,
+          String.format(
+              "Mensaje %s sin confirmar tras %d intentos (%s)",
+              mensaje.getMessageProperties().getMessageId(), intento, motivo));
+      return;
+    }
+    log.warn(
+        "Republicando mensaje {} a {} (intento {}): {}",
+        mensaje.getMessageProperties().getMessageId(),
+        routingKey,
+        intento + 1,
+        motivo);
+    republicados.increment();
+
+    long espera = backoffBaseMs * (1L << Math.min(intento - 1, 10));
+    try {
+      reintentos.schedule(
+          () -> enviar(exchange, routingKey, mensaje, intento + 1, resultado),
+          espera,
+          TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      // El executor se está cerrando
+      fallar(resultado, "Publicador detenido: " + e.getMessage());
+    }
+  }
+
+  private void fallar(CompletableFuture<Void> resultado, String motivo) {
+    enVuelo.release();
+    fallidos.increment();
+    resultado.completeExceptionally(new AmqpException(motivo));
+  }
+
+  private static String idCorrelacion(Message mensaje, int intento) {
+    String messageId = mensaje.getMessageProperties().getMessageId();
+    return (messageId != null ? messageId : UUID.randomUUID().toString()) + "#" + intento;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    reintentos.shutdown();
+  }
+}
@@ -1,23 +1,115 @@
 package co.edu.eafit.carpeta.ciudadana.registry.repository;
 
 import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.archivo.IndiceSegmento;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.cadena.CabezaCadena;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.cadena.CheckpointIntegridad;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Auditoría de registro como log append-only: las entradas solo se escriben encadenadas con
+ * {@link #anexarEnCadena} y nunca se sobrescriben ni se borran; el único cambio posterior es el
+ * expiraEn que las envía a la capa fría.
+ */
 public interface AuditoriaRegistroRepository {
 
-  AuditoriaRegistro save(AuditoriaRegistro auditoria);
+  /** Obtiene varios registros de auditoría de un ciudadano a partir de sus SK. */
+  List<AuditoriaRegistro> findAllByIds(Long cedulaCiudadano, Collection<String> sks);
 
+  /**
+   * Auditoría completa del ciudadano, más reciente primero. Une la tabla (capa caliente) con los
+   * segmentos archivados en MinIO (capa fría) que figuran en el catálogo de su partición, sin
+   * duplicar registros presentes en ambas capas o en segmentos repetidos.
+   */
   List<AuditoriaRegistro> findByCedulaCiudadanoOrderByFechaAccionDesc(Long cedulaCiudadano);
 
-  List<AuditoriaRegistro> findByOperadorIdOrderByFechaAccionDesc(String operadorId);
+  /**
+   * Últimas {@code limite} acciones del operador, más recientes primero. Une el GSI por operador
+   * con los segmentos archivados del catálogo por mes que lo incluyen, hasta
+   * auditoria.consulta.meses-capa-fria atrás.
+   */
+  List<AuditoriaRegistro> findByOperadorIdOrderByFechaAccionDesc(String operadorId, int limite);
 
+  /**
+   * Últimas {@code limite} ocurrencias de la acción, más recientes primero. Une el GSI por acción
+   * con los segmentos archivados del catálogo por mes que la incluyen, hasta
+   * auditoria.consulta.meses-capa-fria atrás.
+   */
   List<AuditoriaRegistro> findByAccionOrderByFechaAccionDesc(
-      AuditoriaRegistro.AccionAuditoria accion);
+      AuditoriaRegistro.AccionAuditoria accion, int limite);
 
+  /**
+   * Hasta {@code limite} registros con fechaAccion en [fechaInicio, fechaFin], más recientes
+   * primero. Consulta en paralelo las particiones del índice temporal por rondas de días desde
+   * fechaFin y se detiene al alcanzar el límite; lo anterior a la ventana que no se archiva se
+   * completa con el catálogo por mes de la capa fría.
+   */
   List<AuditoriaRegistro> findByFechaAccionBetween(
-      LocalDateTime fechaInicio, LocalDateTime fechaFin);
+      LocalDateTime fechaInicio, LocalDateTime fechaFin, int limite);
 
+  /** Igual que la consulta por cédula, filtrando por acción (incluye la capa fría). */
   List<AuditoriaRegistro> findByCedulaAndAccion(
       Long cedula, AuditoriaRegistro.AccionAuditoria accion);
+
+  /**
+   * Auditoría de la tabla anterior a la fecha y todavía no archivada (sin expiraEn), leída con
+   * scan paralelo. El Stream debe cerrarse.
+   */
+  Stream<AuditoriaRegistro> findArchivables(LocalDateTime antesDe);
+
+  /**
+   * Asigna expiraEn a registros ya copiados a la capa fría para que el TTL los elimine. Solo
+   * actualiza ese atributo y omite los registros ya marcados o ya eliminados.
+   */
+  void marcarArchivados(List<AuditoriaRegistro> auditorias, long expiraEn);
+
+  /**
+   * Añade un segmento archivado al catálogo del ciudadano y al catálogo por mes de las consultas
+   * globales; no hace nada en el que ya lo tenga.
+   */
+  void registrarSegmento(Long cedulaCiudadano, IndiceSegmento indice);
+
+  /** Indica si ya se catalogaron los segmentos escritos antes de existir el catálogo. */
+  boolean catalogoSegmentosCompleto();
+
+  void marcarCatalogoSegmentosCompleto();
+
+  /**
+   * Toma o renueva el lease del archivador (una sola réplica archiva a la vez).
+   *
+   * @return false si otra réplica tiene el lease vigente
+   */
+  boolean adquirirLeaseArchivado(String propietario, long duracionMs);
+
+  void liberarLeaseArchivado(String propietario);
+
+  /** Cabeza de la cadena de hashes del ciudadano (lectura consistente); génesis si no existe. */
+  CabezaCadena findCabezaCadena(Long cedulaCiudadano);
+
+  /**
+   * Añade entradas ya encadenadas en una sola transacción: las entradas (que no pueden existir),
+   * los checkpoints cerrados y la nueva cabeza, condicionada a que la cabeza siga en {@code
+   * secuenciaEsperada}.
+   *
+   * @return false si otra escritura movió la cabeza; el llamador debe releerla y reencadenar
+   */
+  boolean anexarEnCadena(
+      Long cedulaCiudadano,
+      long secuenciaEsperada,
+      CabezaCadena nuevaCabeza,
+      List<AuditoriaRegistro> entradas,
+      List<CheckpointIntegridad> checkpoints);
+
+  /** Checkpoint que contiene la secuencia indicada, si ya se cerró. */
+  Optional<CheckpointIntegridad> findCheckpoint(Long cedulaCiudadano, long secuencia);
+
+  /** Checkpoints del ciudadano en orden de secuencia. */
+  List<CheckpointIntegridad> findCheckpoints(Long cedulaCiudadano);
+
+  /** Cédulas con cadena de hashes, leídas con scan paralelo. El Stream debe cerrarse. */
+  Stream<Long> streamCedulasConCadena();
 }
@@ -2,24 +2,65 @@ package co.edu.eafit.carpeta.ciudadana.registry.repository;
 
 import co.edu.eafit.carpeta.ciudadana.registry.entity.RegistroCiudadano;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RegistroCiudadanoRepository {
 
   RegistroCiudadano save(RegistroCiudadano registro);
 
+  List<RegistroCiudadano> saveAll(List<RegistroCiudadano> registros);
+
   Optional<RegistroCiudadano> findByCedula(Long cedula);
 
+  /** Obtiene varios registros con BatchGetItem; las cédulas inexistentes se omiten. */
+  List<RegistroCiudadano> findAllByIds(Collection<Long> cedulas);
+
   Optional<RegistroCiudadano> findByCedulaAndActivoTrue(Long cedula);
 
-  List<RegistroCiudadano> findByEstado(RegistroCiudadano.EstadoRegistro estado);
+  /**
+   * Registros en el estado dado, ordenados por fechaActualizacion. Consulta el GSI por estado
+   * página a página a medida que se consume el Stream, que debe cerrarse (try-with-resources).
+   */
+  Stream<RegistroCiudadano> findByEstado(RegistroCiudadano.EstadoRegistro estado);
 
   Optional<RegistroCiudadano> findActiveByCedula(Long cedula);
 
-  List<RegistroCiudadano> findAllActive();
+  /**
+   * Registros activos, leídos del GSI disperso de activos partición a partición y por páginas. El
+   * Stream debe cerrarse.
+   */
+  Stream<RegistroCiudadano> findAllActive();
+
+  /**
+   * Escribe el activoIndice que le corresponde a un registro activo, sin tocar el resto del item.
+   * Devuelve false si el registro ya no está activo o ya tenía ese valor.
+   */
+  boolean reindexarActivo(Long cedula);
+
+  /**
+   * Registros desregistrados antes de la fecha, leídos del GSI por estado (DESREGISTRADO). El
+   * Stream debe cerrarse.
+   */
+  Stream<RegistroCiudadano> findDesregistradosAntesDe(LocalDateTime fechaLimite);
 
-  List<RegistroCiudadano> findDesregistradosAntesDe(LocalDateTime fechaLimite);
+  /**
+   * Recorre todo el registro con scan paralelo, para jobs administrativos y migraciones. El Stream
+   * debe cerrarse.
+   */
+  Stream<RegistroCiudadano> streamAll();
+
+  /** Como {@link #streamAll()} limitado a las RCUs por segundo indicadas (0 = sin límite). */
+  Stream<RegistroCiudadano> streamAll(double capacidadLecturaPorSegundo);
+
+  /** Si la migración de datos indicada ya terminó completa en alguna réplica. */
+  boolean migracionCompleta(String migracion);
+
+  void marcarMigracionCompleta(String migracion);
 
   void deleteByCedula(Long cedula);
+
+  void deleteAll(Collection<Long> cedulas);
 }
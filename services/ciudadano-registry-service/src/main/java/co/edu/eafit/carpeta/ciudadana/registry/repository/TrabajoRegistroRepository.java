@@ -0,0 +1,40 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface TrabajoRegistroRepository {
+
+  /** Guarda un trabajo nuevo; falla si ya existe uno con el mismo trabajoId. */
+  TrabajoRegistro crear(TrabajoRegistro trabajo);
+
+  Optional<TrabajoRegistro> findById(String trabajoId);
+
+  /**
+   * Guarda el trabajo solo si en la tabla sigue en el paso y estado esperados (escritura
+   * condicional), para que un paso entregado dos veces no avance la saga dos veces.
+   *
+   * @return false si otro consumidor ya movió el trabajo
+   */
+  boolean actualizar(
+      TrabajoRegistro trabajo,
+      TrabajoRegistro.PasoRegistro pasoEsperado,
+      TrabajoRegistro.EstadoTrabajo estadoEsperado);
+
+  /**
+   * Trabajos EN_CURSO o COMPENSANDO sin cambios desde antes de la fecha y reanudados menos de
+   * {@code maxReanudaciones} veces, leídos con scan paralelo. El Stream debe cerrarse.
+   */
+  Stream<TrabajoRegistro> findAtascados(LocalDateTime antesDe, int maxReanudaciones);
+
+  /**
+   * Guarda el trabajo (con su contador de reanudaciones ya incrementado) solo si sigue en el paso
+   * y estado leídos y sin cambios desde {@code fechaActualizacionLeida}, para que un trabajo lo
+   * reanude una sola réplica y no se reanude uno que la saga movió entretanto.
+   *
+   * @return false si el trabajo cambió desde que se leyó
+   */
+  boolean reanudar(TrabajoRegistro trabajo, LocalDateTime fechaActualizacionLeida);
+}
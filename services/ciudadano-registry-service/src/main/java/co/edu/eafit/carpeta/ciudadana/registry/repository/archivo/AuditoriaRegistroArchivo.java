@@ -0,0 +1,258 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository.archivo;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.exception.ExternalServiceException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.minio.BucketExistsArgs;
+import io.minio.GetObjectArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.Result;
+import io.minio.messages.Item;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Capa fría de la auditoría de registro en MinIO.
+ *
+ * <p>Cada segmento es un archivo NDJSON comprimido con gzip con la auditoría de un ciudadano en
+ * un mes: archivo/auditoria/{cedula}/{yyyy-MM}/{fechaMin}_{fechaMax}_{id}.ndjson.gz, y junto a él
+ * su índice ({@link IndiceSegmento}) en {...}.idx.json.
+ *
+ * <p>Las lecturas parten del catálogo de segmentos que el repositorio guarda en DynamoDB, así que
+ * no se lista el bucket en cada consulta. Los segmentos son inmutables y se cachean en memoria,
+ * acotados por número de registros.
+ */
+@Slf4j
+@Component
+public class AuditoriaRegistroArchivo {
+
+  static final String PREFIJO = "archivo/auditoria/";
+
+  private static final String SERVICIO = "MinIO";
+  private static final String EXTENSION_SEGMENTO = ".ndjson.gz";
+  private static final String EXTENSION_INDICE = ".idx.json";
+  private static final DateTimeFormatter FORMATO_NOMBRE =
+      DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+  private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyy-MM");
+
+  private final MinioClient minioClient;
+  private final ObjectMapper objectMapper;
+  private final String bucketName;
+  private final Cache<String, List<AuditoriaRegistro>> segmentos;
+
+  private volatile boolean bucketVerificado;
+
+  public AuditoriaRegistroArchivo(
+      MinioClient minioClient,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${minio.bucket-name}") String bucketName,
+      @Value("${archivo.auditoria.cache-registros:100000}") long cacheRegistros) {
+    this.minioClient = minioClient;
+    this.objectMapper = objectMapper;
+    this.bucketName = bucketName;
+    this.segmentos =
+        Caffeine.newBuilder()
+            .maximumWeight(cacheRegistros)
+            .weigher((String segmento, List<AuditoriaRegistro> registros) -> registros.size())
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, segmentos, "auditoria.archivo.segmentos");
+  }
+
+  /** Escribe un segmento con la auditoría dada, toda del mismo ciudadano. */
+  public IndiceSegmento escribirSegmento(Long cedula, List<AuditoriaRegistro> auditorias) {
+    LocalDateTime fechaMin =
+        auditorias.stream()
+            .map(AuditoriaRegistro::getFechaAccion)
+            .min(Comparator.naturalOrder())
+            .orElseThrow();
+    LocalDateTime fechaMax =
+        auditorias.stream()
+            .map(AuditoriaRegistro::getFechaAccion)
+            .max(Comparator.naturalOrder())
+            .orElseThrow();
+
+    String base =
+        String.format(
+            "%s%d/%s/%s_%s_%s",
+            PREFIJO,
+            cedula,
+            fechaMin.format(FORMATO_MES),
+            fechaMin.format(FORMATO_NOMBRE),
+            fechaMax.format(FORMATO_NOMBRE),
+            UUID.randomUUID().toString().substring(0, 8));
+
+    IndiceSegmento indice =
+        new IndiceSegmento(
+            base + EXTENSION_SEGMENTO,
+            auditorias.size(),
+            fechaMin,
+            fechaMax,
+            auditorias.stream()
+                .map(AuditoriaRegistro::getAccion)
+                .filter(Objects::nonNull)
+                .map(Enum::name)
+                .collect(Collectors.toSet()),
+            auditorias.stream()
+                .map(AuditoriaRegistro::getOperadorId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+    verificarBucket();
+    try {
+      subir(indice.segmento(), comprimir(auditorias), "application/x-ndjson");
+      subir(base + EXTENSION_INDICE, objectMapper.writeValueAsBytes(indice), "application/json");
+    } catch (IOException e) {
+      log.error("Error serializando segmento de auditoría: {}", e.getMessage(), e);
+      throw new ExternalServiceException(SERVICIO, "Error serializando segmento de auditoría");
+    }
+
+    log.debug(
+        "Segmento de auditoría archivado: {} ({} registros)", indice.segmento(), auditorias.size());
+    return indice;
+  }
+
+  /** Lee la auditoría de los segmentos dados, desde la caché si ya se descargaron. */
+  public List<AuditoriaRegistro> leer(Collection<IndiceSegmento> indices) {
+    List<AuditoriaRegistro> auditorias = new ArrayList<>();
+    for (IndiceSegmento indice : indices) {
+      auditorias.addAll(segmentos.get(indice.segmento(), this::leerSegmento));
+    }
+    return auditorias;
+  }
+
+  /**
+   * Recorre los índices de todos los segmentos del bucket con la cédula de cada uno. Solo sirve
+   * para catalogar los segmentos escritos antes de que existiera el catálogo: lista el bucket
+   * completo.
+   */
+  public void recorrerIndices(BiConsumer<Long, IndiceSegmento> accion) {
+    verificarBucket();
+    try {
+      Iterable<Result<Item>> objetos =
+          minioClient.listObjects(
+              ListObjectsArgs.builder().bucket(bucketName).prefix(PREFIJO).recursive(true).build());
+      for (Result<Item> objeto : objetos) {
+        String nombre = objeto.get().objectName();
+        if (nombre.endsWith(EXTENSION_INDICE)) {
+          String cedula = nombre.substring(PREFIJO.length(), nombre.indexOf('/', PREFIJO.length()));
+          accion.accept(Long.valueOf(cedula), leerIndice(nombre));
+        }
+      }
+    } catch (ExternalServiceException e) {
+      throw e;
+    } catch (Exception e) {
+      log.error("Error listando la auditoría archivada: {}", e.getMessage(), e);
+      throw new ExternalServiceException(SERVICIO, "Error listando auditoría archivada");
+    }
+  }
+
+  private List<AuditoriaRegistro> leerSegmento(String segmento) {
+    List<AuditoriaRegistro> auditorias = new ArrayList<>();
+    try (InputStream objeto = descargar(segmento);
+        BufferedReader lector =
+            new BufferedReader(
+                new InputStreamReader(new GZIPInputStream(objeto), StandardCharsets.UTF_8))) {
+      String linea;
+      while ((linea = lector.readLine()) != null) {
+        if (!linea.isBlank()) {
+          auditorias.add(objectMapper.readValue(linea, AuditoriaRegistro.class));
+        }
+      }
+    } catch (IOException e) {
+      log.error("Error leyendo segmento {}: {}", segmento, e.getMessage(), e);
+      throw new ExternalServiceException(SERVICIO, "Error leyendo segmento " + segmento);
+    }
+    return auditorias;
+  }
+
+  private IndiceSegmento leerIndice(String indice) {
+    try (InputStream objeto = descargar(indice)) {
+      return objectMapper.readValue(objeto, IndiceSegmento.class);
+    } catch (IOException e) {
+      log.error("Error leyendo índice {}: {}", indice, e.getMessage(), e);
+      throw new ExternalServiceException(SERVICIO, "Error leyendo índice " + indice);
+    }
+  }
+
+  private byte[] comprimir(List<AuditoriaRegistro> auditorias) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(buffer)) {
+      for (AuditoriaRegistro auditoria : auditorias) {
+        gzip.write(objectMapper.writeValueAsBytes(auditoria));
+        gzip.write('\n');
+      }
+    }
+    return buffer.toByteArray();
+  }
+
+  private void verificarBucket() {
+    if (bucketVerificado) {
+      return;
+    }
+    try {
+      if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build())) {
+        minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+        log.info("Bucket de archivo {} creado", bucketName);
+      }
+      bucketVerificado = true;
+    } catch (Exception e) {
+      log.error("Error verificando bucket {}: {}", bucketName, e.getMessage(), e);
+      throw new ExternalServiceException(SERVICIO, "Error verificando bucket " + bucketName);
+    }
+  }
+
+  private void subir(String objeto, byte[] contenido, String contentType) {
+    try {
+      minioClient.putObject(
+          PutObjectArgs.builder()
+              .bucket(bucketName)
+              .object(objeto)
+              .stream(new ByteArrayInputStream(contenido), contenido.length, -1)
+              .contentType(contentType)
+              .build());
+    } catch (Exception e) {
+      log.error("Error subiendo {} a MinIO: {}", objeto, e.getMessage(), e);
+      throw new ExternalServiceException(SERVICIO, "Error subiendo " + objeto);
+    }
+  }
+
+  private InputStream descargar(String objeto) {
+    try {
+      return minioClient.getObject(
+          GetObjectArgs.builder().bucket(bucketName).object(objeto).build());
+    } catch (Exception e) {
+      log.error("Error descargando {} de MinIO: {}", objeto, e.getMessage(), e);
+      throw new ExternalServiceException(SERVICIO, "Error descargando " + objeto);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository.archivo;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Índice de un segmento de auditoría archivado, guardado junto al segmento como JSON. Permite
+ * descartar segmentos por fecha, acción u operador sin descargarlos.
+ *
+ * <p>Los segmentos escritos antes de que el índice llevara los operadores tienen {@code
+ * operadores} nulo: no se pueden descartar por operador.
+ */
+public record IndiceSegmento(
+    String segmento,
+    int registros,
+    LocalDateTime fechaMin,
+    LocalDateTime fechaMax,
+    Set<String> acciones,
+    Set<String> operadores) {}
@@ -0,0 +1,17 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository.cadena;
+
+import java.util.List;
+
+/**
+ * Puntero a la última entrada de la cadena de hashes de un ciudadano. Guarda además los hashes
+ * añadidos desde el último checkpoint, para poder cerrar el siguiente sin releer las entradas.
+ */
+public record CabezaCadena(long secuencia, String hash, List<String> hojasPendientes) {
+
+  /** Hash anterior de la primera entrada de toda cadena. */
+  public static final String HASH_GENESIS = "0".repeat(64);
+
+  public static CabezaCadena genesis() {
+    return new CabezaCadena(0, HASH_GENESIS, List.of());
+  }
+}
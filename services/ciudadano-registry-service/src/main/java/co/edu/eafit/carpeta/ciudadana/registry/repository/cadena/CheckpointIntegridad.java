@@ -0,0 +1,20 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository.cadena;
+
+import java.util.List;
+
+/**
+ * Raíz Merkle de las entradas [secuenciaInicio, secuenciaFin] de la cadena de un ciudadano. Las
+ * hojas son los hashes de esas entradas en orden de secuencia.
+ */
+public record CheckpointIntegridad(
+    long secuenciaInicio, long secuenciaFin, String raiz, List<String> hojas) {
+
+  /** Posición de la entrada dentro de las hojas del checkpoint. */
+  public int indiceDe(long secuencia) {
+    return (int) (secuencia - secuenciaInicio);
+  }
+
+  public boolean cubre(long secuencia) {
+    return secuencia >= secuenciaInicio && secuencia <= secuenciaFin;
+  }
+}
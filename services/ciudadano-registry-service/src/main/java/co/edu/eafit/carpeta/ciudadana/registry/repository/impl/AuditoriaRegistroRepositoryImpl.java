@@ -2,101 +2,842 @@ package co.edu.eafit.carpeta.ciudadana.registry.repository.impl;
 
 import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
 import co.edu.eafit.carpeta.ciudadana.registry.repository.AuditoriaRegistroRepository;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.archivo.AuditoriaRegistroArchivo;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.archivo.IndiceSegmento;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.batch.DynamoDbBatchExecutor;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.cadena.CabezaCadena;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.cadena.CheckpointIntegridad;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.scan.DynamoDbParallelScanner;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.schema.AuditoriaRegistroTableSchema;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
+@Slf4j
 @Repository
 public class AuditoriaRegistroRepositoryImpl implements AuditoriaRegistroRepository {
 
+  private static final String PREFIJO_PK = "CIUDADANO#";
+  private static final String FORMATO_SECUENCIA = "%019d";
+
+  /** Ancho fijo para que el SK del catálogo por mes ordene por fechaMax. */
+  private static final DateTimeFormatter FORMATO_CATALOGO =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS");
+
+  /**
+   * Días anteriores a la ventana caliente en los que el índice temporal aún puede tener registros
+   * que el archivador (diario) no ha movido.
+   */
+  private static final int MARGEN_ARCHIVADO_DIAS = 7;
+
+  private final DynamoDbClient dynamoDbClient;
   private final DynamoDbTable<AuditoriaRegistro> auditoriaTable;
+  private final DynamoDbBatchExecutor batchExecutor;
+  private final DynamoDbParallelScanner parallelScanner;
+  private final AuditoriaRegistroArchivo archivo;
+  private final ExecutorService consultasDia;
+  private final int diasPorRonda;
+  private final boolean archivoHabilitado;
+  private final int edadArchivoDias;
+  private final int mesesCapaFria;
 
-  public AuditoriaRegistroRepositoryImpl(DynamoDbClient dynamoDbClient) {
+  public AuditoriaRegistroRepositoryImpl(
+      DynamoDbClient dynamoDbClient,
+      DynamoDbBatchExecutor batchExecutor,
+      DynamoDbParallelScanner parallelScanner,
+      AuditoriaRegistroArchivo archivo,
+      @Value("${auditoria.consulta.paralelismo:8}") int paralelismo,
+      @Value("${auditoria.consulta.dias-por-ronda:7}") int diasPorRonda,
+      @Value("${archivo.auditoria.habilitado:true}") boolean archivoHabilitado,
+      @Value("${archivo.auditoria.edad-dias:365}") int edadArchivoDias,
+      @Value("${auditoria.consulta.meses-capa-fria:60}") int mesesCapaFria) {
     DynamoDbEnhancedClient enhancedClient =
         DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
 
+    this.dynamoDbClient = dynamoDbClient;
     this.auditoriaTable =
-        enhancedClient.table("AuditoriaRegistro", TableSchema.fromBean(AuditoriaRegistro.class));
+        enhancedClient.table(
+            AuditoriaRegistroTableSchema.TABLE_NAME, AuditoriaRegistroTableSchema.SCHEMA);
+    this.batchExecutor = batchExecutor;
+    this.parallelScanner = parallelScanner;
+    this.archivo = archivo;
+    this.consultasDia = Executors.newFixedThreadPool(paralelismo);
+    this.diasPorRonda = diasPorRonda;
+    this.archivoHabilitado = archivoHabilitado;
+    this.edadArchivoDias = edadArchivoDias;
+    this.mesesCapaFria = mesesCapaFria;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    consultasDia.shutdown();
   }
 
   @Override
-  public AuditoriaRegistro save(AuditoriaRegistro auditoria) {
+  public List<AuditoriaRegistro> findAllByIds(Long cedulaCiudadano, Collection<String> sks) {
+    return batchExecutor.getAll(auditoriaTable, claves(cedulaCiudadano, sks));
+  }
+
+  private void generarClaves(AuditoriaRegistro auditoria) {
     // Generar PK y SK si no existen
     if (auditoria.getPk() == null) {
-      auditoria.setPk("CIUDADANO#" + auditoria.getCedulaCiudadano());
+      auditoria.setPk(PREFIJO_PK + auditoria.getCedulaCiudadano());
     }
     if (auditoria.getSk() == null) {
       String timestamp =
           LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS"));
-      auditoria.setSk("AUDITORIA#" + timestamp + "#" + UUID.randomUUID());
+      auditoria.setSk(
+          AuditoriaRegistroTableSchema.PREFIJO_AUDITORIA + timestamp + "#" + UUID.randomUUID());
+    }
+    // Partición del índice temporal: día más shard
+    if (auditoria.getDiaAccion() == null && auditoria.getFechaAccion() != null) {
+      auditoria.setDiaAccion(
+          AuditoriaRegistroTableSchema.particionDia(
+              auditoria.getFechaAccion().toLocalDate(), auditoria.getSk()));
     }
+  }
 
-    auditoriaTable.putItem(auditoria);
-    return auditoria;
+  private List<Key> claves(Long cedulaCiudadano, Collection<String> sks) {
+    return sks.stream()
+        .map(
+            sk ->
+                Key.builder().partitionValue(PREFIJO_PK + cedulaCiudadano).sortValue(sk).build())
+        .toList();
   }
 
   @Override
   public List<AuditoriaRegistro> findByCedulaCiudadanoOrderByFechaAccionDesc(Long cedulaCiudadano) {
-    QueryEnhancedRequest queryRequest =
-        QueryEnhancedRequest.builder()
-            .queryConditional(
-                QueryConditional.keyEqualTo(
-                    Key.builder().partitionValue("CIUDADANO#" + cedulaCiudadano).build()))
+    ParticionCiudadano particion = leerParticion(cedulaCiudadano);
+    return mezclar(particion.auditorias(), archivo.leer(particion.segmentos()));
+  }
+
+  /**
+   * Lee de una vez la partición del ciudadano: sus entradas de auditoría (capa caliente) y el
+   * catálogo de sus segmentos archivados, sin listar MinIO. La cabeza de la cadena y los
+   * checkpoints se descartan.
+   */
+  private ParticionCiudadano leerParticion(Long cedulaCiudadano) {
+    QueryRequest request =
+        QueryRequest.builder()
+            .tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+            .keyConditionExpression("PK = :pk")
+            .expressionAttributeValues(
+                Map.of(":pk", AttributeValue.fromS(PREFIJO_PK + cedulaCiudadano)))
             .scanIndexForward(false) // Orden descendente
             .build();
 
-    return auditoriaTable.query(queryRequest).items().stream()
-        .filter(a -> a.getSk().startsWith("AUDITORIA#"))
-        .collect(Collectors.toList());
+    List<AuditoriaRegistro> auditorias = new ArrayList<>();
+    List<IndiceSegmento> segmentos = new ArrayList<>();
+    dynamoDbClient
+        .queryPaginator(request)
+        .items()
+        .forEach(
+            item -> {
+              String sk = item.get("SK").s();
+              if (sk.startsWith(AuditoriaRegistroTableSchema.PREFIJO_AUDITORIA)) {
+                auditorias.add(AuditoriaRegistroTableSchema.SCHEMA.mapToItem(item));
+              } else if (sk.startsWith(AuditoriaRegistroTableSchema.PREFIJO_SEGMENTO)) {
+                segmentos.add(indiceSegmento(item));
+              }
+            });
+    return new ParticionCiudadano(auditorias, segmentos);
   }
 
   @Override
-  public List<AuditoriaRegistro> findByOperadorIdOrderByFechaAccionDesc(String operadorId) {
-    // Necesitaríamos un GSI para consultas por operador
-    // Por ahora hacemos scan (no recomendado para producción)
-    return auditoriaTable.scan().items().stream()
-        .filter(a -> operadorId.equals(a.getOperadorId()))
-        .sorted((a1, a2) -> a2.getFechaAccion().compareTo(a1.getFechaAccion()))
-        .collect(Collectors.toList());
+  public List<AuditoriaRegistro> findByOperadorIdOrderByFechaAccionDesc(
+      String operadorId, int limite) {
+    List<AuditoriaRegistro> calientes =
+        consultarDescendente(
+            AuditoriaRegistroTableSchema.INDICE_OPERADOR,
+            QueryConditional.keyEqualTo(Key.builder().partitionValue(operadorId).build()),
+            limite);
+    // Los segmentos anteriores al índice con operadores no se pueden descartar
+    return completarConCapaFria(
+        calientes,
+        LocalDateTime.now().minusMonths(mesesCapaFria),
+        LocalDateTime.now(),
+        s -> s.operadores() == null || s.operadores().contains(operadorId),
+        a -> operadorId.equals(a.getOperadorId()),
+        limite);
   }
 
   @Override
   public List<AuditoriaRegistro> findByAccionOrderByFechaAccionDesc(
-      AuditoriaRegistro.AccionAuditoria accion) {
-    return auditoriaTable.scan().items().stream()
-        .filter(a -> accion.equals(a.getAccion()))
-        .sorted((a1, a2) -> a2.getFechaAccion().compareTo(a1.getFechaAccion()))
-        .collect(Collectors.toList());
+      AuditoriaRegistro.AccionAuditoria accion, int limite) {
+    List<AuditoriaRegistro> calientes =
+        consultarDescendente(
+            AuditoriaRegistroTableSchema.INDICE_ACCION,
+            QueryConditional.keyEqualTo(Key.builder().partitionValue(accion.name()).build()),
+            limite);
+    return completarConCapaFria(
+        calientes,
+        LocalDateTime.now().minusMonths(mesesCapaFria),
+        LocalDateTime.now(),
+        s -> s.acciones() != null && s.acciones().contains(accion.name()),
+        a -> accion.equals(a.getAccion()),
+        limite);
+  }
+
+  private LocalDateTime inicioCapaCaliente() {
+    return LocalDateTime.now().minusDays(edadArchivoDias);
   }
 
   @Override
   public List<AuditoriaRegistro> findByFechaAccionBetween(
-      LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-    return auditoriaTable.scan().items().stream()
-        .filter(
-            a ->
-                a.getFechaAccion() != null
-                    && !a.getFechaAccion().isBefore(fechaInicio)
-                    && !a.getFechaAccion().isAfter(fechaFin))
-        .sorted((a1, a2) -> a2.getFechaAccion().compareTo(a1.getFechaAccion()))
+      LocalDateTime fechaInicio, LocalDateTime fechaFin, int limite) {
+    AttributeValue desde = valorFecha(fechaInicio);
+    AttributeValue hasta = valorFecha(fechaFin);
+
+    List<AuditoriaRegistro> resultado = new ArrayList<>();
+    LocalDate primerDia = fechaInicio.toLocalDate();
+    LocalDate dia = fechaFin.toLocalDate();
+    // Más atrás de la ventana caliente el índice temporal solo tiene lo que espera al TTL, que ya
+    // está en la capa fría: no se consultan esas particiones
+    if (archivoHabilitado) {
+      LocalDate primerDiaCaliente =
+          inicioCapaCaliente().toLocalDate().minusDays(MARGEN_ARCHIVADO_DIAS);
+      if (primerDia.isBefore(primerDiaCaliente)) {
+        primerDia = primerDiaCaliente;
+      }
+    }
+
+    // Rondas de diasPorRonda días, de la más reciente a la más antigua. Las rondas no se solapan
+    // en el tiempo, así que basta concatenarlas; se para en cuanto se alcanza el límite
+    while (!dia.isBefore(primerDia) && resultado.size() < limite) {
+      List<String> particiones = new ArrayList<>();
+      for (int i = 0; i < diasPorRonda && !dia.isBefore(primerDia); i++) {
+        particiones.addAll(AuditoriaRegistroTableSchema.particionesDia(dia));
+        dia = dia.minusDays(1);
+      }
+      resultado.addAll(consultarParticiones(particiones, desde, hasta, limite - resultado.size()));
+    }
+    return completarConCapaFria(resultado, fechaInicio, fechaFin, s -> true, a -> true, limite);
+  }
+
+  /**
+   * Completa con la capa fría un resultado de la tabla ya acotado a {@code limite}. Recorre el
+   * catálogo por mes hacia atrás desde el inicio de la ventana caliente (el archivador no mueve
+   * nada posterior), lee solo los segmentos candidatos que se solapan con [desde, hasta] y se
+   * detiene en cuanto ningún segmento restante puede entrar entre los {@code limite} más
+   * recientes. Un registro archivado que sigue en la tabla esperando al TTL se cuenta una vez.
+   */
+  private List<AuditoriaRegistro> completarConCapaFria(
+      List<AuditoriaRegistro> calientes,
+      LocalDateTime desde,
+      LocalDateTime hasta,
+      Predicate<IndiceSegmento> candidato,
+      Predicate<AuditoriaRegistro> filtro,
+      int limite) {
+    LocalDateTime tope = hasta.isBefore(inicioCapaCaliente()) ? hasta : inicioCapaCaliente();
+    if (!archivoHabilitado || limite <= 0 || desde.isAfter(tope)) {
+      return calientes;
+    }
+    MasRecientes masRecientes = new MasRecientes(limite);
+    calientes.forEach(masRecientes::ofrecer);
+
+    for (YearMonth mes = YearMonth.from(tope);
+        !mes.isBefore(YearMonth.from(desde))
+            && !masRecientes.completo(mes.atEndOfMonth().atTime(LocalTime.MAX));
+        mes = mes.minusMonths(1)) {
+      for (Map<String, AttributeValue> item : catalogoMes(mes, desde)) {
+        IndiceSegmento segmento = indiceSegmento(item);
+        // El catálogo va por fechaMax descendente: lo que queda es anterior a este segmento
+        if (masRecientes.completo(segmento.fechaMax())) {
+          return masRecientes.ordenados();
+        }
+        if (segmento.fechaMin().isAfter(hasta) || !candidato.test(segmento)) {
+          continue;
+        }
+        archivo.leer(List.of(segmento)).stream()
+            .filter(a -> !a.getFechaAccion().isBefore(desde) && !a.getFechaAccion().isAfter(hasta))
+            .filter(filtro)
+            .forEach(masRecientes::ofrecer);
+      }
+    }
+    return masRecientes.ordenados();
+  }
+
+  /** Segmentos del catálogo del mes con fechaMax desde la fecha dada, más recientes primero. */
+  private Iterable<Map<String, AttributeValue>> catalogoMes(YearMonth mes, LocalDateTime desde) {
+    String pk = AuditoriaRegistroTableSchema.PREFIJO_CATALOGO_MES + mes;
+    QueryRequest request =
+        QueryRequest.builder()
+            .tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+            .keyConditionExpression("PK = :pk AND SK >= :desde")
+            .expressionAttributeValues(
+                Map.of(
+                    ":pk", AttributeValue.fromS(pk),
+                    ":desde", AttributeValue.fromS(desde.format(FORMATO_CATALOGO))))
+            .scanIndexForward(false)
+            .build();
+    // Paginado perezoso: solo se piden las páginas que se llegan a recorrer
+    return dynamoDbClient.queryPaginator(request).items();
+  }
+
+  /**
+   * Consulta en paralelo (acotado por el pool) las particiones del índice temporal, cada una con
+   * como máximo {@code limite} items, y mezcla sus resultados ya ordenados.
+   */
+  private List<AuditoriaRegistro> consultarParticiones(
+      List<String> particiones, AttributeValue desde, AttributeValue hasta, int limite) {
+    List<CompletableFuture<List<AuditoriaRegistro>>> consultas =
+        particiones.stream()
+            .map(
+                particion ->
+                    CompletableFuture.supplyAsync(
+                        () ->
+                            consultarDescendente(
+                                AuditoriaRegistroTableSchema.INDICE_DIA,
+                                QueryConditional.sortBetween(
+                                    claveIndice(particion, desde), claveIndice(particion, hasta)),
+                                limite),
+                        consultasDia))
+            .toList();
+
+    List<List<AuditoriaRegistro>> resultados = new ArrayList<>(consultas.size());
+    try {
+      consultas.forEach(consulta -> resultados.add(consulta.join()));
+    } catch (CompletionException e) {
+      consultas.forEach(consulta -> consulta.cancel(true));
+      if (e.getCause() instanceof RuntimeException causa) {
+        throw causa;
+      }
+      throw e;
+    }
+    return mezclarDescendente(resultados, limite);
+  }
+
+  /** Mezcla listas ordenadas por fechaAccion descendente y devuelve las {@code limite} primeras. */
+  private static List<AuditoriaRegistro> mezclarDescendente(
+      List<List<AuditoriaRegistro>> listas, int limite) {
+    PriorityQueue<Cursor> cabezas =
+        new PriorityQueue<>(
+            Comparator.comparing((Cursor c) -> c.actual().getFechaAccion()).reversed());
+    for (List<AuditoriaRegistro> lista : listas) {
+      Cursor.de(lista.iterator()).ifPresent(cabezas::add);
+    }
+    List<AuditoriaRegistro> mezcla = new ArrayList<>(limite);
+    while (mezcla.size() < limite && !cabezas.isEmpty()) {
+      Cursor cabeza = cabezas.poll();
+      mezcla.add(cabeza.actual());
+      Cursor.de(cabeza.resto()).ifPresent(cabezas::add);
+    }
+    return mezcla;
+  }
+
+  private static Key claveIndice(String particion, AttributeValue fecha) {
+    return Key.builder().partitionValue(particion).sortValue(fecha).build();
+  }
+
+  /** Contenido de la partición de un ciudadano relevante para las consultas. */
+  private record ParticionCiudadano(
+      List<AuditoriaRegistro> auditorias, List<IndiceSegmento> segmentos) {}
+
+  /** Los {@code limite} registros más recientes ofrecidos, sin repetir cédula y SK. */
+  private static final class MasRecientes {
+
+    private final int limite;
+    private final PriorityQueue<AuditoriaRegistro> registros =
+        new PriorityQueue<>(Comparator.comparing(AuditoriaRegistro::getFechaAccion));
+    private final Set<String> claves = new HashSet<>();
+
+    MasRecientes(int limite) {
+      this.limite = limite;
+    }
+
+    void ofrecer(AuditoriaRegistro auditoria) {
+      if (!claves.add(clave(auditoria))) {
+        return;
+      }
+      registros.add(auditoria);
+      if (registros.size() > limite) {
+        claves.remove(clave(registros.poll()));
+      }
+    }
+
+    /** Si ya están los {@code limite} y todos son posteriores a la fecha. */
+    boolean completo(LocalDateTime fecha) {
+      return registros.size() >= limite && registros.peek().getFechaAccion().isAfter(fecha);
+    }
+
+    List<AuditoriaRegistro> ordenados() {
+      return registros.stream()
+          .sorted(
+              Comparator.comparing(AuditoriaRegistro::getFechaAccion)
+                  .thenComparing(AuditoriaRegistro::getSk)
+                  .reversed())
+          .collect(Collectors.toList());
+    }
+
+    private static String clave(AuditoriaRegistro auditoria) {
+      return auditoria.getCedulaCiudadano() + "|" + auditoria.getSk();
+    }
+  }
+
+  private record Cursor(AuditoriaRegistro actual, Iterator<AuditoriaRegistro> resto) {
+
+    static Optional<Cursor> de(Iterator<AuditoriaRegistro> iterador) {
+      return iterador.hasNext()
+          ? Optional.of(new Cursor(iterador.next(), iterador))
+          : Optional.empty();
+    }
+  }
+
+  /**
+   * Consulta un GSI en orden descendente por fechaAccion, pidiendo a DynamoDB como máximo {@code
+   * limite} items.
+   */
+  private List<AuditoriaRegistro> consultarDescendente(
+      String indice, QueryConditional condicion, int limite) {
+    if (limite <= 0) {
+      return List.of();
+    }
+    QueryEnhancedRequest queryRequest =
+        QueryEnhancedRequest.builder()
+            .queryConditional(condicion)
+            .scanIndexForward(false)
+            .limit(limite)
+            .build();
+
+    return auditoriaTable.index(indice).query(queryRequest).stream()
+        .map(Page::items)
+        .flatMap(List::stream)
+        .limit(limite)
         .collect(Collectors.toList());
   }
 
+  /** Convierte la fecha con el mismo converter que usa el esquema de la tabla. */
+  private AttributeValue valorFecha(LocalDateTime fecha) {
+    AuditoriaRegistro parcial = new AuditoriaRegistro();
+    parcial.setFechaAccion(fecha);
+    return auditoriaTable
+        .tableSchema()
+        .itemToMap(parcial, List.of("fechaAccion"))
+        .get("fechaAccion");
+  }
+
   @Override
   public List<AuditoriaRegistro> findByCedulaAndAccion(
       Long cedula, AuditoriaRegistro.AccionAuditoria accion) {
-    return findByCedulaCiudadanoOrderByFechaAccionDesc(cedula).stream()
-        .filter(a -> accion.equals(a.getAccion()))
+    ParticionCiudadano particion = leerParticion(cedula);
+    List<AuditoriaRegistro> calientes =
+        particion.auditorias().stream()
+            .filter(a -> accion.equals(a.getAccion()))
+            .collect(Collectors.toList());
+    // El catálogo lleva las acciones de cada segmento: solo se leen los que la contienen
+    List<IndiceSegmento> conAccion =
+        particion.segmentos().stream()
+            .filter(s -> s.acciones() != null && s.acciones().contains(accion.name()))
+            .toList();
+    List<AuditoriaRegistro> archivados =
+        archivo.leer(conAccion).stream()
+            .filter(a -> accion.equals(a.getAccion()))
+            .collect(Collectors.toList());
+    return mezclar(calientes, archivados);
+  }
+
+  @Override
+  public void registrarSegmento(Long cedulaCiudadano, IndiceSegmento indice) {
+    String sk = AuditoriaRegistroTableSchema.PREFIJO_SEGMENTO + indice.segmento();
+    Map<String, AttributeValue> item = new HashMap<>(claveCadena(cedulaCiudadano, sk));
+    item.putAll(atributosSegmento(indice));
+    putSegmento(item);
+
+    // Catálogo de las consultas globales: partición del mes del segmento, ordenada por fechaMax
+    Map<String, AttributeValue> global = new HashMap<>(atributosSegmento(indice));
+    global.put(
+        "PK",
+        AttributeValue.fromS(
+            AuditoriaRegistroTableSchema.PREFIJO_CATALOGO_MES + YearMonth.from(indice.fechaMin())));
+    global.put(
+        "SK",
+        AttributeValue.fromS(indice.fechaMax().format(FORMATO_CATALOGO) + "#" + indice.segmento()));
+    global.put("cedulaCiudadano", AttributeValue.fromN(cedulaCiudadano.toString()));
+    putSegmento(global);
+  }
+
+  private void putSegmento(Map<String, AttributeValue> item) {
+    try {
+      dynamoDbClient.putItem(
+          r ->
+              r.tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+                  .item(item)
+                  .conditionExpression("attribute_not_exists(SK)"));
+    } catch (ConditionalCheckFailedException e) {
+      // Ya catalogado por una ejecución anterior
+    }
+  }
+
+  private static Map<String, AttributeValue> atributosSegmento(IndiceSegmento indice) {
+    Map<String, AttributeValue> item = new HashMap<>();
+    item.put("segmento", AttributeValue.fromS(indice.segmento()));
+    item.put("registros", AttributeValue.fromN(Integer.toString(indice.registros())));
+    item.put("fechaMin", AttributeValue.fromS(indice.fechaMin().toString()));
+    item.put("fechaMax", AttributeValue.fromS(indice.fechaMax().toString()));
+    if (indice.acciones() != null && !indice.acciones().isEmpty()) {
+      item.put("acciones", AttributeValue.fromSs(List.copyOf(indice.acciones())));
+    }
+    if (indice.operadores() != null) {
+      // Un SS no puede estar vacío: la lista vacía distingue "sin operadores" de "desconocido"
+      item.put(
+          "operadores",
+          AttributeValue.fromL(indice.operadores().stream().map(AttributeValue::fromS).toList()));
+    }
+    return item;
+  }
+
+  private IndiceSegmento indiceSegmento(Map<String, AttributeValue> item) {
+    AttributeValue acciones = item.get("acciones");
+    AttributeValue operadores = item.get("operadores");
+    return new IndiceSegmento(
+        item.get("segmento").s(),
+        Integer.parseInt(item.get("registros").n()),
+        LocalDateTime.parse(item.get("fechaMin").s()),
+        LocalDateTime.parse(item.get("fechaMax").s()),
+        acciones != null && acciones.hasSs() ? Set.copyOf(acciones.ss()) : Set.of(),
+        operadores != null && operadores.hasL()
+            ? operadores.l().stream().map(AttributeValue::s).collect(Collectors.toSet())
+            : null);
+  }
+
+  @Override
+  public boolean catalogoSegmentosCompleto() {
+    return dynamoDbClient
+        .getItem(
+            r ->
+                r.tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+                    .key(claveControl(AuditoriaRegistroTableSchema.PK_CATALOGO_SEGMENTOS)))
+        .hasItem();
+  }
+
+  @Override
+  public void marcarCatalogoSegmentosCompleto() {
+    Map<String, AttributeValue> item =
+        new HashMap<>(claveControl(AuditoriaRegistroTableSchema.PK_CATALOGO_SEGMENTOS));
+    item.put("fechaCreacion", AttributeValue.fromS(Instant.now().toString()));
+    dynamoDbClient.putItem(r -> r.tableName(AuditoriaRegistroTableSchema.TABLE_NAME).item(item));
+  }
+
+  /** Clave de los items de control del archivador, fuera de las particiones de ciudadanos. */
+  private static Map<String, AttributeValue> claveControl(String pk) {
+    return Map.of("PK", AttributeValue.fromS(pk), "SK", AttributeValue.fromS("#"));
+  }
+
+  @Override
+  public boolean adquirirLeaseArchivado(String propietario, long duracionMs) {
+    long ahora = System.currentTimeMillis();
+    Map<String, AttributeValue> lease =
+        new HashMap<>(claveControl(AuditoriaRegistroTableSchema.PK_LEASE_ARCHIVADOR));
+    lease.put("propietario", AttributeValue.fromS(propietario));
+    lease.put("leaseHasta", AttributeValue.fromN(String.valueOf(ahora + duracionMs)));
+    try {
+      dynamoDbClient.putItem(
+          r ->
+              r.tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+                  .item(lease)
+                  .conditionExpression(
+                      "attribute_not_exists(PK) OR leaseHasta < :ahora"
+                          + " OR propietario = :propietario")
+                  .expressionAttributeValues(
+                      Map.of(
+                          ":ahora", AttributeValue.fromN(String.valueOf(ahora)),
+                          ":propietario", AttributeValue.fromS(propietario))));
+      return true;
+    } catch (ConditionalCheckFailedException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void liberarLeaseArchivado(String propietario) {
+    try {
+      dynamoDbClient.deleteItem(
+          r ->
+              r.tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+                  .key(claveControl(AuditoriaRegistroTableSchema.PK_LEASE_ARCHIVADOR))
+                  .conditionExpression("propietario = :propietario")
+                  .expressionAttributeValues(
+                      Map.of(":propietario", AttributeValue.fromS(propietario))));
+    } catch (ConditionalCheckFailedException e) {
+      // El lease expiró y lo tomó otra réplica
+    }
+  }
+
+  @Override
+  public Stream<AuditoriaRegistro> findArchivables(LocalDateTime antesDe) {
+    Expression filtro =
+        Expression.builder()
+            .expression("fechaAccion < :limite AND attribute_not_exists(expiraEn)")
+            .putExpressionValue(":limite", valorFecha(antesDe))
+            .build();
+
+    return parallelScanner.scan(auditoriaTable, filtro);
+  }
+
+  /**
+   * Solo añade expiraEn, con una actualización condicional por registro: el resto de la entrada
+   * encadenada no se reescribe, y un registro ya marcado o ya eliminado por el TTL se omite en
+   * lugar de recrearse.
+   */
+  @Override
+  public void marcarArchivados(List<AuditoriaRegistro> auditorias, long expiraEn) {
+    AttributeValue valor = AttributeValue.fromN(Long.toString(expiraEn));
+    for (AuditoriaRegistro auditoria : auditorias) {
+      try {
+        dynamoDbClient.updateItem(
+            r ->
+                r.tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+                    .key(claveCadena(auditoria.getCedulaCiudadano(), auditoria.getSk()))
+                    .updateExpression("SET expiraEn = :expiraEn")
+                    .conditionExpression("attribute_exists(SK) AND attribute_not_exists(expiraEn)")
+                    .expressionAttributeValues(Map.of(":expiraEn", valor)));
+        auditoria.setExpiraEn(expiraEn);
+      } catch (ConditionalCheckFailedException e) {
+        log.debug("Auditoría {} ya marcada o eliminada, se omite", auditoria.getSk());
+      }
+    }
+  }
+
+  /**
+   * Une capa caliente y fría ordenando por SK descendente (el SK empieza por la fecha). Un registro
+   * archivado puede seguir en la tabla hasta que el TTL lo elimine; prevalece la copia de la tabla.
+   */
+  private List<AuditoriaRegistro> mezclar(
+      List<AuditoriaRegistro> calientes, List<AuditoriaRegistro> archivados) {
+    if (archivados.isEmpty()) {
+      return calientes;
+    }
+    Map<String, AuditoriaRegistro> porSk = new LinkedHashMap<>();
+    calientes.forEach(a -> porSk.put(a.getSk(), a));
+    archivados.forEach(a -> porSk.putIfAbsent(a.getSk(), a));
+    return porSk.values().stream()
+        .sorted(Comparator.comparing(AuditoriaRegistro::getSk).reversed())
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public CabezaCadena findCabezaCadena(Long cedulaCiudadano) {
+    GetItemResponse respuesta =
+        dynamoDbClient.getItem(
+            r ->
+                r.tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+                    .key(claveCabeza(cedulaCiudadano))
+                    .consistentRead(true));
+    if (!respuesta.hasItem() || respuesta.item().isEmpty()) {
+      return CabezaCadena.genesis();
+    }
+    Map<String, AttributeValue> item = respuesta.item();
+    return new CabezaCadena(
+        Long.parseLong(item.get("secuencia").n()),
+        item.get("hash").s(),
+        hashes(item.get("hojasPendientes")));
+  }
+
+  @Override
+  public boolean anexarEnCadena(
+      Long cedulaCiudadano,
+      long secuenciaEsperada,
+      CabezaCadena nuevaCabeza,
+      List<AuditoriaRegistro> entradas,
+      List<CheckpointIntegridad> checkpoints) {
+    List<TransactWriteItem> operaciones = new ArrayList<>();
+
+    // Append-only: ninguna entrada ni checkpoint puede sobrescribir uno existente
+    for (AuditoriaRegistro entrada : entradas) {
+      generarClaves(entrada);
+      operaciones.add(
+          putNuevo(AuditoriaRegistroTableSchema.SCHEMA.itemToMap(entrada, true)).build());
+    }
+    for (CheckpointIntegridad checkpoint : checkpoints) {
+      operaciones.add(putNuevo(itemCheckpoint(cedulaCiudadano, checkpoint)).build());
+    }
+
+    Map<String, AttributeValue> cabeza = new HashMap<>(claveCabeza(cedulaCiudadano));
+    cabeza.put("secuencia", AttributeValue.fromN(Long.toString(nuevaCabeza.secuencia())));
+    cabeza.put("hash", AttributeValue.fromS(nuevaCabeza.hash()));
+    cabeza.put("hojasPendientes", lista(nuevaCabeza.hojasPendientes()));
+
+    // Concurrencia optimista: la cabeza solo avanza desde la secuencia leída
+    Put.Builder putCabeza =
+        Put.builder().tableName(AuditoriaRegistroTableSchema.TABLE_NAME).item(cabeza);
+    if (secuenciaEsperada == 0) {
+      putCabeza.conditionExpression("attribute_not_exists(SK)");
+    } else {
+      putCabeza
+          .conditionExpression("secuencia = :esperada")
+          .expressionAttributeValues(
+              Map.of(":esperada", AttributeValue.fromN(Long.toString(secuenciaEsperada))));
+    }
+    int indiceCabeza = operaciones.size();
+    operaciones.add(TransactWriteItem.builder().put(putCabeza.build()).build());
+
+    try {
+      dynamoDbClient.transactWriteItems(
+          TransactWriteItemsRequest.builder().transactItems(operaciones).build());
+      return true;
+    } catch (TransactionCanceledException e) {
+      List<CancellationReason> razones = e.cancellationReasons();
+      boolean cabezaMovida =
+          razones.size() > indiceCabeza
+              && "ConditionalCheckFailed".equals(razones.get(indiceCabeza).code());
+      boolean conflicto = razones.stream().anyMatch(r -> "TransactionConflict".equals(r.code()));
+      if (cabezaMovida || conflicto) {
+        log.debug("Cabeza de cadena movida para ciudadano {}, se reintenta", cedulaCiudadano);
+        return false;
+      }
+      log.warn("Transacción de cadena cancelada para ciudadano {}: {}", cedulaCiudadano, razones);
+      throw e;
+    }
+  }
+
+  @Override
+  public Optional<CheckpointIntegridad> findCheckpoint(Long cedulaCiudadano, long secuencia) {
+    // El SK lleva la secuencia final con ceros: el primer checkpoint >= secuencia es el que la
+    // cubre
+    QueryRequest request =
+        QueryRequest.builder()
+            .tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+            .keyConditionExpression("PK = :pk AND SK BETWEEN :desde AND :hasta")
+            .expressionAttributeValues(
+                Map.of(
+                    ":pk", AttributeValue.fromS(PREFIJO_PK + cedulaCiudadano),
+                    ":desde", AttributeValue.fromS(skCheckpoint(secuencia)),
+                    ":hasta", AttributeValue.fromS(skCheckpoint(Long.MAX_VALUE))))
+            .limit(1)
+            .build();
+
+    return dynamoDbClient.query(request).items().stream()
+        .findFirst()
+        .map(this::checkpoint)
+        .filter(c -> c.cubre(secuencia));
+  }
+
+  @Override
+  public List<CheckpointIntegridad> findCheckpoints(Long cedulaCiudadano) {
+    QueryRequest request =
+        QueryRequest.builder()
+            .tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+            .keyConditionExpression("PK = :pk AND begins_with(SK, :prefijo)")
+            .expressionAttributeValues(
+                Map.of(
+                    ":pk", AttributeValue.fromS(PREFIJO_PK + cedulaCiudadano),
+                    ":prefijo",
+                    AttributeValue.fromS(AuditoriaRegistroTableSchema.PREFIJO_CHECKPOINT)))
+            .build();
+
+    return dynamoDbClient.queryPaginator(request).items().stream()
+        .map(this::checkpoint)
         .collect(Collectors.toList());
   }
+
+  @Override
+  public Stream<Long> streamCedulasConCadena() {
+    Expression filtro =
+        Expression.builder()
+            .expression("#sk = :cabeza")
+            .putExpressionName("#sk", "SK")
+            .putExpressionValue(
+                ":cabeza", AttributeValue.fromS(AuditoriaRegistroTableSchema.SK_CABEZA_CADENA))
+            .build();
+
+    return parallelScanner
+        .scan(auditoriaTable, filtro)
+        .map(cabeza -> Long.valueOf(cabeza.getPk().substring(PREFIJO_PK.length())));
+  }
+
+  private Put.Builder putNuevo(Map<String, AttributeValue> item) {
+    return Put.builder()
+        .tableName(AuditoriaRegistroTableSchema.TABLE_NAME)
+        .item(item)
+        .conditionExpression("attribute_not_exists(SK)");
+  }
+
+  private Map<String, AttributeValue> itemCheckpoint(
+      Long cedulaCiudadano, CheckpointIntegridad checkpoint) {
+    Map<String, AttributeValue> item =
+        new HashMap<>(claveCadena(cedulaCiudadano, skCheckpoint(checkpoint.secuenciaFin())));
+    item.put("secuenciaInicio", AttributeValue.fromN(Long.toString(checkpoint.secuenciaInicio())));
+    item.put("secuenciaFin", AttributeValue.fromN(Long.toString(checkpoint.secuenciaFin())));
+    item.put("raiz", AttributeValue.fromS(checkpoint.raiz()));
+    item.put("hojas", lista(checkpoint.hojas()));
+    item.put("fechaCreacion", AttributeValue.fromS(Instant.now().toString()));
+    return item;
+  }
+
+  private CheckpointIntegridad checkpoint(Map<String, AttributeValue> item) {
+    return new CheckpointIntegridad(
+        Long.parseLong(item.get("secuenciaInicio").n()),
+        Long.parseLong(item.get("secuenciaFin").n()),
+        item.get("raiz").s(),
+        hashes(item.get("hojas")));
+  }
+
+  private Map<String, AttributeValue> claveCadena(Long cedulaCiudadano, String sk) {
+    return Map.of(
+        "PK", AttributeValue.fromS(PREFIJO_PK + cedulaCiudadano), "SK", AttributeValue.fromS(sk));
+  }
+
+  private Map<String, AttributeValue> claveCabeza(Long cedulaCiudadano) {
+    return claveCadena(cedulaCiudadano, AuditoriaRegistroTableSchema.SK_CABEZA_CADENA);
+  }
+
+  private String skCheckpoint(long secuenciaFin) {
+    return AuditoriaRegistroTableSchema.PREFIJO_CHECKPOINT
+        + String.format(FORMATO_SECUENCIA, secuenciaFin);
+  }
+
+  private AttributeValue lista(List<String> hashes) {
+    return AttributeValue.fromL(hashes.stream().map(AttributeValue::fromS).toList());
+  }
+
+  private List<String> hashes(AttributeValue lista) {
+    if (lista == null || !lista.hasL()) {
+      return List.of();
+    }
+    return lista.l().stream().map(AttributeValue::s).toList();
+  }
 }
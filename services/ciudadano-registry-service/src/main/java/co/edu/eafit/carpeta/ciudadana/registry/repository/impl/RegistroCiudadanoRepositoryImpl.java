@@ -2,32 +2,84 @@ package co.edu.eafit.carpeta.ciudadana.registry.repository.impl;
 
 import co.edu.eafit.carpeta.ciudadana.registry.entity.RegistroCiudadano;
 import co.edu.eafit.carpeta.ciudadana.registry.repository.RegistroCiudadanoRepository;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.batch.DynamoDbBatchExecutor;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.scan.ConcatenacionPerezosa;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.scan.DynamoDbParallelScanner;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.schema.RegistroCiudadanoTableSchema;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 
 @Repository
 public class RegistroCiudadanoRepositoryImpl implements RegistroCiudadanoRepository {
 
+  /** Items por página al consultar los GSIs */
+  private static final int TAMANO_PAGINA_INDICE = 500;
+
+  /**
+   * Cédula de los items de control (marcas de migración). No es una cédula válida y el item no
+   * tiene estado ni activoIndice, así que no aparece en los GSIs.
+   */
+  private static final long CEDULA_CONTROL = 0L;
+
+  private static final String PREFIJO_MIGRACION = "MIGRACION#";
+
+  private final DynamoDbClient dynamoDbClient;
   private final DynamoDbTable<RegistroCiudadano> registroTable;
+  private final DynamoDbBatchExecutor batchExecutor;
+  private final DynamoDbParallelScanner parallelScanner;
 
-  public RegistroCiudadanoRepositoryImpl(DynamoDbClient dynamoDbClient) {
+  public RegistroCiudadanoRepositoryImpl(
+      DynamoDbClient dynamoDbClient,
+      DynamoDbBatchExecutor batchExecutor,
+      DynamoDbParallelScanner parallelScanner) {
+    this.dynamoDbClient = dynamoDbClient;
     DynamoDbEnhancedClient enhancedClient =
         DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
 
     this.registroTable =
-        enhancedClient.table("RegistroCiudadano", TableSchema.fromBean(RegistroCiudadano.class));
+        enhancedClient.table(
+            RegistroCiudadanoTableSchema.TABLE_NAME, RegistroCiudadanoTableSchema.SCHEMA);
+    this.batchExecutor = batchExecutor;
+    this.parallelScanner = parallelScanner;
   }
 
   @Override
   public RegistroCiudadano save(RegistroCiudadano registro) {
+    prepararParaGuardar(registro);
+
+    registroTable.putItem(registro);
+    return registro;
+  }
+
+  @Override
+  public List<RegistroCiudadano> saveAll(List<RegistroCiudadano> registros) {
+    registros.forEach(this::prepararParaGuardar);
+
+    batchExecutor.putAll(registroTable, registros);
+    return registros;
+  }
+
+  private void prepararParaGuardar(RegistroCiudadano registro) {
     // Asegurar que SK esté configurado
     if (registro.getSk() == null) {
       registro.setSk("#");
@@ -39,8 +91,11 @@ public class RegistroCiudadanoRepositoryImpl implements RegistroCiudadanoReposit
     }
     registro.setFechaActualizacion(LocalDateTime.now());
 
-    registroTable.putItem(registro);
-    return registro;
+    // Solo los activos quedan en el índice disperso de activos
+    registro.setActivoIndice(
+        Boolean.TRUE.equals(registro.getActivo())
+            ? RegistroCiudadanoTableSchema.marcadorActivo(registro.getCedula())
+            : null);
   }
 
   @Override
@@ -51,6 +106,11 @@ public class RegistroCiudadanoRepositoryImpl implements RegistroCiudadanoReposit
     return Optional.ofNullable(registro);
   }
 
+  @Override
+  public List<RegistroCiudadano> findAllByIds(Collection<Long> cedulas) {
+    return batchExecutor.getAll(registroTable, claves(cedulas));
+  }
+
   @Override
   public Optional<RegistroCiudadano> findByCedulaAndActivoTrue(Long cedula) {
     Optional<RegistroCiudadano> registro = findByCedula(cedula);
@@ -58,12 +118,12 @@ public class RegistroCiudadanoRepositoryImpl implements RegistroCiudadanoReposit
   }
 
   @Override
-  public List<RegistroCiudadano> findByEstado(RegistroCiudadano.EstadoRegistro estado) {
-    // Para consultas por estado necesitaríamos un GSI adicional
-    // Por ahora hacemos scan (no recomendado para producción)
-    return registroTable.scan().items().stream()
-        .filter(r -> estado.equals(r.getEstado()))
-        .collect(Collectors.toList());
+  public Stream<RegistroCiudadano> findByEstado(RegistroCiudadano.EstadoRegistro estado) {
+    return consultarIndice(
+        RegistroCiudadanoTableSchema.INDICE_ESTADO,
+        QueryEnhancedRequest.builder()
+            .queryConditional(
+                QueryConditional.keyEqualTo(Key.builder().partitionValue(estado.name()).build())));
   }
 
   @Override
@@ -72,18 +132,128 @@ public class RegistroCiudadanoRepositoryImpl implements RegistroCiudadanoReposit
   }
 
   @Override
-  public List<RegistroCiudadano> findAllActive() {
-    return registroTable.scan().items().stream()
-        .filter(r -> Boolean.TRUE.equals(r.getActivo()))
-        .collect(Collectors.toList());
+  public Stream<RegistroCiudadano> findAllActive() {
+    // Una consulta por partición del índice, abierta solo cuando se agota la anterior
+    List<Supplier<Stream<RegistroCiudadano>>> particiones =
+        IntStream.range(0, RegistroCiudadanoTableSchema.SHARDS_ACTIVOS)
+            .mapToObj(n -> RegistroCiudadanoTableSchema.PREFIJO_ACTIVO + n)
+            .<Supplier<Stream<RegistroCiudadano>>>map(
+                marcador ->
+                    () ->
+                        consultarIndice(
+                            RegistroCiudadanoTableSchema.INDICE_ACTIVOS,
+                            QueryEnhancedRequest.builder()
+                                .queryConditional(
+                                    QueryConditional.keyEqualTo(
+                                        Key.builder().partitionValue(marcador).build()))))
+            .toList();
+    return ConcatenacionPerezosa.concatenar(particiones);
+  }
+
+  @Override
+  public boolean reindexarActivo(Long cedula) {
+    String marcador = RegistroCiudadanoTableSchema.marcadorActivo(cedula);
+    try {
+      dynamoDbClient.updateItem(
+          UpdateItemRequest.builder()
+              .tableName(RegistroCiudadanoTableSchema.TABLE_NAME)
+              .key(
+                  Map.of(
+                      "cedula", AttributeValue.fromN(cedula.toString()),
+                      "SK", AttributeValue.fromS("#")))
+              .updateExpression("SET activoIndice = :marcador")
+              // Si entretanto se desactivó o ya tiene el marcador correcto no hay nada que hacer
+              .conditionExpression(
+                  "activo = :activo"
+                      + " AND (attribute_not_exists(activoIndice) OR activoIndice <> :marcador)")
+              .expressionAttributeValues(
+                  Map.of(
+                      ":marcador", AttributeValue.fromS(marcador),
+                      ":activo", AttributeValue.fromBool(true)))
+              .build());
+      return true;
+    } catch (ConditionalCheckFailedException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public Stream<RegistroCiudadano> findDesregistradosAntesDe(LocalDateTime fechaLimite) {
+    RegistroCiudadano filtro = new RegistroCiudadano();
+    filtro.setFechaDesregistro(fechaLimite);
+
+    // Las fechas se guardan en ISO-8601, así que la comparación de strings respeta el orden
+    Expression expression =
+        Expression.builder()
+            .expression("#fecha < :fecha")
+            .putExpressionName("#fecha", "fechaDesregistro")
+            .putExpressionValue(":fecha", valorAtributo(filtro, "fechaDesregistro"))
+            .build();
+
+    return consultarIndice(
+        RegistroCiudadanoTableSchema.INDICE_ESTADO,
+        QueryEnhancedRequest.builder()
+            .queryConditional(
+                QueryConditional.keyEqualTo(
+                    Key.builder()
+                        .partitionValue(RegistroCiudadano.EstadoRegistro.DESREGISTRADO.name())
+                        .build()))
+            .filterExpression(expression));
+  }
+
+  @Override
+  public Stream<RegistroCiudadano> streamAll() {
+    return parallelScanner.scan(registroTable);
   }
 
   @Override
-  public List<RegistroCiudadano> findDesregistradosAntesDe(LocalDateTime fechaLimite) {
-    return registroTable.scan().items().stream()
-        .filter(
-            r -> r.getFechaDesregistro() != null && r.getFechaDesregistro().isBefore(fechaLimite))
-        .collect(Collectors.toList());
+  public Stream<RegistroCiudadano> streamAll(double capacidadLecturaPorSegundo) {
+    return parallelScanner.scan(registroTable, null, capacidadLecturaPorSegundo);
+  }
+
+  @Override
+  public boolean migracionCompleta(String migracion) {
+    return dynamoDbClient
+        .getItem(
+            r ->
+                r.tableName(RegistroCiudadanoTableSchema.TABLE_NAME)
+                    .key(claveMigracion(migracion)))
+        .hasItem();
+  }
+
+  @Override
+  public void marcarMigracionCompleta(String migracion) {
+    Map<String, AttributeValue> item = new HashMap<>(claveMigracion(migracion));
+    item.put("fechaCreacion", AttributeValue.fromS(Instant.now().toString()));
+    dynamoDbClient.putItem(
+        r -> r.tableName(RegistroCiudadanoTableSchema.TABLE_NAME).item(item));
+  }
+
+  private static Map<String, AttributeValue> claveMigracion(String migracion) {
+    return Map.of(
+        "cedula",
+        AttributeValue.fromN(String.valueOf(CEDULA_CONTROL)),
+        "SK",
+        AttributeValue.fromS(PREFIJO_MIGRACION + migracion));
+  }
+
+  /**
+   * Consulta un GSI devolviendo un Stream perezoso: cada página (TAMANO_PAGINA_INDICE items) se
+   * pide a DynamoDB solo cuando el consumidor llega a ella.
+   */
+  private Stream<RegistroCiudadano> consultarIndice(
+      String indice, QueryEnhancedRequest.Builder queryBuilder) {
+    return registroTable
+        .index(indice)
+        .query(queryBuilder.limit(TAMANO_PAGINA_INDICE).build())
+        .stream()
+        .map(Page::items)
+        .flatMap(List::stream);
+  }
+
+  /** Convierte el valor con el mismo converter que usa el esquema de la tabla. */
+  private AttributeValue valorAtributo(RegistroCiudadano parcial, String atributo) {
+    return registroTable.tableSchema().itemToMap(parcial, List.of(atributo)).get(atributo);
   }
 
   @Override
@@ -92,4 +262,15 @@ public class RegistroCiudadanoRepositoryImpl implements RegistroCiudadanoReposit
 
     registroTable.deleteItem(key);
   }
+
+  @Override
+  public void deleteAll(Collection<Long> cedulas) {
+    batchExecutor.deleteAll(registroTable, claves(cedulas));
+  }
+
+  private List<Key> claves(Collection<Long> cedulas) {
+    return cedulas.stream()
+        .map(cedula -> Key.builder().partitionValue(cedula).sortValue("#").build())
+        .toList();
+  }
 }
@@ -0,0 +1,134 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository.impl;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.TrabajoRegistroRepository;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.scan.DynamoDbParallelScanner;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.schema.TrabajoRegistroTableSchema;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+@Repository
+public class TrabajoRegistroRepositoryImpl implements TrabajoRegistroRepository {
+
+  private final DynamoDbTable<TrabajoRegistro> trabajoTable;
+  private final DynamoDbParallelScanner parallelScanner;
+
+  public TrabajoRegistroRepositoryImpl(
+      DynamoDbClient dynamoDbClient, DynamoDbParallelScanner parallelScanner) {
+    DynamoDbEnhancedClient enhancedClient =
+        DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+
+    this.trabajoTable =
+        enhancedClient.table(
+            TrabajoRegistroTableSchema.TABLE_NAME, TrabajoRegistroTableSchema.SCHEMA);
+    this.parallelScanner = parallelScanner;
+  }
+
+  @Override
+  public TrabajoRegistro crear(TrabajoRegistro trabajo) {
+    LocalDateTime ahora = LocalDateTime.now();
+    trabajo.setFechaCreacion(ahora);
+    trabajo.setFechaActualizacion(ahora);
+
+    trabajoTable.putItem(
+        PutItemEnhancedRequest.builder(TrabajoRegistro.class)
+            .item(trabajo)
+            .conditionExpression(
+                Expression.builder().expression("attribute_not_exists(trabajoId)").build())
+            .build());
+    return trabajo;
+  }
+
+  @Override
+  public Optional<TrabajoRegistro> findById(String trabajoId) {
+    return Optional.ofNullable(
+        trabajoTable.getItem(Key.builder().partitionValue(trabajoId).build()));
+  }
+
+  @Override
+  public boolean actualizar(
+      TrabajoRegistro trabajo,
+      TrabajoRegistro.PasoRegistro pasoEsperado,
+      TrabajoRegistro.EstadoTrabajo estadoEsperado) {
+    trabajo.setFechaActualizacion(LocalDateTime.now());
+
+    Expression condicion =
+        Expression.builder()
+            .expression("#paso = :paso AND #estado = :estado")
+            .putExpressionName("#paso", "paso")
+            .putExpressionName("#estado", "estado")
+            .putExpressionValue(":paso", AttributeValue.fromS(pasoEsperado.name()))
+            .putExpressionValue(":estado", AttributeValue.fromS(estadoEsperado.name()))
+            .build();
+    return guardarSi(trabajo, condicion);
+  }
+
+  @Override
+  public Stream<TrabajoRegistro> findAtascados(LocalDateTime antesDe, int maxReanudaciones) {
+    Expression filtro =
+        Expression.builder()
+            .expression(
+                "#estado IN (:enCurso, :compensando) AND fechaActualizacion < :limite"
+                    + " AND (attribute_not_exists(reanudaciones) OR reanudaciones < :max)")
+            .putExpressionName("#estado", "estado")
+            .putExpressionValue(
+                ":enCurso", AttributeValue.fromS(TrabajoRegistro.EstadoTrabajo.EN_CURSO.name()))
+            .putExpressionValue(
+                ":compensando",
+                AttributeValue.fromS(TrabajoRegistro.EstadoTrabajo.COMPENSANDO.name()))
+            .putExpressionValue(":limite", valorFecha(antesDe))
+            .putExpressionValue(":max", AttributeValue.fromN(Integer.toString(maxReanudaciones)))
+            .build();
+
+    return parallelScanner.scan(trabajoTable, filtro);
+  }
+
+  @Override
+  public boolean reanudar(TrabajoRegistro trabajo, LocalDateTime fechaActualizacionLeida) {
+    Expression condicion =
+        Expression.builder()
+            .expression("#paso = :paso AND #estado = :estado AND fechaActualizacion = :leida")
+            .putExpressionName("#paso", "paso")
+            .putExpressionName("#estado", "estado")
+            .putExpressionValue(":paso", AttributeValue.fromS(trabajo.getPaso().name()))
+            .putExpressionValue(":estado", AttributeValue.fromS(trabajo.getEstado().name()))
+            .putExpressionValue(":leida", valorFecha(fechaActualizacionLeida))
+            .build();
+    trabajo.setFechaActualizacion(LocalDateTime.now());
+    return guardarSi(trabajo, condicion);
+  }
+
+  private boolean guardarSi(TrabajoRegistro trabajo, Expression condicion) {
+    try {
+      trabajoTable.putItem(
+          PutItemEnhancedRequest.builder(TrabajoRegistro.class)
+              .item(trabajo)
+              .conditionExpression(condicion)
+              .build());
+      return true;
+    } catch (ConditionalCheckFailedException e) {
+      return false;
+    }
+  }
+
+  /** Convierte la fecha con el mismo converter que usa el esquema de la tabla. */
+  private AttributeValue valorFecha(LocalDateTime fecha) {
+    TrabajoRegistro parcial = new TrabajoRegistro();
+    parcial.setFechaActualizacion(fecha);
+    return trabajoTable
+        .tableSchema()
+        .itemToMap(parcial, List.of("fechaActualizacion"))
+        .get("fechaActualizacion");
+  }
+}
@@ -0,0 +1,255 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository.scan;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+/**
+ * Scan paralelo segmentado (Segment / TotalSegments) con salida en streaming.
+ *
+ * <p>Cada segmento lo recorre un hilo propio y deposita los items en una cola acotada; el {@link
+ * Stream} resultante consume de esa cola, por lo que la memoria usada no depende del tamaño de la
+ * tabla y los hilos se frenan cuando el consumidor va más lento. El consumo de RCUs reportado por
+ * cada página se limita con {@link LimitadorCapacidad}. Los hilos salen de un pool compartido por
+ * todos los scans; cada segmento termina siempre con una marca en la cola (fin o fallo), así que el
+ * consumidor nunca queda esperando un segmento que ya no va a escribir.
+ *
+ * <p>El Stream debe cerrarse (try-with-resources) para detener los hilos si no se recorre
+ * completo.
+ */
+@Slf4j
+@Component
+public class DynamoDbParallelScanner {
+
+  /** Marca que un segmento terminó de recorrerse. */
+  private static final Object FIN_SEGMENTO = new Object();
+
+  private static final AtomicInteger CONTADOR_SCANS = new AtomicInteger();
+
+  private final DynamoDbClient dynamoDbClient;
+  private final ExecutorService workers;
+  private final int totalSegmentos;
+  private final int tamanoPagina;
+  private final int capacidadBuffer;
+  private final double capacidadLecturaPorSegundo;
+
+  public DynamoDbParallelScanner(
+      DynamoDbClient dynamoDbClient,
+      @Value("${aws.dynamodb.scan.total-segmentos:8}") int totalSegmentos,
+      @Value("${aws.dynamodb.scan.tamano-pagina:500}") int tamanoPagina,
+      @Value("${aws.dynamodb.scan.capacidad-buffer:2000}") int capacidadBuffer,
+      @Value("${aws.dynamodb.scan.capacidad-lectura-por-segundo:0}")
+          double capacidadLecturaPorSegundo) {
+    this.dynamoDbClient = dynamoDbClient;
+    // Hilos reutilizados entre scans; los inactivos se liberan tras 60 s
+    this.workers = Executors.newCachedThreadPool(hilos());
+    this.totalSegmentos = totalSegmentos;
+    this.tamanoPagina = tamanoPagina;
+    this.capacidadBuffer = capacidadBuffer;
+    this.capacidadLecturaPorSegundo = capacidadLecturaPorSegundo;
+  }
+
+  /** Recorre toda la tabla. */
+  public <T> Stream<T> scan(DynamoDbTable<T> table) {
+    return scan(table, null);
+  }
+
+  /**
+   * Recorre toda la tabla aplicando el filtro en el servidor (FilterExpression). El filtro no
+   * reduce las RCUs consumidas, solo los items transferidos.
+   */
+  public <T> Stream<T> scan(DynamoDbTable<T> table, Expression filtro) {
+    return scan(table, filtro, capacidadLecturaPorSegundo);
+  }
+
+  /**
+   * Como {@link #scan(DynamoDbTable, Expression)} pero con su propio límite de RCUs por segundo
+   * (0 = sin límite), p. ej. para que un job de fondo no compita con el tráfico.
+   */
+  public <T> Stream<T> scan(
+      DynamoDbTable<T> table, Expression filtro, double capacidadLecturaPorSegundo) {
+    ScanIterator<T> iterator = new ScanIterator<>(table, filtro, capacidadLecturaPorSegundo);
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.NONNULL | Spliterator.IMMUTABLE),
+            false)
+        .onClose(iterator::cerrar);
+  }
+
+  /** Error de un segmento, propagado al consumidor del Stream. */
+  private record FalloSegmento(int segmento, RuntimeException causa) {}
+
+  private final class ScanIterator<T> implements Iterator<T> {
+
+    private final DynamoDbTable<T> table;
+    private final Expression filtro;
+    private final BlockingQueue<Object> cola = new LinkedBlockingQueue<>(capacidadBuffer);
+    private final LimitadorCapacidad limitador;
+
+    private final List<Future<?>> tareas = new ArrayList<>(totalSegmentos);
+    private boolean iniciado;
+    private int segmentosPendientes = totalSegmentos;
+    private T siguiente;
+
+    ScanIterator(DynamoDbTable<T> table, Expression filtro, double capacidadLecturaPorSegundo) {
+      this.table = table;
+      this.filtro = filtro;
+      this.limitador = new LimitadorCapacidad(capacidadLecturaPorSegundo);
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (!iniciado) {
+        iniciar();
+      }
+      try {
+        while (siguiente == null && segmentosPendientes > 0) {
+          Object elemento = cola.take();
+          if (elemento == FIN_SEGMENTO) {
+            segmentosPendientes--;
+          } else if (elemento instanceof FalloSegmento fallo) {
+            cerrar();
+            throw fallo.causa();
+          } else {
+            @SuppressWarnings("unchecked")
+            T item = (T) elemento;
+            siguiente = item;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        cerrar();
+        throw new IllegalStateException("Scan de " + table.tableName() + " interrumpido", e);
+      }
+      if (siguiente == null) {
+        cerrar();
+        return false;
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      T item = siguiente;
+      siguiente = null;
+      return item;
+    }
+
+    private void iniciar() {
+      int scanId = CONTADOR_SCANS.incrementAndGet();
+      log.debug(
+          "Iniciando scan paralelo #{} de {} con {} segmentos",
+          scanId,
+          table.tableName(),
+          totalSegmentos);
+
+      iniciado = true;
+      for (int segmento = 0; segmento < totalSegmentos; segmento++) {
+        int actual = segmento;
+        tareas.add(workers.submit(() -> recorrerSegmento(actual)));
+      }
+    }
+
+    private void recorrerSegmento(int segmento) {
+      Object marca = FIN_SEGMENTO;
+      try {
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+          ScanResponse response = dynamoDbClient.scan(peticion(segmento, exclusiveStartKey));
+          for (Map<String, AttributeValue> item : response.items()) {
+            cola.put(table.tableSchema().mapToItem(item));
+          }
+          if (response.consumedCapacity() != null) {
+            limitador.consumir(response.consumedCapacity().capacityUnits());
+          }
+          exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null && !Thread.currentThread().isInterrupted());
+      } catch (InterruptedException e) {
+        // El consumidor cerró el Stream: nadie va a leer la marca
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        log.error(
+            "Error en segmento {} del scan de {}: {}", segmento, table.tableName(), e.getMessage());
+        marca = new FalloSegmento(segmento, e);
+      }
+
+      // put y no offer: con la cola llena la marca se perdería y el consumidor esperaría para
+      // siempre en take()
+      try {
+        cola.put(marca);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private ScanRequest peticion(int segmento, Map<String, AttributeValue> exclusiveStartKey) {
+      ScanRequest.Builder builder =
+          ScanRequest.builder()
+              .tableName(table.tableName())
+              .segment(segmento)
+              .totalSegments(totalSegmentos)
+              .limit(tamanoPagina)
+              .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+              .exclusiveStartKey(exclusiveStartKey);
+
+      if (filtro != null) {
+        builder.filterExpression(filtro.expression());
+        if (filtro.expressionNames() != null && !filtro.expressionNames().isEmpty()) {
+          builder.expressionAttributeNames(filtro.expressionNames());
+        }
+        if (filtro.expressionValues() != null && !filtro.expressionValues().isEmpty()) {
+          builder.expressionAttributeValues(filtro.expressionValues());
+        }
+      }
+      return builder.build();
+    }
+
+    private void cerrar() {
+      // Interrumpe solo los segmentos de este scan; el pool sigue sirviendo a los demás
+      tareas.forEach(tarea -> tarea.cancel(true));
+      segmentosPendientes = 0;
+    }
+  }
+
+  private static ThreadFactory hilos() {
+    AtomicInteger contador = new AtomicInteger();
+    return tarea -> {
+      Thread hilo = new Thread(tarea, "dynamodb-scan-" + contador.getAndIncrement());
+      hilo.setDaemon(true);
+      return hilo;
+    };
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    workers.shutdownNow();
+  }
+}
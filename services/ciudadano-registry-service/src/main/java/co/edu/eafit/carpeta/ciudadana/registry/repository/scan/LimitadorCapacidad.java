@@ -0,0 +1,37 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository.scan;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limitador de unidades de capacidad de lectura compartido por los segmentos de un scan.
+ *
+ * <p>Cada página reporta su ConsumedCapacity después de leerse; el limitador reserva ese consumo
+ * en el tiempo y duerme al segmento hasta que la tasa vuelva a estar por debajo del máximo. Una
+ * tasa menor o igual a 0 desactiva el límite.
+ */
+class LimitadorCapacidad {
+
+  private final double unidadesPorSegundo;
+  private long siguienteLibreNanos = System.nanoTime();
+
+  LimitadorCapacidad(double unidadesPorSegundo) {
+    this.unidadesPorSegundo = unidadesPorSegundo;
+  }
+
+  void consumir(double unidades) throws InterruptedException {
+    if (unidadesPorSegundo <= 0 || unidades <= 0) {
+      return;
+    }
+    long esperaNanos = reservar(unidades);
+    if (esperaNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(esperaNanos);
+    }
+  }
+
+  private synchronized long reservar(double unidades) {
+    long ahora = System.nanoTime();
+    long inicio = Math.max(ahora, siguienteLibreNanos);
+    siguienteLibreNanos = inicio + (long) (unidades / unidadesPorSegundo * 1_000_000_000L);
+    return inicio - ahora;
+  }
+}
@@ -0,0 +1,210 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository.schema;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+/** Esquema estático de la tabla AuditoriaRegistro. */
+public final class AuditoriaRegistroTableSchema {
+
+  public static final String TABLE_NAME = "AuditoriaRegistro";
+
+  /** GSI por operador, ordenado por fechaAccion. */
+  public static final String INDICE_OPERADOR = "operadorId-fechaAccion-index";
+
+  /** GSI por acción, ordenado por fechaAccion. */
+  public static final String INDICE_ACCION = "accion-fechaAccion-index";
+
+  /**
+   * GSI temporal, ordenado por fechaAccion. Cada día se reparte en {@link #SHARDS_DIA} particiones
+   * (diaAccion = yyyy-MM-dd#n) para que las escrituras del día no caigan en una sola partición.
+   */
+  public static final String INDICE_DIA = "diaAccion-fechaAccion-index";
+
+  /** Particiones por día del índice temporal. */
+  public static final int SHARDS_DIA = 8;
+
+  /** SK del puntero a la última entrada de la cadena de hashes de cada ciudadano. */
+  public static final String SK_CABEZA_CADENA = "CADENA#CABEZA";
+
+  /** Prefijo del SK de los checkpoints Merkle (seguido de la secuencia final, con ceros). */
+  public static final String PREFIJO_CHECKPOINT = "CHECKPOINT#";
+
+  /** Prefijo del SK de las entradas de auditoría. */
+  public static final String PREFIJO_AUDITORIA = "AUDITORIA#";
+
+  /** Prefijo del SK del catálogo de segmentos archivados del ciudadano (seguido de su objeto). */
+  public static final String PREFIJO_SEGMENTO = "SEGMENTO#";
+
+  /**
+   * Prefijo de la PK del catálogo global de segmentos archivados, una partición por mes (seguido
+   * de yyyy-MM). Su SK es la fechaMax del segmento más el segmento, así que se recorre de más
+   * reciente a más antiguo.
+   */
+  public static final String PREFIJO_CATALOGO_MES = "ARCHIVO#MES#";
+
+  /** PK del lease que garantiza una sola réplica del archivador en ejecución. */
+  public static final String PK_LEASE_ARCHIVADOR = "ARCHIVADOR#LEASE";
+
+  /**
+   * PK de la marca de que los segmentos anteriores al catálogo ya se catalogaron. Cambió al añadir
+   * el catálogo por mes, para que los segmentos ya catalogados por ciudadano se cataloguen también
+   * en él.
+   */
+  public static final String PK_CATALOGO_SEGMENTOS = "ARCHIVADOR#CATALOGO#MES";
+
+  public static final TableSchema<AuditoriaRegistro> SCHEMA =
+      TableSchemaVerifier.verificar(
+          StaticTableSchema.builder(AuditoriaRegistro.class)
+              .newItemSupplier(AuditoriaRegistro::new)
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("PK")
+                          .getter(AuditoriaRegistro::getPk)
+                          .setter(AuditoriaRegistro::setPk)
+                          .tags(primaryPartitionKey()))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("SK")
+                          .getter(AuditoriaRegistro::getSk)
+                          .setter(AuditoriaRegistro::setSk)
+                          .tags(primarySortKey()))
+              .addAttribute(
+                  Long.class,
+                  a ->
+                      a.name("cedulaCiudadano")
+                          .getter(AuditoriaRegistro::getCedulaCiudadano)
+                          .setter(AuditoriaRegistro::setCedulaCiudadano))
+              .addAttribute(
+                  AuditoriaRegistro.AccionAuditoria.class,
+                  a ->
+                      a.name("accion")
+                          .getter(AuditoriaRegistro::getAccion)
+                          .setter(AuditoriaRegistro::setAccion)
+                          .tags(secondaryPartitionKey(INDICE_ACCION)))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("operadorId")
+                          .getter(AuditoriaRegistro::getOperadorId)
+                          .setter(AuditoriaRegistro::setOperadorId)
+                          .tags(secondaryPartitionKey(INDICE_OPERADOR)))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("operadorNombre")
+                          .getter(AuditoriaRegistro::getOperadorNombre)
+                          .setter(AuditoriaRegistro::setOperadorNombre))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("resultado")
+                          .getter(AuditoriaRegistro::getResultado)
+                          .setter(AuditoriaRegistro::setResultado))
+              .addAttribute(
+                  Integer.class,
+                  a ->
+                      a.name("codigoRespuesta")
+                          .getter(AuditoriaRegistro::getCodigoRespuesta)
+                          .setter(AuditoriaRegistro::setCodigoRespuesta))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("mensajeRespuesta")
+                          .getter(AuditoriaRegistro::getMensajeRespuesta)
+                          .setter(AuditoriaRegistro::setMensajeRespuesta))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("detallesAdicionales")
+                          .getter(AuditoriaRegistro::getDetallesAdicionales)
+                          .setter(AuditoriaRegistro::setDetallesAdicionales))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("ipOrigen")
+                          .getter(AuditoriaRegistro::getIpOrigen)
+                          .setter(AuditoriaRegistro::setIpOrigen))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("userAgent")
+                          .getter(AuditoriaRegistro::getUserAgent)
+                          .setter(AuditoriaRegistro::setUserAgent))
+              .addAttribute(
+                  LocalDateTime.class,
+                  a ->
+                      a.name("fechaAccion")
+                          .getter(AuditoriaRegistro::getFechaAccion)
+                          .setter(AuditoriaRegistro::setFechaAccion)
+                          .tags(
+                              secondarySortKey(
+                                  List.of(INDICE_OPERADOR, INDICE_ACCION, INDICE_DIA))))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("diaAccion")
+                          .getter(AuditoriaRegistro::getDiaAccion)
+                          .setter(AuditoriaRegistro::setDiaAccion)
+                          .tags(secondaryPartitionKey(INDICE_DIA)))
+              .addAttribute(
+                  Long.class,
+                  a ->
+                      a.name("expiraEn")
+                          .getter(AuditoriaRegistro::getExpiraEn)
+                          .setter(AuditoriaRegistro::setExpiraEn))
+              .addAttribute(
+                  Long.class,
+                  a ->
+                      a.name("secuencia")
+                          .getter(AuditoriaRegistro::getSecuencia)
+                          .setter(AuditoriaRegistro::setSecuencia))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("hashAnterior")
+                          .getter(AuditoriaRegistro::getHashAnterior)
+                          .setter(AuditoriaRegistro::setHashAnterior))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("hash")
+                          .getter(AuditoriaRegistro::getHash)
+                          .setter(AuditoriaRegistro::setHash))
+              .build(),
+          AuditoriaRegistro.class);
+
+  /** Partición del índice temporal para una entrada, repartida según su SK. */
+  public static String particionDia(LocalDate dia, String sk) {
+    return dia + "#" + Math.floorMod(sk.hashCode(), SHARDS_DIA);
+  }
+
+  /**
+   * Particiones que hay que consultar para cubrir un día: las {@link #SHARDS_DIA} actuales y la
+   * del día sin sufijo, donde sigue la auditoría escrita antes de particionar el índice hasta que
+   * se archive.
+   */
+  public static List<String> particionesDia(LocalDate dia) {
+    List<String> particiones = new ArrayList<>(SHARDS_DIA + 1);
+    for (int n = 0; n < SHARDS_DIA; n++) {
+      particiones.add(dia + "#" + n);
+    }
+    particiones.add(dia.toString());
+    return particiones;
+  }
+
+  private AuditoriaRegistroTableSchema() {
+    throw new IllegalStateException("Utility class");
+  }
+}
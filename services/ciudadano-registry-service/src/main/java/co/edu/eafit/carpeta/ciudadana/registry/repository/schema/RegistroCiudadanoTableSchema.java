@@ -0,0 +1,138 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository.schema;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.RegistroCiudadano;
+import java.time.LocalDateTime;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+/** Esquema estático de la tabla RegistroCiudadano. */
+public final class RegistroCiudadanoTableSchema {
+
+  public static final String TABLE_NAME = "RegistroCiudadano";
+
+  /** GSI por estado, ordenado por fechaActualizacion. */
+  public static final String INDICE_ESTADO = "estado-fechaActualizacion-index";
+
+  /** GSI disperso con solo los registros activos (atributo activoIndice presente). */
+  public static final String INDICE_ACTIVOS = "activoIndice-cedula-index";
+
+  /**
+   * Prefijo de activoIndice para los registros activos. El valor completo es ACTIVO#n, con n
+   * derivado de la cédula, para repartir el índice en {@link #SHARDS_ACTIVOS} particiones en lugar
+   * de una sola partición caliente.
+   */
+  public static final String PREFIJO_ACTIVO = "ACTIVO#";
+
+  /** Particiones del índice de activos; cambiarlo exige volver a migrar activoIndice. */
+  public static final int SHARDS_ACTIVOS = 8;
+
+  public static final TableSchema<RegistroCiudadano> SCHEMA =
+      TableSchemaVerifier.verificar(
+          StaticTableSchema.builder(RegistroCiudadano.class)
+              .newItemSupplier(RegistroCiudadano::new)
+              .addAttribute(
+                  Long.class,
+                  a ->
+                      a.name("cedula")
+                          .getter(RegistroCiudadano::getCedula)
+                          .setter(RegistroCiudadano::setCedula)
+                          .tags(primaryPartitionKey(), secondarySortKey(INDICE_ACTIVOS)))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("SK")
+                          .getter(RegistroCiudadano::getSk)
+                          .setter(RegistroCiudadano::setSk)
+                          .tags(primarySortKey()))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("nombreCompleto")
+                          .getter(RegistroCiudadano::getNombreCompleto)
+                          .setter(RegistroCiudadano::setNombreCompleto))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("direccion")
+                          .getter(RegistroCiudadano::getDireccion)
+                          .setter(RegistroCiudadano::setDireccion))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("email")
+                          .getter(RegistroCiudadano::getEmail)
+                          .setter(RegistroCiudadano::setEmail))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("carpetaId")
+                          .getter(RegistroCiudadano::getCarpetaId)
+                          .setter(RegistroCiudadano::setCarpetaId))
+              .addAttribute(
+                  RegistroCiudadano.EstadoRegistro.class,
+                  a ->
+                      a.name("estado")
+                          .getter(RegistroCiudadano::getEstado)
+                          .setter(RegistroCiudadano::setEstado)
+                          .tags(secondaryPartitionKey(INDICE_ESTADO)))
+              .addAttribute(
+                  LocalDateTime.class,
+                  a ->
+                      a.name("fechaRegistroGovCarpeta")
+                          .getter(RegistroCiudadano::getFechaRegistroGovCarpeta)
+                          .setter(RegistroCiudadano::setFechaRegistroGovCarpeta))
+              .addAttribute(
+                  LocalDateTime.class,
+                  a ->
+                      a.name("fechaDesregistro")
+                          .getter(RegistroCiudadano::getFechaDesregistro)
+                          .setter(RegistroCiudadano::setFechaDesregistro))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("motivoDesregistro")
+                          .getter(RegistroCiudadano::getMotivoDesregistro)
+                          .setter(RegistroCiudadano::setMotivoDesregistro))
+              .addAttribute(
+                  LocalDateTime.class,
+                  a ->
+                      a.name("fechaCreacion")
+                          .getter(RegistroCiudadano::getFechaCreacion)
+                          .setter(RegistroCiudadano::setFechaCreacion))
+              .addAttribute(
+                  LocalDateTime.class,
+                  a ->
+                      a.name("fechaActualizacion")
+                          .getter(RegistroCiudadano::getFechaActualizacion)
+                          .setter(RegistroCiudadano::setFechaActualizacion)
+                          .tags(secondarySortKey(INDICE_ESTADO)))
+              .addAttribute(
+                  Boolean.class,
+                  a ->
+                      a.name("activo")
+                          .getter(RegistroCiudadano::getActivo)
+                          .setter(RegistroCiudadano::setActivo))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("activoIndice")
+                          .getter(RegistroCiudadano::getActivoIndice)
+                          .setter(RegistroCiudadano::setActivoIndice)
+                          .tags(secondaryPartitionKey(INDICE_ACTIVOS)))
+              .build(),
+          RegistroCiudadano.class);
+
+  /** Valor de activoIndice de un registro activo. */
+  public static String marcadorActivo(Long cedula) {
+    return PREFIJO_ACTIVO + Math.floorMod(Long.hashCode(cedula), SHARDS_ACTIVOS);
+  }
+
+  private RegistroCiudadanoTableSchema() {
+    throw new IllegalStateException("Utility class");
+  }
+}
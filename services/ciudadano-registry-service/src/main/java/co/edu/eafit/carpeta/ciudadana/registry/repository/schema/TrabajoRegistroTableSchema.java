@@ -0,0 +1,110 @@
+package co.edu.eafit.carpeta.ciudadana.registry.repository.schema;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro;
+import java.time.LocalDateTime;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+/** Esquema estático de la tabla TrabajoRegistro. */
+public final class TrabajoRegistroTableSchema {
+
+  public static final String TABLE_NAME = "TrabajoRegistro";
+
+  public static final TableSchema<TrabajoRegistro> SCHEMA =
+      TableSchemaVerifier.verificar(
+          StaticTableSchema.builder(TrabajoRegistro.class)
+              .newItemSupplier(TrabajoRegistro::new)
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("trabajoId")
+                          .getter(TrabajoRegistro::getTrabajoId)
+                          .setter(TrabajoRegistro::setTrabajoId)
+                          .tags(primaryPartitionKey()))
+              .addAttribute(
+                  Long.class,
+                  a ->
+                      a.name("cedula")
+                          .getter(TrabajoRegistro::getCedula)
+                          .setter(TrabajoRegistro::setCedula))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("nombreCompleto")
+                          .getter(TrabajoRegistro::getNombreCompleto)
+                          .setter(TrabajoRegistro::setNombreCompleto))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("direccion")
+                          .getter(TrabajoRegistro::getDireccion)
+                          .setter(TrabajoRegistro::setDireccion))
+              .addAttribute(
+                  TrabajoRegistro.EstadoTrabajo.class,
+                  a ->
+                      a.name("estado")
+                          .getter(TrabajoRegistro::getEstado)
+                          .setter(TrabajoRegistro::setEstado))
+              .addAttribute(
+                  TrabajoRegistro.PasoRegistro.class,
+                  a ->
+                      a.name("paso")
+                          .getter(TrabajoRegistro::getPaso)
+                          .setter(TrabajoRegistro::setPaso))
+              .addAttribute(
+                  Boolean.class,
+                  a ->
+                      a.name("registroGovCarpetaIntentado")
+                          .getter(TrabajoRegistro::getRegistroGovCarpetaIntentado)
+                          .setter(TrabajoRegistro::setRegistroGovCarpetaIntentado))
+              .addAttribute(
+                  Integer.class,
+                  a ->
+                      a.name("reanudaciones")
+                          .getter(TrabajoRegistro::getReanudaciones)
+                          .setter(TrabajoRegistro::setReanudaciones))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("carpetaId")
+                          .getter(TrabajoRegistro::getCarpetaId)
+                          .setter(TrabajoRegistro::setCarpetaId))
+              .addAttribute(
+                  Integer.class,
+                  a ->
+                      a.name("codigoRespuesta")
+                          .getter(TrabajoRegistro::getCodigoRespuesta)
+                          .setter(TrabajoRegistro::setCodigoRespuesta))
+              .addAttribute(
+                  String.class,
+                  a ->
+                      a.name("mensaje")
+                          .getter(TrabajoRegistro::getMensaje)
+                          .setter(TrabajoRegistro::setMensaje))
+              .addAttribute(
+                  LocalDateTime.class,
+                  a ->
+                      a.name("fechaCreacion")
+                          .getter(TrabajoRegistro::getFechaCreacion)
+                          .setter(TrabajoRegistro::setFechaCreacion))
+              .addAttribute(
+                  LocalDateTime.class,
+                  a ->
+                      a.name("fechaActualizacion")
+                          .getter(TrabajoRegistro::getFechaActualizacion)
+                          .setter(TrabajoRegistro::setFechaActualizacion))
+              .addAttribute(
+                  Long.class,
+                  a ->
+                      a.name("expiraEn")
+                          .getter(TrabajoRegistro::getExpiraEn)
+                          .setter(TrabajoRegistro::setExpiraEn))
+              .build(),
+          TrabajoRegistro.class);
+
+  private TrabajoRegistroTableSchema() {
+    throw new IllegalStateException("Utility class");
+  }
+}
@@ -4,8 +4,11 @@ import co.edu.eafit.carpeta.ciudadana.registry.dto.request.DesregistrarCiudadano
 import co.edu.eafit.carpeta.ciudadana.registry.dto.request.RegistrarCiudadanoRequest;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.response.AuditoriaRegistroResponse;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.response.RegistroCiudadanoResponse;
+import co.edu.eafit.carpeta.ciudadana.registry.dto.response.TrabajoRegistroResponse;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.response.ValidacionCiudadanoResponse;
+import co.edu.eafit.carpeta.ciudadana.registry.dto.response.VerificacionIntegridadResponse;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface CiudadanoRegistryService {
 
@@ -13,13 +16,24 @@ public interface CiudadanoRegistryService {
 
   RegistroCiudadanoResponse registrarCiudadano(RegistrarCiudadanoRequest request);
 
+  /**
+   * Acepta el registro y lo ejecuta en segundo plano con la saga de registro; el avance se
+   * consulta con {@link #obtenerTrabajoRegistro(String)}.
+   */
+  TrabajoRegistroResponse iniciarRegistroCiudadano(RegistrarCiudadanoRequest request);
+
+  TrabajoRegistroResponse obtenerTrabajoRegistro(String trabajoId);
+
   RegistroCiudadanoResponse desregistrarCiudadano(DesregistrarCiudadanoRequest request);
 
   RegistroCiudadanoResponse obtenerCiudadanoPorCedula(Long cedula);
 
-  List<RegistroCiudadanoResponse> obtenerTodosCiudadanos();
+  /** Ciudadanos activos según se leen del índice; el Stream debe cerrarse. */
+  Stream<RegistroCiudadanoResponse> obtenerTodosCiudadanos();
 
   List<AuditoriaRegistroResponse> obtenerHistorialAuditoria(Long cedula);
 
+  VerificacionIntegridadResponse verificarIntegridadAuditoria(Long cedula, String id);
+
   String crearCarpetaCiudadana(Long cedula);
 }
@@ -0,0 +1,173 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.archivo;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.AuditoriaRegistroRepository;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.archivo.AuditoriaRegistroArchivo;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.archivo.IndiceSegmento;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Job que mueve la auditoría antigua de DynamoDB (capa caliente) a MinIO (capa fría).
+ *
+ * <p>Agrupa por ciudadano y mes, escribe un segmento por grupo, lo añade al catálogo de segmentos
+ * del ciudadano y al catálogo por mes de las consultas globales, y después marca los registros
+ * con expiraEn para que el TTL de DynamoDB los elimine. Si falla entre estos pasos, los registros
+ * se vuelven a archivar en la siguiente ejecución y las consultas descartan los duplicados.
+ *
+ * <p>Solo una réplica archiva a la vez: la ejecución toma un lease en DynamoDB, lo renueva tras
+ * cada lote y se detiene si lo pierde. Al arrancar cataloga una vez los segmentos escritos antes
+ * de que existiera el catálogo.
+ */
+@Slf4j
+@Component
+public class AuditoriaRegistroArchivador {
+
+  private final AuditoriaRegistroRepository auditoriaRepository;
+  private final AuditoriaRegistroArchivo archivo;
+  private final String propietario = UUID.randomUUID().toString();
+
+  @Value("${archivo.auditoria.habilitado:true}")
+  private boolean habilitado;
+
+  @Value("${archivo.auditoria.edad-dias:365}")
+  private int edadDias;
+
+  @Value("${archivo.auditoria.gracia-ttl-horas:24}")
+  private int graciaTtlHoras;
+
+  @Value("${archivo.auditoria.lote-maximo:10000}")
+  private int loteMaximo;
+
+  @Value("${archivo.auditoria.lease-ms:600000}")
+  private long leaseMs;
+
+  public AuditoriaRegistroArchivador(
+      AuditoriaRegistroRepository auditoriaRepository, AuditoriaRegistroArchivo archivo) {
+    this.auditoriaRepository = auditoriaRepository;
+    this.archivo = archivo;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void iniciar() {
+    if (!habilitado) {
+      return;
+    }
+    Thread hilo = new Thread(() -> conLease(this::catalogarExistentes), "catalogo-auditoria");
+    hilo.setDaemon(true);
+    hilo.start();
+  }
+
+  @Scheduled(cron = "${archivo.auditoria.cron:0 0 3 * * *}")
+  public void archivar() {
+    if (!habilitado) {
+      return;
+    }
+    conLease(
+        () -> {
+          catalogarExistentes();
+          moverCapaFria();
+        });
+  }
+
+  private void conLease(Runnable tarea) {
+    try {
+      if (!auditoriaRepository.adquirirLeaseArchivado(propietario, leaseMs)) {
+        log.info("Otra réplica tiene el lease del archivador de auditoría");
+        return;
+      }
+    } catch (RuntimeException e) {
+      log.warn("No fue posible tomar el lease del archivador de auditoría: {}", e.getMessage());
+      return;
+    }
+    try {
+      tarea.run();
+    } catch (RuntimeException e) {
+      log.error("Error archivando auditoría: {}", e.getMessage(), e);
+    } finally {
+      auditoriaRepository.liberarLeaseArchivado(propietario);
+    }
+  }
+
+  private void renovarLease() {
+    if (!auditoriaRepository.adquirirLeaseArchivado(propietario, leaseMs)) {
+      throw new IllegalStateException("Lease del archivador de auditoría perdido");
+    }
+  }
+
+  /** Añade al catálogo los segmentos escritos antes de que existiera; solo la primera vez. */
+  private void catalogarExistentes() {
+    if (auditoriaRepository.catalogoSegmentosCompleto()) {
+      return;
+    }
+    AtomicInteger catalogados = new AtomicInteger();
+    archivo.recorrerIndices(
+        (Long cedula, IndiceSegmento indice) -> {
+          auditoriaRepository.registrarSegmento(cedula, indice);
+          if (catalogados.incrementAndGet() % 1000 == 0) {
+            renovarLease();
+          }
+        });
+    auditoriaRepository.marcarCatalogoSegmentosCompleto();
+    log.info("Catálogo de segmentos de auditoría completado: {} segmentos", catalogados.get());
+  }
+
+  private void moverCapaFria() {
+    LocalDateTime limite = LocalDateTime.now().minusDays(edadDias);
+    log.info("Archivando auditoría anterior a {}", limite);
+
+    int archivados = 0;
+    try (Stream<AuditoriaRegistro> candidatos = auditoriaRepository.findArchivables(limite)) {
+      Map<String, List<AuditoriaRegistro>> grupos = new HashMap<>();
+      int pendientes = 0;
+
+      Iterator<AuditoriaRegistro> iterator = candidatos.iterator();
+      while (iterator.hasNext()) {
+        AuditoriaRegistro auditoria = iterator.next();
+        String clave = auditoria.getPk() + "|" + YearMonth.from(auditoria.getFechaAccion());
+        grupos.computeIfAbsent(clave, k -> new ArrayList<>()).add(auditoria);
+
+        // Se vacía por lotes para no acumular todo el scan en memoria
+        if (++pendientes >= loteMaximo) {
+          archivados += vaciar(grupos);
+          pendientes = 0;
+        }
+      }
+      archivados += vaciar(grupos);
+    }
+
+    log.info("Archivado de auditoría completado: {} registros movidos a MinIO", archivados);
+  }
+
+  private int vaciar(Map<String, List<AuditoriaRegistro>> grupos) {
+    long expiraEn = Instant.now().plus(Duration.ofHours(graciaTtlHoras)).getEpochSecond();
+    int total = 0;
+
+    for (List<AuditoriaRegistro> auditorias : grupos.values()) {
+      Long cedula = auditorias.get(0).getCedulaCiudadano();
+      IndiceSegmento indice = archivo.escribirSegmento(cedula, auditorias);
+      auditoriaRepository.registrarSegmento(cedula, indice);
+      auditoriaRepository.marcarArchivados(auditorias, expiraEn);
+      total += auditorias.size();
+    }
+    grupos.clear();
+    renovarLease();
+    return total;
+  }
+}
@@ -5,23 +5,38 @@ import co.edu.eafit.carpeta.ciudadana.registry.client.CarpetaCiudadanaService;
 import co.edu.eafit.carpeta.ciudadana.registry.client.CrearCarpetaRequest;
 import co.edu.eafit.carpeta.ciudadana.registry.client.GovCarpetaResponse;
 import co.edu.eafit.carpeta.ciudadana.registry.client.GovCarpetaService;
+import co.edu.eafit.carpeta.ciudadana.registry.client.GovCarpetaValidacionCache;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.request.DesregistrarCiudadanoRequest;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.request.RegistrarCiudadanoRequest;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.response.AuditoriaRegistroResponse;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.response.RegistroCiudadanoResponse;
+import co.edu.eafit.carpeta.ciudadana.registry.dto.response.TrabajoRegistroResponse;
 import co.edu.eafit.carpeta.ciudadana.registry.dto.response.ValidacionCiudadanoResponse;
+import co.edu.eafit.carpeta.ciudadana.registry.dto.response.VerificacionIntegridadResponse;
 import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
 import co.edu.eafit.carpeta.ciudadana.registry.entity.RegistroCiudadano;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro;
 import co.edu.eafit.carpeta.ciudadana.registry.exception.CiudadanoAlreadyExistsException;
 import co.edu.eafit.carpeta.ciudadana.registry.exception.ExternalServiceException;
 import co.edu.eafit.carpeta.ciudadana.registry.exception.ResourceNotFoundException;
 import co.edu.eafit.carpeta.ciudadana.registry.repository.AuditoriaRegistroRepository;
 import co.edu.eafit.carpeta.ciudadana.registry.repository.RegistroCiudadanoRepository;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.TrabajoRegistroRepository;
 import co.edu.eafit.carpeta.ciudadana.registry.service.CiudadanoRegistryService;
+import co.edu.eafit.carpeta.ciudadana.registry.service.integridad.AuditoriaCadenaWriter;
+import co.edu.eafit.carpeta.ciudadana.registry.service.integridad.VerificadorIntegridadAuditoria;
+import co.edu.eafit.carpeta.ciudadana.registry.service.saga.PublicadorPasosSaga;
+import co.edu.eafit.carpeta.ciudadana.registry.util.EmailCarpetaUtil;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -31,17 +46,35 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
   private final RegistroCiudadanoRepository registroRepository;
   private final AuditoriaRegistroRepository auditoriaRepository;
   private final GovCarpetaService govCarpetaService;
+  private final GovCarpetaValidacionCache validacionCache;
   private final CarpetaCiudadanaService carpetaCiudadanaService;
+  private final AuditoriaCadenaWriter auditoriaCadenaWriter;
+  private final VerificadorIntegridadAuditoria verificadorIntegridad;
+  private final TrabajoRegistroRepository trabajoRepository;
+  private final PublicadorPasosSaga publicadorPasosSaga;
+  private final Duration retencionTrabajos;
 
   public CiudadanoRegistryServiceImpl(
       RegistroCiudadanoRepository registroRepository,
       AuditoriaRegistroRepository auditoriaRepository,
       GovCarpetaService govCarpetaService,
-      CarpetaCiudadanaService carpetaCiudadanaService) {
+      GovCarpetaValidacionCache validacionCache,
+      CarpetaCiudadanaService carpetaCiudadanaService,
+      AuditoriaCadenaWriter auditoriaCadenaWriter,
+      VerificadorIntegridadAuditoria verificadorIntegridad,
+      TrabajoRegistroRepository trabajoRepository,
+      PublicadorPasosSaga publicadorPasosSaga,
+      @Value("${registro.saga.retencion-horas:72}") long retencionHoras) {
     this.registroRepository = registroRepository;
     this.auditoriaRepository = auditoriaRepository;
     this.govCarpetaService = govCarpetaService;
+    this.validacionCache = validacionCache;
     this.carpetaCiudadanaService = carpetaCiudadanaService;
+    this.auditoriaCadenaWriter = auditoriaCadenaWriter;
+    this.verificadorIntegridad = verificadorIntegridad;
+    this.trabajoRepository = trabajoRepository;
+    this.publicadorPasosSaga = publicadorPasosSaga;
+    this.retencionTrabajos = Duration.ofHours(retencionHoras);
   }
 
   @Override
@@ -69,8 +102,8 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
             .build();
       }
 
-      // Consultar API externa de GovCarpeta
-      GovCarpetaResponse response = govCarpetaService.validarCiudadano(cedula);
+      // Consultar GovCarpeta (a través de la caché de validaciones)
+      GovCarpetaResponse response = validacionCache.validarCiudadano(cedula);
 
       // 204 = No Content = Ciudadano NO registrado = Disponible para registro
       // 200 = OK = Ciudadano YA registrado = NO disponible
@@ -130,6 +163,7 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
 
       // Registrar en GovCarpeta
       GovCarpetaResponse govResponse = govCarpetaService.registrarCiudadano(request);
+      validacionCache.invalidar(request.getCedula());
 
       // Manejar respuesta 501 (ciudadano ya registrado) como caso válido
       if (govResponse.getCodigoRespuesta() == 501) {
@@ -169,7 +203,8 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
 
       // Crear registro local
       String emailGenerado =
-          generarEmailCarpeta(request.getNombreCompleto(), request.getCedula().toString());
+          EmailCarpetaUtil.generarEmailCarpeta(
+              request.getNombreCompleto(), request.getCedula().toString());
 
       RegistroCiudadano registro =
           RegistroCiudadano.builder()
@@ -215,6 +250,56 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
     }
   }
 
+  @Override
+  public TrabajoRegistroResponse iniciarRegistroCiudadano(RegistrarCiudadanoRequest request) {
+    log.info("Aceptando registro asíncrono de ciudadano con cédula: {}", request.getCedula());
+
+    // Lectura local y barata; la validación contra GovCarpeta la hace la saga
+    if (registroRepository.findActiveByCedula(request.getCedula()).isPresent()) {
+      throw new CiudadanoAlreadyExistsException(request.getCedula());
+    }
+
+    TrabajoRegistro trabajo =
+        trabajoRepository.crear(
+            TrabajoRegistro.builder()
+                .trabajoId(UUID.randomUUID().toString())
+                .cedula(request.getCedula())
+                .nombreCompleto(request.getNombreCompleto())
+                .direccion(request.getDireccion())
+                .estado(TrabajoRegistro.EstadoTrabajo.EN_CURSO)
+                .paso(TrabajoRegistro.PasoRegistro.REGISTRAR_GOVCARPETA)
+                .build());
+
+    try {
+      publicadorPasosSaga.publicar(trabajo.getTrabajoId(), trabajo.getPaso());
+    } catch (AmqpException e) {
+      log.error(
+          "No se pudo iniciar el trabajo de registro {}: {}",
+          trabajo.getTrabajoId(),
+          e.getMessage());
+      trabajo.setEstado(TrabajoRegistro.EstadoTrabajo.FALLIDO);
+      trabajo.setCodigoRespuesta(503);
+      trabajo.setMensaje("No se pudo encolar el registro");
+      trabajo.setExpiraEn(Instant.now().plus(retencionTrabajos).getEpochSecond());
+      trabajoRepository.actualizar(
+          trabajo,
+          TrabajoRegistro.PasoRegistro.REGISTRAR_GOVCARPETA,
+          TrabajoRegistro.EstadoTrabajo.EN_CURSO);
+      throw new ExternalServiceException("RabbitMQ", e.getMessage(), 503);
+    }
+
+    return mapTrabajoToResponse(trabajo);
+  }
+
+  @Override
+  public TrabajoRegistroResponse obtenerTrabajoRegistro(String trabajoId) {
+    return trabajoRepository
+        .findById(trabajoId)
+        .map(this::mapTrabajoToResponse)
+        .orElseThrow(
+            () -> new ResourceNotFoundException("Trabajo de registro", "trabajoId", trabajoId));
+  }
+
   @Override
   public RegistroCiudadanoResponse desregistrarCiudadano(DesregistrarCiudadanoRequest request) {
     log.info("Desregistrando ciudadano con cédula: {}", request.getCedula());
@@ -228,6 +313,7 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
 
       // Desregistrar en GovCarpeta
       GovCarpetaResponse govResponse = govCarpetaService.desregistrarCiudadano(request);
+      validacionCache.invalidar(request.getCedula());
 
       if (!govResponse.getExitoso()) {
         log.error(
@@ -287,10 +373,9 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
   }
 
   @Override
-  public List<RegistroCiudadanoResponse> obtenerTodosCiudadanos() {
-    return registroRepository.findAllActive().stream()
-        .map(this::mapToResponse)
-        .collect(Collectors.toList());
+  public Stream<RegistroCiudadanoResponse> obtenerTodosCiudadanos() {
+    // map conserva el onClose del Stream del repositorio
+    return registroRepository.findAllActive().map(this::mapToResponse);
   }
 
   @Override
@@ -300,6 +385,11 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
         .collect(Collectors.toList());
   }
 
+  @Override
+  public VerificacionIntegridadResponse verificarIntegridadAuditoria(Long cedula, String id) {
+    return verificadorIntegridad.verificarEntrada(cedula, id);
+  }
+
   @Override
   public String crearCarpetaCiudadana(Long cedula) {
     log.info("Creando carpeta ciudadana para cédula: {}", cedula);
@@ -317,7 +407,9 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
               .cedula(cedula.toString())
               .nombreCompleto(registro.getNombreCompleto())
               .operadorActual("SISTEMA_REGISTRO") // Operador por defecto
-              .emailCarpeta(generarEmailCarpeta(registro.getNombreCompleto(), cedula.toString()))
+              .emailCarpeta(
+                  EmailCarpetaUtil.generarEmailCarpeta(
+                      registro.getNombreCompleto(), cedula.toString()))
               .build();
 
       // Llamar al servicio de carpeta ciudadana
@@ -396,7 +488,7 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
             .fechaAccion(LocalDateTime.now())
             .build();
 
-    auditoriaRepository.save(auditoria);
+    auditoriaCadenaWriter.registrar(auditoria);
   }
 
   private RegistroCiudadanoResponse mapToResponse(RegistroCiudadano registro) {
@@ -414,6 +506,20 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
         .build();
   }
 
+  private TrabajoRegistroResponse mapTrabajoToResponse(TrabajoRegistro trabajo) {
+    return TrabajoRegistroResponse.builder()
+        .trabajoId(trabajo.getTrabajoId())
+        .cedula(trabajo.getCedula())
+        .estado(trabajo.getEstado())
+        .paso(trabajo.getPaso())
+        .carpetaId(trabajo.getCarpetaId())
+        .codigoRespuesta(trabajo.getCodigoRespuesta())
+        .mensaje(trabajo.getMensaje())
+        .fechaCreacion(trabajo.getFechaCreacion())
+        .fechaActualizacion(trabajo.getFechaActualizacion())
+        .build();
+  }
+
   private AuditoriaRegistroResponse mapAuditoriaToResponse(AuditoriaRegistro auditoria) {
     return AuditoriaRegistroResponse.builder()
         .id(auditoria.getPk()) // Usar PK como ID
@@ -430,11 +536,4 @@ public class CiudadanoRegistryServiceImpl implements CiudadanoRegistryService {
         .fechaAccion(auditoria.getFechaAccion())
         .build();
   }
-
-  private String generarEmailCarpeta(String nombreCompleto, String cedula) {
-    String nombreNormalizado =
-        nombreCompleto.toLowerCase().replaceAll("\\s+", ".").replaceAll("[^a-z0-9.]", "");
-
-    return String.format("%s.%s@carpetacolombia.co", nombreNormalizado, cedula);
-  }
 }
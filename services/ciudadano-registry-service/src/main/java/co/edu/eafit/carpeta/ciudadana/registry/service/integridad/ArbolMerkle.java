@@ -0,0 +1,80 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.integridad;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Árbol Merkle binario sobre hashes hexadecimales de entradas de auditoría.
+ *
+ * <p>Hojas y nodos internos usan prefijos distintos (0x00 / 0x01) para que un nodo interno no
+ * pueda hacerse pasar por una hoja. En niveles impares el último nodo se combina consigo mismo.
+ */
+public final class ArbolMerkle {
+
+  private static final byte[] PREFIJO_HOJA = {0x00};
+  private static final byte[] PREFIJO_NODO = {0x01};
+
+  private ArbolMerkle() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static String raiz(List<String> hojas) {
+    if (hojas.isEmpty()) {
+      throw new IllegalArgumentException("Un árbol Merkle necesita al menos una hoja");
+    }
+    List<String> nivel = hojas.stream().map(ArbolMerkle::hoja).toList();
+    while (nivel.size() > 1) {
+      nivel = siguienteNivel(nivel);
+    }
+    return nivel.get(0);
+  }
+
+  /** Hashes hermanos desde la hoja {@code indice} hasta la raíz (log2 n elementos). */
+  public static List<String> prueba(List<String> hojas, int indice) {
+    if (indice < 0 || indice >= hojas.size()) {
+      throw new IndexOutOfBoundsException("Hoja fuera del árbol: " + indice);
+    }
+    List<String> hermanos = new ArrayList<>();
+    List<String> nivel = hojas.stream().map(ArbolMerkle::hoja).toList();
+    int posicion = indice;
+    while (nivel.size() > 1) {
+      int hermano = posicion % 2 == 0 ? Math.min(posicion + 1, nivel.size() - 1) : posicion - 1;
+      hermanos.add(nivel.get(hermano));
+      nivel = siguienteNivel(nivel);
+      posicion /= 2;
+    }
+    return hermanos;
+  }
+
+  /** Comprueba en O(log n) que {@code hashEntrada} ocupa la posición {@code indice}. */
+  public static boolean verificar(
+      String hashEntrada, int indice, List<String> prueba, String raiz) {
+    String actual = hoja(hashEntrada);
+    int posicion = indice;
+    for (String hermano : prueba) {
+      actual = posicion % 2 == 0 ? nodo(actual, hermano) : nodo(hermano, actual);
+      posicion /= 2;
+    }
+    return actual.equals(raiz);
+  }
+
+  private static List<String> siguienteNivel(List<String> nivel) {
+    List<String> siguiente = new ArrayList<>((nivel.size() + 1) / 2);
+    for (int i = 0; i < nivel.size(); i += 2) {
+      String izquierda = nivel.get(i);
+      String derecha = i + 1 < nivel.size() ? nivel.get(i + 1) : izquierda;
+      siguiente.add(nodo(izquierda, derecha));
+    }
+    return siguiente;
+  }
+
+  private static String hoja(String hashEntrada) {
+    return HashAuditoria.sha256(PREFIJO_HOJA, HexFormat.of().parseHex(hashEntrada));
+  }
+
+  private static String nodo(String izquierda, String derecha) {
+    HexFormat hex = HexFormat.of();
+    return HashAuditoria.sha256(PREFIJO_NODO, hex.parseHex(izquierda), hex.parseHex(derecha));
+  }
+}
@@ -0,0 +1,387 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.integridad;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.exception.ExternalServiceException;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.AuditoriaRegistroRepository;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.cadena.CabezaCadena;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.cadena.CheckpointIntegridad;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Escribe la auditoría en segundo plano (write-behind) como cadena de hashes append-only por
+ * ciudadano.
+ *
+ * <p>{@link #registrar} solo encola la entrada en una cola sin bloqueos acotada por un contador
+ * atómico, así que la latencia de las peticiones no incluye la escritura. Un hilo la vacía por
+ * tamaño ({@code lote-maximo}) o por tiempo ({@code espera-maxima-ms}); por cada ciudadano del
+ * lote lee la cabeza de la cadena, encadena las entradas, cierra los checkpoints Merkle que se
+ * completen y lo escribe todo en una transacción condicionada a la cabeza leída.
+ *
+ * <p>Si la cola está llena el llamador espera hasta {@code espera-backpressure-ms}; si sigue
+ * llena se rechaza la entrada con {@link ExternalServiceException} (503), de modo que la presión
+ * llega a los clientes en vez de escribir en el hilo de la petición. Cada tramo de un ciudadano se
+ * reintenta como mucho {@code tiempo-maximo-reintentos-ms}; si no se logra, ese tramo y los
+ * siguientes del ciudadano en el lote se aparcan en {@link AuditoriaPendientes}, que se reinyecta
+ * cada {@code reinyeccion-ms}. Al apagar se vacía la cola y lo que no se escribe se aparca.
+ */
+@Slf4j
+@Component
+public class AuditoriaCadenaWriter {
+
+  /** Entradas por transacción; deja hueco para la cabeza y los checkpoints (límite de 100). */
+  static final int MAX_ENTRADAS_TRANSACCION = 80;
+
+  static final int MIN_TAMANO_CHECKPOINT = 16;
+
+  private static final long ESPERA_COLA_VACIA_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+  private static final long ESPERA_COLA_LLENA_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+  private static final String SERVICIO = "DynamoDB";
+
+  private final AuditoriaRegistroRepository auditoriaRepository;
+  private final AuditoriaPendientes pendientes;
+  private final ConcurrentLinkedQueue<AuditoriaRegistro> cola = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger tamanoCola = new AtomicInteger();
+  private final ExecutorService confirmadores;
+  private final Thread writer;
+  private final int capacidadCola;
+  private final int loteMaximo;
+  private final long esperaMaximaNanos;
+  private final long esperaBackpressureNanos;
+  private final int tamanoCheckpoint;
+  private final long tiempoMaximoReintentosNanos;
+  private final long backoffBaseMs;
+  private final long backoffMaximoMs;
+  private final long flushTimeoutMs;
+  private volatile boolean activo = true;
+
+  public AuditoriaCadenaWriter(
+      AuditoriaRegistroRepository auditoriaRepository,
+      AuditoriaPendientes pendientes,
+      @Value("${auditoria.cadena.capacidad-cola:10000}") int capacidadCola,
+      @Value("${auditoria.cadena.lote-maximo:64}") int loteMaximo,
+      @Value("${auditoria.cadena.espera-maxima-ms:50}") long esperaMaximaMs,
+      @Value("${auditoria.cadena.espera-backpressure-ms:200}") long esperaBackpressureMs,
+      @Value("${auditoria.cadena.tamano-checkpoint:32}") int tamanoCheckpoint,
+      @Value("${auditoria.cadena.tiempo-maximo-reintentos-ms:5000}") long tiempoMaximoReintentosMs,
+      @Value("${auditoria.cadena.backoff-base-ms:50}") long backoffBaseMs,
+      @Value("${auditoria.cadena.backoff-maximo-ms:1000}") long backoffMaximoMs,
+      @Value("${auditoria.cadena.flush-timeout-ms:30000}") long flushTimeoutMs,
+      @Value("${auditoria.cadena.paralelismo:4}") int paralelismo) {
+    this.auditoriaRepository = auditoriaRepository;
+    this.pendientes = pendientes;
+    this.capacidadCola = capacidadCola;
+    this.loteMaximo = Math.max(1, loteMaximo);
+    this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+    this.esperaBackpressureNanos = TimeUnit.MILLISECONDS.toNanos(esperaBackpressureMs);
+    this.tamanoCheckpoint = Math.max(MIN_TAMANO_CHECKPOINT, tamanoCheckpoint);
+    this.tiempoMaximoReintentosNanos = TimeUnit.MILLISECONDS.toNanos(tiempoMaximoReintentosMs);
+    this.backoffBaseMs = backoffBaseMs;
+    this.backoffMaximoMs = backoffMaximoMs;
+    this.flushTimeoutMs = flushTimeoutMs;
+    this.confirmadores = Executors.newFixedThreadPool(paralelismo);
+    this.writer = new Thread(this::ejecutar, "auditoria-cadena-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Encola la entrada y vuelve de inmediato; solo espera si la cola está llena.
+   *
+   * @throws ExternalServiceException si la cola sigue llena tras la espera o el escritor se está
+   *     apagando
+   */
+  public void registrar(AuditoriaRegistro auditoria) {
+    if (!activo) {
+      throw new ExternalServiceException(SERVICIO, "El escritor de auditoría se está apagando");
+    }
+    if (!encolar(auditoria)) {
+      log.warn(
+          "Cola de auditoría llena ({} entradas), se rechaza la entrada del ciudadano {}",
+          tamanoCola.get(),
+          auditoria.getCedulaCiudadano());
+      throw new ExternalServiceException(
+          SERVICIO, "Cola de auditoría llena, intente de nuevo más tarde");
+    }
+  }
+
+  private boolean encolar(AuditoriaRegistro auditoria) {
+    long limite = System.nanoTime() + esperaBackpressureNanos;
+    while (true) {
+      int actual = tamanoCola.get();
+      if (actual < capacidadCola) {
+        if (tamanoCola.compareAndSet(actual, actual + 1)) {
+          cola.offer(auditoria);
+          return true;
+        }
+      } else if (System.nanoTime() >= limite) {
+        return false;
+      } else {
+        LockSupport.parkNanos(ESPERA_COLA_LLENA_NANOS);
+      }
+    }
+  }
+
+  private AuditoriaRegistro siguiente() {
+    AuditoriaRegistro auditoria = cola.poll();
+    if (auditoria != null) {
+      tamanoCola.decrementAndGet();
+    }
+    return auditoria;
+  }
+
+  private void ejecutar() {
+    while (activo || !cola.isEmpty()) {
+      try {
+        AuditoriaRegistro primera = siguiente();
+        if (primera == null) {
+          LockSupport.parkNanos(ESPERA_COLA_VACIA_NANOS);
+          continue;
+        }
+        confirmar(acumularLote(primera));
+      } catch (RuntimeException e) {
+        log.error("Error inesperado en el escritor de auditoría", e);
+      }
+    }
+  }
+
+  /** Completa el lote hasta {@code lote-maximo} entradas o hasta agotar la espera máxima. */
+  private List<AuditoriaRegistro> acumularLote(AuditoriaRegistro primera) {
+    List<AuditoriaRegistro> lote = new ArrayList<>();
+    lote.add(primera);
+    long limite = System.nanoTime() + esperaMaximaNanos;
+
+    while (lote.size() < loteMaximo) {
+      AuditoriaRegistro siguiente = siguiente();
+      if (siguiente != null) {
+        lote.add(siguiente);
+        continue;
+      }
+      long restante = limite - System.nanoTime();
+      if (restante <= 0 || !activo) {
+        break;
+      }
+      LockSupport.parkNanos(Math.min(restante, ESPERA_COLA_LLENA_NANOS));
+    }
+    return lote;
+  }
+
+  /** Confirma cada ciudadano del lote en paralelo; el orden dentro de un ciudadano se respeta. */
+  private void confirmar(List<AuditoriaRegistro> lote) {
+    Map<Long, List<AuditoriaRegistro>> porCiudadano = new LinkedHashMap<>();
+    lote.forEach(
+        a -> porCiudadano.computeIfAbsent(a.getCedulaCiudadano(), k -> new ArrayList<>()).add(a));
+
+    CompletableFuture.allOf(
+            porCiudadano.entrySet().stream()
+                .map(
+                    entrada ->
+                        CompletableFuture.runAsync(
+                            () -> confirmarCiudadano(entrada.getKey(), entrada.getValue()),
+                            confirmadores))
+                .toArray(CompletableFuture[]::new))
+        .join();
+  }
+
+  private void confirmarCiudadano(Long cedula, List<AuditoriaRegistro> entradas) {
+    for (int desde = 0; desde < entradas.size(); desde += MAX_ENTRADAS_TRANSACCION) {
+      List<AuditoriaRegistro> tramo =
+          entradas.subList(desde, Math.min(desde + MAX_ENTRADAS_TRANSACCION, entradas.size()));
+      try {
+        confirmarConReintentos(cedula, tramo);
+      } catch (RuntimeException e) {
+        // El resto del ciudadano también se aparca para no encadenarlo por delante de este tramo
+        List<AuditoriaRegistro> restantes = entradas.subList(desde, entradas.size());
+        log.error(
+            "Auditoría del ciudadano {} sin escribir tras {} ms, se aparcan {} entradas",
+            cedula,
+            TimeUnit.NANOSECONDS.toMillis(tiempoMaximoReintentosNanos),
+            restantes.size(),
+            e);
+        pendientes.aparcar(restantes);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Reintenta hasta agotar {@code tiempo-maximo-reintentos-ms}: la contención se reintenta en el
+   * acto releyendo la cabeza y los fallos de DynamoDB con backoff exponencial con jitter acotado
+   * por {@code backoff-maximo-ms}.
+   */
+  private void confirmarConReintentos(Long cedula, List<AuditoriaRegistro> entradas) {
+    long limite = System.nanoTime() + tiempoMaximoReintentosNanos;
+    // Entradas con SK ya se intentaron escribir (reinyectadas desde pendientes)
+    boolean comprobarEscritas = entradas.stream().anyMatch(a -> a.getSk() != null);
+    int fallos = 0;
+    while (true) {
+      RuntimeException error = null;
+      try {
+        if (anexar(cedula, entradas, comprobarEscritas)) {
+          return;
+        }
+        comprobarEscritas = false;
+      } catch (RuntimeException e) {
+        // Un timeout no dice si la transacción se confirmó: se comprueba en el siguiente intento
+        error = e;
+        comprobarEscritas = true;
+        log.warn(
+            "Error escribiendo auditoría del ciudadano {} (fallo {}): {}",
+            cedula,
+            fallos + 1,
+            e.getMessage());
+      }
+      long restante = limite - System.nanoTime();
+      if (restante <= 0) {
+        throw error != null
+            ? error
+            : new ExternalServiceException(
+                SERVICIO,
+                "No se pudo encadenar la auditoría del ciudadano " + cedula + " por contención");
+      }
+      if (error != null) {
+        esperar(++fallos, restante);
+      }
+    }
+  }
+
+  /**
+   * Encadena las entradas sobre la cabeza actual en un solo intento.
+   *
+   * @return false si otra instancia movió la cabeza y hay que reencadenar
+   */
+  private boolean anexar(
+      Long cedula, List<AuditoriaRegistro> entradas, boolean comprobarEscritas) {
+    if (comprobarEscritas) {
+      entradas = sinEscribir(cedula, entradas);
+      if (entradas.isEmpty()) {
+        return true;
+      }
+    }
+    CabezaCadena cabeza = auditoriaRepository.findCabezaCadena(cedula);
+
+    long secuencia = cabeza.secuencia();
+    String hashAnterior = cabeza.hash();
+    List<String> hojas = new ArrayList<>(cabeza.hojasPendientes());
+    List<CheckpointIntegridad> checkpoints = new ArrayList<>();
+
+    for (AuditoriaRegistro entrada : entradas) {
+      entrada.setSecuencia(++secuencia);
+      entrada.setHashAnterior(hashAnterior);
+      entrada.setHash(HashAuditoria.calcular(entrada));
+      hashAnterior = entrada.getHash();
+      hojas.add(hashAnterior);
+
+      if (hojas.size() == tamanoCheckpoint) {
+        checkpoints.add(
+            new CheckpointIntegridad(
+                secuencia - hojas.size() + 1,
+                secuencia,
+                ArbolMerkle.raiz(hojas),
+                List.copyOf(hojas)));
+        hojas.clear();
+      }
+    }
+
+    CabezaCadena nuevaCabeza = new CabezaCadena(secuencia, hashAnterior, List.copyOf(hojas));
+    return auditoriaRepository.anexarEnCadena(
+        cedula, cabeza.secuencia(), nuevaCabeza, entradas, checkpoints);
+  }
+
+  /**
+   * Quita las entradas que ya están en la tabla: un intento anterior que falló por timeout pudo
+   * haberse confirmado y su SK, asignado en ese intento, no puede volver a escribirse.
+   */
+  private List<AuditoriaRegistro> sinEscribir(Long cedula, List<AuditoriaRegistro> entradas) {
+    List<String> intentadas =
+        entradas.stream().map(AuditoriaRegistro::getSk).filter(sk -> sk != null).toList();
+    if (intentadas.isEmpty()) {
+      return entradas;
+    }
+    Set<String> escritas =
+        auditoriaRepository.findAllByIds(cedula, intentadas).stream()
+            .map(AuditoriaRegistro::getSk)
+            .collect(Collectors.toSet());
+    if (escritas.isEmpty()) {
+      return entradas;
+    }
+    log.info("{} entradas del ciudadano {} ya estaban escritas", escritas.size(), cedula);
+    return entradas.stream().filter(a -> !escritas.contains(a.getSk())).toList();
+  }
+
+  private void esperar(int fallos, long restanteNanos) {
+    long maximo =
+        Math.min(
+            Math.min(backoffMaximoMs, backoffBaseMs * (1L << Math.min(fallos, 10))),
+            TimeUnit.NANOSECONDS.toMillis(restanteNanos));
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(maximo + 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExternalServiceException(SERVICIO, "Interrumpido reintentando la auditoría");
+    }
+  }
+
+  /**
+   * Devuelve a la cola la auditoría aparcada, sin pasar de la mitad de la capacidad para no
+   * competir con las peticiones. Lo que vuelva a fallar se aparca de nuevo.
+   */
+  @Scheduled(
+      fixedDelayString = "${auditoria.cadena.reinyeccion-ms:300000}",
+      initialDelayString = "${auditoria.cadena.reinyeccion-ms:300000}")
+  public void reinyectar() {
+    int reinyectadas = 0;
+    try {
+      while (activo && tamanoCola.get() < capacidadCola / 2) {
+        AuditoriaRegistro auditoria = pendientes.siguiente();
+        if (auditoria == null) {
+          break;
+        }
+        if (!encolar(auditoria)) {
+          pendientes.aparcar(List.of(auditoria));
+          break;
+        }
+        reinyectadas++;
+      }
+    } catch (RuntimeException e) {
+      log.warn("No se pudo leer la auditoría aparcada: {}", e.getMessage());
+    }
+    if (reinyectadas > 0) {
+      log.info("Reinyectadas {} entradas de auditoría aparcadas", reinyectadas);
+    }
+  }
+
+  /** Deja de aceptar entradas y espera a que el escritor vacíe la cola. */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    activo = false;
+    LockSupport.unpark(writer);
+    writer.join(flushTimeoutMs);
+    List<AuditoriaRegistro> sinEscribir = new ArrayList<>();
+    for (AuditoriaRegistro auditoria = siguiente(); auditoria != null; auditoria = siguiente()) {
+      sinEscribir.add(auditoria);
+    }
+    if (!sinEscribir.isEmpty()) {
+      log.warn("Apagado con {} entradas de auditoría sin escribir, se aparcan", sinEscribir.size());
+      pendientes.aparcar(sinEscribir);
+    }
+    confirmadores.shutdown();
+  }
+}
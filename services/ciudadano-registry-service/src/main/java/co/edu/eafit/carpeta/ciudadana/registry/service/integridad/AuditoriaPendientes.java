@@ -0,0 +1,51 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.integridad;
+
+import co.edu.eafit.carpeta.ciudadana.registry.config.RabbitMQConfig;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cola durable donde {@link AuditoriaCadenaWriter} aparca la auditoría que no pudo encadenar dentro
+ * del tiempo máximo de reintentos, para reinyectarla más tarde en lugar de perderla.
+ *
+ * <p>Es una cola de RabbitMQ y no una tabla para no depender del mismo almacén que acaba de fallar.
+ * Cada entrada es un mensaje, en el orden en que se aparcó.
+ */
+@Slf4j
+@Component
+public class AuditoriaPendientes {
+
+  private static final ParameterizedTypeReference<AuditoriaRegistro> TIPO =
+      new ParameterizedTypeReference<>() {};
+
+  private final RabbitTemplate rabbitTemplate;
+
+  public AuditoriaPendientes(RabbitTemplate rabbitTemplate) {
+    this.rabbitTemplate = rabbitTemplate;
+  }
+
+  /** Aparca las entradas en orden; si RabbitMQ tampoco responde solo queda el log. */
+  public void aparcar(List<AuditoriaRegistro> entradas) {
+    for (AuditoriaRegistro entrada : entradas) {
+      try {
+        rabbitTemplate.convertAndSend("", RabbitMQConfig.QUEUE_AUDITORIA_PENDIENTE, entrada);
+      } catch (AmqpException e) {
+        log.error(
+            "Auditoría del ciudadano {} perdida, no se pudo aparcar: {}",
+            entrada.getCedulaCiudadano(),
+            entrada,
+            e);
+      }
+    }
+  }
+
+  /** Retira la siguiente entrada aparcada, o null si no hay ninguna. */
+  public AuditoriaRegistro siguiente() {
+    return rabbitTemplate.receiveAndConvert(RabbitMQConfig.QUEUE_AUDITORIA_PENDIENTE, TIPO);
+  }
+}
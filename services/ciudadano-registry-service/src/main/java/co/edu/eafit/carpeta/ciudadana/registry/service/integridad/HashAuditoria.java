@@ -0,0 +1,64 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.integridad;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hash SHA-256 de una entrada de auditoría encadenada.
+ *
+ * <p>Cada campo se serializa con su longitud delante, de modo que dos contenidos distintos nunca
+ * producen la misma representación. No incluye PK/SK ni expiraEn: la identidad de la entrada es
+ * (cédula, secuencia) y el TTL cambia al archivar.
+ */
+public final class HashAuditoria {
+
+  private HashAuditoria() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static String calcular(AuditoriaRegistro auditoria) {
+    StringBuilder canonico = new StringBuilder(256);
+    agregar(canonico, auditoria.getCedulaCiudadano());
+    agregar(canonico, auditoria.getSecuencia());
+    agregar(canonico, auditoria.getHashAnterior());
+    agregar(canonico, auditoria.getAccion() != null ? auditoria.getAccion().name() : null);
+    agregar(canonico, auditoria.getOperadorId());
+    agregar(canonico, auditoria.getOperadorNombre());
+    agregar(canonico, auditoria.getResultado());
+    agregar(canonico, auditoria.getCodigoRespuesta());
+    agregar(canonico, auditoria.getMensajeRespuesta());
+    agregar(canonico, auditoria.getDetallesAdicionales());
+    agregar(canonico, auditoria.getIpOrigen());
+    agregar(canonico, auditoria.getUserAgent());
+    agregar(canonico, auditoria.getFechaAccion());
+    return sha256(canonico.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String sha256(byte[]... partes) {
+    MessageDigest digest = nuevoDigest();
+    for (byte[] parte : partes) {
+      digest.update(parte);
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static void agregar(StringBuilder canonico, Object valor) {
+    if (valor == null) {
+      canonico.append("-;");
+      return;
+    }
+    String texto = valor.toString();
+    canonico.append(texto.length()).append(':').append(texto).append(';');
+  }
+
+  private static MessageDigest nuevoDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 no disponible", e);
+    }
+  }
+}
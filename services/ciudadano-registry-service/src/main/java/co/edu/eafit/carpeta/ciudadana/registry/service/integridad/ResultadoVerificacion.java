@@ -0,0 +1,12 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.integridad;
+
+import java.util.List;
+
+/** Resultado de verificar la cadena completa de auditoría de un ciudadano. */
+public record ResultadoVerificacion(
+    Long cedulaCiudadano, long entradas, int checkpoints, List<String> errores) {
+
+  public boolean valida() {
+    return errores.isEmpty();
+  }
+}
@@ -0,0 +1,234 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.integridad;
+
+import co.edu.eafit.carpeta.ciudadana.registry.dto.response.VerificacionIntegridadResponse;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.exception.ResourceNotFoundException;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.AuditoriaRegistroRepository;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.cadena.CabezaCadena;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.cadena.CheckpointIntegridad;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifica la integridad de la cadena de hashes de la auditoría.
+ *
+ * <p>Una entrada suelta se comprueba recalculando su hash y validando su prueba Merkle contra la
+ * raíz del checkpoint que la cubre, sin recorrer la cadena. El job programado recorre todas las
+ * cadenas en paralelo y comprueba secuencia, enlaces, hashes, cabeza y raíces de los checkpoints.
+ */
+@Slf4j
+@Component
+public class VerificadorIntegridadAuditoria {
+
+  private final AuditoriaRegistroRepository auditoriaRepository;
+
+  @Value("${auditoria.cadena.verificacion.habilitada:true}")
+  private boolean habilitada;
+
+  @Value("${auditoria.cadena.verificacion.paralelismo:4}")
+  private int paralelismo;
+
+  public VerificadorIntegridadAuditoria(AuditoriaRegistroRepository auditoriaRepository) {
+    this.auditoriaRepository = auditoriaRepository;
+  }
+
+  /** Verifica una entrada contra el checkpoint que la cubre (o contra la cabeza si aún no hay). */
+  public VerificacionIntegridadResponse verificarEntrada(Long cedula, String id) {
+    AuditoriaRegistro entrada = buscarEntrada(cedula, id);
+
+    VerificacionIntegridadResponse.VerificacionIntegridadResponseBuilder respuesta =
+        VerificacionIntegridadResponse.builder()
+            .id(entrada.getSk())
+            .cedulaCiudadano(cedula)
+            .secuencia(entrada.getSecuencia())
+            .hash(entrada.getHash());
+
+    if (entrada.getSecuencia() == null) {
+      return respuesta.valida(false).mensaje("Entrada anterior a la cadena de hashes").build();
+    }
+    String recalculado = HashAuditoria.calcular(entrada);
+    if (!recalculado.equals(entrada.getHash())) {
+      return respuesta.valida(false).mensaje("El contenido no coincide con su hash").build();
+    }
+
+    Optional<CheckpointIntegridad> checkpoint =
+        auditoriaRepository.findCheckpoint(cedula, entrada.getSecuencia());
+    if (checkpoint.isEmpty()) {
+      return verificarPendiente(entrada, recalculado, respuesta);
+    }
+
+    CheckpointIntegridad cp = checkpoint.get();
+    int indice = cp.indiceDe(entrada.getSecuencia());
+    List<String> prueba = ArbolMerkle.prueba(cp.hojas(), indice);
+    boolean valida = ArbolMerkle.verificar(recalculado, indice, prueba, cp.raiz());
+
+    return respuesta
+        .valida(valida)
+        .mensaje(valida ? "Entrada íntegra" : "La prueba Merkle no coincide con el checkpoint")
+        .secuenciaInicioCheckpoint(cp.secuenciaInicio())
+        .secuenciaFinCheckpoint(cp.secuenciaFin())
+        .raizCheckpoint(cp.raiz())
+        .pruebaMerkle(prueba)
+        .build();
+  }
+
+  /** Entradas posteriores al último checkpoint: se comparan con las hojas pendientes. */
+  private VerificacionIntegridadResponse verificarPendiente(
+      AuditoriaRegistro entrada,
+      String recalculado,
+      VerificacionIntegridadResponse.VerificacionIntegridadResponseBuilder respuesta) {
+    CabezaCadena cabeza = auditoriaRepository.findCabezaCadena(entrada.getCedulaCiudadano());
+    long primeraPendiente = cabeza.secuencia() - cabeza.hojasPendientes().size() + 1;
+    long indice = entrada.getSecuencia() - primeraPendiente;
+
+    boolean valida =
+        indice >= 0
+            && indice < cabeza.hojasPendientes().size()
+            && cabeza.hojasPendientes().get((int) indice).equals(recalculado);
+    return respuesta
+        .valida(valida)
+        .mensaje(
+            valida
+                ? "Entrada íntegra (pendiente de checkpoint)"
+                : "La entrada no coincide con la cabeza de la cadena")
+        .build();
+  }
+
+  private AuditoriaRegistro buscarEntrada(Long cedula, String id) {
+    return auditoriaRepository.findAllByIds(cedula, List.of(id)).stream()
+        .findFirst()
+        // Las entradas archivadas solo están en la capa fría
+        .or(
+            () ->
+                auditoriaRepository.findByCedulaCiudadanoOrderByFechaAccionDesc(cedula).stream()
+                    .filter(a -> id.equals(a.getSk()))
+                    .findFirst())
+        .orElseThrow(() -> new ResourceNotFoundException("Auditoría", "id", id));
+  }
+
+  /**
+   * Verifica la cadena completa de un ciudadano. La cabeza y los checkpoints se leen antes que
+   * las entradas, y las entradas posteriores a la cabeza leída se ignoran, para no dar falsos
+   * positivos con escrituras concurrentes.
+   */
+  public ResultadoVerificacion verificarCadena(Long cedula) {
+    CabezaCadena cabeza = auditoriaRepository.findCabezaCadena(cedula);
+    List<CheckpointIntegridad> checkpoints = auditoriaRepository.findCheckpoints(cedula);
+    List<AuditoriaRegistro> cadena =
+        auditoriaRepository.findByCedulaCiudadanoOrderByFechaAccionDesc(cedula).stream()
+            .filter(a -> a.getSecuencia() != null && a.getSecuencia() <= cabeza.secuencia())
+            .sorted(Comparator.comparing(AuditoriaRegistro::getSecuencia))
+            .toList();
+
+    List<String> errores = new ArrayList<>();
+    Map<Long, String> hashPorSecuencia = new HashMap<>();
+    String hashAnterior = CabezaCadena.HASH_GENESIS;
+    long esperada = 1;
+
+    for (AuditoriaRegistro entrada : cadena) {
+      long secuencia = entrada.getSecuencia();
+      if (secuencia != esperada) {
+        errores.add("Secuencia " + secuencia + " encontrada donde se esperaba " + esperada);
+      }
+      if (!hashAnterior.equals(entrada.getHashAnterior())) {
+        errores.add("Enlace roto en la secuencia " + secuencia);
+      }
+      if (!HashAuditoria.calcular(entrada).equals(entrada.getHash())) {
+        errores.add("Contenido alterado en la secuencia " + secuencia);
+      }
+      hashPorSecuencia.put(secuencia, entrada.getHash());
+      hashAnterior = entrada.getHash();
+      esperada = secuencia + 1;
+    }
+
+    // Detecta truncado: la última entrada debe ser la que apunta la cabeza
+    if (esperada - 1 != cabeza.secuencia() || !hashAnterior.equals(cabeza.hash())) {
+      errores.add(
+          "La cabeza apunta a la secuencia " + cabeza.secuencia() + " pero la cadena termina en "
+              + (esperada - 1));
+    }
+
+    for (CheckpointIntegridad checkpoint : checkpoints) {
+      List<String> hojas = new ArrayList<>();
+      for (long s = checkpoint.secuenciaInicio(); s <= checkpoint.secuenciaFin(); s++) {
+        String hash = hashPorSecuencia.get(s);
+        if (hash != null) {
+          hojas.add(hash);
+        }
+      }
+      if (hojas.size() != checkpoint.hojas().size()
+          || !ArbolMerkle.raiz(hojas).equals(checkpoint.raiz())) {
+        errores.add(
+            "Checkpoint " + checkpoint.secuenciaInicio() + "-" + checkpoint.secuenciaFin()
+                + " no coincide con las entradas");
+      }
+    }
+
+    return new ResultadoVerificacion(cedula, cadena.size(), checkpoints.size(), errores);
+  }
+
+  @Scheduled(cron = "${auditoria.cadena.verificacion.cron:0 30 4 * * *}")
+  public void verificarTodas() {
+    if (!habilitada) {
+      return;
+    }
+    log.info("Verificando integridad de las cadenas de auditoría");
+
+    ExecutorService pool = Executors.newFixedThreadPool(paralelismo);
+    // Acota las cadenas en vuelo para que el scan no adelante a los verificadores
+    Semaphore enVuelo = new Semaphore(paralelismo * 2);
+    AtomicInteger verificadas = new AtomicInteger();
+    AtomicInteger invalidas = new AtomicInteger();
+
+    try (Stream<Long> cedulas = auditoriaRepository.streamCedulasConCadena()) {
+      cedulas.forEach(
+          cedula -> {
+            enVuelo.acquireUninterruptibly();
+            pool.execute(
+                () -> {
+                  try {
+                    ResultadoVerificacion resultado = verificarCadena(cedula);
+                    verificadas.incrementAndGet();
+                    if (!resultado.valida()) {
+                      invalidas.incrementAndGet();
+                      log.error(
+                          "Cadena de auditoría del ciudadano {} comprometida: {}",
+                          cedula,
+                          resultado.errores());
+                    }
+                  } catch (RuntimeException e) {
+                    log.error("Error verificando la cadena del ciudadano {}", cedula, e);
+                  } finally {
+                    enVuelo.release();
+                  }
+                });
+          });
+    } finally {
+      pool.shutdown();
+      try {
+        pool.awaitTermination(1, TimeUnit.HOURS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    log.info(
+        "Verificación de auditoría completada: {} cadenas, {} con errores",
+        verificadas.get(),
+        invalidas.get());
+  }
+}
@@ -0,0 +1,100 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.migracion;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.RegistroCiudadano;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.RegistroCiudadanoRepository;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.schema.RegistroCiudadanoTableSchema;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rellena activoIndice en los registros activos que no lo tienen o que conservan un valor anterior
+ * al particionado (el marcador único ACTIVO), para que el GSI disperso de activos los incluya.
+ *
+ * <p>Se ejecuta al arrancar, en un hilo aparte para no retrasar el arranque, hasta que una
+ * réplica la completa: entonces deja una marca en la tabla y los arranques siguientes solo leen esa
+ * marca. El scan se limita a las RCUs de {@code
+ * registro.migracion.indice-activos.capacidad-lectura-por-segundo} para no competir con el tráfico.
+ * Cada actualización es condicional y solo escribe activoIndice, así que es idempotente: varias
+ * réplicas pueden ejecutarla a la vez. Puede desactivarse con {@code
+ * registro.migracion.indice-activos.habilitada}.
+ */
+@Slf4j
+@Component
+public class MigracionIndiceActivos {
+
+  static final String MIGRACION = "INDICE_ACTIVOS_PARTICIONADO";
+
+  private final RegistroCiudadanoRepository registroRepository;
+  private final boolean habilitada;
+  private final double capacidadLecturaPorSegundo;
+
+  public MigracionIndiceActivos(
+      RegistroCiudadanoRepository registroRepository,
+      @Value("${registro.migracion.indice-activos.habilitada:true}") boolean habilitada,
+      @Value("${registro.migracion.indice-activos.capacidad-lectura-por-segundo:200}")
+          double capacidadLecturaPorSegundo) {
+    this.registroRepository = registroRepository;
+    this.habilitada = habilitada;
+    this.capacidadLecturaPorSegundo = capacidadLecturaPorSegundo;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void iniciar() {
+    if (!habilitada) {
+      return;
+    }
+    Thread hilo = new Thread(this::migrar, "migracion-indice-activos");
+    hilo.setDaemon(true);
+    hilo.start();
+  }
+
+  void migrar() {
+    AtomicLong revisados = new AtomicLong();
+    AtomicLong actualizados = new AtomicLong();
+    try {
+      if (registroRepository.migracionCompleta(MIGRACION)) {
+        log.debug("Migración de activoIndice ya completada");
+        return;
+      }
+    } catch (Exception e) {
+      log.error("No se pudo leer la marca de la migración de activoIndice", e);
+      return;
+    }
+
+    try (Stream<RegistroCiudadano> registros =
+        registroRepository.streamAll(capacidadLecturaPorSegundo)) {
+      registros
+          .peek(r -> revisados.incrementAndGet())
+          .filter(MigracionIndiceActivos::requiereMigracion)
+          .forEach(
+              registro -> {
+                if (registroRepository.reindexarActivo(registro.getCedula())) {
+                  actualizados.incrementAndGet();
+                }
+              });
+      registroRepository.marcarMigracionCompleta(MIGRACION);
+      log.info(
+          "Migración de activoIndice terminada: {} registros revisados, {} actualizados",
+          revisados.get(),
+          actualizados.get());
+    } catch (Exception e) {
+      // Se reintenta en el siguiente arranque; las consultas de activos omiten los no migrados
+      log.error(
+          "Migración de activoIndice interrumpida tras {} registros revisados y {} actualizados",
+          revisados.get(),
+          actualizados.get(),
+          e);
+    }
+  }
+
+  private static boolean requiereMigracion(RegistroCiudadano registro) {
+    return Boolean.TRUE.equals(registro.getActivo())
+        && !RegistroCiudadanoTableSchema.marcadorActivo(registro.getCedula())
+            .equals(registro.getActivoIndice());
+  }
+}
@@ -0,0 +1,16 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.saga;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Paso pendiente de un trabajo de registro; los datos del ciudadano están en el trabajo. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PasoSagaEvent {
+
+  private String trabajoId;
+  private TrabajoRegistro.PasoRegistro paso;
+}
@@ -0,0 +1,114 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.saga;
+
+import co.edu.eafit.carpeta.ciudadana.registry.config.RabbitMQConfig;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.event.PublicadorConfirmado;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publica los pasos de la saga con publisher confirms y espera el confirm: cuando un método
+ * vuelve, el broker ya tiene el mensaje. Si no se confirma lanza {@link AmqpException}; el paso
+ * queda pendiente en el trabajo y lo retoma el reintento del mensaje actual o {@link
+ * ReanudadorTrabajosRegistro}.
+ */
+@Slf4j
+@Component
+public class PublicadorPasosSaga {
+
+  private static final String HEADER_ERROR = "x-error";
+  private static final int LARGO_MAXIMO_ERROR = 500;
+
+  private final RabbitTemplate rabbitTemplate;
+  private final PublicadorConfirmado publicadorConfirmado;
+  private final List<Long> retrasosMs;
+
+  public PublicadorPasosSaga(
+      RabbitTemplate rabbitTemplate,
+      PublicadorConfirmado publicadorConfirmado,
+      @Value("${registro.saga.reintentos.retrasos-ms:2000,4000,8000,16000}")
+          List<Long> retrasosMs) {
+    this.rabbitTemplate = rabbitTemplate;
+    this.publicadorConfirmado = publicadorConfirmado;
+    this.retrasosMs = List.copyOf(retrasosMs);
+  }
+
+  public void publicar(String trabajoId, TrabajoRegistro.PasoRegistro paso) {
+    log.debug("Publicando paso {} del trabajo de registro {}", paso, trabajoId);
+    esperar(
+        publicadorConfirmado.publicar(
+            RabbitMQConfig.EXCHANGE_SAGA,
+            RabbitMQConfig.ROUTING_KEY_PASO,
+            mensaje(new PasoSagaEvent(trabajoId, paso))));
+  }
+
+  /**
+   * Publica el paso en la cola de retraso de su siguiente intento, con el retraso como TTL del
+   * mensaje, o en registro.saga.pasos.dlq si ya agotó los intentos. Si la publicación falla o no
+   * se confirma, la excepción llega al contenedor, que rechaza el mensaje original hacia la misma
+   * DLQ.
+   *
+   * @param reintentos Reintentos que ya lleva el paso (0 en la primera ejecución)
+   */
+  public void reintentar(PasoSagaEvent evento, int reintentos, RuntimeException causa) {
+    String error = String.valueOf(causa.getMessage());
+    String errorRecortado =
+        error.length() > LARGO_MAXIMO_ERROR ? error.substring(0, LARGO_MAXIMO_ERROR) : error;
+    int intento = reintentos + 1;
+
+    if (intento > retrasosMs.size()) {
+      log.error(
+          "Paso {} del trabajo de registro {} enviado a {} tras {} reintentos: {}",
+          evento.getPaso(),
+          evento.getTrabajoId(),
+          RabbitMQConfig.QUEUE_PASOS_DLQ,
+          reintentos,
+          error);
+      Message mensaje = mensaje(evento);
+      mensaje.getMessageProperties().setHeader(RabbitMQConfig.HEADER_REINTENTOS, reintentos);
+      mensaje.getMessageProperties().setHeader(HEADER_ERROR, errorRecortado);
+      esperar(publicadorConfirmado.publicar("", RabbitMQConfig.QUEUE_PASOS_DLQ, mensaje));
+      return;
+    }
+
+    long retraso = retrasosMs.get(intento - 1);
+    log.warn(
+        "Paso {} del trabajo de registro {} reintentará en {} ms (intento {}): {}",
+        evento.getPaso(),
+        evento.getTrabajoId(),
+        retraso,
+        intento,
+        error);
+    Message mensaje = mensaje(evento);
+    mensaje.getMessageProperties().setHeader(RabbitMQConfig.HEADER_REINTENTOS, intento);
+    mensaje.getMessageProperties().setHeader(HEADER_ERROR, errorRecortado);
+    mensaje.getMessageProperties().setExpiration(String.valueOf(retraso));
+    esperar(publicadorConfirmado.publicar("", RabbitMQConfig.colaReintento(intento), mensaje));
+  }
+
+  /** Mensaje persistente con el trabajo y el paso como messageId. */
+  private Message mensaje(PasoSagaEvent evento) {
+    MessageProperties propiedades = new MessageProperties();
+    propiedades.setMessageId(evento.getTrabajoId() + ":" + evento.getPaso());
+    return rabbitTemplate.getMessageConverter().toMessage(evento, propiedades);
+  }
+
+  private static void esperar(CompletableFuture<Void> confirmacion) {
+    try {
+      confirmacion.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof AmqpException causa) {
+        throw causa;
+      }
+      throw new AmqpException(e.getCause());
+    }
+  }
+}
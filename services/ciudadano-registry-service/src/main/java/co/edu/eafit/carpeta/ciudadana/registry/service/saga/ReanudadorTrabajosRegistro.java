@@ -0,0 +1,93 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.saga;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.TrabajoRegistroRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Barrido de trabajos de registro atascados: EN_CURSO o COMPENSANDO y sin cambios desde hace más
+ * de registro.saga.reanudacion.atascado-tras-ms. Ocurre si el paso pendiente se perdió, p. ej. si
+ * el servicio cayó entre guardar el trabajo y publicar el paso o si el paso agotó sus reintentos.
+ *
+ * <p>Cada trabajo se reanuda con una escritura condicional sobre su fechaActualizacion antes de
+ * republicar su paso, así que solo lo reanuda una réplica; un paso repetido es inocuo porque los
+ * pasos son idempotentes. Tras max-reanudaciones el trabajo se deja para revisión manual.
+ */
+@Slf4j
+@Component
+public class ReanudadorTrabajosRegistro {
+
+  private final TrabajoRegistroRepository trabajoRepository;
+  private final PublicadorPasosSaga publicador;
+  private final Duration atascadoTras;
+  private final int maxReanudaciones;
+
+  public ReanudadorTrabajosRegistro(
+      TrabajoRegistroRepository trabajoRepository,
+      PublicadorPasosSaga publicador,
+      @Value("${registro.saga.reanudacion.atascado-tras-ms:300000}") long atascadoTrasMs,
+      @Value("${registro.saga.reanudacion.max-reanudaciones:3}") int maxReanudaciones) {
+    this.trabajoRepository = trabajoRepository;
+    this.publicador = publicador;
+    this.atascadoTras = Duration.ofMillis(atascadoTrasMs);
+    this.maxReanudaciones = maxReanudaciones;
+  }
+
+  @Scheduled(
+      fixedDelayString = "${registro.saga.reanudacion.intervalo-ms:60000}",
+      initialDelayString = "${registro.saga.reanudacion.intervalo-ms:60000}")
+  public void reanudarAtascados() {
+    LocalDateTime limite = LocalDateTime.now().minus(atascadoTras);
+    int reanudados = 0;
+    try (Stream<TrabajoRegistro> atascados =
+        trabajoRepository.findAtascados(limite, maxReanudaciones)) {
+      Iterator<TrabajoRegistro> iterator = atascados.iterator();
+      while (iterator.hasNext()) {
+        if (reanudar(iterator.next())) {
+          reanudados++;
+        }
+      }
+    } catch (RuntimeException e) {
+      log.error("Error buscando trabajos de registro atascados: {}", e.getMessage(), e);
+    }
+    if (reanudados > 0) {
+      log.info("Trabajos de registro atascados reanudados: {}", reanudados);
+    }
+  }
+
+  private boolean reanudar(TrabajoRegistro trabajo) {
+    LocalDateTime leida = trabajo.getFechaActualizacion();
+    int reanudacion = (trabajo.getReanudaciones() != null ? trabajo.getReanudaciones() : 0) + 1;
+    trabajo.setReanudaciones(reanudacion);
+    if (!trabajoRepository.reanudar(trabajo, leida)) {
+      log.debug("Trabajo de registro {} avanzó o lo reanudó otra réplica", trabajo.getTrabajoId());
+      return false;
+    }
+
+    log.warn(
+        "Reanudando trabajo de registro {} en el paso {} ({} de {})",
+        trabajo.getTrabajoId(),
+        trabajo.getPaso(),
+        reanudacion,
+        maxReanudaciones);
+    try {
+      publicador.publicar(trabajo.getTrabajoId(), trabajo.getPaso());
+      return true;
+    } catch (AmqpException e) {
+      // Sigue atascado: el siguiente barrido lo vuelve a intentar
+      log.warn(
+          "No se pudo republicar el paso del trabajo de registro {}: {}",
+          trabajo.getTrabajoId(),
+          e.getMessage());
+      return false;
+    }
+  }
+}
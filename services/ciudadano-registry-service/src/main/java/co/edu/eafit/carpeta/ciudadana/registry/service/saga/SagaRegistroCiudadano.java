@@ -0,0 +1,503 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.saga;
+
+import co.edu.eafit.carpeta.ciudadana.registry.client.CarpetaCiudadanaResponse;
+import co.edu.eafit.carpeta.ciudadana.registry.client.CarpetaCiudadanaService;
+import co.edu.eafit.carpeta.ciudadana.registry.client.GovCarpetaResponse;
+import co.edu.eafit.carpeta.ciudadana.registry.client.GovCarpetaService;
+import co.edu.eafit.carpeta.ciudadana.registry.client.GovCarpetaValidacionCache;
+import co.edu.eafit.carpeta.ciudadana.registry.config.RabbitMQConfig;
+import co.edu.eafit.carpeta.ciudadana.registry.dto.request.DesregistrarCiudadanoRequest;
+import co.edu.eafit.carpeta.ciudadana.registry.dto.request.RegistrarCiudadanoRequest;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.RegistroCiudadano;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro.EstadoTrabajo;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.TrabajoRegistro.PasoRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.exception.ResourceNotFoundException;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.RegistroCiudadanoRepository;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.TrabajoRegistroRepository;
+import co.edu.eafit.carpeta.ciudadana.registry.service.CiudadanoRegistryService;
+import co.edu.eafit.carpeta.ciudadana.registry.service.integridad.AuditoriaCadenaWriter;
+import co.edu.eafit.carpeta.ciudadana.registry.util.EmailCarpetaUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * Saga del registro asíncrono de ciudadanos. Cada mensaje ejecuta el paso pendiente de un trabajo:
+ *
+ * <ol>
+ *   <li>REGISTRAR_GOVCARPETA: si GovCarpeta rechaza el registro, el trabajo termina FALLIDO sin
+ *       nada que deshacer. Si la llamada falla sin respuesta clara (excepción, timeout, 5xx), se
+ *       comprueba en GovCarpeta si el registro se hizo: registrado sigue la saga, no registrado
+ *       termina FALLIDO y sin poder comprobarlo se compensa desregistrando.
+ *   <li>GUARDAR_REGISTRO: si falla, se compensa desregistrando en GovCarpeta.
+ *   <li>CREAR_CARPETA: si falla, se compensa desactivando el registro local y desregistrando en
+ *       GovCarpeta.
+ * </ol>
+ *
+ * <p>El trabajo se guarda con escritura condicional sobre el paso y el estado esperados antes de
+ * publicar el siguiente paso, así que un mensaje duplicado no avanza la saga dos veces. Los pasos
+ * con llamadas externas son idempotentes para cuando se repiten: antes de llamar a GovCarpeta el
+ * trabajo guarda que lo intentó, y en una repetición el 501 (ya registrado) cuenta como éxito;
+ * CREAR_CARPETA busca primero la carpeta del ciudadano y solo la crea si no existe.
+ *
+ * <p>Un error inesperado (p. ej. DynamoDB) se reintenta con retraso por las colas
+ * registro.saga.pasos.queue.retry.N (ver {@link PublicadorPasosSaga#reintentar}) sin ocupar el
+ * hilo del listener. La publicación del siguiente paso espera el confirm del broker: si falla, el
+ * paso actual se reintenta y, como el trabajo ya avanzó, solo se vuelve a publicar el paso
+ * pendiente. Un paso perdido igualmente (p. ej. el servicio cayó tras guardar el trabajo) lo
+ * republica {@link ReanudadorTrabajosRegistro}.
+ */
+@Slf4j
+@Component
+public class SagaRegistroCiudadano {
+
+  private static final String MOTIVO_COMPENSACION = "Compensación de registro asíncrono fallido";
+
+  private final TrabajoRegistroRepository trabajoRepository;
+  private final RegistroCiudadanoRepository registroRepository;
+  private final GovCarpetaService govCarpetaService;
+  private final GovCarpetaValidacionCache validacionCache;
+  private final CarpetaCiudadanaService carpetaCiudadanaService;
+  private final CiudadanoRegistryService ciudadanoRegistryService;
+  private final AuditoriaCadenaWriter auditoriaCadenaWriter;
+  private final PublicadorPasosSaga publicador;
+  private final MeterRegistry meterRegistry;
+  private final Duration retencion;
+
+  public SagaRegistroCiudadano(
+      TrabajoRegistroRepository trabajoRepository,
+      RegistroCiudadanoRepository registroRepository,
+      GovCarpetaService govCarpetaService,
+      GovCarpetaValidacionCache validacionCache,
+      CarpetaCiudadanaService carpetaCiudadanaService,
+      CiudadanoRegistryService ciudadanoRegistryService,
+      AuditoriaCadenaWriter auditoriaCadenaWriter,
+      PublicadorPasosSaga publicador,
+      MeterRegistry meterRegistry,
+      @Value("${registro.saga.retencion-horas:72}") long retencionHoras) {
+    this.trabajoRepository = trabajoRepository;
+    this.registroRepository = registroRepository;
+    this.govCarpetaService = govCarpetaService;
+    this.validacionCache = validacionCache;
+    this.carpetaCiudadanaService = carpetaCiudadanaService;
+    this.ciudadanoRegistryService = ciudadanoRegistryService;
+    this.auditoriaCadenaWriter = auditoriaCadenaWriter;
+    this.publicador = publicador;
+    this.meterRegistry = meterRegistry;
+    this.retencion = Duration.ofHours(retencionHoras);
+  }
+
+  @RabbitListener(queues = RabbitMQConfig.QUEUE_PASOS)
+  public void recibir(
+      PasoSagaEvent evento,
+      @Header(name = RabbitMQConfig.HEADER_REINTENTOS, required = false) Integer reintentos) {
+    try {
+      procesar(evento);
+    } catch (RuntimeException e) {
+      publicador.reintentar(evento, reintentos != null ? reintentos : 0, e);
+    }
+  }
+
+  void procesar(PasoSagaEvent evento) {
+    TrabajoRegistro trabajo = trabajoRepository.findById(evento.getTrabajoId()).orElse(null);
+    if (trabajo == null) {
+      log.warn("Trabajo de registro {} no encontrado, se descarta el paso", evento.getTrabajoId());
+      return;
+    }
+    if (trabajo.getEstado().esTerminal()) {
+      log.debug(
+          "Trabajo de registro {} ya terminado ({})", trabajo.getTrabajoId(), trabajo.getEstado());
+      return;
+    }
+    if (trabajo.getPaso() != evento.getPaso()) {
+      // El paso ya se ejecutó: el mensaje es un reintento tras fallar la publicación del
+      // siguiente paso, que se vuelve a publicar (los pasos solo avanzan en el orden del enum)
+      if (evento.getPaso().ordinal() < trabajo.getPaso().ordinal()) {
+        publicador.publicar(trabajo.getTrabajoId(), trabajo.getPaso());
+      }
+      return;
+    }
+
+    PasoRegistro pasoEsperado = trabajo.getPaso();
+    EstadoTrabajo estadoEsperado = trabajo.getEstado();
+    log.info(
+        "Ejecutando paso {} del trabajo de registro {} (cédula {})",
+        pasoEsperado,
+        trabajo.getTrabajoId(),
+        trabajo.getCedula());
+
+    boolean repetido = false;
+    if (pasoEsperado == PasoRegistro.REGISTRAR_GOVCARPETA) {
+      repetido = Boolean.TRUE.equals(trabajo.getRegistroGovCarpetaIntentado());
+      if (!repetido) {
+        trabajo.setRegistroGovCarpetaIntentado(true);
+        if (!trabajoRepository.actualizar(trabajo, pasoEsperado, estadoEsperado)) {
+          log.warn(
+              "Trabajo de registro {} modificado por otro consumidor antes del paso {}",
+              trabajo.getTrabajoId(),
+              pasoEsperado);
+          return;
+        }
+      }
+    }
+
+    switch (pasoEsperado) {
+      case REGISTRAR_GOVCARPETA -> registrarGovCarpeta(trabajo, repetido);
+      case GUARDAR_REGISTRO -> guardarRegistro(trabajo);
+      case CREAR_CARPETA -> crearCarpeta(trabajo);
+      case DESHACER_REGISTRO -> deshacerRegistro(trabajo);
+      case DESREGISTRAR_GOVCARPETA -> desregistrarGovCarpeta(trabajo);
+    }
+
+    if (!trabajoRepository.actualizar(trabajo, pasoEsperado, estadoEsperado)) {
+      log.warn(
+          "Trabajo de registro {} modificado por otro consumidor durante el paso {}",
+          trabajo.getTrabajoId(),
+          pasoEsperado);
+      return;
+    }
+    if (trabajo.getEstado().esTerminal()) {
+      registrarDuracion(trabajo);
+    } else {
+      publicador.publicar(trabajo.getTrabajoId(), trabajo.getPaso());
+    }
+  }
+
+  /**
+   * @param repetido true si un intento anterior del paso ya llamó a GovCarpeta, así que un 501
+   *     (ya registrado) es el registro de ese intento
+   */
+  private void registrarGovCarpeta(TrabajoRegistro trabajo, boolean repetido) {
+    GovCarpetaResponse govResponse;
+    try {
+      govResponse =
+          govCarpetaService.registrarCiudadano(
+              RegistrarCiudadanoRequest.builder()
+                  .cedula(trabajo.getCedula())
+                  .nombreCompleto(trabajo.getNombreCompleto())
+                  .direccion(trabajo.getDireccion())
+                  .build());
+    } catch (Exception e) {
+      log.error(
+          "Error registrando ciudadano {} en GovCarpeta: {}", trabajo.getCedula(), e.getMessage());
+      govResponse =
+          GovCarpetaResponse.builder()
+              .codigoRespuesta(500)
+              .exitoso(false)
+              .mensaje(e.getMessage())
+              .build();
+    } finally {
+      validacionCache.invalidar(trabajo.getCedula());
+    }
+
+    if (govResponse.getCodigoRespuesta() == 501 && repetido) {
+      log.info(
+          "Ciudadano {} ya registrado en GovCarpeta por un intento anterior del trabajo {}",
+          trabajo.getCedula(),
+          trabajo.getTrabajoId());
+      registrado(trabajo, govResponse);
+      return;
+    }
+    // 501 = ciudadano ya registrado en GovCarpeta
+    if (govResponse.getCodigoRespuesta() == 501) {
+      auditar(
+          trabajo,
+          AuditoriaRegistro.AccionAuditoria.REGISTRO_CIUDADANO,
+          "Ciudadano ya registrado en GovCarpeta",
+          govResponse.getCodigoRespuesta(),
+          govResponse.getMensaje());
+      terminar(trabajo, EstadoTrabajo.FALLIDO, 409, "Ciudadano ya registrado en GovCarpeta");
+      return;
+    }
+    if (govResponse.getCodigoRespuesta() >= 500) {
+      verificarRegistroGovCarpeta(trabajo, govResponse);
+      return;
+    }
+    if (!govResponse.getExitoso()) {
+      auditar(
+          trabajo,
+          AuditoriaRegistro.AccionAuditoria.ERROR_REGISTRO,
+          "Error en GovCarpeta",
+          govResponse.getCodigoRespuesta(),
+          govResponse.getMensaje());
+      terminar(
+          trabajo,
+          EstadoTrabajo.FALLIDO,
+          govResponse.getCodigoRespuesta(),
+          govResponse.getMensaje());
+      return;
+    }
+
+    registrado(trabajo, govResponse);
+  }
+
+  /**
+   * El registro falló sin respuesta clara (excepción, timeout, circuito abierto o 5xx): pudo
+   * hacerse en GovCarpeta aunque la respuesta se perdiera, así que se consulta antes de decidir.
+   */
+  private void verificarRegistroGovCarpeta(TrabajoRegistro trabajo, GovCarpetaResponse error) {
+    GovCarpetaResponse validacion;
+    try {
+      validacion = govCarpetaService.validarCiudadano(trabajo.getCedula());
+    } catch (Exception e) {
+      validacion = GovCarpetaResponse.builder().codigoRespuesta(500).exitoso(false).build();
+    }
+
+    // 200 = registrado, 204 = no registrado (ver GovCarpetaService#validarCiudadano)
+    if (validacion.getCodigoRespuesta() == 200) {
+      log.info(
+          "Registro del ciudadano {} hecho en GovCarpeta pese al error: {}",
+          trabajo.getCedula(),
+          error.getMensaje());
+      registrado(trabajo, validacion);
+      return;
+    }
+    if (validacion.getCodigoRespuesta() == 204) {
+      auditar(
+          trabajo,
+          AuditoriaRegistro.AccionAuditoria.ERROR_REGISTRO,
+          "Error en GovCarpeta",
+          error.getCodigoRespuesta(),
+          error.getMensaje());
+      terminar(trabajo, EstadoTrabajo.FALLIDO, error.getCodigoRespuesta(), error.getMensaje());
+      return;
+    }
+
+    // Estado desconocido: se deshace por si el registro llegó a hacerse
+    log.error(
+        "No se pudo comprobar el registro del ciudadano {} en GovCarpeta tras el error: {}",
+        trabajo.getCedula(),
+        error.getMensaje());
+    trabajo.setEstado(EstadoTrabajo.COMPENSANDO);
+    trabajo.setPaso(PasoRegistro.DESREGISTRAR_GOVCARPETA);
+    trabajo.setCodigoRespuesta(error.getCodigoRespuesta());
+    trabajo.setMensaje(error.getMensaje());
+  }
+
+  private void registrado(TrabajoRegistro trabajo, GovCarpetaResponse govResponse) {
+    trabajo.setCodigoRespuesta(govResponse.getCodigoRespuesta());
+    trabajo.setMensaje(govResponse.getMensaje());
+    trabajo.setPaso(PasoRegistro.GUARDAR_REGISTRO);
+  }
+
+  private void guardarRegistro(TrabajoRegistro trabajo) {
+    try {
+      registroRepository.save(
+          RegistroCiudadano.builder()
+              .cedula(trabajo.getCedula())
+              .nombreCompleto(trabajo.getNombreCompleto())
+              .direccion(trabajo.getDireccion())
+              .email(
+                  EmailCarpetaUtil.generarEmailCarpeta(
+                      trabajo.getNombreCompleto(), trabajo.getCedula().toString()))
+              .estado(RegistroCiudadano.EstadoRegistro.REGISTRADO)
+              .fechaRegistroGovCarpeta(LocalDateTime.now())
+              .activo(true)
+              .build());
+      trabajo.setPaso(PasoRegistro.CREAR_CARPETA);
+    } catch (Exception e) {
+      log.error(
+          "Error guardando el registro del ciudadano {}: {}", trabajo.getCedula(), e.getMessage());
+      compensar(trabajo, PasoRegistro.DESREGISTRAR_GOVCARPETA, e);
+    }
+  }
+
+  /**
+   * Crea la carpeta solo si el ciudadano no tiene una: un intento anterior del paso pudo crearla y
+   * fallar después. Si no se puede comprobar, el paso se reintenta más tarde.
+   */
+  private void crearCarpeta(TrabajoRegistro trabajo) {
+    String carpetaId = carpetaExistente(trabajo);
+    if (carpetaId == null) {
+      try {
+        // crearCarpetaCiudadana audita la creación y sus errores
+        carpetaId = ciudadanoRegistryService.crearCarpetaCiudadana(trabajo.getCedula());
+      } catch (Exception e) {
+        log.error(
+            "Error creando la carpeta del ciudadano {}: {}", trabajo.getCedula(), e.getMessage());
+        compensar(trabajo, PasoRegistro.DESHACER_REGISTRO, e);
+        return;
+      }
+    } else {
+      log.info(
+          "El ciudadano {} ya tiene la carpeta {}, no se crea otra",
+          trabajo.getCedula(),
+          carpetaId);
+    }
+    trabajo.setCarpetaId(carpetaId);
+
+    try {
+
+      RegistroCiudadano registro =
+          registroRepository
+              .findActiveByCedula(trabajo.getCedula())
+              .orElseThrow(
+                  () -> new ResourceNotFoundException("Ciudadano", "cedula", trabajo.getCedula()));
+      registro.setCarpetaId(carpetaId);
+      registroRepository.save(registro);
+
+      auditar(
+          trabajo,
+          AuditoriaRegistro.AccionAuditoria.REGISTRO_CIUDADANO,
+          "Registro exitoso",
+          trabajo.getCodigoRespuesta(),
+          trabajo.getMensaje());
+      terminar(trabajo, EstadoTrabajo.COMPLETADO, 201, "Ciudadano registrado exitosamente");
+    } catch (Exception e) {
+      log.error(
+          "Error asociando la carpeta {} al ciudadano {}: {}",
+          carpetaId,
+          trabajo.getCedula(),
+          e.getMessage());
+      compensar(trabajo, PasoRegistro.DESHACER_REGISTRO, e);
+    }
+  }
+
+  /** Carpeta ya creada para el ciudadano, o null si no tiene. */
+  private String carpetaExistente(TrabajoRegistro trabajo) {
+    if (trabajo.getCarpetaId() != null) {
+      return trabajo.getCarpetaId();
+    }
+    CarpetaCiudadanaResponse response =
+        carpetaCiudadanaService.buscarCarpetaPorCedula(trabajo.getCedula().toString());
+    if (response.getExitoso() && response.getData() != null) {
+      return response.getData().getCarpetaId();
+    }
+    if (response.getCodigoRespuesta() == 404) {
+      return null;
+    }
+    throw new IllegalStateException(
+        "No se pudo comprobar si el ciudadano "
+            + trabajo.getCedula()
+            + " ya tiene carpeta: "
+            + response.getMensaje());
+  }
+
+  /** Compensa GUARDAR_REGISTRO: el registro queda inactivo, con su historial en la auditoría. */
+  private void deshacerRegistro(TrabajoRegistro trabajo) {
+    try {
+      registroRepository
+          .findByCedula(trabajo.getCedula())
+          .ifPresent(
+              registro -> {
+                registro.setEstado(RegistroCiudadano.EstadoRegistro.ERROR_REGISTRO);
+                registro.setActivo(false);
+                registroRepository.save(registro);
+              });
+      trabajo.setPaso(PasoRegistro.DESREGISTRAR_GOVCARPETA);
+    } catch (Exception e) {
+      log.error(
+          "Error deshaciendo el registro del ciudadano {}: {}",
+          trabajo.getCedula(),
+          e.getMessage());
+      terminar(
+          trabajo,
+          EstadoTrabajo.COMPENSACION_FALLIDA,
+          500,
+          trabajo.getMensaje()
+              + " (no se pudo deshacer el registro local: "
+              + e.getMessage()
+              + ")");
+    }
+  }
+
+  /** Compensa REGISTRAR_GOVCARPETA; es el último paso de toda compensación. */
+  private void desregistrarGovCarpeta(TrabajoRegistro trabajo) {
+    String error;
+    try {
+      GovCarpetaResponse govResponse =
+          govCarpetaService.desregistrarCiudadano(
+              DesregistrarCiudadanoRequest.builder()
+                  .cedula(trabajo.getCedula())
+                  .motivoDesregistro(MOTIVO_COMPENSACION)
+                  .build());
+      if (govResponse.getExitoso()) {
+        auditar(
+            trabajo,
+            AuditoriaRegistro.AccionAuditoria.DESREGISTRO_CIUDADANO,
+            MOTIVO_COMPENSACION,
+            govResponse.getCodigoRespuesta(),
+            govResponse.getMensaje());
+        terminar(
+            trabajo, EstadoTrabajo.FALLIDO, trabajo.getCodigoRespuesta(), trabajo.getMensaje());
+        return;
+      }
+      error = govResponse.getMensaje();
+    } catch (Exception e) {
+      error = e.getMessage();
+    } finally {
+      validacionCache.invalidar(trabajo.getCedula());
+    }
+
+    log.error(
+        "No se pudo desregistrar en GovCarpeta al ciudadano {} tras un registro fallido: {}",
+        trabajo.getCedula(),
+        error);
+    auditar(
+        trabajo,
+        AuditoriaRegistro.AccionAuditoria.ERROR_DESREGISTRO,
+        MOTIVO_COMPENSACION,
+        500,
+        error);
+    terminar(
+        trabajo,
+        EstadoTrabajo.COMPENSACION_FALLIDA,
+        500,
+        trabajo.getMensaje() + " (no se pudo desregistrar en GovCarpeta: " + error + ")");
+  }
+
+  private void compensar(TrabajoRegistro trabajo, PasoRegistro compensacion, Exception causa) {
+    trabajo.setEstado(EstadoTrabajo.COMPENSANDO);
+    trabajo.setPaso(compensacion);
+    trabajo.setCodigoRespuesta(500);
+    trabajo.setMensaje(causa.getMessage());
+  }
+
+  private void terminar(
+      TrabajoRegistro trabajo, EstadoTrabajo estado, Integer codigoRespuesta, String mensaje) {
+    trabajo.setEstado(estado);
+    trabajo.setCodigoRespuesta(codigoRespuesta);
+    trabajo.setMensaje(mensaje);
+    trabajo.setExpiraEn(Instant.now().plus(retencion).getEpochSecond());
+  }
+
+  private void registrarDuracion(TrabajoRegistro trabajo) {
+    log.info(
+        "Trabajo de registro {} terminado: {} ({})",
+        trabajo.getTrabajoId(),
+        trabajo.getEstado(),
+        trabajo.getMensaje());
+    Timer.builder("registro.saga.duracion")
+        .description("Tiempo desde que se acepta un registro asíncrono hasta que termina")
+        .tag("estado", trabajo.getEstado().name())
+        .register(meterRegistry)
+        .record(Duration.between(trabajo.getFechaCreacion(), LocalDateTime.now()));
+  }
+
+  private void auditar(
+      TrabajoRegistro trabajo,
+      AuditoriaRegistro.AccionAuditoria accion,
+      String resultado,
+      Integer codigoRespuesta,
+      String mensajeRespuesta) {
+    auditoriaCadenaWriter.registrar(
+        AuditoriaRegistro.builder()
+            .cedulaCiudadano(trabajo.getCedula())
+            .accion(accion)
+            .resultado(resultado)
+            .codigoRespuesta(codigoRespuesta)
+            .mensajeRespuesta(mensajeRespuesta)
+            .detallesAdicionales("trabajoId=" + trabajo.getTrabajoId())
+            .fechaAccion(LocalDateTime.now())
+            .build());
+  }
+}
@@ -0,0 +1,16 @@
+package co.edu.eafit.carpeta.ciudadana.registry.util;
+
+/** Email de la carpeta de un ciudadano: el que se registra en GovCarpeta y en la carpeta. */
+public class EmailCarpetaUtil {
+
+  private EmailCarpetaUtil() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static String generarEmailCarpeta(String nombreCompleto, String cedula) {
+    String nombreNormalizado =
+        nombreCompleto.toLowerCase().replaceAll("\\s+", ".").replaceAll("[^a-z0-9.]", "");
+
+    return String.format("%s.%s@carpetacolombia.co", nombreNormalizado, cedula);
+  }
+}
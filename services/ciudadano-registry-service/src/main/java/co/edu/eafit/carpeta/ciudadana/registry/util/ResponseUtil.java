@@ -32,6 +32,10 @@ public class ResponseUtil {
     return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.success(data, message));
   }
 
+  public static <T> ResponseEntity<ApiResponse<T>> accepted(T data, String message) {
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(data, message));
+  }
+
   public static <T> ResponseEntity<ApiResponse<T>> noContent() {
     return ResponseEntity.noContent().build();
   }
@@ -0,0 +1,171 @@
+package co.edu.eafit.carpeta.ciudadana.registry.benchmark;
+
+import co.edu.eafit.carpeta.ciudadana.registry.config.DynamoDbInitializer;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.archivo.AuditoriaRegistroArchivo;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.batch.DynamoDbBatchExecutor;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.impl.AuditoriaRegistroRepositoryImpl;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.scan.DynamoDbParallelScanner;
+import co.edu.eafit.carpeta.ciudadana.registry.repository.schema.AuditoriaRegistroTableSchema;
+import co.edu.eafit.carpeta.ciudadana.registry.service.integridad.AuditoriaCadenaWriter;
+import co.edu.eafit.carpeta.ciudadana.registry.service.integridad.AuditoriaPendientes;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+/**
+ * Rendimiento de escritura de la auditoría: un putItem por entrada (sin cadena, como antes de la
+ * cadena de hashes) frente al escritor encadenado con lotes de una entrada y con group commit.
+ * Imprime entradas por segundo hasta que todas están confirmadas en DynamoDB.
+ *
+ * <p>Necesita un DynamoDB accesible en {@code -Ddynamodb.endpoint} (por defecto el de
+ * docker-compose, http://localhost:8002). Ejecutar con: {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test
+ * -Dexec.mainClass=co.edu.eafit.carpeta.ciudadana.registry.benchmark.AnexadoAuditoriaBenchmark}
+ */
+public class AnexadoAuditoriaBenchmark {
+
+  private static final int ENTRADAS = Integer.getInteger("benchmark.entradas", 20_000);
+  private static final int CIUDADANOS = Integer.getInteger("benchmark.ciudadanos", 200);
+  private static final int HILOS_PETICION = Integer.getInteger("benchmark.hilos", 32);
+
+  public static void main(String[] args) throws Exception {
+    String endpoint = System.getProperty("dynamodb.endpoint", "http://localhost:8002");
+    try (DynamoDbClient client =
+        DynamoDbClient.builder()
+            .endpointOverride(URI.create(endpoint))
+            .region(Region.US_EAST_1)
+            .credentialsProvider(
+                StaticCredentialsProvider.create(AwsBasicCredentials.create("dummy", "dummy")))
+            .build()) {
+      new AnexadoAuditoriaBenchmark(client).ejecutar();
+    }
+    System.exit(0);
+  }
+
+  private final DynamoDbTable<AuditoriaRegistro> auditoriaTable;
+  private final AuditoriaRegistroRepositoryImpl repository;
+
+  AnexadoAuditoriaBenchmark(DynamoDbClient client) throws Exception {
+    DynamoDbInitializer initializer = new DynamoDbInitializer();
+    ReflectionTestUtils.setField(initializer, "dynamoDbClient", client);
+    initializer.run();
+
+    auditoriaTable =
+        DynamoDbEnhancedClient.builder()
+            .dynamoDbClient(client)
+            .build()
+            .table(AuditoriaRegistroTableSchema.TABLE_NAME, AuditoriaRegistroTableSchema.SCHEMA);
+
+    // Sin capa fría: solo se mide la escritura
+    repository =
+        new AuditoriaRegistroRepositoryImpl(
+            client,
+            new DynamoDbBatchExecutor(client, 4, 5, 50),
+            new DynamoDbParallelScanner(client, 8, 500, 2000, 0),
+            new AuditoriaRegistroArchivo(
+                null, new ObjectMapper(), new SimpleMeterRegistry(), "benchmark", 1),
+            8,
+            7,
+            false,
+            365);
+  }
+
+  void ejecutar() throws InterruptedException {
+    medir("putItem por entrada", this::putIndividual, () -> {});
+
+    AuditoriaCadenaWriter sinAgrupar = writer(1);
+    medir("cadena, lote de 1", sinAgrupar::registrar, () -> apagar(sinAgrupar));
+
+    AuditoriaCadenaWriter agrupado = writer(64);
+    medir("cadena, group commit 64", agrupado::registrar, () -> apagar(agrupado));
+  }
+
+  private void putIndividual(AuditoriaRegistro auditoria) {
+    auditoria.setPk("CIUDADANO#" + auditoria.getCedulaCiudadano());
+    auditoria.setSk(
+        AuditoriaRegistroTableSchema.PREFIJO_AUDITORIA
+            + auditoria.getFechaAccion()
+            + "#"
+            + UUID.randomUUID());
+    auditoria.setDiaAccion(
+        AuditoriaRegistroTableSchema.particionDia(
+            auditoria.getFechaAccion().toLocalDate(), auditoria.getSk()));
+    auditoriaTable.putItem(auditoria);
+  }
+
+  private AuditoriaCadenaWriter writer(int loteMaximo) {
+    // Sin RabbitMQ: con DynamoDB accesible no se aparca nada
+    return new AuditoriaCadenaWriter(
+        repository,
+        new AuditoriaPendientes(null),
+        ENTRADAS,
+        loteMaximo,
+        50,
+        200,
+        32,
+        5_000,
+        50,
+        1_000,
+        600_000,
+        4);
+  }
+
+  private static void apagar(AuditoriaCadenaWriter writer) {
+    try {
+      writer.shutdown();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Envía todas las entradas desde {@code HILOS_PETICION} hilos, como lo harían las peticiones, y
+   * espera a que {@code vaciar} deje todo escrito.
+   */
+  private void medir(String nombre, Consumer<AuditoriaRegistro> escribir, Runnable vaciar)
+      throws InterruptedException {
+    ExecutorService peticiones = Executors.newFixedThreadPool(HILOS_PETICION);
+    long inicio = System.nanoTime();
+    for (int i = 0; i < ENTRADAS; i++) {
+      peticiones.execute(() -> escribir.accept(entrada()));
+    }
+    peticiones.shutdown();
+    peticiones.awaitTermination(1, TimeUnit.HOURS);
+    vaciar.run();
+    double segundos = (System.nanoTime() - inicio) / 1e9;
+
+    System.out.printf(
+        "%-26s n=%d  %.1f s  %.0f entradas/s%n", nombre, ENTRADAS, segundos, ENTRADAS / segundos);
+  }
+
+  private static AuditoriaRegistro entrada() {
+    long cedula = 1_000_000_000L + ThreadLocalRandom.current().nextInt(CIUDADANOS);
+    return AuditoriaRegistro.builder()
+        .cedulaCiudadano(cedula)
+        .accion(AuditoriaRegistro.AccionAuditoria.VALIDACION_CIUDADANO)
+        .operadorId("operador-benchmark")
+        .operadorNombre("Operador Benchmark")
+        .resultado("EXITOSO")
+        .codigoRespuesta(200)
+        .mensajeRespuesta("Ciudadano validado")
+        .ipOrigen("10.0.0.1")
+        .userAgent("benchmark")
+        .fechaAccion(LocalDateTime.now())
+        .build();
+  }
+}
@@ -0,0 +1,98 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.integridad;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ArbolMerkleTest {
+
+  private static final HexFormat HEX = HexFormat.of();
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8, 9, 17})
+  void laPruebaDeCadaHojaVerificaContraLaRaiz(int tamano) {
+    List<String> hojas = hojas(tamano);
+    String raiz = ArbolMerkle.raiz(hojas);
+
+    for (int i = 0; i < tamano; i++) {
+      List<String> prueba = ArbolMerkle.prueba(hojas, i);
+      assertThat(prueba).hasSize(32 - Integer.numberOfLeadingZeros(tamano - 1));
+      assertThat(ArbolMerkle.verificar(hojas.get(i), i, prueba, raiz)).isTrue();
+    }
+  }
+
+  @Test
+  void enNivelesImparesElUltimoNodoSeCombinaConsigoMismo() {
+    List<String> hojas = hojas(3);
+    String h0 = hoja(hojas.get(0));
+    String h1 = hoja(hojas.get(1));
+    String h2 = hoja(hojas.get(2));
+
+    assertThat(ArbolMerkle.raiz(hojas)).isEqualTo(nodo(nodo(h0, h1), nodo(h2, h2)));
+    assertThat(ArbolMerkle.prueba(hojas, 2)).containsExactly(h2, nodo(h0, h1));
+  }
+
+  @Test
+  void laHojaEsDistintaDeSuHashYUnaSolaHojaEsLaRaiz() {
+    List<String> hojas = hojas(1);
+
+    assertThat(ArbolMerkle.raiz(hojas)).isEqualTo(hoja(hojas.get(0))).isNotEqualTo(hojas.get(0));
+    assertThat(ArbolMerkle.prueba(hojas, 0)).isEmpty();
+  }
+
+  @Test
+  void rechazaEntradaAlteradaPosicionAjenaOPruebaDeOtraHoja() {
+    List<String> hojas = hojas(5);
+    String raiz = ArbolMerkle.raiz(hojas);
+    List<String> prueba = ArbolMerkle.prueba(hojas, 1);
+
+    assertThat(ArbolMerkle.verificar(hojas.get(1), 0, prueba, raiz)).isFalse();
+    assertThat(ArbolMerkle.verificar(hojas.get(3), 1, prueba, raiz)).isFalse();
+    assertThat(ArbolMerkle.verificar(hojas.get(1), 1, ArbolMerkle.prueba(hojas, 2), raiz))
+        .isFalse();
+    assertThat(ArbolMerkle.verificar(hojas.get(1), 1, prueba, ArbolMerkle.raiz(hojas(4))))
+        .isFalse();
+  }
+
+  @Test
+  void unNodoInternoNoPasaPorHoja() {
+    List<String> hojas = hojas(4);
+    String raiz = ArbolMerkle.raiz(hojas);
+    // El nodo interno izquierdo como si fuera una hoja de un árbol de dos niveles
+    String interno = nodo(hoja(hojas.get(0)), hoja(hojas.get(1)));
+    List<String> prueba = List.of(ArbolMerkle.prueba(hojas, 0).get(1));
+
+    assertThat(ArbolMerkle.verificar(interno, 0, prueba, raiz)).isFalse();
+  }
+
+  @Test
+  void rechazaArbolVacioEIndiceFueraDeRango() {
+    assertThatThrownBy(() -> ArbolMerkle.raiz(List.of()))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> ArbolMerkle.prueba(hojas(3), 3))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> ArbolMerkle.prueba(hojas(3), -1))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  private static List<String> hojas(int tamano) {
+    return IntStream.range(0, tamano)
+        .mapToObj(i -> HashAuditoria.sha256(("entrada-" + i).getBytes(StandardCharsets.UTF_8)))
+        .toList();
+  }
+
+  private static String hoja(String hashEntrada) {
+    return HashAuditoria.sha256(new byte[] {0x00}, HEX.parseHex(hashEntrada));
+  }
+
+  private static String nodo(String izquierda, String derecha) {
+    return HashAuditoria.sha256(new byte[] {0x01}, HEX.parseHex(izquierda), HEX.parseHex(derecha));
+  }
+}
@@ -0,0 +1,95 @@
+package co.edu.eafit.carpeta.ciudadana.registry.service.integridad;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro;
+import co.edu.eafit.carpeta.ciudadana.registry.entity.AuditoriaRegistro.AccionAuditoria;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+class HashAuditoriaTest {
+
+  private static final LocalDateTime FECHA = LocalDateTime.of(2024, 5, 17, 10, 30, 15, 123000000);
+
+  @Test
+  void serializaCadaCampoConSuLongitudYNulosComoGuion() {
+    AuditoriaRegistro auditoria =
+        entrada().operadorNombre(null).mensajeRespuesta(null).userAgent(null).build();
+
+    String canonico =
+        "10:1234567890;"
+            + "1:7;"
+            + "3:abc;"
+            + "18:REGISTRO_CIUDADANO;"
+            + "4:op-1;"
+            + "-;"
+            + "5:EXITO;"
+            + "3:201;"
+            + "-;"
+            + "2:{};"
+            + "8:10.0.0.1;"
+            + "-;"
+            + "23:2024-05-17T10:30:15.123;";
+    assertThat(HashAuditoria.calcular(auditoria))
+        .isEqualTo(HashAuditoria.sha256(canonico.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void moverTextoEntreCamposCambiaElHash() {
+    String base = HashAuditoria.calcular(entrada().operadorId("ab").operadorNombre("c").build());
+
+    assertThat(HashAuditoria.calcular(entrada().operadorId("a").operadorNombre("bc").build()))
+        .isNotEqualTo(base);
+    assertThat(HashAuditoria.calcular(entrada().operadorId("ab;1:c").operadorNombre(null).build()))
+        .isNotEqualTo(base);
+  }
+
+  @Test
+  void distingueNuloDeGuionYDeCadenaVacia() {
+    String nulo = HashAuditoria.calcular(entrada().detallesAdicionales(null).build());
+
+    assertThat(HashAuditoria.calcular(entrada().detallesAdicionales("-").build()))
+        .isNotEqualTo(nulo);
+    assertThat(HashAuditoria.calcular(entrada().detallesAdicionales("").build()))
+        .isNotEqualTo(nulo);
+  }
+
+  @Test
+  void encadenaElHashAnterior() {
+    assertThat(HashAuditoria.calcular(entrada().hashAnterior("abd").build()))
+        .isNotEqualTo(HashAuditoria.calcular(entrada().build()));
+  }
+
+  @Test
+  void ignoraClavesTtlYHashPropio() {
+    String base = HashAuditoria.calcular(entrada().build());
+
+    AuditoriaRegistro archivada =
+        entrada()
+            .pk("CIUDADANO#1234567890")
+            .sk("AUDITORIA#otro")
+            .diaAccion("2024-05-17#3")
+            .expiraEn(1_900_000_000L)
+            .hash(base)
+            .build();
+    assertThat(HashAuditoria.calcular(archivada)).isEqualTo(base);
+  }
+
+  private static AuditoriaRegistro.AuditoriaRegistroBuilder entrada() {
+    return AuditoriaRegistro.builder()
+        .cedulaCiudadano(1234567890L)
+        .secuencia(7L)
+        .hashAnterior("abc")
+        .accion(AccionAuditoria.REGISTRO_CIUDADANO)
+        .operadorId("op-1")
+        .operadorNombre("Operador")
+        .resultado("EXITO")
+        .codigoRespuesta(201)
+        .mensajeRespuesta("Creado")
+        .detallesAdicionales("{}")
+        .ipOrigen("10.0.0.1")
+        .userAgent("curl/8.0")
+        .fechaAccion(FECHA);
+  }
+}
@@ -24,6 +24,14 @@ class Settings(BaseSettings):
     # RabbitMQ Configuration
     rabbitmq_url: str
     document_authenticated_queue: str = "documento.autenticado.queue"
+    # Consistent-hash exchange declared by carpeta-ciudadana-service; shards by carpetaId
+    document_authenticated_exchange: str = "documento.autenticado.sharded"
+    # Lane for bulk traffic, consumed with capped capacity by carpeta-ciudadana-service
+    document_authenticated_bulk_queue: str = "documento.autenticado.masivo.queue"
+    # Bulk requests processed at the same time; interactive requests are not limited
+    bulk_max_concurrency: int = 2
+    # Seconds between probes for the sharded exchange or bulk queue while they are missing
+    topology_probe_interval_seconds: float = 60.0
 
     # External Services
     carpeta_ciudadana_service_url: str
@@ -8,6 +8,9 @@ responses, and internal event structures.
 from pydantic import BaseModel, Field, UUID4
 from datetime import datetime
 from typing import Optional
+from uuid import uuid4
+
+from app.models.enums import AuthenticationPriority
 
 
 class AuthenticateDocumentRequest(BaseModel):
@@ -19,6 +22,8 @@ class AuthenticateDocumentRequest(BaseModel):
         document_title: Human-readable title of the document (e.g., "Diploma Grado")
         dummy_jwt: If True, skip JWT validation and extract claims directly from token as JSON
         dummy_url: If provided, use this URL instead of calling carpeta-ciudadana-service
+        priority: Traffic lane; bulk imports must send "bulk" so they do not delay
+                  citizens waiting on an interactive request
     """
 
     document_id: str = Field(
@@ -37,6 +42,10 @@ class AuthenticateDocumentRequest(BaseModel):
         description="Use this presigned URL instead of fetching from carpeta-ciudadana-service",
         alias="dummyURL",
     )
+    priority: AuthenticationPriority = Field(
+        default=AuthenticationPriority.INTERACTIVE,
+        description="Traffic lane: interactive (default) or bulk",
+    )
 
     model_config = {"populate_by_name": True}
 
@@ -86,6 +95,8 @@ class DocumentoAutenticadoEvent(BaseModel):
     after processing the authentication request.
 
     Attributes:
+        eventoId: Stable event ID, also sent as the AMQP message_id so
+            consumers can drop redeliveries
         documentoId: Document UUID
         carpetaId: Folder UUID (from JWT token)
         statusCode: Result status code (200, 204, 500, 501)
@@ -93,6 +104,9 @@ class DocumentoAutenticadoEvent(BaseModel):
         fechaAutenticacion: Timestamp when authentication was processed
     """
 
+    eventoId: str = Field(
+        default_factory=lambda: str(uuid4()), description="Stable event ID"
+    )
     documentoId: str = Field(..., description="Document UUID")
     carpetaId: str = Field(..., description="Folder UUID from JWT token")
     statusCode: str = Field(..., description="Authentication status code")
@@ -19,6 +19,13 @@ class AuthenticationStatus(str, Enum):
     SERVICE_UNAVAILABLE = "503"
 
 
+class AuthenticationPriority(str, Enum):
+    """Traffic lane of an authentication request."""
+
+    INTERACTIVE = "interactive"
+    BULK = "bulk"
+
+
 class AuthenticationMessage(str, Enum):
     """Standard messages for authentication responses."""
 
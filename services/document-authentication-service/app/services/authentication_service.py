@@ -9,6 +9,7 @@ authentication requests, including:
 4. Publishing results to RabbitMQ
 """
 
+import asyncio
 import logging
 from datetime import datetime
 
@@ -18,7 +19,12 @@ from app.models import (
     DocumentoAutenticadoEvent,
     JWTPayload,
 )
-from app.models.enums import AuthenticationStatus, AuthenticationMessage
+from app.config import settings
+from app.models.enums import (
+    AuthenticationMessage,
+    AuthenticationPriority,
+    AuthenticationStatus,
+)
 from app.services.external_services import (
     check_gov_carpeta_health,
     get_presigned_document_url,
@@ -29,11 +35,38 @@ from app.services.rabbitmq_client import rabbitmq_client
 
 logger = logging.getLogger(__name__)
 
+# Bulk requests share a few slots so they never use all the Gov Carpeta
+# capacity; interactive requests do not wait on them
+_bulk_slots = asyncio.Semaphore(settings.bulk_max_concurrency)
+
 
 async def process_document_authentication(
     request: AuthenticateDocumentRequest,
     jwt_payload: JWTPayload,
     raw_token: str,
+) -> None:
+    """
+    Process document authentication in the background, in the request's lane.
+
+    Bulk requests wait for one of the bulk_max_concurrency slots; interactive
+    requests start immediately.
+
+    Args:
+        request: Document authentication request data (may include dummyURL)
+        jwt_payload: Decoded JWT token payload
+        raw_token: Raw JWT token string for service-to-service calls
+    """
+    if request.priority == AuthenticationPriority.BULK:
+        async with _bulk_slots:
+            await _authenticate(request, jwt_payload, raw_token)
+    else:
+        await _authenticate(request, jwt_payload, raw_token)
+
+
+async def _authenticate(
+    request: AuthenticateDocumentRequest,
+    jwt_payload: JWTPayload,
+    raw_token: str,
 ) -> None:
     """
     Process document authentication in the background.
@@ -86,7 +119,7 @@ async def process_document_authentication(
                 mensaje=AuthenticationMessage.GOV_CARPETA_UNAVAILABLE.value,
                 fechaAutenticacion=datetime.now(),
             )
-            await rabbitmq_client.publish_authentication_event(event)
+            await rabbitmq_client.publish_authentication_event(event, request.priority)
             return
 
         # Step 2: Get presigned URL (or use dummy URL if provided)
@@ -113,7 +146,7 @@ async def process_document_authentication(
                     mensaje=f"Failed to retrieve document URL: {str(e)}",
                     fechaAutenticacion=datetime.now(),
                 )
-                await rabbitmq_client.publish_authentication_event(event)
+                await rabbitmq_client.publish_authentication_event(event, request.priority)
                 return
 
         # Step 3: Authenticate with Gov Carpeta
@@ -138,7 +171,7 @@ async def process_document_authentication(
                 mensaje=result["message"],
                 fechaAutenticacion=datetime.now(),
             )
-            await rabbitmq_client.publish_authentication_event(event)
+            await rabbitmq_client.publish_authentication_event(event, request.priority)
             logger.info(
                 f"Authentication event published successfully for document {documentoId}"
             )
@@ -152,7 +185,7 @@ async def process_document_authentication(
                 mensaje=f"Authentication failed: {str(e)}",
                 fechaAutenticacion=datetime.now(),
             )
-            await rabbitmq_client.publish_authentication_event(event)
+            await rabbitmq_client.publish_authentication_event(event, request.priority)
 
     except Exception as e:
         # Catch-all for unexpected errors
@@ -165,7 +198,7 @@ async def process_document_authentication(
                 mensaje=f"Internal error: {str(e)}",
                 fechaAutenticacion=datetime.now(),
             )
-            await rabbitmq_client.publish_authentication_event(event)
+            await rabbitmq_client.publish_authentication_event(event, request.priority)
         except Exception as publish_error:
             logger.critical(
                 f"Failed to publish error event to RabbitMQ: {str(publish_error)}"
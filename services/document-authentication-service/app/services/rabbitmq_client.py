@@ -2,18 +2,28 @@
 RabbitMQ client for publishing document authentication events.
 
 This module handles connection to RabbitMQ and publishing events
-to the documento.autenticado.queue queue.
+to the documento.autenticado.sharded exchange, falling back to the
+documento.autenticado.queue queue when the exchange does not exist.
+Bulk events go to their own lane, documento.autenticado.masivo.queue,
+so a bulk import does not queue ahead of interactive results.
+While the exchange or the bulk queue are missing they are probed again
+every topology_probe_interval_seconds, so the client switches to them
+once carpeta-ciudadana-service declares them, without a restart.
 """
 
+import asyncio
 import json
 import logging
+import time
+from datetime import datetime, timezone
 from typing import Optional
 import aio_pika
 from aio_pika import connect_robust, Message, DeliveryMode
-from aio_pika.abc import AbstractConnection, AbstractChannel
+from aio_pika.abc import AbstractConnection, AbstractChannel, AbstractExchange
 
 from app.config import settings
 from app.models import DocumentoAutenticadoEvent
+from app.models.enums import AuthenticationPriority
 
 logger = logging.getLogger(__name__)
 
@@ -31,6 +41,11 @@ class RabbitMQClient:
         self.connection: Optional[AbstractConnection] = None
         self.channel: Optional[AbstractChannel] = None
         self.queue_name = settings.document_authenticated_queue
+        self.exchange: Optional[AbstractExchange] = None
+        self.bulk_queue_name = settings.document_authenticated_bulk_queue
+        self.bulk_lane_available = False
+        self._last_probe = 0.0
+        self._probe_lock = asyncio.Lock()
 
     async def connect(self) -> None:
         """
@@ -47,11 +62,91 @@ class RabbitMQClient:
             self.channel = await self.connection.channel()
             # Declare queue to ensure it exists
             await self.channel.declare_queue(self.queue_name, durable=True)
+            await self._probe_topology()
             logger.info(f"Connected to RabbitMQ and declared queue: {self.queue_name}")
         except Exception as e:
             logger.error(f"Failed to connect to RabbitMQ: {str(e)}")
             raise
 
+    async def _probe_topology(self) -> None:
+        """Look up the sharded exchange and the bulk queue that are still missing."""
+        self._last_probe = time.monotonic()
+        if self.exchange is None:
+            self.exchange = await self._find_sharded_exchange()
+            if self.exchange is not None:
+                logger.info(
+                    f"Publishing to exchange {settings.document_authenticated_exchange}"
+                )
+        if not self.bulk_lane_available:
+            self.bulk_lane_available = await self._find_bulk_queue()
+
+    async def _refresh_topology(self) -> None:
+        """
+        Probe again for the missing exchange or bulk queue once the probe
+        interval has elapsed. A failed probe only keeps the current routing.
+        """
+        if self.exchange is not None and self.bulk_lane_available:
+            return
+        if time.monotonic() - self._last_probe < settings.topology_probe_interval_seconds:
+            return
+        async with self._probe_lock:
+            # Another publish may have probed while this one waited
+            if time.monotonic() - self._last_probe < settings.topology_probe_interval_seconds:
+                return
+            try:
+                await self._probe_topology()
+            except Exception as e:
+                logger.warning(f"RabbitMQ topology probe failed: {str(e)}")
+
+    async def _find_sharded_exchange(self) -> Optional[AbstractExchange]:
+        """
+        Look up the sharded exchange declared by carpeta-ciudadana-service.
+
+        The check is a passive declare on a throwaway channel, because a
+        failed passive declare closes the channel it runs on.
+
+        Returns:
+            The exchange bound to the publishing channel, or None when it
+            does not exist yet and events must go to the legacy queue
+        """
+        name = settings.document_authenticated_exchange
+        probe = await self.connection.channel()
+        try:
+            await probe.get_exchange(name, ensure=True)
+        except Exception as e:
+            logger.warning(
+                f"Exchange {name} not available, publishing to queue "
+                f"{self.queue_name}: {str(e)}"
+            )
+            return None
+        finally:
+            if not probe.is_closed:
+                await probe.close()
+
+        return await self.channel.get_exchange(name, ensure=False)
+
+    async def _find_bulk_queue(self) -> bool:
+        """
+        Check that the bulk lane queue declared by carpeta-ciudadana-service exists.
+
+        Returns:
+            True if the queue exists; otherwise bulk events are published
+            to the interactive lane
+        """
+        probe = await self.connection.channel()
+        try:
+            await probe.declare_queue(self.bulk_queue_name, passive=True)
+            return True
+        except Exception as e:
+            logger.warning(
+                f"Queue {self.bulk_queue_name} not available, bulk events will "
+                f"use the interactive lane: {str(e)}"
+            )
+            return False
+        finally:
+            if not probe.is_closed:
+                await probe.close()
+
     async def disconnect(self) -> None:
         """
         Close RabbitMQ connection gracefully.
@@ -68,13 +163,24 @@ class RabbitMQClient:
             logger.error(f"Error disconnecting from RabbitMQ: {str(e)}")
 
     async def publish_authentication_event(
-        self, event: DocumentoAutenticadoEvent
+        self,
+        event: DocumentoAutenticadoEvent,
+        priority: AuthenticationPriority = AuthenticationPriority.INTERACTIVE,
     ) -> None:
         """
-        Publish document authentication event to RabbitMQ queue.
+        Publish document authentication event to RabbitMQ.
+
+        Interactive events are published to the sharded exchange, where the
+        carpetaId header selects the shard, so events of the same carpeta are
+        consumed in publication order. Bulk events are published to the bulk
+        lane queue. The lane travels in the x-carril header and the publish
+        time in the x-publicado-ms header (epoch milliseconds; the message
+        timestamp only has second resolution), which the consumer uses to
+        measure per-lane latency.
 
         Args:
             event: DocumentoAutenticadoEvent instance to publish
+            priority: Lane of the request that produced the event
 
         Raises:
             Exception: If publishing fails
@@ -83,6 +189,8 @@ class RabbitMQClient:
             logger.error("RabbitMQ channel not initialized")
             raise Exception("RabbitMQ channel not initialized")
 
+        await self._refresh_topology()
+
         try:
             # Convert event to JSON
             event_dict = event.model_dump()
@@ -92,20 +200,34 @@ class RabbitMQClient:
             message_body = json.dumps(event_dict)
 
             # Create message with persistent delivery mode
+            published_at = datetime.now(timezone.utc)
             message = Message(
                 body=message_body.encode(),
                 delivery_mode=DeliveryMode.PERSISTENT,
                 content_type="application/json",
+                message_id=event.eventoId,
+                headers={
+                    "carpetaId": event.carpetaId,
+                    "x-carril": priority.value,
+                    "x-publicado-ms": int(published_at.timestamp() * 1000),
+                },
+                timestamp=published_at,
             )
 
-            # Publish to queue
-            await self.channel.default_exchange.publish(
-                message, routing_key=self.queue_name
-            )
+            if priority == AuthenticationPriority.BULK and self.bulk_lane_available:
+                await self.channel.default_exchange.publish(
+                    message, routing_key=self.bulk_queue_name
+                )
+            elif self.exchange:
+                await self.exchange.publish(message, routing_key=event.carpetaId)
+            else:
+                await self.channel.default_exchange.publish(
+                    message, routing_key=self.queue_name
+                )
 
             logger.info(
                 f"Published authentication event for document {event.documentoId} "
-                f"with status {event.statusCode}"
+                f"with status {event.statusCode} ({priority.value} lane)"
             )
         except Exception as e:
             logger.error(f"Failed to publish event to RabbitMQ: {str(e)}")
@@ -31,6 +31,16 @@ class TestConfiguration(unittest.TestCase):
                 settings.document_authenticated_queue,
                 "documento.autenticado.queue",
             )
+            self.assertEqual(
+                settings.document_authenticated_exchange,
+                "documento.autenticado.sharded",
+            )
+            self.assertEqual(
+                settings.document_authenticated_bulk_queue,
+                "documento.autenticado.masivo.queue",
+            )
+            self.assertEqual(settings.bulk_max_concurrency, 2)
+            self.assertEqual(settings.topology_probe_interval_seconds, 60.0)
 
     def test_custom_values(self):
         """Test that custom environment values override defaults."""
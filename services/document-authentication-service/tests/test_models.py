@@ -13,6 +13,7 @@ from app.models import (
     DocumentoAutenticadoEvent,
     JWTPayload,
 )
+from app.models.enums import AuthenticationPriority
 
 
 class TestAuthenticateDocumentRequest(unittest.TestCase):
@@ -42,6 +43,23 @@ class TestAuthenticateDocumentRequest(unittest.TestCase):
         with self.assertRaises(ValidationError):
             AuthenticateDocumentRequest(documentId="123")
 
+    def test_default_priority(self):
+        """Test that requests are interactive unless marked as bulk."""
+        request = AuthenticateDocumentRequest(documentId="123", documentTitle="Acta")
+        self.assertEqual(request.priority, AuthenticationPriority.INTERACTIVE)
+
+        bulk = AuthenticateDocumentRequest(
+            documentId="123", documentTitle="Acta", priority="bulk"
+        )
+        self.assertEqual(bulk.priority, AuthenticationPriority.BULK)
+
+    def test_invalid_priority(self):
+        """Test that unknown lanes are rejected."""
+        with self.assertRaises(ValidationError):
+            AuthenticateDocumentRequest(
+                documentId="123", documentTitle="Acta", priority="urgent"
+            )
+
 
 class TestGovCarpetaAuthenticationRequest(unittest.TestCase):
     """Test cases for GovCarpetaAuthenticationRequest model."""
@@ -99,6 +117,19 @@ class TestDocumentoAutenticadoEvent(unittest.TestCase):
         self.assertIsInstance(event.fechaAutenticacion, datetime)
         self.assertIsNone(event.fechaAutenticacion.tzinfo)
 
+    def test_default_evento_id(self):
+        """Test that each event gets its own stable event ID."""
+        kwargs = dict(
+            documentoId="doc-123",
+            carpetaId="folder-456",
+            statusCode="200",
+            mensaje="Success",
+        )
+        event = DocumentoAutenticadoEvent(**kwargs)
+        self.assertTrue(event.eventoId)
+        self.assertEqual(event.model_dump()["eventoId"], event.eventoId)
+        self.assertNotEqual(event.eventoId, DocumentoAutenticadoEvent(**kwargs).eventoId)
+
 
 class TestJWTPayload(unittest.TestCase):
     """Test cases for JWTPayload model."""